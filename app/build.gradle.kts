@@ -14,6 +14,19 @@ android {
         versionName = "1.0"
 
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+
+        // Tile server for the map, overridable with -PtileUrl=... Prefetching tiles around zones is a bulk
+        // download, which the OpenStreetMap tile servers forbid, so it stays off unless -PtilePrefetch=true
+        // is given together with a server that allows it
+        val tileUrl = project.findProperty("tileUrl")?.toString() ?: "https://tile.openstreetmap.org/{z}/{x}/{y}.png"
+        buildConfigField("String", "TILE_URL", "\"$tileUrl\"")
+        buildConfigField("boolean", "TILE_PREFETCH", (project.findProperty("tilePrefetch") ?: "false").toString())
+
+        javaCompileOptions {
+            annotationProcessorOptions {
+                arguments += mapOf("room.schemaLocation" to "$projectDir/schemas")
+            }
+        }
     }
 
     buildTypes {
@@ -26,10 +39,22 @@ android {
         }
     }
 
+    buildFeatures {
+        buildConfig = true
+    }
+
     compileOptions {
         sourceCompatibility = JavaVersion.VERSION_11
         targetCompatibility = JavaVersion.VERSION_11
     }
+
+    testOptions {
+        // Robolectric tests inflate the real layouts
+        unitTests.isIncludeAndroidResources = true
+    }
+
+    // MigrationTestHelper reads the exported schema of every version
+    sourceSets["androidTest"].assets.srcDir("$projectDir/schemas")
 }
 
 dependencies {
@@ -46,12 +71,22 @@ dependencies {
     // Core Android
     implementation("androidx.core:core:1.12.0")
 
+    // Zone index and evaluation, shared with the JVM replay tooling
+    implementation(project(":core"))
+
     // Room for Java
     implementation("androidx.room:room-runtime:2.6.1")
     annotationProcessor("androidx.room:room-compiler:2.6.1")
+    implementation("androidx.lifecycle:lifecycle-livedata:2.6.2")
 
     // Testing
     testImplementation(libs.junit)
+    // android.jar only has stubs of org.json
+    testImplementation("org.json:json:20231013")
+    testImplementation("org.robolectric:robolectric:4.14.1")
+    testImplementation("androidx.test:core:1.6.1")
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
+    androidTestImplementation("androidx.sqlite:sqlite-framework:2.4.0")
+    androidTestImplementation("androidx.room:room-testing:2.6.1")
 }
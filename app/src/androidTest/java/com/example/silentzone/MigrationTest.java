@@ -0,0 +1,223 @@
+package com.example.silentzone;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.room.migration.Migration;
+import androidx.room.testing.MigrationTestHelper;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Creates databases from the schemas exported for each released version
+ * (app/schemas), runs the migrations one step at a time and validates the
+ * result against the next exported schema, so the migration SQL cannot drift
+ * from the entities. The DAO tests then open the migrated database through Room.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MigrationTest {
+    private static final String TEST_DB = "migration-test";
+
+    private static final Migration[] ALL_MIGRATIONS = {
+            AppDatabase.MIGRATION_1_2, AppDatabase.MIGRATION_2_3, AppDatabase.MIGRATION_3_4,
+            AppDatabase.MIGRATION_4_5, AppDatabase.MIGRATION_5_6, AppDatabase.MIGRATION_6_7
+    };
+
+    @Rule
+    public final MigrationTestHelper helper = new MigrationTestHelper(
+            InstrumentationRegistry.getInstrumentation(), AppDatabase.class);
+
+    private Context context;
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @After
+    public void tearDown() {
+        if (db != null) {
+            db.close();
+        }
+        context.deleteDatabase(TEST_DB);
+    }
+
+    @Test
+    public void migrate1To2_defaultsRadiusAndLeavesPolygonEmpty() throws IOException {
+        createVersion(1, "INSERT INTO SilentZone (latitude, longitude, name) VALUES (10.85, 76.27, 'Hall')");
+
+        try (SupportSQLiteDatabase migrated = helper.runMigrationsAndValidate(TEST_DB, 2, true,
+                AppDatabase.MIGRATION_1_2);
+             Cursor cursor = migrated.query("SELECT radius, polygon FROM SilentZone")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(SilentZone.DEFAULT_RADIUS, cursor.getFloat(0), 0);
+            assertTrue(cursor.isNull(1));
+        }
+    }
+
+    @Test
+    public void migrate2To3_backfillsBounds() throws IOException {
+        createVersion(2,
+                "INSERT INTO SilentZone (latitude, longitude, name, radius, polygon) VALUES "
+                        + "(10.85, 76.27, 'Current Location', 100, NULL)",
+                "INSERT INTO SilentZone (latitude, longitude, name, radius, polygon) VALUES "
+                        + "(10.852, 76.272, 'Campus', 100, '10.850,76.270;10.850,76.274;10.854,76.272')");
+
+        double[] circle = new double[4];
+        ZoneGeometry.bounds(10.85, 76.27, SilentZone.DEFAULT_RADIUS, null, circle);
+        try (SupportSQLiteDatabase migrated = helper.runMigrationsAndValidate(TEST_DB, 3, true,
+                AppDatabase.MIGRATION_2_3);
+             Cursor cursor = migrated.query("SELECT minLat, maxLat, minLon, maxLon FROM SilentZone ORDER BY id")) {
+            assertTrue(cursor.moveToNext());
+            assertEquals(circle[0], cursor.getDouble(0), 1e-9);
+            assertEquals(circle[1], cursor.getDouble(1), 1e-9);
+            assertEquals(circle[2], cursor.getDouble(2), 1e-9);
+            assertEquals(circle[3], cursor.getDouble(3), 1e-9);
+
+            // The polygon's vertices, not its radius
+            assertTrue(cursor.moveToNext());
+            assertEquals(10.850, cursor.getDouble(0), 1e-12);
+            assertEquals(10.854, cursor.getDouble(1), 1e-12);
+            assertEquals(76.270, cursor.getDouble(2), 1e-12);
+            assertEquals(76.274, cursor.getDouble(3), 1e-12);
+        }
+    }
+
+    @Test
+    public void migrate3To4_createsGeocodeCache() throws IOException {
+        createVersion(3);
+        helper.runMigrationsAndValidate(TEST_DB, 4, true, AppDatabase.MIGRATION_3_4).close();
+    }
+
+    @Test
+    public void migrate4To5_createsImportCheckpoints() throws IOException {
+        createVersion(4);
+        helper.runMigrationsAndValidate(TEST_DB, 5, true, AppDatabase.MIGRATION_4_5).close();
+    }
+
+    @Test
+    public void migrate5To6_zonesHaveNoSchedule() throws IOException {
+        createVersion(5, "INSERT INTO SilentZone (latitude, longitude, name, radius, minLat, maxLat, minLon, maxLon) "
+                + "VALUES (10.85, 76.27, 'Hall', 100, 10.84, 10.86, 76.26, 76.28)");
+
+        try (SupportSQLiteDatabase migrated = helper.runMigrationsAndValidate(TEST_DB, 6, true,
+                AppDatabase.MIGRATION_5_6);
+             Cursor cursor = migrated.query("SELECT schedule FROM SilentZone")) {
+            assertTrue(cursor.moveToFirst());
+            assertTrue(cursor.isNull(0));
+        }
+    }
+
+    @Test
+    public void migrate6To7_zonesSilenceAtDefaultPriority() throws IOException {
+        createVersion(6, "INSERT INTO SilentZone (latitude, longitude, name, radius, minLat, maxLat, minLon, maxLon) "
+                + "VALUES (10.85, 76.27, 'Hall', 100, 10.84, 10.86, 76.26, 76.28)");
+
+        try (SupportSQLiteDatabase migrated = helper.runMigrationsAndValidate(TEST_DB, 7, true,
+                AppDatabase.MIGRATION_6_7);
+             Cursor cursor = migrated.query("SELECT priority, action FROM SilentZone")) {
+            assertTrue(cursor.moveToFirst());
+            assertEquals(ZoneActions.DEFAULT_PRIORITY, cursor.getInt(0));
+            assertEquals(ZoneActions.ACTION_SILENT, cursor.getInt(1));
+        }
+    }
+
+    @Test
+    public void migrate1To7_validatesAgainstTheLatestSchema() throws IOException {
+        createVersion(1, "INSERT INTO SilentZone (latitude, longitude, name) VALUES (10.85, 76.27, 'Hall')");
+        helper.runMigrationsAndValidate(TEST_DB, 7, true, ALL_MIGRATIONS).close();
+    }
+
+    @Test
+    public void boundingBoxQuery_onlyReturnsIntersectingZones() throws IOException {
+        createVersion(1,
+                "INSERT INTO SilentZone (latitude, longitude, name) VALUES (10.85, 76.27, 'Near')",
+                "INSERT INTO SilentZone (latitude, longitude, name) VALUES (12.97, 77.59, 'Far')");
+
+        SilentZoneDao dao = openMigrated().silentZoneDao();
+        List<SilentZone> zones = dao.getZonesInBoundingBox(10.8, 10.9, 76.2, 76.3);
+
+        assertEquals(1, zones.size());
+        assertEquals("Near", zones.get(0).name);
+
+        dao.insert(new SilentZone(10.86, 76.28, "Inserted"));
+        assertEquals(2, dao.getZonesInBoundingBox(10.8, 10.9, 76.2, 76.3).size());
+    }
+
+    @Test
+    public void migratedGeocodeCacheWorks() throws IOException {
+        createVersion(2);
+
+        CachedPlaceDao dao = openMigrated().cachedPlaceDao();
+        dao.put(new CachedPlace("library", 10.85, 76.27, 1000));
+        dao.put(new CachedPlace("hall", 10.86, 76.28, 5000));
+
+        assertNull(dao.get("library", 2000));
+        assertEquals(10.86, dao.get("hall", 2000).latitude, 0);
+        assertEquals(1, dao.deleteOlderThan(2000));
+    }
+
+    @Test
+    public void migratedImportCheckpointsWork() throws IOException {
+        createVersion(2);
+
+        ImportCheckpointDao dao = openMigrated().importCheckpointDao();
+        dao.put(new ImportCheckpoint("zones.csv", 2000, 1990, 1000));
+        dao.put(new ImportCheckpoint("zones.csv", 4000, 3985, 2000));
+
+        assertEquals(4000, dao.get("zones.csv").records);
+        dao.delete("zones.csv");
+        assertNull(dao.get("zones.csv"));
+    }
+
+    @Test
+    public void migratedZonesKeepSchedulesAndActions() throws IOException {
+        createVersion(1, "INSERT INTO SilentZone (latitude, longitude, name) VALUES (10.85, 76.27, 'Hall')");
+
+        SilentZoneDao dao = openMigrated().silentZoneDao();
+        SilentZone hall = dao.getAllZones().get(0);
+        assertNull(hall.schedule);
+        assertEquals(ZoneActions.ACTION_SILENT, hall.action);
+
+        SilentZone zone = new SilentZone(10.86, 76.28, "Meeting room");
+        zone.schedule = "Mon-Fri 09:00-17:00";
+        zone.action = ZoneActions.ACTION_VIBRATE;
+        dao.insert(zone);
+        SilentZone stored = dao.getZonesAfter(hall.id, 10).get(0);
+        assertEquals("Mon-Fri 09:00-17:00", stored.schedule);
+        assertEquals(ZoneActions.ACTION_VIBRATE, stored.action);
+    }
+
+    // Creates TEST_DB from the exported schema of the given version
+    private void createVersion(int version, String... inserts) throws IOException {
+        try (SupportSQLiteDatabase database = helper.createDatabase(TEST_DB, version)) {
+            for (String insert : inserts) {
+                database.execSQL(insert);
+            }
+        }
+    }
+
+    // Room migrates to the current version and checks the result against the compiled entities
+    private AppDatabase openMigrated() {
+        db = Room.databaseBuilder(context, AppDatabase.class, TEST_DB)
+                .addMigrations(ALL_MIGRATIONS)
+                .allowMainThreadQueries()
+                .build();
+        return db;
+    }
+}
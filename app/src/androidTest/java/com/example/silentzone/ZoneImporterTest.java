@@ -0,0 +1,96 @@
+package com.example.silentzone;
+
+import androidx.room.Room;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.*;
+
+@RunWith(AndroidJUnit4.class)
+public class ZoneImporterTest {
+
+    private AppDatabase db;
+
+    @Before
+    public void setUp() {
+        db = Room.inMemoryDatabaseBuilder(InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                AppDatabase.class).allowMainThreadQueries().build();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    private static String csv(int rows) {
+        StringBuilder csv = new StringBuilder(CsvZoneWriter.HEADER).append('\n');
+        for (int i = 0; i < rows; i++) {
+            // Every tenth row has no latitude
+            csv.append("Zone ").append(i).append(',').append(i % 10 == 9 ? "" : String.valueOf(10 + i * 1e-4))
+                    .append(",76.27,50,\n");
+        }
+        return csv.toString();
+    }
+
+    @Test
+    public void resumesAfterTheLastCommittedChunk() throws Exception {
+        int rows = ZoneImporter.CHUNK_SIZE * 2 + 500;
+        String file = csv(rows);
+        ZoneImporter importer = new ZoneImporter(db);
+
+        // Fails partway through the second chunk, as if the process had died
+        ZoneReader failing = new CsvZoneReader(new StringReader(file)) {
+            private int read;
+
+            @Override
+            public boolean next(ZoneRecord record) throws IOException {
+                if (++read > ZoneImporter.CHUNK_SIZE + 100) {
+                    throw new IOException("disk gone");
+                }
+                return super.next(record);
+            }
+        };
+        try {
+            importer.importZones(failing, "zones.csv", (records, imported) -> {});
+            fail();
+        } catch (IOException expected) {
+            // The first chunk is committed and recorded
+        }
+        assertEquals(ZoneImporter.CHUNK_SIZE * 9 / 10, db.silentZoneDao().countZones());
+        assertEquals(ZoneImporter.CHUNK_SIZE, db.importCheckpointDao().get("zones.csv").records);
+
+        ZoneImporter.Result result = importer.importZones(new CsvZoneReader(new StringReader(file)), "zones.csv",
+                (records, imported) -> {});
+
+        assertEquals(ZoneImporter.CHUNK_SIZE, result.resumedFrom);
+        assertEquals(rows, result.records);
+        assertEquals(rows / 10, result.getSkipped());
+        assertEquals(rows - rows / 10, db.silentZoneDao().countZones());
+        assertNull(db.importCheckpointDao().get("zones.csv"));
+    }
+
+    @Test
+    public void exportPagesThroughEveryZone() throws Exception {
+        int rows = ZoneExporter.PAGE_SIZE * 2 + 1;
+        new ZoneImporter(db).importZones(new CsvZoneReader(new StringReader(csv(rows * 10 / 9 + 1))), "a",
+                (records, imported) -> {});
+        int zones = db.silentZoneDao().countZones();
+
+        StringWriter out = new StringWriter();
+        ZoneWriter writer = new CsvZoneWriter(out);
+        long exported = new ZoneExporter(db).exportZones(writer, (done, total) -> {});
+        writer.close();
+
+        assertEquals(zones, exported);
+        assertEquals(zones + 1, out.toString().split("\n").length);
+    }
+}
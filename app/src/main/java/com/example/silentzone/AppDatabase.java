@@ -1,9 +1,113 @@
 package com.example.silentzone;
 
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
 import androidx.room.Database;
+import androidx.room.Room;
 import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
 
-@Database(entities = {SilentZone.class}, version = 1, exportSchema = false)
+@Database(entities = {SilentZone.class, CachedPlace.class, ImportCheckpoint.class}, version = 7, exportSchema = true)
 public abstract class AppDatabase extends RoomDatabase {
+    private static volatile AppDatabase instance;
+
+    // v2: per-zone radius and optional polygon outline
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE SilentZone ADD COLUMN radius REAL NOT NULL DEFAULT 100");
+            database.execSQL("ALTER TABLE SilentZone ADD COLUMN polygon TEXT");
+        }
+    };
+
+    // v3: indexed bounding-box columns for range queries, index on name
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE SilentZone ADD COLUMN minLat REAL NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE SilentZone ADD COLUMN maxLat REAL NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE SilentZone ADD COLUMN minLon REAL NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE SilentZone ADD COLUMN maxLon REAL NOT NULL DEFAULT 0");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_SilentZone_name` ON `SilentZone` (`name`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_SilentZone_minLat_maxLat` ON `SilentZone` (`minLat`, `maxLat`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_SilentZone_minLon_maxLon` ON `SilentZone` (`minLon`, `maxLon`)");
+            backfillBounds(database);
+        }
+    };
+
+    // v4: persistent geocoding cache
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `CachedPlace` (`query` TEXT NOT NULL, "
+                    + "`latitude` REAL NOT NULL, `longitude` REAL NOT NULL, `cachedAt` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`query`))");
+        }
+    };
+
+    // v5: progress of interrupted bulk imports
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `ImportCheckpoint` (`source` TEXT NOT NULL, "
+                    + "`records` INTEGER NOT NULL, `imported` INTEGER NOT NULL, `updatedAt` INTEGER NOT NULL, "
+                    + "PRIMARY KEY(`source`))");
+        }
+    };
+
+    // v6: optional weekly time windows per zone
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE SilentZone ADD COLUMN schedule TEXT");
+        }
+    };
+
+    // v7: priority and action (silent or vibrate) decide which of overlapping zones wins.
+    // The defaults keep existing zones behaving as before: all silence, none outranks another.
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE SilentZone ADD COLUMN priority INTEGER NOT NULL DEFAULT 0");
+            database.execSQL("ALTER TABLE SilentZone ADD COLUMN action INTEGER NOT NULL DEFAULT 0");
+        }
+    };
+
+    // SQLite has no trig functions on older devices, so the boxes are computed here
+    private static void backfillBounds(SupportSQLiteDatabase database) {
+        double[] box = new double[4];
+        try (Cursor cursor = database.query("SELECT id, latitude, longitude, radius, polygon FROM SilentZone")) {
+            while (cursor.moveToNext()) {
+                ZoneGeometry.bounds(cursor.getDouble(1), cursor.getDouble(2), cursor.getFloat(3),
+                        ZoneGeometry.parsePolygon(cursor.getString(4)), box);
+                database.execSQL("UPDATE SilentZone SET minLat = ?, maxLat = ?, minLon = ?, maxLon = ? WHERE id = ?",
+                        new Object[]{box[0], box[1], box[2], box[3], cursor.getInt(0)});
+            }
+        }
+    }
+
     public abstract SilentZoneDao silentZoneDao();
+
+    public abstract CachedPlaceDao cachedPlaceDao();
+
+    public abstract ImportCheckpointDao importCheckpointDao();
+
+    // Shared by MainActivity and LocationService so table invalidations reach both
+    public static AppDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (AppDatabase.class) {
+                if (instance == null) {
+                    instance = Room.databaseBuilder(context.getApplicationContext(),
+                                    AppDatabase.class, "silentzone-db")
+                            .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6,
+                                    MIGRATION_6_7)
+                            .build();
+                }
+            }
+        }
+        return instance;
+    }
 }
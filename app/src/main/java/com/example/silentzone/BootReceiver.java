@@ -0,0 +1,59 @@
+package com.example.silentzone;
+
+import android.Manifest;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Resumes monitoring after a reboot or an app update. LocationService keeps
+ * its compiled zones in a file while it runs and maps it again on start, so
+ * zones are checked from the first fix instead of after the database load.
+ */
+public class BootReceiver extends BroadcastReceiver {
+    private static final String TAG = "BootReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (!Intent.ACTION_BOOT_COMPLETED.equals(action) && !Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            return;
+        }
+        // Deleted when the user clears every zone
+        File file = LocationService.zoneIndexFile(context);
+        if (!file.exists()) {
+            Log.d(TAG, "Monitoring was off; not starting");
+            return;
+        }
+        try {
+            if (MappedZoneIndex.open(file).size() == 0) {
+                Log.d(TAG, "No active zones saved; not starting");
+                return;
+            }
+        } catch (IOException e) {
+            // The service falls back to the database
+            Log.w(TAG, "Saved zone index unreadable", e);
+        }
+        // A location service started from the background only gets fixes with background access
+        if (!granted(context, Manifest.permission.ACCESS_FINE_LOCATION)
+                || Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                && !granted(context, Manifest.permission.ACCESS_BACKGROUND_LOCATION)) {
+            Log.w(TAG, "Location permission missing; not starting");
+            return;
+        }
+        Log.d(TAG, "Resuming monitoring after " + action);
+        ContextCompat.startForegroundService(context, new Intent(context, LocationService.class));
+    }
+
+    private static boolean granted(Context context, String permission) {
+        return ContextCompat.checkSelfPermission(context, permission) == PackageManager.PERMISSION_GRANTED;
+    }
+}
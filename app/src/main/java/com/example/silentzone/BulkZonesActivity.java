@@ -0,0 +1,93 @@
+package com.example.silentzone;
+
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Bundle;
+import android.view.View;
+import android.widget.ProgressBar;
+import android.widget.RadioGroup;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+/**
+ * Picks a file through the storage access framework and hands it to
+ * {@link ZoneTransfer}; the transfer itself outlives this screen.
+ */
+public class BulkZonesActivity extends AppCompatActivity {
+    private static final int IMPORT_REQUEST_CODE = 1;
+    private static final int EXPORT_REQUEST_CODE = 2;
+
+    private RadioGroup exportFormat;
+    private ProgressBar progress;
+    private TextView status;
+    private View cancelButton;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_bulk_zones);
+        setTitle("Import / Export Zones");
+
+        exportFormat = findViewById(R.id.exportFormat);
+        progress = findViewById(R.id.transferProgress);
+        status = findViewById(R.id.transferStatus);
+        cancelButton = findViewById(R.id.cancelButton);
+
+        findViewById(R.id.importButton).setOnClickListener(v -> {
+            Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            // Providers label these files inconsistently, so filter by name after picking
+            intent.setType("*/*");
+            startActivityForResult(intent, IMPORT_REQUEST_CODE);
+        });
+        findViewById(R.id.exportButton).setOnClickListener(v -> {
+            ZoneFormat format = selectedFormat();
+            Intent intent = new Intent(Intent.ACTION_CREATE_DOCUMENT);
+            intent.addCategory(Intent.CATEGORY_OPENABLE);
+            intent.setType(format.mimeType);
+            intent.putExtra(Intent.EXTRA_TITLE, "silent-zones." + format.extension);
+            startActivityForResult(intent, EXPORT_REQUEST_CODE);
+        });
+        cancelButton.setOnClickListener(v -> ZoneTransfer.getInstance(this).cancel());
+
+        ZoneTransfer.getInstance(this).getState().observe(this, this::showState);
+    }
+
+    private ZoneFormat selectedFormat() {
+        int checked = exportFormat.getCheckedRadioButtonId();
+        if (checked == R.id.formatGeoJson) {
+            return ZoneFormat.GEOJSON;
+        }
+        if (checked == R.id.formatKml) {
+            return ZoneFormat.KML;
+        }
+        return ZoneFormat.CSV;
+    }
+
+    private void showState(ZoneTransfer.State state) {
+        progress.setIndeterminate(state.running && state.percent < 0);
+        progress.setProgress(Math.max(state.percent, 0));
+        status.setText(state.message);
+        cancelButton.setEnabled(state.running);
+        findViewById(R.id.importButton).setEnabled(!state.running);
+        findViewById(R.id.exportButton).setEnabled(!state.running);
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (resultCode != RESULT_OK || data == null || data.getData() == null) {
+            return;
+        }
+        Uri uri = data.getData();
+        ZoneTransfer transfer = ZoneTransfer.getInstance(this);
+        boolean started = requestCode == IMPORT_REQUEST_CODE
+                ? transfer.startImport(uri)
+                : requestCode == EXPORT_REQUEST_CODE && transfer.startExport(uri, selectedFormat());
+        if (!started) {
+            Toast.makeText(this, "Another transfer is still running", Toast.LENGTH_SHORT).show();
+        }
+    }
+}
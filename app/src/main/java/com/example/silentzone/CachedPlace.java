@@ -0,0 +1,24 @@
+package com.example.silentzone;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/** A geocoding result kept across launches, keyed by the normalised query. */
+@Entity
+public class CachedPlace {
+    @PrimaryKey
+    @NonNull
+    public String query;
+
+    public double latitude;
+    public double longitude;
+    public long cachedAt;
+
+    public CachedPlace(@NonNull String query, double latitude, double longitude, long cachedAt) {
+        this.query = query;
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.cachedAt = cachedAt;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.silentzone;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+@Dao
+public interface CachedPlaceDao {
+    @Query("SELECT * FROM CachedPlace WHERE `query` = :query AND cachedAt >= :minCachedAt")
+    CachedPlace get(String query, long minCachedAt);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void put(CachedPlace place);
+
+    @Query("DELETE FROM CachedPlace WHERE cachedAt < :minCachedAt")
+    int deleteOlderThan(long minCachedAt);
+}
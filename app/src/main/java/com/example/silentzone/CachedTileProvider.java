@@ -0,0 +1,91 @@
+package com.example.silentzone;
+
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+
+import org.osmdroid.tileprovider.modules.CantContinueException;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.tilesource.BitmapTileSourceBase;
+import org.osmdroid.tileprovider.tilesource.ITileSource;
+import org.osmdroid.util.MapTileIndex;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+
+/**
+ * osmdroid tile module that serves tiles from {@link TileCache} and only goes
+ * to the network on a miss, storing what it downloads. This is the map's only
+ * tile source, so prefetched tiles and viewed tiles share one bounded cache.
+ */
+public class CachedTileProvider extends MapTileModuleProviderBase {
+    private static final String TAG = "CachedTileProvider";
+    private static final int THREADS = 2;
+    private static final int PENDING_TILES = 40;
+
+    private final TileCache cache;
+    private final TilePrefetcher downloader;
+    private volatile ITileSource tileSource;
+
+    public CachedTileProvider(ITileSource tileSource, TileCache cache, TilePrefetcher downloader) {
+        super(THREADS, PENDING_TILES);
+        this.tileSource = tileSource;
+        this.cache = cache;
+        this.downloader = downloader;
+    }
+
+    @Override
+    protected String getName() {
+        return "Cached tile provider";
+    }
+
+    @Override
+    protected String getThreadGroupName() {
+        return "cachedtiles";
+    }
+
+    @Override
+    public TileLoader getTileLoader() {
+        return new TileLoader() {
+            @Override
+            public Drawable loadTile(long index) throws CantContinueException {
+                int zoom = MapTileIndex.getZoom(index);
+                int x = MapTileIndex.getX(index);
+                int y = MapTileIndex.getY(index);
+                byte[] data = cache.get(zoom, x, y);
+                if (data == null) {
+                    try {
+                        data = downloader.download(zoom, x, y);
+                    } catch (IOException e) {
+                        Log.d(TAG, "Tile " + MapTileIndex.toString(index) + " unavailable: " + e.getMessage());
+                        return null;
+                    }
+                }
+                try {
+                    return tileSource.getDrawable(new ByteArrayInputStream(data));
+                } catch (BitmapTileSourceBase.LowMemoryException e) {
+                    throw new CantContinueException(e);
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean getUsesDataConnection() {
+        return true;
+    }
+
+    @Override
+    public int getMinimumZoomLevel() {
+        return tileSource.getMinimumZoomLevel();
+    }
+
+    @Override
+    public int getMaximumZoomLevel() {
+        return tileSource.getMaximumZoomLevel();
+    }
+
+    @Override
+    public void setTileSource(ITileSource tileSource) {
+        this.tileSource = tileSource;
+    }
+}
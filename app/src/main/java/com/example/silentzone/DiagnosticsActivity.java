@@ -0,0 +1,66 @@
+package com.example.silentzone;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.Bundle;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+/**
+ * Shows the location pipeline metrics, the same text as
+ * {@code dumpsys activity service .LocationService}, plus cache statistics.
+ */
+public class DiagnosticsActivity extends AppCompatActivity {
+
+    private TextView text;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_diagnostics);
+        setTitle("Diagnostics");
+
+        text = findViewById(R.id.diagnosticsText);
+        findViewById(R.id.refreshButton).setOnClickListener(v -> refresh());
+        findViewById(R.id.resetButton).setOnClickListener(v -> {
+            LocationMetrics.get().reset();
+            refresh();
+        });
+    }
+
+    @Override
+    protected void onResume() {
+        super.onResume();
+        refresh();
+    }
+
+    private void refresh() {
+        StringWriter out = new StringWriter();
+        PrintWriter writer = new PrintWriter(out);
+        writer.println("SilentZone " + versionName(this) + " on API " + Build.VERSION.SDK_INT);
+        writer.println();
+        LocationMetrics.get().dump(writer);
+        writer.println();
+        writer.println("Startup: " + StartupTasks.get());
+        writer.println("Zone compaction: " + ZoneRepository.getInstance(this).getLastCompaction());
+        writer.println("Tiles: " + MapTiles.getInstance(this).getCache());
+        GeocodingClient geocoder = GeocodingClient.getInstance(this);
+        writer.println("Geocoding: " + geocoder.getMemoryHits() + " memory hits, " + geocoder.getDiskHits()
+                + " disk hits, " + geocoder.getNetworkRequests() + " requests");
+        writer.flush();
+        text.setText(out.toString());
+    }
+
+    static String versionName(Context context) {
+        try {
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionName;
+        } catch (PackageManager.NameNotFoundException e) {
+            return "?";
+        }
+    }
+}
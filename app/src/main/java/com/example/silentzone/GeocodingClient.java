@@ -0,0 +1,295 @@
+package com.example.silentzone;
+
+import android.content.Context;
+
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Place search against a Nominatim-compatible endpoint.
+ *
+ * Results are looked up in a small in-memory LRU, then in a persistent cache,
+ * and only then fetched. Identical queries that are already in flight share
+ * one request; a request nobody is waiting for any more is aborted. Fetches
+ * run on a small bounded pool and callbacks are delivered on the executor
+ * given to the constructor.
+ */
+public class GeocodingClient {
+    public static final String NOMINATIM_URL = "https://nominatim.openstreetmap.org/search";
+    static final long CACHE_TTL_MS = TimeUnit.DAYS.toMillis(30);
+    private static final int MEMORY_CACHE_SIZE = 64;
+    private static final int TIMEOUT_MS = 10000;
+    private static final int MAX_THREADS = 2;
+    private static final int MAX_QUEUED = 8;
+
+    private static volatile GeocodingClient instance;
+
+    public static final class Place {
+        public final double latitude;
+        public final double longitude;
+        final long cachedAt;
+
+        Place(double latitude, double longitude, long cachedAt) {
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.cachedAt = cachedAt;
+        }
+    }
+
+    public interface Callback {
+        // place is null when nothing matched
+        void onResult(String query, @Nullable Place place);
+
+        void onError(String query, Exception error);
+    }
+
+    /** Second-level cache, e.g. Room; called on the fetch threads. */
+    public interface Cache {
+        @Nullable
+        Place get(String query, long minCachedAt);
+
+        void put(String query, Place place);
+    }
+
+    /** Handle for one search; cancelling it drops its callback. */
+    public interface Request {
+        void cancel();
+    }
+
+    // One network fetch and everyone waiting for it
+    private class Fetch implements Runnable {
+        final String key;
+        final String query;
+        final List<Callback> waiters = new ArrayList<>();
+        volatile boolean cancelled;
+        volatile HttpURLConnection connection;
+
+        Fetch(String key, String query) {
+            this.key = key;
+            this.query = query;
+        }
+
+        @Override
+        public void run() {
+            Place place = null;
+            Exception error = null;
+            try {
+                long minCachedAt = System.currentTimeMillis() - CACHE_TTL_MS;
+                place = cache != null ? cache.get(key, minCachedAt) : null;
+                if (place != null) {
+                    diskHits.incrementAndGet();
+                } else if (!cancelled) {
+                    place = fetch(this);
+                    if (place != null && cache != null) {
+                        cache.put(key, place);
+                    }
+                }
+            } catch (IOException | JSONException | RuntimeException e) {
+                error = e;
+            }
+            complete(this, place, error);
+        }
+    }
+
+    private final String endpoint;
+    private final String userAgent;
+    @Nullable
+    private final Cache cache;
+    private final Executor callbackExecutor;
+    private final ThreadPoolExecutor fetcher;
+    private final Object lock = new Object();
+    private final Map<String, Place> memory = new LinkedHashMap<String, Place>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Place> eldest) {
+            return size() > MEMORY_CACHE_SIZE;
+        }
+    };
+    private final Map<String, Fetch> inFlight = new HashMap<>();
+    private final AtomicInteger memoryHits = new AtomicInteger();
+    private final AtomicInteger diskHits = new AtomicInteger();
+    private final AtomicInteger networkRequests = new AtomicInteger();
+
+    public GeocodingClient(String endpoint, String userAgent, @Nullable Cache cache, Executor callbackExecutor) {
+        this.endpoint = endpoint;
+        this.userAgent = userAgent;
+        this.cache = cache;
+        this.callbackExecutor = callbackExecutor;
+        fetcher = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED));
+        fetcher.allowCoreThreadTimeOut(true);
+    }
+
+    // Room-backed client delivering on the main thread, shared by all screens
+    public static GeocodingClient getInstance(Context context) {
+        if (instance == null) {
+            synchronized (GeocodingClient.class) {
+                if (instance == null) {
+                    Context app = context.getApplicationContext();
+                    CachedPlaceDao dao = AppDatabase.getInstance(app).cachedPlaceDao();
+                    instance = new GeocodingClient(NOMINATIM_URL, app.getPackageName(), new Cache() {
+                        @Override
+                        public Place get(String query, long minCachedAt) {
+                            CachedPlace cached = dao.get(query, minCachedAt);
+                            return cached == null ? null
+                                    : new Place(cached.latitude, cached.longitude, cached.cachedAt);
+                        }
+
+                        @Override
+                        public void put(String query, Place place) {
+                            dao.put(new CachedPlace(query, place.latitude, place.longitude, place.cachedAt));
+                            dao.deleteOlderThan(place.cachedAt - CACHE_TTL_MS);
+                        }
+                    }, ContextCompat.getMainExecutor(app));
+                }
+            }
+        }
+        return instance;
+    }
+
+    public Request search(String query, Callback callback) {
+        String key = normalize(query);
+        Fetch fetch;
+        synchronized (lock) {
+            Place cached = memory.get(key);
+            if (cached != null && cached.cachedAt >= System.currentTimeMillis() - CACHE_TTL_MS) {
+                memoryHits.incrementAndGet();
+                callbackExecutor.execute(() -> callback.onResult(query, cached));
+                return () -> {};
+            }
+            fetch = inFlight.get(key);
+            if (fetch == null) {
+                fetch = new Fetch(key, query);
+                try {
+                    fetcher.execute(fetch);
+                } catch (RejectedExecutionException e) {
+                    callbackExecutor.execute(() -> callback.onError(query, e));
+                    return () -> {};
+                }
+                inFlight.put(key, fetch);
+            }
+            fetch.waiters.add(callback);
+        }
+        Fetch joined = fetch;
+        return () -> cancel(joined, callback);
+    }
+
+    public int getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public int getDiskHits() {
+        return diskHits.get();
+    }
+
+    public int getNetworkRequests() {
+        return networkRequests.get();
+    }
+
+    private void cancel(Fetch fetch, Callback callback) {
+        HttpURLConnection connection;
+        synchronized (lock) {
+            if (!fetch.waiters.remove(callback) || !fetch.waiters.isEmpty()) {
+                return;
+            }
+            // Nobody wants this result any more; a later search for it starts afresh
+            fetch.cancelled = true;
+            inFlight.remove(fetch.key);
+            fetcher.remove(fetch);
+            connection = fetch.connection;
+        }
+        if (connection != null) {
+            connection.disconnect();
+        }
+    }
+
+    private void complete(Fetch fetch, @Nullable Place place, @Nullable Exception error) {
+        List<Callback> waiters;
+        synchronized (lock) {
+            if (inFlight.get(fetch.key) == fetch) {
+                inFlight.remove(fetch.key);
+            }
+            if (place != null) {
+                memory.put(fetch.key, place);
+            }
+            if (fetch.cancelled) {
+                return;
+            }
+            waiters = new ArrayList<>(fetch.waiters);
+        }
+        Place result = place;
+        callbackExecutor.execute(() -> {
+            for (Callback callback : waiters) {
+                if (error != null) {
+                    callback.onError(fetch.query, error);
+                } else {
+                    callback.onResult(fetch.query, result);
+                }
+            }
+        });
+    }
+
+    @Nullable
+    private Place fetch(Fetch fetch) throws IOException, JSONException {
+        networkRequests.incrementAndGet();
+        URL url = new URL(endpoint + "?q=" + URLEncoder.encode(fetch.query, "UTF-8").replace("+", "%20") + "&format=json&limit=1");
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        fetch.connection = conn;
+        try {
+            if (fetch.cancelled) {
+                return null;
+            }
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setRequestProperty("User-Agent", userAgent);
+            int status = conn.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status);
+            }
+            StringBuilder body = new StringBuilder();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    body.append(line);
+                }
+            }
+            JSONArray results = new JSONArray(body.toString());
+            if (results.length() == 0) {
+                return null;
+            }
+            JSONObject result = results.getJSONObject(0);
+            return new Place(result.getDouble("lat"), result.getDouble("lon"), System.currentTimeMillis());
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    // "  Main  Library" and "main library" are the same search
+    static String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.silentzone;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.location.Location;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofenceStatusCodes;
+import com.google.android.gms.location.GeofencingEvent;
+
+import java.util.List;
+
+/**
+ * Hands geofence transitions to LocationService. Geofence broadcasts may
+ * start a foreground service from the background, so this also revives a
+ * service the system has killed.
+ */
+public class GeofenceReceiver extends BroadcastReceiver {
+    private static final String TAG = "GeofenceReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        GeofencingEvent event = GeofencingEvent.fromIntent(intent);
+        if (event == null) {
+            return;
+        }
+        if (event.hasError()) {
+            Log.w(TAG, "Geofence error: " + GeofenceStatusCodes.getStatusCodeString(event.getErrorCode()));
+            return;
+        }
+        List<Geofence> fences = event.getTriggeringGeofences();
+        if (fences == null || fences.isEmpty()) {
+            return;
+        }
+        String[] ids = new String[fences.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = fences.get(i).getRequestId();
+        }
+        Intent service = new Intent(context, LocationService.class)
+                .setAction(LocationService.ACTION_GEOFENCE_TRANSITION)
+                .putExtra(LocationService.EXTRA_FENCE_IDS, ids)
+                .putExtra(LocationService.EXTRA_ENTERED,
+                        event.getGeofenceTransition() == Geofence.GEOFENCE_TRANSITION_ENTER);
+        Location location = event.getTriggeringLocation();
+        if (location != null) {
+            service.putExtra(LocationService.EXTRA_LATITUDE, location.getLatitude())
+                    .putExtra(LocationService.EXTRA_LONGITUDE, location.getLongitude());
+        }
+        ContextCompat.startForegroundService(context, service);
+    }
+}
@@ -2,8 +2,6 @@ package com.example.silentzone;
 
 import android.content.Intent;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -23,9 +21,13 @@ public class HomeFragment extends Fragment {
     private MaterialButton buttonSetZone;
     private MaterialButton buttonPickFromMap;
     private MaterialButton buttonClearLocation;
+    private MaterialButton buttonJournal;
+    private MaterialButton buttonBulkZones;
+    private MaterialButton buttonDiagnostics;
     private FloatingActionButton fabQuickSilent;
-    private Handler updateHandler;
-    private Runnable updateRunnable;
+    private int savedZoneCount = 0;
+    // Pushed by LocationService after each evaluated fix
+    private ZoneStatus zoneStatus;
 
     @Nullable
     @Override
@@ -39,15 +41,36 @@ public class HomeFragment extends Fragment {
         
         initializeViews(view);
         setupClickListeners();
-        setupPeriodicUpdates();
+        observeZones();
+        observeStatus();
         updateLocationText();
     }
 
+    private void observeZones() {
+        MainActivity activity = (MainActivity) getActivity();
+        if (activity != null) {
+            activity.getZoneRepository().getZoneCount().observe(getViewLifecycleOwner(), count -> {
+                savedZoneCount = count != null ? count : 0;
+                updateLocationText();
+            });
+        }
+    }
+
+    private void observeStatus() {
+        ZoneStatus.observe().observe(getViewLifecycleOwner(), status -> {
+            zoneStatus = status;
+            updateLocationText();
+        });
+    }
+
     private void initializeViews(View view) {
         locationText = view.findViewById(R.id.locationText);
         buttonSetZone = view.findViewById(R.id.buttonSetZone);
         buttonPickFromMap = view.findViewById(R.id.buttonPickFromMap);
         buttonClearLocation = view.findViewById(R.id.buttonClearLocation);
+        buttonJournal = view.findViewById(R.id.buttonJournal);
+        buttonBulkZones = view.findViewById(R.id.buttonBulkZones);
+        buttonDiagnostics = view.findViewById(R.id.buttonDiagnostics);
         fabQuickSilent = view.findViewById(R.id.fabQuickSilent);
     }
 
@@ -72,6 +95,10 @@ public class HomeFragment extends Fragment {
             }
         });
 
+        buttonJournal.setOnClickListener(v -> startActivity(new Intent(getActivity(), JournalActivity.class)));
+        buttonBulkZones.setOnClickListener(v -> startActivity(new Intent(getActivity(), BulkZonesActivity.class)));
+        buttonDiagnostics.setOnClickListener(v -> startActivity(new Intent(getActivity(), DiagnosticsActivity.class)));
+
         fabQuickSilent.setOnClickListener(v -> {
             MainActivity activity = (MainActivity) getActivity();
             if (activity != null) {
@@ -83,30 +110,23 @@ public class HomeFragment extends Fragment {
     private void updateLocationText() {
         MainActivity activity = (MainActivity) getActivity();
         if (activity != null) {
-            double lat = activity.getTargetLat();
-            double lon = activity.getTargetLon();
-            String locationName = activity.getCurrentLocationName();
-            String locationStatus = activity.getLocationStatus();
-            
-            if (lat == 0 && lon == 0) {
+            if (savedZoneCount == 0) {
                 locationText.setText("No silent zone set\n\nAdd a location using the buttons below to enable automatic silent mode when you enter the zone.");
                 buttonClearLocation.setVisibility(View.GONE);
             } else {
                 StringBuilder statusText = new StringBuilder();
                 
-                // Show current zone info
-                if (locationName != null && !locationName.isEmpty()) {
+                // Show the zone the service last placed us in
+                if (zoneStatus != null && zoneStatus.inside && zoneStatus.currentZoneName != null) {
                     statusText.append("📍 Active Silent Zone:\n");
-                    statusText.append(locationName).append("\n");
-                    statusText.append(String.format("(%.6f, %.6f)", lat, lon)).append("\n\n");
-                } else {
-                    statusText.append("📍 Silent Zone Location:\n");
-                    statusText.append(String.format("Lat: %.6f, Lon: %.6f", lat, lon)).append("\n\n");
+                    statusText.append(zoneStatus.currentZoneName).append("\n\n");
                 }
                 
+                statusText.append("🗂 Saved zones: ").append(savedZoneCount).append("\n\n");
+
                 // Show current status
                 statusText.append("📱 Current Status:\n");
-                statusText.append(locationStatus);
+                statusText.append(activity.getLocationStatus(zoneStatus, savedZoneCount));
                 
                 locationText.setText(statusText.toString());
                 buttonClearLocation.setVisibility(View.VISIBLE);
@@ -128,34 +148,4 @@ public class HomeFragment extends Fragment {
             }
         }
     }
-
-    private void setupPeriodicUpdates() {
-        updateHandler = new Handler(Looper.getMainLooper());
-        updateRunnable = new Runnable() {
-            @Override
-            public void run() {
-                if (isAdded() && getActivity() != null) {
-                    updateLocationText();
-                    updateHandler.postDelayed(this, 10000); // Update every 10 seconds
-                }
-            }
-        };
-    }
-
-    @Override
-    public void onResume() {
-        super.onResume();
-        updateLocationText();
-        if (updateHandler != null && updateRunnable != null) {
-            updateHandler.post(updateRunnable);
-        }
-    }
-
-    @Override
-    public void onPause() {
-        super.onPause();
-        if (updateHandler != null && updateRunnable != null) {
-            updateHandler.removeCallbacks(updateRunnable);
-        }
-    }
 }
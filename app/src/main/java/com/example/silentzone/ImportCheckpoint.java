@@ -0,0 +1,29 @@
+package com.example.silentzone;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * How far an interrupted bulk import got, keyed by the file it reads. Written
+ * in the same transaction as each chunk of zones, so after a crash it never
+ * disagrees with what was actually inserted.
+ */
+@Entity
+public class ImportCheckpoint {
+    @PrimaryKey
+    @NonNull
+    public String source;
+
+    // Records of the file consumed so far, valid or not
+    public long records;
+    public long imported;
+    public long updatedAt;
+
+    public ImportCheckpoint(@NonNull String source, long records, long imported, long updatedAt) {
+        this.source = source;
+        this.records = records;
+        this.imported = imported;
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.silentzone;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+@Dao
+public interface ImportCheckpointDao {
+    @Query("SELECT * FROM ImportCheckpoint WHERE source = :source")
+    ImportCheckpoint get(String source);
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void put(ImportCheckpoint checkpoint);
+
+    @Query("DELETE FROM ImportCheckpoint WHERE source = :source")
+    void delete(String source);
+}
@@ -0,0 +1,129 @@
+package com.example.silentzone;
+
+import android.media.AudioManager;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.format.DateFormat;
+import android.util.Log;
+import android.widget.ArrayAdapter;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists journaled transitions, newest first, for a chosen time range.
+ */
+public class JournalActivity extends AppCompatActivity {
+    private static final String TAG = "JournalActivity";
+
+    private final ExecutorService loader = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private ArrayAdapter<String> adapter;
+    private TextView summary;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_journal);
+        setTitle("Transition Journal");
+
+        summary = findViewById(R.id.journalSummary);
+        ListView list = findViewById(R.id.journalList);
+        adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, new ArrayList<>());
+        list.setAdapter(adapter);
+
+        findViewById(R.id.rangeHour).setOnClickListener(v -> load(TimeUnit.HOURS.toMillis(1)));
+        findViewById(R.id.rangeDay).setOnClickListener(v -> load(TimeUnit.DAYS.toMillis(1)));
+        findViewById(R.id.rangeWeek).setOnClickListener(v -> load(TimeUnit.DAYS.toMillis(7)));
+        findViewById(R.id.rangeAll).setOnClickListener(v -> load(Long.MAX_VALUE));
+        load(TimeUnit.DAYS.toMillis(1));
+    }
+
+    private void load(long spanMs) {
+        long now = System.currentTimeMillis();
+        long from = spanMs == Long.MAX_VALUE ? Long.MIN_VALUE : now - spanMs;
+        loader.execute(() -> {
+            List<TransitionJournal.Entry> entries;
+            try {
+                entries = TransitionJournal.getInstance(getFilesDir()).query(from, Long.MAX_VALUE);
+            } catch (IOException e) {
+                Log.e(TAG, "Cannot open the journal", e);
+                entries = new ArrayList<>();
+            }
+            Map<Integer, String> names = new HashMap<>();
+            for (SilentZone zone : AppDatabase.getInstance(this).silentZoneDao().getAllZones()) {
+                names.put(zone.id, zone.name);
+            }
+            List<String> lines = new ArrayList<>(entries.size());
+            int misfires = 0;
+            for (int i = entries.size() - 1; i >= 0; i--) {
+                TransitionJournal.Entry entry = entries.get(i);
+                // Vibrate is a zone action too; only a ringer left on is a misfire
+                if (entry.entered && entry.newRinger == AudioManager.RINGER_MODE_NORMAL) {
+                    misfires++;
+                }
+                lines.add(format(entry, names.get(entry.zoneId)));
+            }
+            String text = String.format(Locale.US, "%d transitions, %d entries left the ringer on", lines.size(),
+                    misfires);
+            mainHandler.post(() -> {
+                summary.setText(text);
+                adapter.clear();
+                adapter.addAll(lines);
+            });
+        });
+    }
+
+    private String format(TransitionJournal.Entry entry, String zoneName) {
+        Date time = new Date(entry.timeMillis);
+        return String.format(Locale.US, "%s %s\n%s %s\nringer %s → %s, ±%.0f m, decided after %s",
+                DateFormat.getDateFormat(this).format(time), DateFormat.getTimeFormat(this).format(time),
+                entry.entered ? "Entered" : "Left",
+                zoneName != null ? zoneName : "zone " + entry.zoneId,
+                ringerName(entry.previousRinger), ringerName(entry.newRinger), entry.accuracy,
+                formatLatency(entry.latencyMicros));
+    }
+
+    private static String ringerName(int mode) {
+        switch (mode) {
+            case AudioManager.RINGER_MODE_SILENT:
+                return "silent";
+            case AudioManager.RINGER_MODE_VIBRATE:
+                return "vibrate";
+            case AudioManager.RINGER_MODE_NORMAL:
+                return "normal";
+            default:
+                return "?";
+        }
+    }
+
+    private static String formatLatency(long micros) {
+        if (micros < 1000) {
+            return micros + " µs";
+        }
+        if (micros < 1000000) {
+            return String.format(Locale.US, "%.1f ms", micros / 1000.0);
+        }
+        return String.format(Locale.US, "%.1f s", micros / 1000000.0);
+    }
+
+    @Override
+    protected void onDestroy() {
+        loader.shutdownNow();
+        mainHandler.removeCallbacksAndMessages(null);
+        super.onDestroy();
+    }
+}
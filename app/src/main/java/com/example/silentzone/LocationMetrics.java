@@ -0,0 +1,86 @@
+package com.example.silentzone;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counters and histograms for the location pipeline, written by
+ * LocationService on every fix and read by {@code dumpsys} and the
+ * diagnostics screen. Process-wide, so the numbers survive service restarts
+ * until the process dies or they are reset.
+ */
+public final class LocationMetrics {
+
+    private static final LocationMetrics INSTANCE = new LocationMetrics();
+
+    // How old a fix is when evaluated; batched delivery shows up here: 16 ms .. ~9 min
+    final Histogram fixAgeMs = Histogram.exponential("fix age", "ms", 16, 16);
+    // Evaluator time per fix or per batch: 2 us .. ~65 ms
+    final Histogram evaluationMicros = Histogram.exponential("evaluation", "us", 2, 16);
+    final Histogram batchSize = Histogram.exponential("batch size", "fixes", 1, 8);
+
+    final AtomicLong gpsFixes = new AtomicLong();
+    final AtomicLong networkFixes = new AtomicLong();
+    final AtomicLong otherFixes = new AtomicLong();
+    final AtomicLong staleFixes = new AtomicLong();
+    final AtomicLong duplicateFixes = new AtomicLong();
+    final AtomicLong transitions = new AtomicLong();
+    final AtomicLong ringerWrites = new AtomicLong();
+    final AtomicLong ringerWriteFailures = new AtomicLong();
+    final AtomicLong planChanges = new AtomicLong();
+    // GPS-on time that location updates were removed for because the device lay still
+    final AtomicLong gpsSavedMs = new AtomicLong();
+    private volatile long sinceMillis = System.currentTimeMillis();
+
+    LocationMetrics() {}
+
+    public static LocationMetrics get() {
+        return INSTANCE;
+    }
+
+    public void recordFix(String provider, long ageMs) {
+        if ("gps".equals(provider)) {
+            gpsFixes.incrementAndGet();
+        } else if ("network".equals(provider)) {
+            networkFixes.incrementAndGet();
+        } else {
+            otherFixes.incrementAndGet();
+        }
+        fixAgeMs.record(ageMs);
+    }
+
+    public void reset() {
+        fixAgeMs.reset();
+        evaluationMicros.reset();
+        batchSize.reset();
+        for (AtomicLong counter : new AtomicLong[] {gpsFixes, networkFixes, otherFixes, staleFixes,
+                duplicateFixes, transitions, ringerWrites, ringerWriteFailures, planChanges, gpsSavedMs}) {
+            counter.set(0);
+        }
+        sinceMillis = System.currentTimeMillis();
+    }
+
+    public void dump(PrintWriter writer) {
+        long minutes = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis() - sinceMillis);
+        writer.println(String.format(Locale.US, "Since %d min ago", minutes));
+        writer.println(String.format(Locale.US, "Fixes: gps=%d network=%d other=%d stale=%d duplicate=%d",
+                gpsFixes.get(), networkFixes.get(), otherFixes.get(), staleFixes.get(), duplicateFixes.get()));
+        writer.println(String.format(Locale.US, "Transitions: %d, ringer writes: %d (%d failed), plan changes: %d",
+                transitions.get(), ringerWrites.get(), ringerWriteFailures.get(), planChanges.get()));
+        writer.println(String.format(Locale.US, "GPS-on time saved while still: %d s",
+                TimeUnit.MILLISECONDS.toSeconds(gpsSavedMs.get())));
+        writer.println(fixAgeMs);
+        writer.println(evaluationMicros);
+        writer.println(batchSize);
+    }
+
+    @Override
+    public String toString() {
+        StringWriter out = new StringWriter();
+        dump(new PrintWriter(out));
+        return out.toString();
+    }
+}
@@ -1,43 +1,549 @@
 package com.example.silentzone;
 
+import android.app.AlarmManager;
 import android.app.Notification;
 import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
-import android.content.SharedPreferences;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.hardware.TriggerEvent;
+import android.hardware.TriggerEventListener;
 import android.location.Location;
-import android.location.LocationListener;
 import android.location.LocationManager;
 import android.media.AudioManager;
 import android.os.Build;
-import android.os.Bundle;
+import android.os.Handler;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.core.app.AlarmManagerCompat;
 import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
+import androidx.core.location.LocationListenerCompat;
+import androidx.core.location.LocationManagerCompat;
+import androidx.core.location.LocationRequestCompat;
+import androidx.room.InvalidationTracker;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class LocationService extends Service {
 
     private static final String TAG = "LocationService";
     private static final String CHANNEL_ID = "SilentZoneService";
     private static final int NOTIFICATION_ID = 1;
-    private static final float SILENT_ZONE_RADIUS = 100; // meters
+    // Only zones within this distance of the last fix are loaded into the index
+    private static final double ZONE_REGION_RADIUS = 50000; // meters
+    private static final String ACTION_SCHEDULE_BOUNDARY = "com.example.silentzone.SCHEDULE_BOUNDARY";
+    // Sampling resumes this long before a zone's window opens, so a fix is in hand when it does
+    private static final long SCHEDULE_LEAD_MS = 10 * 60000;
+    static final String ACTION_GEOFENCE_TRANSITION = "com.example.silentzone.GEOFENCE_TRANSITION";
+    static final String EXTRA_FENCE_IDS = "fenceIds";
+    static final String EXTRA_ENTERED = "entered";
+    static final String EXTRA_LATITUDE = "latitude";
+    static final String EXTRA_LONGITUDE = "longitude";
+    // Sampling is handed to geofences only this far from every zone, where a late fence event costs nothing
+    private static final double GEOFENCE_HANDOFF_DISTANCE = 500; // meters
+    // 5 Hz is plenty for variance; the sensor hub holds up to 10 s of samples so the CPU can sleep
+    private static final int MOTION_SAMPLING_US = 200000;
+    private static final int MOTION_BATCH_US = 10000000;
+    // The compiled active zones, rewritten on every publish and mapped again when the process restarts
+    private static final String ZONE_INDEX_FILE = "zones.idx";
+    private static final int NO_REFUSAL = Integer.MIN_VALUE;
     
     private LocationManager locationManager;
-    private LocationListener locationListener;
+    private LocationListenerCompat locationListener;
     private boolean isInSilentZone = false;
+    // ZoneActions action last applied to the ringer; ACTION_NONE once it was set back to normal
+    private int appliedAction = ZoneActions.ACTION_NONE;
     private boolean isServiceRunning = false;
 
+    // Owned by zoneLoader, which syncs it with Room and then publishes a copy to the evaluator
+    private final ZoneIndex workingIndex = new ZoneIndex();
+    // Single evaluation path for every provider; activities only observe ZoneStatus
+    private final ZoneEvaluator zoneEvaluator = new ZoneEvaluator(this::onZoneTransition);
+    // Names of the indexed zones, replaced together with the evaluator's snapshot
+    private volatile Map<Integer, String> zoneNames = Collections.emptyMap();
+    // Time windows of the indexed zones; only zones active now are in the evaluator's snapshot
+    private volatile ScheduleIndex schedules = ScheduleIndex.EMPTY;
+    private Map<Integer, String> scheduleTexts = Collections.emptyMap();
+    // Priority and action of the indexed zones, compiled with the overlap graph whenever they change
+    private Map<Integer, Long> zoneRules = Collections.emptyMap();
+    private final ZoneActionResolver actionResolver = new ZoneActionResolver();
+    // Wall times at which some zone's schedule changes next, and at which any zone is active next
+    private volatile long snapshotValidUntil = Long.MAX_VALUE;
+    private volatile long nextActiveAt;
+    private volatile String zoneIndexRestore = "not attempted";
+    private AlarmManager alarmManager;
+    private PendingIntent scheduleAlarm;
+    // Platform fences around the nearest zones; they wake us while location updates are paused
+    private GeofenceManager geofences;
+    // Removes location updates while the device lies still
+    private MotionGate motionGate;
+    private SensorManager sensorManager;
+    @Nullable
+    private Sensor accelerometer;
+    @Nullable
+    private Sensor significantMotion;
+    private boolean accelerometerRegistered;
+    private long gpsSavedCounted;
+    private final SensorEventListener accelerometerListener = new SensorEventListener() {
+        @Override
+        public void onSensorChanged(SensorEvent event) {
+            motionGate.onSample(event.timestamp / 1000000, event.values[0], event.values[1], event.values[2]);
+        }
+
+        @Override
+        public void onAccuracyChanged(Sensor sensor, int accuracy) {
+        }
+    };
+    private final TriggerEventListener significantMotionListener = new TriggerEventListener() {
+        @Override
+        public void onTrigger(TriggerEvent event) {
+            motionGate.wake(SystemClock.elapsedRealtime());
+        }
+    };
+    private ZoneStatus.Transition lastTransition;
+    // Transitions of the current fix or batch, journaled once the ringer has been updated
+    private final int[] pendingZoneIds = new int[ZoneEvaluator.MAX_CONTAINING_ZONES];
+    private final boolean[] pendingEntered = new boolean[ZoneEvaluator.MAX_CONTAINING_ZONES];
+    private final long[] pendingTimes = new long[ZoneEvaluator.MAX_CONTAINING_ZONES];
+    private int pendingCount;
+    @Nullable
+    private TransitionJournal journal;
+    private final LocationMetrics metrics = LocationMetrics.get();
+    // Evaluator drop counts already added to the metrics
+    private long staleCounted;
+    private long duplicatesCounted;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final ExecutorService zoneLoader = Executors.newSingleThreadExecutor();
+    // Orders writes of the saved index against its deletion in onDestroy
+    private final Object zoneIndexLock = new Object();
+    // Set by stopAndClear() for the onDestroy that follows
+    private static volatile boolean clearOnDestroy;
+    private InvalidationTracker.Observer zoneObserver;
+    // Bulk imports invalidate the table once per chunk; one queued reload covers them all
+    private final AtomicBoolean zoneLoadQueued = new AtomicBoolean();
+    private volatile double regionLat = Double.NaN;
+    private volatile double regionLon = Double.NaN;
+    private double lastFixLat = Double.NaN;
+    private double lastFixLon = Double.NaN;
+    private SamplingScheduler.Plan samplingPlan;
+    private double boundaryDistance = SamplingScheduler.MAX_BOUNDARY_DISTANCE;
+    // Reused for batched deliveries
+    private long[] batchTime = new long[0];
+    private double[] batchLat = new double[0];
+    private double[] batchLon = new double[0];
+    private float[] batchAccuracy = new float[0];
+    private String[] batchProvider = new String[0];
+
+    // Looked up once; DND access is refreshed from broadcasts rather than per fix
+    private AudioManager audioManager;
+    private NotificationManager notificationManager;
+    private volatile boolean dndAccessGranted;
+    // Action the ringer write was refused for; not retried until the action changes or access is granted
+    private int refusedAction = NO_REFUSAL;
+    private boolean logEveryFix;
+    private final BroadcastReceiver dndAccessReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            refreshDndAccess();
+            if (dndAccessGranted) {
+                refusedAction = NO_REFUSAL;
+                updateSilentMode();
+                publishStatus();
+            }
+        }
+    };
+    private final BroadcastReceiver scheduleReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            refreshActiveZones();
+        }
+    };
+
     @Override
     public void onCreate() {
         super.onCreate();
         Log.d(TAG, "LocationService onCreate");
         createNotificationChannel();
+
+        audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
+        notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        logEveryFix = Log.isLoggable(TAG, Log.VERBOSE);
+        refreshDndAccess();
+        try {
+            journal = TransitionJournal.getInstance(getFilesDir());
+        } catch (IOException e) {
+            Log.e(TAG, "Transition journal unavailable", e);
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            ContextCompat.registerReceiver(this, dndAccessReceiver,
+                    new IntentFilter(NotificationManager.ACTION_NOTIFICATION_POLICY_ACCESS_GRANTED_CHANGED),
+                    ContextCompat.RECEIVER_NOT_EXPORTED);
+        }
+
+        alarmManager = (AlarmManager) getSystemService(Context.ALARM_SERVICE);
+        scheduleAlarm = PendingIntent.getBroadcast(this, 0,
+                new Intent(ACTION_SCHEDULE_BOUNDARY).setPackage(getPackageName()), PendingIntent.FLAG_IMMUTABLE);
+        ContextCompat.registerReceiver(this, scheduleReceiver, new IntentFilter(ACTION_SCHEDULE_BOUNDARY),
+                ContextCompat.RECEIVER_NOT_EXPORTED);
+
+        geofences = new GeofenceManager(new PlayGeofenceClient(this,
+                () -> mainHandler.post(this::onGeofencesFailed)));
+
+        motionGate = new MotionGate(this::onStillnessChanged);
+        sensorManager = (SensorManager) getSystemService(Context.SENSOR_SERVICE);
+        if (sensorManager != null) {
+            accelerometer = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
+            significantMotion = sensorManager.getDefaultSensor(Sensor.TYPE_SIGNIFICANT_MOTION);
+            watchAccelerometer(true);
+        }
+
+        zoneObserver = new InvalidationTracker.Observer("SilentZone") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                loadZones();
+            }
+        };
+        AppDatabase.getInstance(this).getInvalidationTracker().addObserver(zoneObserver);
+        restoreZoneIndex();
+        loadZones();
+    }
+
+    static File zoneIndexFile(Context context) {
+        return new File(context.getNoBackupFilesDir(), ZONE_INDEX_FILE);
+    }
+
+    /**
+     * Stops monitoring because every zone was cleared. Unlike any other stop,
+     * the saved index is deleted so nothing is resumed after a reboot.
+     */
+    static void stopAndClear(Context context) {
+        clearOnDestroy = true;
+        if (!context.stopService(new Intent(context, LocationService.class))) {
+            // Not running, so there is no loader left to write the file
+            clearOnDestroy = false;
+            zoneIndexFile(context).delete();
+        }
+    }
+
+    // Queued ahead of the first Room load, which replaces the mapped index once it has synced
+    private void restoreZoneIndex() {
+        zoneLoader.execute(() -> {
+            File file = zoneIndexFile(this);
+            if (!file.exists()) {
+                zoneIndexRestore = "no saved index";
+                return;
+            }
+            long started = SystemClock.elapsedRealtime();
+            try {
+                MappedZoneIndex mapped = MappedZoneIndex.open(file);
+                if (!mapped.isValidAt(System.currentTimeMillis())) {
+                    // A schedule window opened or closed since it was saved
+                    zoneIndexRestore = "saved index expired";
+                    return;
+                }
+                // Until Room has loaded, names are unknown and every zone silences
+                zoneEvaluator.setZones(mapped);
+                zoneIndexRestore = mapped + ", restored in " + (SystemClock.elapsedRealtime() - started) + " ms";
+                Log.d(TAG, "Zone index restored: " + zoneIndexRestore);
+            } catch (IOException e) {
+                zoneIndexRestore = "saved index rejected: " + e.getMessage();
+                Log.w(TAG, "Saved zone index unusable; waiting for the database", e);
+                file.delete();
+            }
+        });
+    }
+
+    private void loadZones() {
+        if (zoneLoader.isShutdown() || !zoneLoadQueued.compareAndSet(false, true)) {
+            return;
+        }
+        zoneLoader.execute(() -> {
+            // Cleared before querying, so a change committed during the query queues another load
+            zoneLoadQueued.set(false);
+            double centerLat = regionLat;
+            double centerLon = regionLon;
+            SilentZoneDao dao = AppDatabase.getInstance(this).silentZoneDao();
+            List<SilentZone> zones;
+            if (Double.isNaN(centerLat)) {
+                // No fix yet, so there is no region to narrow the query to
+                zones = dao.getAllZones();
+            } else {
+                double dLat = GeoMath.metersToLatDegrees(ZONE_REGION_RADIUS);
+                double dLon = GeoMath.metersToLonDegrees(ZONE_REGION_RADIUS, centerLat);
+                zones = dao.getZonesInBoundingBox(centerLat - dLat, centerLat + dLat,
+                        centerLon - dLon, centerLon + dLon);
+            }
+            if (syncZoneIndex(zones)) {
+                // A zone added next to us must tighten sampling right away
+                mainHandler.post(this::updateSamplingPlan);
+            }
+        });
+    }
+
+    // Reloads the index once the user has moved halfway towards the edge of the loaded region
+    private void updateZoneRegion(double lat, double lon) {
+        if (Double.isNaN(regionLat)
+                || GeoMath.haversine(lat, lon, regionLat, regionLon) > ZONE_REGION_RADIUS / 2) {
+            regionLat = lat;
+            regionLon = lon;
+            loadZones();
+        }
+    }
+
+    // Applies only the inserts, updates and deletes since the last load, then swaps in a new snapshot
+    private boolean syncZoneIndex(List<SilentZone> zones) {
+        Set<Integer> currentIds = new HashSet<>();
+        Map<Integer, String> names = new HashMap<>();
+        Map<Integer, String> texts = new HashMap<>();
+        Map<Integer, Long> rules = new HashMap<>();
+        int added = 0;
+        int changed = 0;
+        for (SilentZone zone : zones) {
+            currentIds.add(zone.id);
+            names.put(zone.id, zone.name);
+            rules.put(zone.id, ((long) zone.priority << 1) | zone.action);
+            if (zone.schedule != null) {
+                texts.put(zone.id, zone.schedule);
+            }
+            // A zone already indexed may have grown by absorbing a duplicate
+            boolean indexed = workingIndex.contains(zone.id);
+            if (workingIndex.put(zone.id, zone.latitude, zone.longitude, zone.radius,
+                    ZoneGeometry.parsePolygon(zone.polygon))) {
+                if (indexed) {
+                    changed++;
+                } else {
+                    added++;
+                }
+            }
+        }
+
+        int removed = 0;
+        for (int id : workingIndex.copyIds()) {
+            if (!currentIds.contains(id)) {
+                workingIndex.remove(id);
+                removed++;
+            }
+        }
+        boolean schedulesChanged = !texts.equals(scheduleTexts);
+        boolean rulesChanged = !rules.equals(zoneRules);
+        boolean geometryChanged = added > 0 || removed > 0 || changed > 0;
+        if (!geometryChanged && !schedulesChanged && !rulesChanged) {
+            return false;
+        }
+        if (geometryChanged || rulesChanged) {
+            ZoneActions.Builder builder = new ZoneActions.Builder();
+            for (SilentZone zone : zones) {
+                builder.add(zone.id, zone.priority, zone.action);
+            }
+            ZoneActions actions = builder.build(workingIndex);
+            zoneRules = rules;
+            Log.d(TAG, "Zone actions compiled: " + actions.getOverlapCount() + " overlapping pairs");
+            // The resolver belongs to the main thread, like the transitions feeding it
+            mainHandler.post(() -> {
+                actionResolver.setActions(actions);
+                updateSilentMode();
+            });
+        }
+        if (schedulesChanged) {
+            ScheduleIndex.Builder builder = new ScheduleIndex.Builder();
+            for (SilentZone zone : zones) {
+                ZoneSchedule schedule = ZoneSchedule.parse(zone.schedule);
+                if (schedule == null && zone.schedule != null) {
+                    Log.w(TAG, "Zone " + zone.id + " has a malformed schedule; treating it as always active");
+                }
+                builder.add(zone.id, schedule);
+            }
+            schedules = builder.build();
+            scheduleTexts = texts;
+        }
+        zoneNames = names;
+        publishActiveZones();
+        Log.d(TAG, "Zone index synced: " + workingIndex.size() + " zones (+" + added + ", -" + removed
+                + ", ~" + changed + "), " + texts.size() + " scheduled");
+        return true;
+    }
+
+    // Runs on zoneLoader, which owns workingIndex: publishes the zones whose schedule is active now
+    private void publishActiveZones() {
+        long now = System.currentTimeMillis();
+        int minute = minuteOfWeek(now);
+        ScheduleIndex index = schedules;
+        ZoneIndex snapshot = workingIndex.copy();
+        index.removeInactive(snapshot, minute);
+        zoneEvaluator.setZones(snapshot);
+
+        long minuteStart = now - now % 60000;
+        int untilChange = index.minutesUntilChange(minute);
+        int untilActive = index.minutesUntilActive(minute);
+        snapshotValidUntil = untilChange < 0 ? Long.MAX_VALUE : minuteStart + untilChange * 60000L;
+        nextActiveAt = untilActive < 0 ? Long.MAX_VALUE : untilActive == 0 ? now : minuteStart + untilActive * 60000L;
+        saveZoneIndex(snapshot);
+        mainHandler.post(() -> {
+            armScheduleAlarm();
+            updateGeofences();
+        });
+    }
+
+    private void saveZoneIndex(ZoneIndex snapshot) {
+        // onDestroy may be deleting the file; a load still running then must not bring it back
+        synchronized (zoneIndexLock) {
+            if (zoneLoader.isShutdown()) {
+                return;
+            }
+            try {
+                MappedZoneIndex.write(snapshot, snapshotValidUntil, zoneIndexFile(this));
+            } catch (IOException e) {
+                Log.w(TAG, "Could not save the zone index", e);
+            }
+        }
+    }
+
+    private void refreshActiveZones() {
+        if (zoneLoader.isShutdown()) {
+            return;
+        }
+        zoneLoader.execute(() -> {
+            publishActiveZones();
+            mainHandler.post(() -> {
+                // A window that closed while we lie inside the zone still needs fixes to confirm leaving
+                motionGate.wake(SystemClock.elapsedRealtime());
+                updateSamplingPlan();
+            });
+        });
+    }
+
+    // Catches a boundary whose alarm has not been delivered yet, e.g. one deferred by Doze
+    private void checkSchedule() {
+        if (System.currentTimeMillis() >= snapshotValidUntil) {
+            snapshotValidUntil = Long.MAX_VALUE;
+            refreshActiveZones();
+        }
+    }
+
+    // Wakes us at the next schedule boundary, or earlier when sampling must resume before a window opens
+    private void armScheduleAlarm() {
+        if (alarmManager == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long wakeAt = snapshotValidUntil;
+        long resumeAt = nextActiveAt - SCHEDULE_LEAD_MS;
+        if (resumeAt > now && resumeAt < wakeAt) {
+            wakeAt = resumeAt;
+        }
+        if (wakeAt == Long.MAX_VALUE) {
+            alarmManager.cancel(scheduleAlarm);
+            return;
+        }
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || alarmManager.canScheduleExactAlarms()) {
+            AlarmManagerCompat.setExactAndAllowWhileIdle(alarmManager, AlarmManager.RTC_WAKEUP, wakeAt,
+                    scheduleAlarm);
+        } else {
+            // Without the exact alarm permission the wake-up may be late; checkSchedule() covers fixes meanwhile
+            AlarmManagerCompat.setAndAllowWhileIdle(alarmManager, AlarmManager.RTC_WAKEUP, wakeAt, scheduleAlarm);
+        }
+    }
+
+    // True when every zone is outside its window for longer than the lead time, so fixes are useless
+    private boolean isScheduleIdle() {
+        // Never while inside: leaving a zone whose window closed still needs fixes to confirm
+        return schedules.hasSchedules() && !zoneEvaluator.isInside()
+                && nextActiveAt - System.currentTimeMillis() > SCHEDULE_LEAD_MS;
+    }
+
+    @Nullable
+    private String pauseReason() {
+        if (isScheduleIdle()) {
+            return "schedules";
+        }
+        if (handedToGeofences()) {
+            return "geofences";
+        }
+        return motionGate.isStill() ? "stillness" : null;
+    }
+
+    private void onStillnessChanged(boolean still, long timeMs) {
+        Log.d(TAG, still ? "Device still" : "Device moving");
+        if (significantMotion != null) {
+            // Significant motion is a wake-up sensor, so the CPU can sleep while we wait for it
+            if (still) {
+                watchAccelerometer(false);
+                sensorManager.requestTriggerSensor(significantMotionListener, significantMotion);
+            } else {
+                sensorManager.cancelTriggerSensor(significantMotionListener, significantMotion);
+                watchAccelerometer(true);
+            }
+        }
+        if (still) {
+            updateSamplingPlan();
+            return;
+        }
+        long saved = motionGate.getSavedGpsMillis(timeMs);
+        metrics.gpsSavedMs.addAndGet(saved - gpsSavedCounted);
+        gpsSavedCounted = saved;
+        if (locationListener != null && samplingPlan == null && pauseReason() == null) {
+            // Nothing moved since the last fix, so its zone state and sampling tier still hold
+            metrics.planChanges.incrementAndGet();
+            requestUpdates(Double.isNaN(lastFixLat) ? SamplingScheduler.initialPlan()
+                    : SamplingScheduler.planFor(boundaryDistance, !ZoneStatus.observe().hasActiveObservers()));
+        }
+    }
+
+    private void watchAccelerometer(boolean watch) {
+        if (accelerometer == null || accelerometerRegistered == watch) {
+            return;
+        }
+        if (watch) {
+            sensorManager.registerListener(accelerometerListener, accelerometer, MOTION_SAMPLING_US, MOTION_BATCH_US,
+                    mainHandler);
+        } else {
+            sensorManager.unregisterListener(accelerometerListener);
+        }
+        accelerometerRegistered = watch;
+    }
+
+    // Far from every zone the refresh fence, or a zone fence, wakes us before a fix could matter
+    private boolean handedToGeofences() {
+        return geofences.isActive() && !zoneEvaluator.isInside() && !geofences.isInsideZoneFence()
+                && !Double.isNaN(lastFixLat) && boundaryDistance > GEOFENCE_HANDOFF_DISTANCE;
+    }
+
+    // Schedules are written in local time, Monday first
+    private static int minuteOfWeek(long wallTime) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(wallTime);
+        return ZoneSchedule.minuteOfWeek((calendar.get(Calendar.DAY_OF_WEEK) + 5) % 7,
+                calendar.get(Calendar.HOUR_OF_DAY), calendar.get(Calendar.MINUTE));
     }
 
     @Override
@@ -48,12 +554,64 @@ public class LocationService extends Service {
             startForeground(NOTIFICATION_ID, createNotification());
             isServiceRunning = true;
         }
-        
+
+        if (intent != null && ACTION_GEOFENCE_TRANSITION.equals(intent.getAction()) && locationListener != null) {
+            onGeofenceTransition(intent);
+            return START_STICKY;
+        }
+        // Also reached when a fence event revives a killed service; the first fix re-registers the fences
         startLocationMonitoring();
         
         return START_STICKY;
     }
 
+    private void onGeofenceTransition(Intent intent) {
+        String[] ids = intent.getStringArrayExtra(EXTRA_FENCE_IDS);
+        boolean entered = intent.getBooleanExtra(EXTRA_ENTERED, false);
+        if (ids == null) {
+            return;
+        }
+        boolean refresh = false;
+        for (String id : ids) {
+            refresh |= geofences.onTransition(id, entered);
+        }
+        Log.d(TAG, "Geofence " + (entered ? "enter " : "exit ") + Arrays.toString(ids));
+        if (refresh) {
+            double lat = intent.getDoubleExtra(EXTRA_LATITUDE, lastFixLat);
+            double lon = intent.getDoubleExtra(EXTRA_LONGITUDE, lastFixLon);
+            if (!Double.isNaN(lat)) {
+                updateGeofences(lat, lon);
+            }
+        }
+        // Fences only say roughly where we are; the zones themselves are decided from fixes
+        motionGate.wake(SystemClock.elapsedRealtime());
+        if (samplingPlan == null && !isScheduleIdle()) {
+            metrics.planChanges.incrementAndGet();
+            requestUpdates(SamplingScheduler.initialPlan());
+        }
+    }
+
+    // Re-ranks the fences around the last fix, e.g. after the active zones changed
+    private void updateGeofences() {
+        if (!Double.isNaN(lastFixLat)) {
+            updateGeofences(lastFixLat, lastFixLon);
+        }
+    }
+
+    private void updateGeofences(double lat, double lon) {
+        // The mapped index restored at startup has no enclosing circles; fences wait for the Room load
+        ZoneLookup zones = zoneEvaluator.getZones();
+        if (zones instanceof ZoneIndex) {
+            geofences.update((ZoneIndex) zones, lat, lon);
+        }
+    }
+
+    private void onGeofencesFailed() {
+        Log.w(TAG, "Geofences unavailable; sampling stays active");
+        geofences.onRegistrationFailed();
+        updateSamplingPlan();
+    }
+
     private void startLocationMonitoring() {
         locationManager = (LocationManager) getSystemService(LOCATION_SERVICE);
         
@@ -62,29 +620,136 @@ public class LocationService extends Service {
             return;
         }
 
-        locationListener = new LocationListener() {
+        // onStartCommand can run again while the previous listener is still registered
+        if (locationListener != null) {
+            LocationManagerCompat.removeUpdates(locationManager, locationListener);
+        }
+
+        locationListener = new LocationListenerCompat() {
             @Override
-            public void onLocationChanged(Location location) {
-                if (location == null) {
-                    Log.w(TAG, "Location is null");
+            public void onLocationChanged(@NonNull Location location) {
+                checkSchedule();
+                long fixTimeMs = location.getElapsedRealtimeNanos() / 1000000;
+                metrics.recordFix(location.getProvider(), SystemClock.elapsedRealtime() - fixTimeMs);
+                long started = System.nanoTime();
+                boolean accepted = zoneEvaluator.evaluate(fixTimeMs, location.getLatitude(),
+                        location.getLongitude(), location.getProvider());
+                metrics.evaluationMicros.record((System.nanoTime() - started) / 1000);
+                if (!accepted) {
+                    countDroppedFixes();
+                    if (logEveryFix) {
+                        Log.v(TAG, "Dropped stale or duplicate fix from " + location.getProvider());
+                    }
                     return;
                 }
-                
-                Log.d(TAG, "Location update: " + location.getLatitude() + ", " + location.getLongitude());
-                checkAndUpdateSilentMode(location);
+
+                if (logEveryFix) {
+                    Log.v(TAG, "Location update (" + location.getProvider() + "): "
+                            + location.getLatitude() + ", " + location.getLongitude());
+                }
+                onFixesEvaluated(location.getLatitude(), location.getLongitude(), location.getAccuracy());
             }
 
-            @Override public void onStatusChanged(String s, int i, Bundle bundle) {}
-            @Override public void onProviderEnabled(String s) {}
-            @Override public void onProviderDisabled(String s) {}
+            // Batched plans deliver several fixes at once (API 31+; older platforms deliver them singly)
+            @Override
+            public void onLocationChanged(@NonNull List<Location> locations) {
+                if (locations.size() == 1) {
+                    onLocationChanged(locations.get(0));
+                } else if (!locations.isEmpty()) {
+                    onLocationBatch(locations);
+                }
+            }
         };
 
+        requestUpdates(SamplingScheduler.initialPlan());
+    }
+
+    private void onLocationBatch(List<Location> locations) {
+        checkSchedule();
+        int n = locations.size();
+        if (batchTime.length < n) {
+            batchTime = new long[n];
+            batchLat = new double[n];
+            batchLon = new double[n];
+            batchAccuracy = new float[n];
+            batchProvider = new String[n];
+        }
+        int latest = 0;
+        long now = SystemClock.elapsedRealtime();
+        for (int i = 0; i < n; i++) {
+            Location location = locations.get(i);
+            batchTime[i] = location.getElapsedRealtimeNanos() / 1000000;
+            metrics.recordFix(location.getProvider(), now - batchTime[i]);
+            batchLat[i] = location.getLatitude();
+            batchLon[i] = location.getLongitude();
+            batchAccuracy[i] = location.getAccuracy();
+            batchProvider[i] = location.getProvider();
+            if (batchTime[i] > batchTime[latest]) {
+                latest = i;
+            }
+        }
+        long started = System.nanoTime();
+        int accepted = zoneEvaluator.evaluateBatch(batchTime, batchLat, batchLon, batchProvider, n);
+        metrics.evaluationMicros.record((System.nanoTime() - started) / 1000);
+        metrics.batchSize.record(n);
+        if (accepted < n) {
+            countDroppedFixes();
+        }
+        Log.d(TAG, "Location batch: " + accepted + "/" + n + " fixes accepted");
+        if (accepted > 0) {
+            onFixesEvaluated(batchLat[latest], batchLon[latest], batchAccuracy[latest]);
+        }
+    }
+
+    private void countDroppedFixes() {
+        long stale = zoneEvaluator.getStaleCount();
+        long duplicates = zoneEvaluator.getDuplicateCount();
+        metrics.staleFixes.addAndGet(stale - staleCounted);
+        metrics.duplicateFixes.addAndGet(duplicates - duplicatesCounted);
+        staleCounted = stale;
+        duplicatesCounted = duplicates;
+    }
+
+    private void onFixesEvaluated(double lat, double lon, float accuracy) {
+        lastFixLat = lat;
+        lastFixLon = lon;
+        updateZoneRegion(lastFixLat, lastFixLon);
+        GeofenceManager.Fence refresh = geofences.getRefreshFence();
+        if (refresh == null || !refresh.contains(lat, lon)) {
+            updateGeofences();
+        }
+        if (pendingCount > 0) {
+            int previousRinger = currentRingerMode();
+            updateSilentMode();
+            journalTransitions(previousRinger, currentRingerMode(), accuracy);
+        } else {
+            updateSilentMode();
+        }
+        updateSamplingPlan();
+        publishStatus();
+    }
+
+    private void requestUpdates(SamplingScheduler.Plan plan) {
         if (checkSelfPermission(android.Manifest.permission.ACCESS_FINE_LOCATION) == PackageManager.PERMISSION_GRANTED) {
             try {
-                // Request updates from both GPS and Network providers
-                locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, 5000, 10, locationListener);
-                locationManager.requestLocationUpdates(LocationManager.NETWORK_PROVIDER, 5000, 10, locationListener);
-                Log.d(TAG, "Location updates started successfully");
+                LocationManagerCompat.removeUpdates(locationManager, locationListener);
+                LocationRequestCompat request = new LocationRequestCompat.Builder(plan.intervalMs)
+                        .setMinUpdateDistanceMeters(plan.minDistanceMeters)
+                        .setMaxUpdateDelayMillis(plan.maxDelayMs)
+                        .build();
+                boolean hasNetwork = locationManager.getAllProviders().contains(LocationManager.NETWORK_PROVIDER);
+                // GPS only when close to a boundary, or when there is nothing else
+                if (plan.useGps || !hasNetwork) {
+                    LocationManagerCompat.requestLocationUpdates(locationManager, LocationManager.GPS_PROVIDER,
+                            request, locationListener, Looper.getMainLooper());
+                }
+                if (hasNetwork) {
+                    LocationManagerCompat.requestLocationUpdates(locationManager, LocationManager.NETWORK_PROVIDER,
+                            request, locationListener, Looper.getMainLooper());
+                }
+                samplingPlan = plan;
+                motionGate.setGpsWanted(plan.useGps || !hasNetwork, SystemClock.elapsedRealtime());
+                Log.d(TAG, "Location updates started: " + plan);
             } catch (SecurityException e) {
                 Log.e(TAG, "Security exception when requesting location updates", e);
             } catch (IllegalArgumentException e) {
@@ -95,66 +760,153 @@ public class LocationService extends Service {
         }
     }
 
-    private void checkAndUpdateSilentMode(Location currentLocation) {
-        SharedPreferences prefs = getSharedPreferences("SilentZonePrefs", MODE_PRIVATE);
-        double savedLat = Double.longBitsToDouble(prefs.getLong("lat", Double.doubleToLongBits(0)));
-        double savedLon = Double.longBitsToDouble(prefs.getLong("lon", Double.doubleToLongBits(0)));
-
-        // Check if we have a valid target location
-        if (savedLat == 0 && savedLon == 0) {
-            Log.d(TAG, "No silent zone location set");
+    // Re-registers the listener only when the distance to the nearest boundary moves us to another tier
+    private void updateSamplingPlan() {
+        if (locationListener == null) {
+            return;
+        }
+        if (!Double.isNaN(lastFixLat)) {
+            boundaryDistance = zoneEvaluator.getZones().distanceToNearestBoundary(lastFixLat, lastFixLon,
+                    SamplingScheduler.MAX_BOUNDARY_DISTANCE);
+        }
+        String pausedBy = pauseReason();
+        if (pausedBy != null) {
+            if (samplingPlan != null) {
+                LocationManagerCompat.removeUpdates(locationManager, locationListener);
+                samplingPlan = null;
+                if (!motionGate.isStill()) {
+                    // Stillness only saves GPS time it suspended itself
+                    motionGate.setGpsWanted(false, SystemClock.elapsedRealtime());
+                }
+                metrics.planChanges.incrementAndGet();
+                Log.d(TAG, "Location updates paused by " + pausedBy + "; nearest zone boundary "
+                        + Math.round(boundaryDistance) + " m away");
+            }
+            return;
+        }
+        if (samplingPlan == null) {
+            // Resuming ahead of a window opening, or after geofences failed
+            metrics.planChanges.incrementAndGet();
+            requestUpdates(SamplingScheduler.initialPlan());
+            return;
+        }
+        if (Double.isNaN(lastFixLat)) {
             return;
         }
+        // Nobody is watching the status, so minute-level latency is fine and fixes can be batched
+        boolean batched = !ZoneStatus.observe().hasActiveObservers();
+        SamplingScheduler.Plan plan = SamplingScheduler.planFor(boundaryDistance, batched);
+        if (plan != samplingPlan) {
+            Log.d(TAG, "Nearest zone boundary " + Math.round(boundaryDistance) + " m away");
+            metrics.planChanges.incrementAndGet();
+            requestUpdates(plan);
+        }
+    }
+
+    private void onZoneTransition(int zoneId, boolean entered, long timeMs) {
+        Log.d(TAG, (entered ? "Entered" : "Left") + " zone " + zoneId);
+        actionResolver.onTransition(zoneId, entered);
+        metrics.transitions.incrementAndGet();
+        // timeMs is elapsed realtime, and a batched transition may lie minutes back
+        long wallTime = System.currentTimeMillis() - (SystemClock.elapsedRealtime() - timeMs);
+        lastTransition = new ZoneStatus.Transition(zoneId, zoneNames.get(zoneId), entered, wallTime);
+        if (pendingCount < pendingZoneIds.length) {
+            pendingZoneIds[pendingCount] = zoneId;
+            pendingEntered[pendingCount] = entered;
+            pendingTimes[pendingCount] = timeMs;
+            pendingCount++;
+        }
+    }
+
+    private void journalTransitions(int previousRinger, int newRinger, float accuracy) {
+        long nowMicros = SystemClock.elapsedRealtimeNanos() / 1000;
+        long wallOffset = System.currentTimeMillis() - SystemClock.elapsedRealtime();
+        if (journal != null) {
+            for (int i = 0; i < pendingCount; i++) {
+                journal.append(wallOffset + pendingTimes[i], pendingZoneIds[i], pendingEntered[i], previousRinger,
+                        newRinger, accuracy, nowMicros - pendingTimes[i] * 1000);
+            }
+        }
+        pendingCount = 0;
+    }
 
-        Location silentZone = new Location("");
-        silentZone.setLatitude(savedLat);
-        silentZone.setLongitude(savedLon);
+    private int currentRingerMode() {
+        return audioManager != null ? audioManager.getRingerMode() : -1;
+    }
+
+    private void publishStatus() {
+        int currentZoneId = actionResolver.getWinningZoneId();
+        if (currentZoneId == -1) {
+            currentZoneId = zoneEvaluator.getCurrentZoneId();
+        }
+        ZoneStatus.publish(new ZoneStatus(zoneEvaluator.isInside(), appliedAction, zoneEvaluator.getContainingCount(),
+                currentZoneId, currentZoneId == -1 ? null : zoneNames.get(currentZoneId), boundaryDistance,
+                System.currentTimeMillis(), lastTransition));
+    }
 
-        float distance = currentLocation.distanceTo(silentZone);
-        Log.d(TAG, "Distance to silent zone: " + distance + " meters");
+    private void updateSilentMode() {
+        // Only a confirmed transition touches the ringer, and only the winning zone's action counts
+        int action = actionResolver.getAction();
+        if (action == appliedAction) {
+            refusedAction = NO_REFUSAL;
+            return;
+        }
+        if (action == refusedAction) {
+            return;
+        }
 
-        // Check if we have DND access
-        if (!hasDndAccess()) {
+        // The broadcast is API 28+, so a cached denial is re-checked once per new action before giving up
+        if (!dndAccessGranted) {
+            refreshDndAccess();
+        }
+        if (!dndAccessGranted) {
             Log.w(TAG, "No DND access granted - cannot change ringer mode");
+            metrics.ringerWriteFailures.incrementAndGet();
+            refusedAction = action;
             return;
         }
 
-        AudioManager audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
         if (audioManager == null) {
             Log.e(TAG, "AudioManager is null");
             return;
         }
 
-        if (distance <= SILENT_ZONE_RADIUS) {
-            if (!isInSilentZone) {
-                Log.d(TAG, "Entering silent zone - setting phone to silent");
-                try {
-                    audioManager.setRingerMode(AudioManager.RINGER_MODE_SILENT);
-                    isInSilentZone = true;
-                    Log.d(TAG, "Successfully set phone to silent mode");
-                } catch (SecurityException e) {
-                    Log.e(TAG, "Security exception when setting silent mode", e);
-                }
+        if (action != ZoneActions.ACTION_NONE) {
+            String name = ZoneActions.actionName(action);
+            Log.d(TAG, "Inside zone " + actionResolver.getWinningZoneId() + " - setting phone to " + name);
+            try {
+                audioManager.setRingerMode(action == ZoneActions.ACTION_VIBRATE
+                        ? AudioManager.RINGER_MODE_VIBRATE : AudioManager.RINGER_MODE_SILENT);
+                metrics.ringerWrites.incrementAndGet();
+                appliedAction = action;
+                isInSilentZone = true;
+                Log.d(TAG, "Successfully set phone to " + name + " mode");
+            } catch (SecurityException e) {
+                dndAccessGranted = false;
+                refusedAction = action;
+                metrics.ringerWriteFailures.incrementAndGet();
+                Log.e(TAG, "Security exception when setting " + name + " mode", e);
             }
         } else {
-            if (isInSilentZone) {
-                Log.d(TAG, "Leaving silent zone - setting phone to normal");
-                try {
-                    audioManager.setRingerMode(AudioManager.RINGER_MODE_NORMAL);
-                    isInSilentZone = false;
-                    Log.d(TAG, "Successfully set phone to normal mode");
-                } catch (SecurityException e) {
-                    Log.e(TAG, "Security exception when setting normal mode", e);
-                }
+            Log.d(TAG, "Leaving silent zone - setting phone to normal");
+            try {
+                audioManager.setRingerMode(AudioManager.RINGER_MODE_NORMAL);
+                metrics.ringerWrites.incrementAndGet();
+                appliedAction = ZoneActions.ACTION_NONE;
+                isInSilentZone = false;
+                Log.d(TAG, "Successfully set phone to normal mode");
+            } catch (SecurityException e) {
+                dndAccessGranted = false;
+                refusedAction = action;
+                metrics.ringerWriteFailures.incrementAndGet();
+                Log.e(TAG, "Security exception when setting normal mode", e);
             }
         }
     }
 
-    private boolean hasDndAccess() {
-        NotificationManager n = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        boolean hasAccess = n != null && n.isNotificationPolicyAccessGranted();
-        Log.d(TAG, "DND access check: " + hasAccess);
-        return hasAccess;
+    private void refreshDndAccess() {
+        dndAccessGranted = notificationManager != null && notificationManager.isNotificationPolicyAccessGranted();
+        Log.d(TAG, "DND access check: " + dndAccessGranted);
     }
 
     private void createNotificationChannel() {
@@ -191,10 +943,35 @@ public class LocationService extends Service {
     public void onDestroy() {
         super.onDestroy();
         Log.d(TAG, "LocationService onDestroy");
+
+        AppDatabase.getInstance(this).getInvalidationTracker().removeObserver(zoneObserver);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            unregisterReceiver(dndAccessReceiver);
+        }
+        unregisterReceiver(scheduleReceiver);
+        if (alarmManager != null) {
+            alarmManager.cancel(scheduleAlarm);
+        }
+        geofences.clear();
+        if (sensorManager != null) {
+            watchAccelerometer(false);
+            if (significantMotion != null) {
+                sensorManager.cancelTriggerSensor(significantMotionListener, significantMotion);
+            }
+        }
+        zoneLoader.shutdownNow();
+        if (clearOnDestroy) {
+            clearOnDestroy = false;
+            // Waits for a write already in progress; later ones see the loader shut down
+            synchronized (zoneIndexLock) {
+                zoneIndexFile(this).delete();
+            }
+        }
+        mainHandler.removeCallbacksAndMessages(null);
         
         if (locationManager != null && locationListener != null) {
             try {
-                locationManager.removeUpdates(locationListener);
+                LocationManagerCompat.removeUpdates(locationManager, locationListener);
                 Log.d(TAG, "Location updates removed");
             } catch (SecurityException e) {
                 Log.e(TAG, "Security exception when removing location updates", e);
@@ -204,6 +981,32 @@ public class LocationService extends Service {
         isServiceRunning = false;
     }
 
+    // adb shell dumpsys activity service com.example.silentzone/.LocationService [--reset]
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        if (args != null && Arrays.asList(args).contains("--reset")) {
+            metrics.reset();
+            writer.println("Metrics reset");
+            return;
+        }
+        writer.println("SilentZone " + DiagnosticsActivity.versionName(this));
+        writer.println("Plan: " + (samplingPlan != null ? samplingPlan : "paused by " + pauseReason())
+                + ", zones active: " + zoneEvaluator.getZones().size() + " of " + zoneNames.size()
+                + ", ringer: " + (isInSilentZone ? ZoneActions.actionName(appliedAction) : "normal")
+                + ", DND access: " + dndAccessGranted);
+        writer.println("Zone index: " + (zoneEvaluator.getZones() instanceof MappedZoneIndex ? "mapped" : "loaded")
+                + ", startup restore: " + zoneIndexRestore);
+        writer.println("Geofences: " + geofences);
+        writer.println("Motion: " + motionGate + ", GPS-on time saved "
+                + motionGate.getSavedGpsMillis(SystemClock.elapsedRealtime()) / 1000 + " s"
+                + (accelerometer == null ? ", no accelerometer" : ""));
+        long validUntil = snapshotValidUntil;
+        if (validUntil != Long.MAX_VALUE) {
+            writer.println("Next schedule change: " + new Date(validUntil));
+        }
+        metrics.dump(writer);
+    }
+
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
@@ -6,26 +6,29 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
-import android.location.Location;
 import android.media.AudioManager;
 import android.os.Build;
 import android.os.Bundle;
+import android.os.Trace;
+import android.text.format.DateFormat;
 import android.util.Log;
 import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
-import androidx.room.Room;
 
 import com.google.android.gms.location.*;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 
+import java.util.Date;
+
 public class MainActivity extends AppCompatActivity {
 
     private static final String TAG = "MainActivity";
@@ -33,35 +36,47 @@ public class MainActivity extends AppCompatActivity {
     // Core functionality components (preserved from original)
     private double targetLat;
     private double targetLon;
+    private String locationName = "";
     private static final int LOCATION_PERMISSION_CODE = 1;
     private static final int BACKGROUND_LOCATION_PERMISSION_CODE = 2;
     private static final int MAP_REQUEST_CODE = 100;
+    // Startup tasks, in the order they are queued
+    static final String STARTUP_DATABASE = "database";
+    static final String STARTUP_MAP = "map";
+    static final String STARTUP_PERMISSIONS = "permissions";
+    static final String STARTUP_COMPACTION = "compaction";
+    // Only used for one-off lookups, so created on first use; zone evaluation happens in LocationService
     private FusedLocationProviderClient fusedLocationClient;
-    private LocationRequest locationRequest;
-    private LocationCallback locationCallback;
-    private AppDatabase db;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        Trace.beginSection("MainActivity.onCreate");
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_main);
-
         Log.d(TAG, "MainActivity onCreate started");
 
-        // Initialize database
-        db = Room.databaseBuilder(getApplicationContext(),
-                        AppDatabase.class, "silentzone-db")
-                .allowMainThreadQueries()
-                .build();
+        // Background tasks can outlive the activity, so they only hold the application
+        Context app = getApplicationContext();
+        // Opening the database runs its migrations; get that going before inflating anything
+        StartupTasks startup = StartupTasks.get();
+        startup.runInBackground(STARTUP_DATABASE,
+                () -> AppDatabase.getInstance(app).getOpenHelper().getWritableDatabase());
+        // Keeps map tiles around saved zones downloaded for offline use
+        startup.runInBackground(STARTUP_MAP, () -> {
+            MapTiles.configureOsmdroid(app);
+            MapTiles.getInstance(app);
+        });
+        startup.runInBackground(STARTUP_COMPACTION, () -> ZoneRepository.compactDaily(app));
 
-        // Initialize core functionality
-        initializeCoreFunctionality();
-        
-        // Load HomeFragment
+        setContentView(R.layout.activity_main);
+        // The home screen shows the saved location, so it is read before the first frame
+        loadSavedLocation();
         loadFragment(new HomeFragment());
-        
-        // Check and request permissions
-        checkAndRequestPermissions();
+
+        // Permission dialogs and the service start wait until something is on screen
+        startup.markFirstFrame(this);
+        startup.runAfterFirstFrame(this, STARTUP_PERMISSIONS, this::checkAndRequestPermissions);
+        startup.mark(StartupTasks.ON_CREATE);
+        Trace.endSection();
     }
 
     private void loadFragment(Fragment fragment) {
@@ -71,38 +86,11 @@ public class MainActivity extends AppCompatActivity {
         transaction.commit();
     }
 
-    private void initializeCoreFunctionality() {
-        // Initialize location services
-        fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
-        locationRequest = LocationRequest.create();
-        locationRequest.setPriority(Priority.PRIORITY_HIGH_ACCURACY);
-        locationRequest.setInterval(5000);
-        
-        locationCallback = new LocationCallback() {
-            @Override
-            public void onLocationResult(LocationResult locationResult) {
-                if (locationResult == null) return;
-                Location location = locationResult.getLastLocation();
-                if (location != null) {
-                    double lat = location.getLatitude();
-                    double lon = location.getLongitude();
-
-                    float[] result = new float[1];
-                    Location.distanceBetween(lat, lon, targetLat, targetLon, result);
-
-                    if (result[0] < 100) {
-                        setPhoneToSilentMode();
-                        Log.d(TAG, "Inside silent zone - distance: " + result[0] + "m");
-                    } else {
-                        setPhoneToNormalMode();
-                        Log.d(TAG, "Outside silent zone - distance: " + result[0] + "m");
-                    }
-                }
-            }
-        };
-        
-        // Load saved location
-        loadSavedLocation();
+    private FusedLocationProviderClient getFusedLocationClient() {
+        if (fusedLocationClient == null) {
+            fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
+        }
+        return fusedLocationClient;
     }
 
     // Core functionality methods (preserved from original)
@@ -110,10 +98,11 @@ public class MainActivity extends AppCompatActivity {
         SharedPreferences prefs = getSharedPreferences("SilentZonePrefs", MODE_PRIVATE);
         targetLat = Double.longBitsToDouble(prefs.getLong("lat", Double.doubleToLongBits(0.0)));
         targetLon = Double.longBitsToDouble(prefs.getLong("lon", Double.doubleToLongBits(0.0)));
+        locationName = prefs.getString("locationName", "");
     }
 
     public void setCurrentLocationAsSilentZone() {
-        fusedLocationClient.getLastLocation()
+        getFusedLocationClient().getLastLocation()
                 .addOnSuccessListener(location -> {
                     if (location != null) {
                         targetLat = location.getLatitude();
@@ -122,7 +111,7 @@ public class MainActivity extends AppCompatActivity {
                         Log.d(TAG, "Set silent zone to current location: " + targetLat + ", " + targetLon);
 
                         SilentZone zone = new SilentZone(targetLat, targetLon, "Current Location");
-                        db.silentZoneDao().insert(zone);
+                        getZoneRepository().insert(zone);
                         
                         restartLocationService();
                         showSuccessSnackbar("Silent zone set to current location");
@@ -210,16 +199,16 @@ public class MainActivity extends AppCompatActivity {
         editor.putLong("lon", Double.doubleToRawLongBits(lon));
         editor.putString("locationName", name);
         editor.apply();
+        locationName = name;
         Log.d(TAG, "Zone saved with name: " + lat + ", " + lon + " - " + name);
     }
 
     public String getCurrentLocationName() {
-        SharedPreferences prefs = getSharedPreferences("SilentZonePrefs", MODE_PRIVATE);
-        return prefs.getString("locationName", "");
+        return locationName;
     }
 
-    public String getLocationStatus() {
-        if (targetLat == 0 && targetLon == 0) {
+    public String getLocationStatus(@Nullable ZoneStatus status, int zoneCount) {
+        if (zoneCount == 0) {
             return "No silent zone configured";
         }
         
@@ -227,44 +216,27 @@ public class MainActivity extends AppCompatActivity {
             return "Location permission needed";
         }
         
-        try {
-            fusedLocationClient.getLastLocation()
-                .addOnSuccessListener(location -> {
-                    if (location != null) {
-                        double currentLat = location.getLatitude();
-                        double currentLon = location.getLongitude();
-                        
-                        float[] result = new float[1];
-                        Location.distanceBetween(currentLat, currentLon, targetLat, targetLon, result);
-                        
-                        // Update status in a way that can be accessed by fragments
-                        SharedPreferences.Editor editor = getSharedPreferences("SilentZonePrefs", MODE_PRIVATE).edit();
-                        if (result[0] < 100) {
-                            editor.putString("currentStatus", "INSIDE");
-                            editor.putFloat("distance", result[0]);
-                        } else {
-                            editor.putString("currentStatus", "OUTSIDE");
-                            editor.putFloat("distance", result[0]);
-                        }
-                        editor.apply();
-                    }
-                });
-        } catch (SecurityException e) {
-            return "Location access denied";
+        if (status == null) {
+            return "Checking location...";
         }
-        
-        // Return current status from preferences
-        SharedPreferences prefs = getSharedPreferences("SilentZonePrefs", MODE_PRIVATE);
-        String status = prefs.getString("currentStatus", "UNKNOWN");
-        float distance = prefs.getFloat("distance", 0f);
-        
-        if (status.equals("INSIDE")) {
-            return String.format("INSIDE silent zone (%.1fm away)", distance);
-        } else if (status.equals("OUTSIDE")) {
-            return String.format("OUTSIDE silent zone (%.1fm away)", distance);
+        StringBuilder text = new StringBuilder();
+        if (status.inside) {
+            String zone = status.currentZoneName != null ? status.currentZoneName : "silent zone";
+            text.append(String.format("INSIDE %s (%.1fm from edge)", zone, status.boundaryDistance));
+            if (status.ringerAction == ZoneActions.ACTION_NONE) {
+                // Usually means DND access was not granted
+                text.append("\nRinger not changed");
+            }
+        } else {
+            text.append(String.format("OUTSIDE silent zone (%.1fm away)", status.boundaryDistance));
         }
-        
-        return "Checking location...";
+        ZoneStatus.Transition transition = status.lastTransition;
+        if (transition != null) {
+            String zone = transition.zoneName != null ? transition.zoneName : "zone " + transition.zoneId;
+            text.append("\nLast: ").append(transition.entered ? "entered " : "left ").append(zone)
+                    .append(" at ").append(DateFormat.getTimeFormat(this).format(new Date(transition.timeMillis)));
+        }
+        return text.toString();
     }
 
     public void setMapSelectedLocation(double lat, double lon) {
@@ -274,7 +246,7 @@ public class MainActivity extends AppCompatActivity {
         Log.d(TAG, "Set silent zone from map: " + lat + ", " + lon);
 
         SilentZone zone = new SilentZone(lat, lon, "Map Selected Location");
-        db.silentZoneDao().insert(zone);
+        getZoneRepository().insert(zone);
         
         restartLocationService();
         showSuccessSnackbar("Silent zone set from map");
@@ -289,21 +261,22 @@ public class MainActivity extends AppCompatActivity {
         editor.putLong("lon", Double.doubleToRawLongBits(0.0));
         editor.putString("locationName", "");
         editor.apply();
+        locationName = "";
         
         // Clear all zones from database
-        db.silentZoneDao().deleteAll();
+        getZoneRepository().deleteAll();
         
         // Stop location service since no zone is set
-        stopService(new Intent(this, LocationService.class));
+        LocationService.stopAndClear(this);
         
         Log.d(TAG, "Silent zone cleared");
         showSuccessSnackbar("Silent zone cleared");
     }
 
     private void restartLocationService() {
-        stopService(new Intent(this, LocationService.class));
+        // A running service reloads its zones when the table changes, so it is only started if needed
         startService(new Intent(this, LocationService.class));
-        Log.d(TAG, "LocationService restarted");
+        Log.d(TAG, "LocationService refreshed");
     }
 
     private void startLocationService() {
@@ -327,49 +300,11 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
-    private void startLocationUpdates() {
-        if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED &&
-                ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_COARSE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
-            ActivityCompat.requestPermissions(this,
-                    new String[]{Manifest.permission.ACCESS_FINE_LOCATION},
-                    LOCATION_PERMISSION_CODE);
-            return;
-        }
-        fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, getMainLooper());
-        Log.d(TAG, "Location updates started");
-    }
-
     private boolean hasDndAccess() {
         NotificationManager n = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
         return n != null && n.isNotificationPolicyAccessGranted();
     }
 
-    private void setPhoneToSilentMode() {
-        if (!hasDndAccess()) {
-            Log.w(TAG, "Cannot set silent mode - no DND access");
-            return;
-        }
-        
-        AudioManager audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
-        if (audioManager != null) {
-            audioManager.setRingerMode(AudioManager.RINGER_MODE_SILENT);
-            Log.d(TAG, "Phone set to silent mode");
-        }
-    }
-
-    private void setPhoneToNormalMode() {
-        if (!hasDndAccess()) {
-            Log.w(TAG, "Cannot set normal mode - no DND access");
-            return;
-        }
-        
-        AudioManager audioManager = (AudioManager) getSystemService(Context.AUDIO_SERVICE);
-        if (audioManager != null) {
-            audioManager.setRingerMode(AudioManager.RINGER_MODE_NORMAL);
-            Log.d(TAG, "Phone set to normal mode");
-        }
-    }
-
     public void checkAndRequestPermissions() {
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
             ActivityCompat.requestPermissions(this,
@@ -380,7 +315,6 @@ public class MainActivity extends AppCompatActivity {
                     new String[]{Manifest.permission.ACCESS_BACKGROUND_LOCATION},
                     BACKGROUND_LOCATION_PERMISSION_CODE);
         } else {
-            startLocationUpdates();
             startLocationService();
             checkDndAccess();
         }
@@ -400,7 +334,6 @@ public class MainActivity extends AppCompatActivity {
                             new String[]{Manifest.permission.ACCESS_BACKGROUND_LOCATION},
                             BACKGROUND_LOCATION_PERMISSION_CODE);
                 } else {
-                    startLocationUpdates();
                     startLocationService();
                     checkDndAccess();
                 }
@@ -412,7 +345,6 @@ public class MainActivity extends AppCompatActivity {
             if (grantResults.length > 0 && grantResults[0] == PackageManager.PERMISSION_GRANTED) {
                 Log.d(TAG, "Background location permission granted");
                 showSuccessSnackbar("Background location permission granted");
-                startLocationUpdates();
                 startLocationService();
                 checkDndAccess();
             } else {
@@ -431,7 +363,7 @@ public class MainActivity extends AppCompatActivity {
             Log.d(TAG, "Set silent zone from map: " + targetLat + ", " + targetLon);
 
             SilentZone zone = new SilentZone(targetLat, targetLon, "Map Selected Location");
-            db.silentZoneDao().insert(zone);
+            getZoneRepository().insert(zone);
             
             restartLocationService();
             showSuccessSnackbar("Silent zone set from map");
@@ -439,14 +371,6 @@ public class MainActivity extends AppCompatActivity {
         super.onActivityResult(requestCode, resultCode, data);
     }
 
-    @Override
-    protected void onDestroy() {
-        super.onDestroy();
-        if (fusedLocationClient != null && locationCallback != null) {
-            fusedLocationClient.removeLocationUpdates(locationCallback);
-        }
-    }
-
     // Snackbar methods
     public void showSuccessSnackbar(String message) {
         Snackbar.make(findViewById(android.R.id.content), message, Snackbar.LENGTH_SHORT)
@@ -469,5 +393,5 @@ public class MainActivity extends AppCompatActivity {
     // Getters for fragments
     public double getTargetLat() { return targetLat; }
     public double getTargetLon() { return targetLon; }
-    public AppDatabase getDatabase() { return db; }
+    public ZoneRepository getZoneRepository() { return ZoneRepository.getInstance(this); }
 }
@@ -6,8 +6,9 @@ import android.Manifest;
 import android.app.Activity;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.os.AsyncTask;
 import android.os.Bundle;
+import android.os.Trace;
+import android.util.Log;
 import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
@@ -18,9 +19,7 @@ import android.widget.Toast;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 
-import org.json.JSONArray;
-import org.json.JSONObject;
-import org.osmdroid.config.Configuration;
+import org.osmdroid.events.DelayedMapListener;
 import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
 import org.osmdroid.util.GeoPoint;
 import org.osmdroid.views.MapView;
@@ -29,13 +28,12 @@ import org.osmdroid.views.overlay.mylocation.GpsMyLocationProvider;
 import org.osmdroid.views.overlay.mylocation.MyLocationNewOverlay;
 import org.osmdroid.views.overlay.Overlay;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
 import java.util.Stack;
 
 public class MapActivity extends AppCompatActivity {
+    private static final String TAG = "MapActivity";
+    // Scroll and zoom events are coalesced before the zone layer reacts
+    private static final long ZONE_LAYER_DELAY_MS = 100;
 
 
     private List<Overlay> markerOverlays = new ArrayList<>();
@@ -49,11 +47,18 @@ public class MapActivity extends AppCompatActivity {
     private static final int LOCATION_PERMISSION_REQUEST_CODE = 1;
 
     private GestureDetector gestureDetector;
+    private ZoneLayer zoneLayer;
+
+    private GeocodingClient geocoder;
+    // The search still on screen; a new one supersedes it
+    private GeocodingClient.Request currentSearch;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        Trace.beginSection("MapActivity.onCreate");
         super.onCreate(savedInstanceState);
-        Configuration.getInstance().setUserAgentValue(getPackageName());
+        // Usually already done in the background by MainActivity
+        MapTiles.configureOsmdroid(this);
         setContentView(R.layout.activity_map);
 
         map = findViewById(R.id.map);
@@ -62,6 +67,8 @@ public class MapActivity extends AppCompatActivity {
         setLocationButton = findViewById(R.id.setLocationButton);
         undoButton = findViewById(R.id.undoButton);
 
+        // Tiles come from the offline cache first and are downloaded only on a miss
+        map.setTileProvider(MapTiles.getInstance(this).createTileProvider());
         map.setTileSource(TileSourceFactory.MAPNIK);
         map.setBuiltInZoomControls(true);
         map.setMultiTouchControls(true);
@@ -74,6 +81,12 @@ public class MapActivity extends AppCompatActivity {
         myLocationOverlay.enableMyLocation();
         map.getOverlays().add(myLocationOverlay);
 
+        // One overlay for all saved zones, below the tap markers added later
+        zoneLayer = new ZoneLayer(map);
+        map.getOverlays().add(0, zoneLayer);
+        map.addMapListener(new DelayedMapListener(zoneLayer, ZONE_LAYER_DELAY_MS));
+        map.addOnFirstLayoutListener((v, left, top, right, bottom) -> zoneLayer.refresh());
+
         if (ActivityCompat.checkSelfPermission(this, Manifest.permission.ACCESS_FINE_LOCATION)
                 != PackageManager.PERMISSION_GRANTED) {
             ActivityCompat.requestPermissions(this,
@@ -92,10 +105,12 @@ public class MapActivity extends AppCompatActivity {
 
         map.setOnTouchListener((v, event) -> gestureDetector.onTouchEvent(event));
 
+        geocoder = GeocodingClient.getInstance(this);
+
         searchButton.setOnClickListener(v -> {
             String query = searchInput.getText().toString().trim();
             if (!query.isEmpty()) {
-                new GeocodeTask().execute(query);
+                search(query);
             }
         });
 
@@ -125,7 +140,7 @@ public class MapActivity extends AppCompatActivity {
             }
         });
 
-
+        Trace.endSection();
     }
 
     private void placeMarker(GeoPoint point) {
@@ -146,42 +161,40 @@ public class MapActivity extends AppCompatActivity {
 
 
 
-    private class GeocodeTask extends AsyncTask<String, Void, GeoPoint> {
-        @Override
-        protected GeoPoint doInBackground(String... queries) {
-            try {
-                String urlStr = "https://nominatim.openstreetmap.org/search?q=" + queries[0] + "&format=json&limit=1";
-                HttpURLConnection conn = (HttpURLConnection) new URL(urlStr).openConnection();
-                conn.setRequestProperty("User-Agent", "SilentZoneApp");
-                BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                StringBuilder sb = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) sb.append(line);
-                reader.close();
-
-                JSONArray results = new JSONArray(sb.toString());
-                if (results.length() > 0) {
-                    JSONObject result = results.getJSONObject(0);
-                    double lat = result.getDouble("lat");
-                    double lon = result.getDouble("lon");
-                    return new GeoPoint(lat, lon);
+    private void search(String query) {
+        if (currentSearch != null) {
+            currentSearch.cancel();
+        }
+        currentSearch = geocoder.search(query, new GeocodingClient.Callback() {
+            @Override
+            public void onResult(String query, GeocodingClient.Place place) {
+                currentSearch = null;
+                if (place != null) {
+                    GeoPoint point = new GeoPoint(place.latitude, place.longitude);
+                    map.getController().setZoom(17.0);
+                    map.getController().setCenter(point);
+                    placeMarker(point);
+                } else {
+                    Toast.makeText(MapActivity.this, "Place not found. Try again.", Toast.LENGTH_SHORT).show();
                 }
-            } catch (Exception e) {
-                e.printStackTrace();
             }
-            return null;
-        }
 
-        @Override
-        protected void onPostExecute(GeoPoint point) {
-            if (point != null) {
-                map.getController().setZoom(17.0);
-                map.getController().setCenter(point);
-                placeMarker(point);
-            } else {
-                Toast.makeText(MapActivity.this, "Place not found. Try again.", Toast.LENGTH_SHORT).show();
+            @Override
+            public void onError(String query, Exception error) {
+                currentSearch = null;
+                Log.w(TAG, "Search failed for " + query, error);
+                Toast.makeText(MapActivity.this, "Search failed. Check your connection.", Toast.LENGTH_SHORT).show();
             }
+        });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (currentSearch != null) {
+            currentSearch.cancel();
         }
+        map.onDetach();
     }
 
     @Override
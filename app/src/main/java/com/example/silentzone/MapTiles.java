@@ -0,0 +1,133 @@
+package com.example.silentzone;
+
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import org.osmdroid.config.Configuration;
+import org.osmdroid.config.IConfigurationProvider;
+import org.osmdroid.tileprovider.MapTileProviderArray;
+import org.osmdroid.tileprovider.MapTileProviderBase;
+import org.osmdroid.tileprovider.modules.MapTileModuleProviderBase;
+import org.osmdroid.tileprovider.tilesource.TileSourceFactory;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Owns the offline tile cache: hands MapActivity a cache-first tile provider
+ * and, if the build enables it, keeps tiles around every saved zone
+ * prefetched in the background.
+ */
+public class MapTiles {
+    private static final String TAG = "MapTiles";
+    // The OpenStreetMap tile servers allow viewing but not bulk downloads
+    private static final String OSM_TILE_HOST = "tile.openstreetmap.org";
+    private static final long CACHE_BYTES = 64L * 1024 * 1024;
+
+    private static volatile MapTiles instance;
+    private static volatile boolean osmdroidConfigured;
+
+    private final Context context;
+    private final TileCache cache;
+    private final TilePrefetcher prefetcher;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    // Set while a prefetch is queued but not started, so bursts of zone edits cause one run
+    private final AtomicBoolean prefetchQueued = new AtomicBoolean();
+
+    private MapTiles(Context context) {
+        this.context = context.getApplicationContext();
+        cache = new TileCache(new File(this.context.getFilesDir(), "tiles"), CACHE_BYTES);
+        prefetcher = new TilePrefetcher(BuildConfig.TILE_URL, this.context.getPackageName(), cache);
+
+        if (!isPrefetchAllowed()) {
+            Log.d(TAG, "Tile prefetch disabled for " + BuildConfig.TILE_URL);
+            return;
+        }
+        AppDatabase.getInstance(this.context).getInvalidationTracker().addObserver(
+                new InvalidationTracker.Observer("SilentZone") {
+                    @Override
+                    public void onInvalidated(@NonNull Set<String> tables) {
+                        prefetchZones();
+                    }
+                });
+        prefetchZones();
+    }
+
+    public static MapTiles getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MapTiles.class) {
+                if (instance == null) {
+                    instance = new MapTiles(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Sets up osmdroid's global configuration once. Its first use looks up
+     * storage paths on disk, so MainActivity warms it in the background.
+     */
+    public static void configureOsmdroid(Context context) {
+        if (osmdroidConfigured) {
+            return;
+        }
+        synchronized (MapTiles.class) {
+            if (!osmdroidConfigured) {
+                IConfigurationProvider configuration = Configuration.getInstance();
+                configuration.setUserAgentValue(context.getPackageName());
+                configuration.getOsmdroidBasePath();
+                osmdroidConfigured = true;
+            }
+        }
+    }
+
+    public MapTileProviderBase createTileProvider() {
+        CachedTileProvider provider = new CachedTileProvider(TileSourceFactory.MAPNIK, cache, prefetcher);
+        return new MapTileProviderArray(TileSourceFactory.MAPNIK, null,
+                new MapTileModuleProviderBase[]{provider});
+    }
+
+    public TileCache getCache() {
+        return cache;
+    }
+
+    static boolean isPrefetchAllowed() {
+        return BuildConfig.TILE_PREFETCH && !BuildConfig.TILE_URL.contains(OSM_TILE_HOST);
+    }
+
+    /** Queues a background run that fills the cache around every zone, if prefetching is allowed. */
+    public void prefetchZones() {
+        if (!isPrefetchAllowed() || !prefetchQueued.compareAndSet(false, true)) {
+            return;
+        }
+        worker.execute(() -> {
+            prefetchQueued.set(false);
+            // Bulk downloads wait for Wi-Fi; tiles viewed on the map are still fetched on demand
+            ConnectivityManager connectivity = (ConnectivityManager) context.getSystemService(Context.CONNECTIVITY_SERVICE);
+            if (connectivity == null || connectivity.getActiveNetworkInfo() == null
+                    || connectivity.isActiveNetworkMetered()) {
+                Log.d(TAG, "Skipping tile prefetch: no unmetered network");
+                return;
+            }
+            List<double[]> boxes = new ArrayList<>();
+            for (SilentZone zone : AppDatabase.getInstance(context).silentZoneDao().getAllZones()) {
+                boxes.add(new double[]{zone.minLat, zone.maxLat, zone.minLon, zone.maxLon});
+            }
+            if (boxes.isEmpty()) {
+                return;
+            }
+            TilePrefetcher.Result result = prefetcher.prefetch(boxes, TilePrefetcher.MIN_ZOOM, TilePrefetcher.MAX_ZOOM);
+            Log.d(TAG, "Prefetched tiles for " + boxes.size() + " zones: " + result + "; cache " + cache);
+        });
+    }
+}
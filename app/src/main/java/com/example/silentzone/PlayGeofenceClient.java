@@ -0,0 +1,69 @@
+package com.example.silentzone;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.util.Log;
+
+import com.google.android.gms.location.Geofence;
+import com.google.android.gms.location.GeofencingClient;
+import com.google.android.gms.location.GeofencingRequest;
+import com.google.android.gms.location.LocationServices;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** {@link GeofenceClient} on Play services, delivering events to {@link GeofenceReceiver}. */
+public class PlayGeofenceClient implements GeofenceClient {
+    private static final String TAG = "PlayGeofenceClient";
+
+    private final GeofencingClient client;
+    private final PendingIntent pendingIntent;
+    private final Runnable onFailure;
+
+    public PlayGeofenceClient(Context context, Runnable onFailure) {
+        this.client = LocationServices.getGeofencingClient(context);
+        // Play services fills in the event, so the intent has to stay mutable
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            flags |= PendingIntent.FLAG_MUTABLE;
+        }
+        this.pendingIntent = PendingIntent.getBroadcast(context, 0, new Intent(context, GeofenceReceiver.class),
+                flags);
+        this.onFailure = onFailure;
+    }
+
+    @Override
+    public void add(List<GeofenceManager.Fence> fences) {
+        List<Geofence> geofences = new ArrayList<>(fences.size());
+        for (GeofenceManager.Fence fence : fences) {
+            geofences.add(new Geofence.Builder()
+                    .setRequestId(fence.id)
+                    .setCircularRegion(fence.latitude, fence.longitude, fence.radius)
+                    .setExpirationDuration(Geofence.NEVER_EXPIRE)
+                    .setTransitionTypes(Geofence.GEOFENCE_TRANSITION_ENTER | Geofence.GEOFENCE_TRANSITION_EXIT)
+                    .build());
+        }
+        // No initial trigger: the fences are ranked from a fix the service has already evaluated
+        GeofencingRequest request = new GeofencingRequest.Builder()
+                .setInitialTrigger(0)
+                .addGeofences(geofences)
+                .build();
+        try {
+            client.addGeofences(request, pendingIntent)
+                    .addOnFailureListener(e -> {
+                        Log.w(TAG, "Adding " + fences.size() + " geofences failed", e);
+                        onFailure.run();
+                    });
+        } catch (SecurityException e) {
+            Log.w(TAG, "No permission for geofences", e);
+            onFailure.run();
+        }
+    }
+
+    @Override
+    public void remove(List<String> ids) {
+        client.removeGeofences(ids);
+    }
+}
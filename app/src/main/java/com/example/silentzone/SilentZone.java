@@ -1,10 +1,19 @@
 package com.example.silentzone;
 
+import androidx.annotation.Nullable;
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-@Entity
+@Entity(indices = {
+        @Index("name"),
+        @Index({"minLat", "maxLat"}),
+        @Index({"minLon", "maxLon"})
+})
 public class SilentZone {
+    public static final float DEFAULT_RADIUS = 100; // meters
+
     @PrimaryKey(autoGenerate = true)
     public int id;
 
@@ -12,9 +21,45 @@ public class SilentZone {
     public double longitude;
     public String name;
 
+    @ColumnInfo(defaultValue = "100")
+    public float radius = DEFAULT_RADIUS;
+
+    // Optional outline as "lat,lon;lat,lon;..." - when set, radius is ignored
+    @Nullable
+    public String polygon;
+
+    // Optional active hours in ZoneSchedule syntax, e.g. "Mon-Fri 09:00-17:00" - always active when null
+    @Nullable
+    public String schedule;
+
+    // Where zones overlap, the highest priority decides the ringer; ties go to the stricter action
+    @ColumnInfo(defaultValue = "0")
+    public int priority = ZoneActions.DEFAULT_PRIORITY;
+
+    // ZoneActions.ACTION_SILENT or ACTION_VIBRATE
+    @ColumnInfo(defaultValue = "0")
+    public int action = ZoneActions.ACTION_SILENT;
+
+    // Bounding box of the zone, kept in sync by updateBounds() for range queries
+    public double minLat;
+    public double maxLat;
+    public double minLon;
+    public double maxLon;
+
     public SilentZone(double latitude, double longitude, String name) {
         this.latitude = latitude;
         this.longitude = longitude;
         this.name = name;
+        updateBounds();
+    }
+
+    // Must be called after changing the position, radius or polygon of a zone
+    public void updateBounds() {
+        double[] box = new double[4];
+        ZoneGeometry.bounds(latitude, longitude, radius, ZoneGeometry.parsePolygon(polygon), box);
+        minLat = box[0];
+        maxLat = box[1];
+        minLon = box[2];
+        maxLon = box[3];
     }
 }
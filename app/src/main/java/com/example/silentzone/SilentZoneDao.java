@@ -1,9 +1,11 @@
 package com.example.silentzone;
 
+import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
 import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.Query;
+import androidx.room.Update;
 
 import java.util.List;
 
@@ -12,12 +14,42 @@ public interface SilentZoneDao {
     @Insert
     void insert(SilentZone zone);
 
+    @Insert
+    void insertAll(List<SilentZone> zones);
+
+    @Update
+    void update(SilentZone zone);
+
+    @Update
+    void updateAll(List<SilentZone> zones);
+
     @Query("SELECT * FROM SilentZone")
     List<SilentZone> getAllZones();
 
+    @Query("SELECT * FROM SilentZone")
+    LiveData<List<SilentZone>> observeAllZones();
+
+    // Keyset paging for exports: stable while zones are added, and no OFFSET scan
+    @Query("SELECT * FROM SilentZone WHERE id > :afterId ORDER BY id LIMIT :limit")
+    List<SilentZone> getZonesAfter(int afterId, int limit);
+
+    @Query("SELECT COUNT(*) FROM SilentZone")
+    int countZones();
+
+    @Query("SELECT COUNT(*) FROM SilentZone")
+    LiveData<Integer> observeZoneCount();
+
+    // Zones whose bounding box intersects the given box
+    @Query("SELECT * FROM SilentZone WHERE minLat <= :maxLat AND maxLat >= :minLat "
+            + "AND minLon <= :maxLon AND maxLon >= :minLon")
+    List<SilentZone> getZonesInBoundingBox(double minLat, double maxLat, double minLon, double maxLon);
+
     @Query("DELETE FROM SilentZone WHERE name = :name")
     void deleteByName(String name);
 
+    @Query("DELETE FROM SilentZone WHERE id IN (:ids)")
+    void deleteByIds(List<Integer> ids);
+
     @Query("DELETE FROM SilentZone")
     void deleteAll();
 }
@@ -0,0 +1,153 @@
+package com.example.silentzone;
+
+import android.app.Activity;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup work that does not have to finish before the first frame.
+ *
+ * Background tasks run in submission order on one low-priority thread;
+ * first-frame tasks run on the main thread right after the first traversal.
+ * Every task runs in a trace section named after it, so cold starts can be
+ * read off a system trace, and the order tasks actually finished in is kept
+ * for the diagnostics screen and tests.
+ */
+public final class StartupTasks {
+    private static final String TAG = "StartupTasks";
+
+    public static final String ON_CREATE = "onCreate";
+    public static final String FIRST_FRAME = "first frame";
+
+    private static final StartupTasks INSTANCE = new StartupTasks();
+
+    private final ExecutorService background = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(() -> {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+            runnable.run();
+        }, "startup");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Guarded by this
+    private final List<Task> completed = new ArrayList<>();
+
+    private static final class Task {
+        final String name;
+        final long durationMs;
+        final boolean onMainThread;
+
+        Task(String name, long durationMs, boolean onMainThread) {
+            this.name = name;
+            this.durationMs = durationMs;
+            this.onMainThread = onMainThread;
+        }
+    }
+
+    private StartupTasks() {}
+
+    public static StartupTasks get() {
+        return INSTANCE;
+    }
+
+    /** Records a point on the critical path, e.g. the end of onCreate. */
+    public void mark(String name) {
+        record(new Task(name, 0, Looper.myLooper() == Looper.getMainLooper()));
+    }
+
+    public void runInBackground(String name, Runnable task) {
+        background.execute(() -> run(name, task));
+    }
+
+    /**
+     * Runs {@code task} once the activity's first frame is drawn. A view's
+     * posted actions wait for its first traversal, which draws the frame.
+     */
+    public void runAfterFirstFrame(Activity activity, String name, Runnable task) {
+        activity.getWindow().getDecorView().post(() -> run(name, task));
+    }
+
+    /** Marks {@link #FIRST_FRAME} and logs how long after process start it came. */
+    public void markFirstFrame(Activity activity) {
+        activity.getWindow().getDecorView().post(() -> {
+            mark(FIRST_FRAME);
+            Log.d(TAG, "First frame " + (SystemClock.uptimeMillis() - Process.getStartUptimeMillis())
+                    + " ms after process start");
+        });
+    }
+
+    private void run(String name, Runnable task) {
+        long started = SystemClock.uptimeMillis();
+        Trace.beginSection(name);
+        try {
+            task.run();
+        } catch (RuntimeException e) {
+            // Whoever needs the result initializes it again on first use
+            Log.e(TAG, "Startup task " + name + " failed", e);
+        } finally {
+            Trace.endSection();
+        }
+        long duration = SystemClock.uptimeMillis() - started;
+        record(new Task(name, duration, Looper.myLooper() == Looper.getMainLooper()));
+        Log.d(TAG, name + " took " + duration + " ms");
+    }
+
+    private synchronized void record(Task task) {
+        completed.add(task);
+    }
+
+    /** Names of the finished tasks and marks, in the order they finished. */
+    public synchronized List<String> getOrder() {
+        List<String> names = new ArrayList<>(completed.size());
+        for (Task task : completed) {
+            names.add(task.name);
+        }
+        return names;
+    }
+
+    public synchronized boolean ranOnMainThread(String name) {
+        for (Task task : completed) {
+            if (task.name.equals(name)) {
+                return task.onMainThread;
+            }
+        }
+        return false;
+    }
+
+    // Waits for the background tasks submitted so far
+    boolean awaitBackground(long timeoutMs) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        background.execute(done::countDown);
+        return done.await(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    synchronized void reset() {
+        completed.clear();
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder text = new StringBuilder();
+        for (Task task : completed) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(task.name);
+            if (task.durationMs > 0 || !task.onMainThread) {
+                text.append(String.format(Locale.US, " %d ms%s", task.durationMs, task.onMainThread ? "" : " bg"));
+            }
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.silentzone;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Map tiles on disk, bounded by total size with least-recently-used eviction.
+ *
+ * Tiles live at {@code dir/z/x/y.tile}. Reads bump the file's modification
+ * time, so the LRU order rebuilt from disk on the next launch matches the one
+ * in memory. The directory is scanned on first use rather than in the
+ * constructor, so creating the cache on the main thread is cheap.
+ */
+public class TileCache {
+
+    private final File dir;
+    private final long maxBytes;
+    // key "z/x/y" -> size in bytes, least recently used first
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private long totalBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private boolean loaded;
+
+    public TileCache(File dir, long maxBytes) {
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+    }
+
+    /** Returns the tile, or null on a miss. Counts towards the hit rate. */
+    public byte[] get(int zoom, int x, int y) {
+        String key = key(zoom, x, y);
+        synchronized (this) {
+            load();
+            if (entries.get(key) == null) {
+                misses++;
+                return null;
+            }
+        }
+        File file = file(key);
+        try {
+            byte[] data = read(file);
+            file.setLastModified(System.currentTimeMillis());
+            synchronized (this) {
+                hits++;
+            }
+            return data;
+        } catch (IOException e) {
+            // Evicted between the lookup and the read
+            synchronized (this) {
+                forget(key);
+                misses++;
+            }
+            return null;
+        }
+    }
+
+    /** Checks for a tile without touching its LRU position or the metrics. */
+    public synchronized boolean contains(int zoom, int x, int y) {
+        load();
+        return entries.containsKey(key(zoom, x, y));
+    }
+
+    public void put(int zoom, int x, int y, byte[] data) throws IOException {
+        String key = key(zoom, x, y);
+        File file = file(key);
+        File parent = file.getParentFile();
+        if (!parent.isDirectory() && !parent.mkdirs()) {
+            throw new IOException("Cannot create " + parent);
+        }
+        // Written aside and renamed, so a reader never sees half a tile
+        File tmp = new File(parent, file.getName() + "." + Thread.currentThread().getId() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(data);
+        }
+        if (!tmp.renameTo(file)) {
+            tmp.delete();
+            throw new IOException("Cannot write " + file);
+        }
+        List<String> evicted = new ArrayList<>();
+        synchronized (this) {
+            load();
+            forget(key);
+            entries.put(key, (long) data.length);
+            totalBytes += data.length;
+            Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                if (eldest.getKey().equals(key)) {
+                    continue;
+                }
+                totalBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                it.remove();
+                evictions++;
+            }
+        }
+        for (String old : evicted) {
+            file(old).delete();
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized double getHitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    public synchronized long getSizeBytes() {
+        load();
+        return totalBytes;
+    }
+
+    public synchronized int getTileCount() {
+        load();
+        return entries.size();
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US, "%d tiles, %d KB, %.0f%% hits (%d/%d), %d evicted",
+                entries.size(), totalBytes / 1024, getHitRate() * 100, hits, hits + misses, evictions);
+    }
+
+    private void forget(String key) {
+        Long size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    // Rebuilds the LRU order from modification times
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        loaded = true;
+        List<File> files = new ArrayList<>();
+        collect(dir, files);
+        files.sort((a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        String root = dir.getPath() + File.separator;
+        for (File file : files) {
+            String path = file.getPath().substring(root.length());
+            String key = path.substring(0, path.length() - ".tile".length()).replace(File.separatorChar, '/');
+            entries.put(key, file.length());
+            totalBytes += file.length();
+        }
+    }
+
+    private static void collect(File dir, List<File> out) {
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collect(child, out);
+            } else if (child.getName().endsWith(".tile")) {
+                out.add(child);
+            } else if (child.getName().endsWith(".tmp")) {
+                child.delete();
+            }
+        }
+    }
+
+    // java.nio.file needs API 26
+    private static byte[] read(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            byte[] data = new byte[(int) file.length()];
+            int offset = 0;
+            int n;
+            while (offset < data.length && (n = in.read(data, offset, data.length - offset)) != -1) {
+                offset += n;
+            }
+            if (offset != data.length) {
+                throw new IOException("Short read from " + file);
+            }
+            return data;
+        }
+    }
+
+    private File file(String key) {
+        return new File(dir, key.replace('/', File.separatorChar) + ".tile");
+    }
+
+    private static String key(int zoom, int x, int y) {
+        return zoom + "/" + x + "/" + y;
+    }
+}
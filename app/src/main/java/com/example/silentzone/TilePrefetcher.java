@@ -0,0 +1,157 @@
+package com.example.silentzone;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Downloads slippy-map tiles into a {@link TileCache}, either one at a time for
+ * the map view or in bulk around a set of zones so the map works offline.
+ *
+ * Bulk runs are sequential and download at most {@link #MAX_TILES_PER_RUN}
+ * tiles; tiles already cached do not count, so each run continues where the
+ * last one stopped. Only point bulk runs at a server whose terms allow bulk
+ * downloads; the OpenStreetMap tile servers do not.
+ */
+public class TilePrefetcher {
+
+    public static final int MIN_ZOOM = 14;
+    public static final int MAX_ZOOM = 17;
+    // Tiles are fetched this far around each zone's bounding box
+    public static final double MARGIN_METERS = 500;
+    static final int MAX_TILES_PER_RUN = 2000;
+    private static final int TIMEOUT_MS = 15000;
+
+    public static final class Result {
+        public final int downloaded;
+        public final int alreadyCached;
+        public final int failed;
+
+        Result(int downloaded, int alreadyCached, int failed) {
+            this.downloaded = downloaded;
+            this.alreadyCached = alreadyCached;
+            this.failed = failed;
+        }
+
+        @Override
+        public String toString() {
+            return downloaded + " downloaded, " + alreadyCached + " already cached, " + failed + " failed";
+        }
+    }
+
+    // e.g. https://tile.example.com/{z}/{x}/{y}.png
+    private final String urlTemplate;
+    private final String userAgent;
+    private final TileCache cache;
+    private final int maxDownloadsPerRun;
+    private volatile boolean cancelled;
+
+    public TilePrefetcher(String urlTemplate, String userAgent, TileCache cache) {
+        this(urlTemplate, userAgent, cache, MAX_TILES_PER_RUN);
+    }
+
+    TilePrefetcher(String urlTemplate, String userAgent, TileCache cache, int maxDownloadsPerRun) {
+        this.urlTemplate = urlTemplate;
+        this.userAgent = userAgent;
+        this.cache = cache;
+        this.maxDownloadsPerRun = maxDownloadsPerRun;
+    }
+
+    /**
+     * Makes sure every tile from {@code minZoom} to {@code maxZoom} covering the
+     * given boxes ({minLat, maxLat, minLon, maxLon}, widened by
+     * {@link #MARGIN_METERS}) is cached. Overlapping zones share tiles.
+     */
+    public Result prefetch(List<double[]> boxes, int minZoom, int maxZoom) {
+        cancelled = false;
+        Set<Long> seen = new HashSet<>();
+        int downloaded = 0;
+        int alreadyCached = 0;
+        int failed = 0;
+        for (int zoom = minZoom; zoom <= maxZoom; zoom++) {
+            for (double[] box : boxes) {
+                double dLat = GeoMath.metersToLatDegrees(MARGIN_METERS);
+                double dLon = GeoMath.metersToLonDegrees(MARGIN_METERS, (box[0] + box[1]) / 2);
+                // Tile rows count down from the north
+                int x0 = tileX(box[2] - dLon, zoom);
+                int x1 = tileX(box[3] + dLon, zoom);
+                int y0 = tileY(box[1] + dLat, zoom);
+                int y1 = tileY(box[0] - dLat, zoom);
+                for (int x = x0; x <= x1; x++) {
+                    for (int y = y0; y <= y1; y++) {
+                        // Failed attempts count too, so an unreachable server cannot be hammered
+                        if (cancelled || downloaded + failed >= maxDownloadsPerRun) {
+                            return new Result(downloaded, alreadyCached, failed);
+                        }
+                        if (!seen.add(((long) zoom << 50) | ((long) x << 25) | y)) {
+                            continue;
+                        }
+                        if (cache.contains(zoom, x, y)) {
+                            alreadyCached++;
+                            continue;
+                        }
+                        try {
+                            download(zoom, x, y);
+                            downloaded++;
+                        } catch (IOException e) {
+                            failed++;
+                        }
+                    }
+                }
+            }
+        }
+        return new Result(downloaded, alreadyCached, failed);
+    }
+
+    /** Stops a running {@link #prefetch} after the current tile. */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /** Fetches one tile and stores it in the cache. */
+    public byte[] download(int zoom, int x, int y) throws IOException {
+        URL url = new URL(urlTemplate.replace("{z}", Integer.toString(zoom))
+                .replace("{x}", Integer.toString(x)).replace("{y}", Integer.toString(y)));
+        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+        try {
+            conn.setConnectTimeout(TIMEOUT_MS);
+            conn.setReadTimeout(TIMEOUT_MS);
+            conn.setRequestProperty("User-Agent", userAgent);
+            int status = conn.getResponseCode();
+            if (status != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP " + status + " for " + url);
+            }
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream in = conn.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int n;
+                while ((n = in.read(buffer)) != -1) {
+                    body.write(buffer, 0, n);
+                }
+            }
+            byte[] data = body.toByteArray();
+            cache.put(zoom, x, y, data);
+            return data;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    static int tileX(double lon, int zoom) {
+        int n = 1 << zoom;
+        return Math.max(0, Math.min(n - 1, (int) Math.floor((lon + 180) / 360 * n)));
+    }
+
+    // Web Mercator row
+    static int tileY(double lat, int zoom) {
+        int n = 1 << zoom;
+        double rad = Math.toRadians(lat);
+        double y = (1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * n;
+        return Math.max(0, Math.min(n - 1, (int) Math.floor(y)));
+    }
+}
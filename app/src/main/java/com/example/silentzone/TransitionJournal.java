@@ -0,0 +1,158 @@
+package com.example.silentzone;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fixed-size binary record of zone transitions and the ringer changes they
+ * caused, kept in a memory-mapped ring file so misfires can be audited on a
+ * device after the fact.
+ *
+ * The file is a 32-byte header followed by {@code capacity} 32-byte records.
+ * Once full, the oldest record is overwritten. Appends are absolute puts into
+ * the mapping and allocate nothing; the kernel writes the pages back, so a
+ * crash of the app loses nothing already appended.
+ */
+public class TransitionJournal {
+
+    public static final String FILE_NAME = "transitions.journal";
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    static final int MAGIC = 0x535a4a31; // "SZJ1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 32;
+
+    // Header layout
+    private static final int H_MAGIC = 0;
+    private static final int H_VERSION = 4;
+    private static final int H_RECORD_SIZE = 8;
+    private static final int H_CAPACITY = 12;
+    private static final int H_COUNT = 16;
+
+    // Record layout; a record's sequence is stored plus one so zeroed slots read as empty
+    private static final int R_SEQUENCE = 0;
+    private static final int R_TIME = 8;
+    private static final int R_ZONE = 16;
+    private static final int R_ENTERED = 20;
+    private static final int R_PREVIOUS_RINGER = 21;
+    private static final int R_NEW_RINGER = 22;
+    private static final int R_ACCURACY = 24;
+    private static final int R_LATENCY = 28;
+
+    private static TransitionJournal instance;
+
+    public static final class Entry {
+        public final long timeMillis;
+        public final int zoneId;
+        public final boolean entered;
+        // AudioManager.RINGER_MODE_* before and after the transition was acted on
+        public final int previousRinger;
+        public final int newRinger;
+        public final float accuracy;
+        // From the fix being taken to the ringer decision
+        public final long latencyMicros;
+
+        Entry(long timeMillis, int zoneId, boolean entered, int previousRinger, int newRinger, float accuracy,
+              long latencyMicros) {
+            this.timeMillis = timeMillis;
+            this.zoneId = zoneId;
+            this.entered = entered;
+            this.previousRinger = previousRinger;
+            this.newRinger = newRinger;
+            this.accuracy = accuracy;
+            this.latencyMicros = latencyMicros;
+        }
+    }
+
+    private final int capacity;
+    private final MappedByteBuffer buffer;
+    // Records ever appended; the next one goes to slot count % capacity
+    private long count;
+
+    public TransitionJournal(File file, int capacity) throws IOException {
+        this.capacity = capacity;
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            boolean fresh = raf.length() != size;
+            if (fresh) {
+                raf.setLength(0);
+                raf.setLength(size);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+        if (buffer.getInt(H_MAGIC) != MAGIC || buffer.getInt(H_VERSION) != VERSION
+                || buffer.getInt(H_RECORD_SIZE) != RECORD_SIZE || buffer.getInt(H_CAPACITY) != capacity) {
+            // Not ours, or from another layout: start over
+            for (int i = 0; i < size; i += 8) {
+                buffer.putLong(i, 0);
+            }
+            buffer.putInt(H_MAGIC, MAGIC);
+            buffer.putInt(H_VERSION, VERSION);
+            buffer.putInt(H_RECORD_SIZE, RECORD_SIZE);
+            buffer.putInt(H_CAPACITY, capacity);
+        }
+        count = buffer.getLong(H_COUNT);
+    }
+
+    /** The journal in {@code dir}, shared by the service and the viewer. */
+    public static synchronized TransitionJournal getInstance(File dir) throws IOException {
+        if (instance == null) {
+            instance = new TransitionJournal(new File(dir, FILE_NAME), DEFAULT_CAPACITY);
+        }
+        return instance;
+    }
+
+    public synchronized void append(long timeMillis, int zoneId, boolean entered, int previousRinger,
+                                    int newRinger, float accuracy, long latencyMicros) {
+        int offset = HEADER_SIZE + (int) (count % capacity) * RECORD_SIZE;
+        // Once the ring has wrapped the slot still carries the sequence of the record it
+        // replaces; clear it first so a crash mid-write leaves an empty slot, not a mix of both
+        buffer.putLong(offset + R_SEQUENCE, 0);
+        buffer.putLong(offset + R_TIME, timeMillis);
+        buffer.putInt(offset + R_ZONE, zoneId);
+        buffer.put(offset + R_ENTERED, (byte) (entered ? 1 : 0));
+        buffer.put(offset + R_PREVIOUS_RINGER, (byte) previousRinger);
+        buffer.put(offset + R_NEW_RINGER, (byte) newRinger);
+        buffer.putFloat(offset + R_ACCURACY, accuracy);
+        buffer.putInt(offset + R_LATENCY, (int) Math.min(latencyMicros, Integer.MAX_VALUE));
+        // Then publish the sequence, and only then the count that makes it visible
+        buffer.putLong(offset + R_SEQUENCE, count + 1);
+        count++;
+        buffer.putLong(H_COUNT, count);
+    }
+
+    /** Records with {@code fromMillis <= time < toMillis}, oldest first. */
+    public synchronized List<Entry> query(long fromMillis, long toMillis) {
+        List<Entry> result = new ArrayList<>();
+        for (long sequence = Math.max(0, count - capacity); sequence < count; sequence++) {
+            int offset = HEADER_SIZE + (int) (sequence % capacity) * RECORD_SIZE;
+            if (buffer.getLong(offset + R_SEQUENCE) != sequence + 1) {
+                continue;
+            }
+            long time = buffer.getLong(offset + R_TIME);
+            if (time < fromMillis || time >= toMillis) {
+                continue;
+            }
+            result.add(new Entry(time, buffer.getInt(offset + R_ZONE), buffer.get(offset + R_ENTERED) != 0,
+                    buffer.get(offset + R_PREVIOUS_RINGER), buffer.get(offset + R_NEW_RINGER),
+                    buffer.getFloat(offset + R_ACCURACY), buffer.getInt(offset + R_LATENCY)));
+        }
+        return result;
+    }
+
+    /** Records currently held, at most the capacity. */
+    public synchronized int size() {
+        return (int) Math.min(count, capacity);
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.silentzone;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Groups zones into square grid buckets sized in screen pixels for a given
+ * zoom level, so the map draws one marker per bucket however many zones there
+ * are. A bucket holding a single zone keeps that zone's id, radius and polygon
+ * so it can be drawn as the zone itself.
+ */
+public final class ZoneClusterer {
+
+    // Web Mercator tiles are 256 px wide at every zoom level
+    private static final double TILE_PIXELS = 256;
+
+    /** Immutable clustering result. */
+    public static final class Clusters {
+        public final int count;
+        public final double[] lat;
+        public final double[] lon;
+        // Number of zones in each cluster; 1 means a single zone
+        public final int[] size;
+        // Only meaningful where size == 1
+        public final int[] zoneId;
+        public final float[] radius;
+        // Flat lat/lon vertices, or null for a circle
+        public final double[][] polygon;
+
+        Clusters(int count, double[] lat, double[] lon, int[] size, int[] zoneId, float[] radius,
+                 double[][] polygon) {
+            this.count = count;
+            this.lat = lat;
+            this.lon = lon;
+            this.size = size;
+            this.zoneId = zoneId;
+            this.radius = radius;
+            this.polygon = polygon;
+        }
+    }
+
+    public static final Clusters EMPTY = new Clusters(0, new double[0], new double[0], new int[0], new int[0],
+            new float[0], new double[0][]);
+
+    private ZoneClusterer() {}
+
+    /** Degrees of longitude covered by {@code pixels} at the given zoom level. */
+    public static double cellDegrees(double zoom, int pixels) {
+        return pixels * 360.0 / (TILE_PIXELS * Math.pow(2, zoom));
+    }
+
+    /**
+     * Clusters the first {@code n} zones. Buckets are {@code cellDegrees} of
+     * longitude wide and scaled by cos(refLat) in latitude so they are roughly
+     * square on screen. Each cluster sits at the centroid of its zones.
+     * {@code polygons} may be null when every zone is a circle.
+     */
+    public static Clusters cluster(int[] ids, double[] lat, double[] lon, float[] radius, double[][] polygons,
+                                   int n, double cellDegrees, double refLat) {
+        double cellLat = cellDegrees * Math.max(Math.cos(Math.toRadians(refLat)), 0.01);
+        Map<Long, Integer> buckets = new HashMap<>(Math.max(16, n / 4));
+        double[] sumLat = new double[n];
+        double[] sumLon = new double[n];
+        int[] size = new int[n];
+        int[] zoneId = new int[n];
+        float[] zoneRadius = new float[n];
+        double[][] zonePolygon = new double[n][];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            long row = (long) Math.floor(lat[i] / cellLat);
+            long column = (long) Math.floor(lon[i] / cellDegrees);
+            Long key = (row << 32) ^ (column & 0xffffffffL);
+            Integer bucket = buckets.get(key);
+            if (bucket == null) {
+                bucket = count++;
+                buckets.put(key, bucket);
+                zoneId[bucket] = ids[i];
+                zoneRadius[bucket] = radius[i];
+                zonePolygon[bucket] = polygons != null ? polygons[i] : null;
+            }
+            sumLat[bucket] += lat[i];
+            sumLon[bucket] += lon[i];
+            size[bucket]++;
+        }
+        for (int c = 0; c < count; c++) {
+            sumLat[c] /= size[c];
+            sumLon[c] /= size[c];
+        }
+        return new Clusters(count, sumLat, sumLon, size, zoneId, zoneRadius, zonePolygon);
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.silentzone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Finds zones that are the same place saved more than once, such as repeated
+ * taps on "Set current location" or one map selection delivered twice.
+ *
+ * Two zones are duplicates when they have the same schedule, priority and
+ * action and their outlines are everywhere within {@link #DUPLICATE_TOLERANCE}
+ * of each other. For circles that is the distance between the centers plus
+ * the difference of the radii; polygons only match when identical. The
+ * oldest zone of a group survives and grows to cover the others if needed, so
+ * merging never shrinks the area where the phone is silenced.
+ */
+final class ZoneCompactor {
+
+    static final double DUPLICATE_TOLERANCE = 25; // meters
+
+    /** What {@link #plan} found: survivors whose radius grew, and the rows to delete. */
+    static final class Plan {
+        final List<SilentZone> grown = new ArrayList<>();
+        final List<Integer> removedIds = new ArrayList<>();
+    }
+
+    private ZoneCompactor() {}
+
+    static boolean isDuplicate(SilentZone a, SilentZone b) {
+        if (a.priority != b.priority || a.action != b.action || !Objects.equals(a.schedule, b.schedule)) {
+            return false;
+        }
+        if (a.polygon != null || b.polygon != null) {
+            return Objects.equals(a.polygon, b.polygon);
+        }
+        return GeoMath.haversine(a.latitude, a.longitude, b.latitude, b.longitude)
+                + Math.abs(a.radius - b.radius) <= DUPLICATE_TOLERANCE;
+    }
+
+    /** Grows {@code survivor} to cover {@code duplicate}; returns true if its radius changed. */
+    static boolean absorb(SilentZone survivor, SilentZone duplicate) {
+        if (survivor.polygon != null) {
+            return false;
+        }
+        float cover = (float) (GeoMath.haversine(survivor.latitude, survivor.longitude,
+                duplicate.latitude, duplicate.longitude) + duplicate.radius);
+        if (cover <= survivor.radius) {
+            return false;
+        }
+        survivor.radius = cover;
+        survivor.updateBounds();
+        return true;
+    }
+
+    /**
+     * Groups duplicates, each into the oldest (lowest id) zone it duplicates.
+     * Survivors are grown in place. Candidate pairs come from a sweep by
+     * latitude, so only zones within the tolerance of each other are compared.
+     */
+    static Plan plan(List<SilentZone> zones) {
+        int n = zones.size();
+        SilentZone[] byId = zones.toArray(new SilentZone[0]);
+        Arrays.sort(byId, (a, b) -> Integer.compare(a.id, b.id));
+        Integer[] byLat = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            byLat[i] = i;
+        }
+        Arrays.sort(byLat, (a, b) -> Double.compare(byId[a].latitude, byId[b].latitude));
+
+        // Older zones close enough to each zone to be a duplicate of it
+        List<List<Integer>> older = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            older.add(null);
+        }
+        double reach = GeoMath.metersToLatDegrees(DUPLICATE_TOLERANCE);
+        for (int i = 0; i < n; i++) {
+            SilentZone a = byId[byLat[i]];
+            for (int j = i + 1; j < n && byId[byLat[j]].latitude - a.latitude <= reach; j++) {
+                SilentZone b = byId[byLat[j]];
+                if (GeoMath.haversine(a.latitude, a.longitude, b.latitude, b.longitude) <= DUPLICATE_TOLERANCE) {
+                    int newer = Math.max(byLat[i], byLat[j]);
+                    if (older.get(newer) == null) {
+                        older.set(newer, new ArrayList<>());
+                    }
+                    older.get(newer).add(Math.min(byLat[i], byLat[j]));
+                }
+            }
+        }
+
+        Plan plan = new Plan();
+        boolean[] removed = new boolean[n];
+        boolean[] grown = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            List<Integer> candidates = older.get(i);
+            if (candidates == null) {
+                continue;
+            }
+            candidates.sort(null);
+            for (int j : candidates) {
+                if (!removed[j] && isDuplicate(byId[j], byId[i])) {
+                    removed[i] = true;
+                    grown[j] |= absorb(byId[j], byId[i]);
+                    plan.removedIds.add(byId[i].id);
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (grown[i]) {
+                plan.grown.add(byId[i]);
+            }
+        }
+        return plan;
+    }
+}
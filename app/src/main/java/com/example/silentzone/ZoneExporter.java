@@ -0,0 +1,54 @@
+package com.example.silentzone;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes every zone to a {@link ZoneWriter}, reading the table a page at a
+ * time so the export never holds more than one page of zones.
+ */
+public class ZoneExporter {
+
+    static final int PAGE_SIZE = 1000;
+
+    public interface Progress {
+        void onPage(long exported, long total);
+    }
+
+    private final SilentZoneDao dao;
+
+    public ZoneExporter(AppDatabase db) {
+        this.dao = db.silentZoneDao();
+    }
+
+    /** Returns the number of zones written; the caller closes the writer. */
+    public long exportZones(ZoneWriter writer, Progress progress) throws IOException, InterruptedException {
+        long total = dao.countZones();
+        long exported = 0;
+        int afterId = 0;
+        ZoneRecord record = new ZoneRecord();
+        List<SilentZone> page;
+        do {
+            page = dao.getZonesAfter(afterId, PAGE_SIZE);
+            for (SilentZone zone : page) {
+                record.clear();
+                record.name = zone.name;
+                record.latitude = zone.latitude;
+                record.longitude = zone.longitude;
+                record.radius = zone.radius;
+                record.polygon = zone.polygon;
+                record.schedule = zone.schedule;
+                record.priority = zone.priority;
+                record.action = zone.action;
+                writer.write(record);
+                afterId = zone.id;
+            }
+            exported += page.size();
+            progress.onPage(exported, Math.max(total, exported));
+            if (Thread.interrupted()) {
+                throw new InterruptedException("Export cancelled after " + exported + " zones");
+            }
+        } while (page.size() == PAGE_SIZE);
+        return exported;
+    }
+}
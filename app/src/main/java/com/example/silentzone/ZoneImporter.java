@@ -0,0 +1,117 @@
+package com.example.silentzone;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streams zones from a {@link ZoneReader} into the database in chunks, each
+ * committed in one transaction together with a checkpoint. An import that is
+ * cancelled or killed resumes after the last committed chunk when the same
+ * source is imported again, without duplicating zones.
+ */
+public class ZoneImporter {
+    private static final String TAG = "ZoneImporter";
+
+    // Large enough that transaction overhead is negligible, small enough to bound memory and lock time
+    static final int CHUNK_SIZE = 2000;
+
+    public interface Progress {
+        void onChunk(long records, long imported);
+    }
+
+    public static class Result {
+        public final long records;
+        public final long imported;
+        // Records skipped because an earlier run had already imported them
+        public final long resumedFrom;
+
+        Result(long records, long imported, long resumedFrom) {
+            this.records = records;
+            this.imported = imported;
+            this.resumedFrom = resumedFrom;
+        }
+
+        public long getSkipped() {
+            return records - imported;
+        }
+    }
+
+    private final AppDatabase db;
+    private final SilentZoneDao zoneDao;
+    private final ImportCheckpointDao checkpointDao;
+
+    public ZoneImporter(AppDatabase db) {
+        this.db = db;
+        this.zoneDao = db.silentZoneDao();
+        this.checkpointDao = db.importCheckpointDao();
+    }
+
+    /**
+     * Imports every valid record of {@code reader}; {@code source} identifies
+     * the file across attempts. Throws InterruptedException, with everything
+     * up to the last chunk committed, if the thread is interrupted.
+     */
+    public Result importZones(ZoneReader reader, String source, Progress progress)
+            throws IOException, InterruptedException {
+        ImportCheckpoint checkpoint = checkpointDao.get(source);
+        long resumedFrom = checkpoint != null ? checkpoint.records : 0;
+        long records = 0;
+        long imported = checkpoint != null ? checkpoint.imported : 0;
+        ZoneRecord record = new ZoneRecord();
+        while (records < resumedFrom && reader.next(record)) {
+            records++;
+        }
+        if (resumedFrom > 0) {
+            Log.d(TAG, "Resuming " + source + " after " + resumedFrom + " records");
+        }
+
+        List<SilentZone> chunk = new ArrayList<>(CHUNK_SIZE);
+        boolean more = true;
+        while (more) {
+            chunk.clear();
+            long chunkRecords = 0;
+            while (chunk.size() < CHUNK_SIZE && (more = reader.next(record))) {
+                chunkRecords++;
+                if (record.isValid()) {
+                    chunk.add(toZone(record));
+                }
+            }
+            records += chunkRecords;
+            imported += chunk.size();
+            long committedRecords = records;
+            long committedImported = imported;
+            boolean last = !more;
+            db.runInTransaction(() -> {
+                if (!chunk.isEmpty()) {
+                    zoneDao.insertAll(chunk);
+                }
+                if (last) {
+                    checkpointDao.delete(source);
+                } else {
+                    checkpointDao.put(new ImportCheckpoint(source, committedRecords, committedImported,
+                            System.currentTimeMillis()));
+                }
+            });
+            progress.onChunk(records, imported);
+            if (more && Thread.interrupted()) {
+                throw new InterruptedException("Import of " + source + " cancelled after " + records + " records");
+            }
+        }
+        Log.d(TAG, "Imported " + imported + " of " + records + " records from " + source);
+        return new Result(records, imported, resumedFrom);
+    }
+
+    static SilentZone toZone(ZoneRecord record) {
+        SilentZone zone = new SilentZone(record.latitude, record.longitude, record.name);
+        zone.radius = record.radius;
+        zone.polygon = record.polygon;
+        zone.schedule = record.schedule;
+        zone.priority = record.priority;
+        zone.action = record.action;
+        zone.updateBounds();
+        return zone;
+    }
+}
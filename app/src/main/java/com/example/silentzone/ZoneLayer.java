@@ -0,0 +1,242 @@
+package com.example.silentzone;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Point;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.NonNull;
+import androidx.room.InvalidationTracker;
+
+import org.osmdroid.events.MapListener;
+import org.osmdroid.events.ScrollEvent;
+import org.osmdroid.events.ZoomEvent;
+import org.osmdroid.util.BoundingBox;
+import org.osmdroid.util.GeoPoint;
+import org.osmdroid.views.MapView;
+import org.osmdroid.views.Projection;
+import org.osmdroid.views.overlay.Overlay;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Draws saved zones as a single overlay. Zones are loaded for the viewport
+ * plus padding with a bounding-box query and clustered into grid buckets per
+ * zoom level on a background thread. Panning inside the loaded region costs
+ * nothing but the draw; leaving it reloads, and changing the zoom level only
+ * re-clusters what is already loaded. Each frame draws at most one marker per
+ * bucket on screen, however many zones exist.
+ */
+public class ZoneLayer extends Overlay implements MapListener {
+
+    private static final int CLUSTER_PIXELS = 64;
+    // The loaded region extends this fraction of the viewport beyond each edge
+    private static final double REGION_PADDING = 0.5;
+    private static final float MIN_ZONE_PIXELS = 4;
+
+    private final MapView map;
+    private final AppDatabase db;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final InvalidationTracker.Observer zoneObserver;
+
+    // Main thread: what has been requested from the loader
+    private double regionNorth = Double.NaN;
+    private double regionSouth;
+    private double regionEast;
+    private double regionWest;
+    private int clusterZoom = -1;
+
+    // Loader thread: zones of the current region
+    private int loadedCount;
+    private int[] loadedIds = new int[0];
+    private double[] loadedLat = new double[0];
+    private double[] loadedLon = new double[0];
+    private float[] loadedRadius = new float[0];
+    private double[][] loadedPolygon = new double[0][];
+
+    private volatile ZoneClusterer.Clusters clusters = ZoneClusterer.EMPTY;
+    private volatile double clusterCellDegrees;
+
+    // Reused by draw()
+    private final GeoPoint drawPoint = new GeoPoint(0.0, 0.0);
+    private final Point pixel = new Point();
+    private final Path polygonPath = new Path();
+    private final Paint zoneFill = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint zoneStroke = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint clusterFill = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint clusterText = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final float density;
+
+    public ZoneLayer(MapView map) {
+        this.map = map;
+        db = AppDatabase.getInstance(map.getContext());
+        density = map.getResources().getDisplayMetrics().density;
+
+        zoneFill.setColor(Color.argb(60, 103, 80, 164));
+        zoneStroke.setColor(Color.argb(200, 103, 80, 164));
+        zoneStroke.setStyle(Paint.Style.STROKE);
+        zoneStroke.setStrokeWidth(3);
+        clusterFill.setColor(Color.argb(220, 103, 80, 164));
+        clusterText.setColor(Color.WHITE);
+        clusterText.setTextAlign(Paint.Align.CENTER);
+        clusterText.setTextSize(14 * density);
+
+        zoneObserver = new InvalidationTracker.Observer("SilentZone") {
+            @Override
+            public void onInvalidated(@NonNull Set<String> tables) {
+                mainHandler.post(() -> {
+                    regionNorth = Double.NaN;
+                    refresh();
+                });
+            }
+        };
+        db.getInvalidationTracker().addObserver(zoneObserver);
+    }
+
+    @Override
+    public boolean onScroll(ScrollEvent event) {
+        refresh();
+        return false;
+    }
+
+    @Override
+    public boolean onZoom(ZoomEvent event) {
+        refresh();
+        return false;
+    }
+
+    /** Brings the loaded region and clusters in line with the viewport. Main thread. */
+    public void refresh() {
+        if (loader.isShutdown()) {
+            return;
+        }
+        BoundingBox view = map.getBoundingBox();
+        int zoom = (int) Math.floor(map.getZoomLevelDouble());
+        boolean covered = !Double.isNaN(regionNorth)
+                && view.getLatNorth() <= regionNorth && view.getLatSouth() >= regionSouth
+                && view.getLonEast() <= regionEast && view.getLonWest() >= regionWest
+                // After zooming far in, a region loaded for the wider view would be mostly off screen
+                && regionNorth - regionSouth <= view.getLatitudeSpan() * (1 + 2 * REGION_PADDING) * 2;
+        if (covered && zoom == clusterZoom) {
+            return;
+        }
+        clusterZoom = zoom;
+        double cell = ZoneClusterer.cellDegrees(zoom, CLUSTER_PIXELS);
+        double refLat = view.getCenterLatitude();
+        if (covered) {
+            loader.execute(() -> publish(cell, refLat));
+            return;
+        }
+        double padLat = view.getLatitudeSpan() * REGION_PADDING;
+        double padLon = view.getLongitudeSpan() * REGION_PADDING;
+        regionNorth = Math.min(90, view.getLatNorth() + padLat);
+        regionSouth = Math.max(-90, view.getLatSouth() - padLat);
+        regionEast = Math.min(180, view.getLonEast() + padLon);
+        regionWest = Math.max(-180, view.getLonWest() - padLon);
+        double north = regionNorth;
+        double south = regionSouth;
+        double east = regionEast;
+        double west = regionWest;
+        loader.execute(() -> {
+            load(db.silentZoneDao().getZonesInBoundingBox(south, north, west, east));
+            publish(cell, refLat);
+        });
+    }
+
+    private void load(List<SilentZone> zones) {
+        int n = zones.size();
+        if (loadedIds.length < n) {
+            loadedIds = new int[n];
+            loadedLat = new double[n];
+            loadedLon = new double[n];
+            loadedRadius = new float[n];
+            loadedPolygon = new double[n][];
+        }
+        for (int i = 0; i < n; i++) {
+            SilentZone zone = zones.get(i);
+            loadedIds[i] = zone.id;
+            loadedLat[i] = zone.latitude;
+            loadedLon[i] = zone.longitude;
+            loadedRadius[i] = zone.radius;
+            loadedPolygon[i] = ZoneGeometry.parsePolygon(zone.polygon);
+        }
+        loadedCount = n;
+    }
+
+    private void publish(double cell, double refLat) {
+        clusters = ZoneClusterer.cluster(loadedIds, loadedLat, loadedLon, loadedRadius, loadedPolygon, loadedCount,
+                cell, refLat);
+        clusterCellDegrees = cell;
+        map.postInvalidate();
+    }
+
+    @Override
+    public void draw(Canvas canvas, MapView mapView, boolean shadow) {
+        if (shadow) {
+            return;
+        }
+        ZoneClusterer.Clusters visible = clusters;
+        Projection projection = mapView.getProjection();
+        BoundingBox view = projection.getBoundingBox();
+        // A cluster just off screen can still reach into it
+        double margin = clusterCellDegrees;
+        double north = view.getLatNorth() + margin;
+        double south = view.getLatSouth() - margin;
+        double east = view.getLonEast() + margin;
+        double west = view.getLonWest() - margin;
+        for (int i = 0; i < visible.count; i++) {
+            double lat = visible.lat[i];
+            double lon = visible.lon[i];
+            if (lat > north || lat < south || lon > east || lon < west) {
+                continue;
+            }
+            drawPoint.setCoords(lat, lon);
+            projection.toPixels(drawPoint, pixel);
+            int size = visible.size[i];
+            if (size == 1 && visible.polygon[i] != null) {
+                drawPolygon(canvas, projection, visible.polygon[i]);
+            } else if (size == 1) {
+                float radius = Math.max(MIN_ZONE_PIXELS, projection.metersToPixels(visible.radius[i]));
+                canvas.drawCircle(pixel.x, pixel.y, radius, zoneFill);
+                canvas.drawCircle(pixel.x, pixel.y, radius, zoneStroke);
+            } else {
+                // Grows with the order of magnitude of the zone count
+                float radius = (14 + 6 * (float) Math.log10(size)) * density;
+                canvas.drawCircle(pixel.x, pixel.y, radius, clusterFill);
+                canvas.drawText(Integer.toString(size), pixel.x,
+                        pixel.y - (clusterText.descent() + clusterText.ascent()) / 2, clusterText);
+            }
+        }
+    }
+
+    private void drawPolygon(Canvas canvas, Projection projection, double[] vertices) {
+        polygonPath.rewind();
+        for (int v = 0; v + 1 < vertices.length; v += 2) {
+            drawPoint.setCoords(vertices[v], vertices[v + 1]);
+            projection.toPixels(drawPoint, pixel);
+            if (v == 0) {
+                polygonPath.moveTo(pixel.x, pixel.y);
+            } else {
+                polygonPath.lineTo(pixel.x, pixel.y);
+            }
+        }
+        polygonPath.close();
+        canvas.drawPath(polygonPath, zoneFill);
+        canvas.drawPath(polygonPath, zoneStroke);
+    }
+
+    @Override
+    public void onDetach(MapView mapView) {
+        db.getInvalidationTracker().removeObserver(zoneObserver);
+        mainHandler.removeCallbacksAndMessages(null);
+        loader.shutdownNow();
+        super.onDetach(mapView);
+    }
+}
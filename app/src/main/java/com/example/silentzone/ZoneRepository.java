@@ -0,0 +1,213 @@
+package com.example.silentzone;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Single entry point for zone reads and writes outside the main thread.
+ *
+ * All writes go through one writer thread. Writes queued while a flush is
+ * running are committed together in the next flush, inside one transaction,
+ * and consecutive inserts in that batch become a single list insert.
+ *
+ * An insert that duplicates a zone already saved or queued (see
+ * {@link ZoneCompactor}) is merged into that zone instead of adding a row.
+ */
+public class ZoneRepository {
+    private static final String TAG = "ZoneRepository";
+    // Stays under SQLite's limit on bound parameters
+    private static final int DELETE_CHUNK = 500;
+    private static final long COMPACTION_INTERVAL_MS = 24 * 60 * 60 * 1000L;
+
+    private static volatile ZoneRepository instance;
+
+    private final AppDatabase db;
+    private final SilentZoneDao dao;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private final List<PendingWrite> pendingWrites = new ArrayList<>();
+    private boolean flushScheduled = false;
+    private volatile String lastCompaction = "not run";
+
+    private interface DaoWrite {
+        void run(SilentZoneDao dao);
+    }
+
+    // Either an insert (zone set) or any other DAO write
+    private static class PendingWrite {
+        final SilentZone zone;
+        final DaoWrite write;
+
+        PendingWrite(SilentZone zone, DaoWrite write) {
+            this.zone = zone;
+            this.write = write;
+        }
+    }
+
+    private ZoneRepository(Context context) {
+        db = AppDatabase.getInstance(context);
+        dao = db.silentZoneDao();
+    }
+
+    public static ZoneRepository getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ZoneRepository.class) {
+                if (instance == null) {
+                    instance = new ZoneRepository(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public LiveData<List<SilentZone>> getZones() {
+        return dao.observeAllZones();
+    }
+
+    public LiveData<Integer> getZoneCount() {
+        return dao.observeZoneCount();
+    }
+
+    public void insert(SilentZone zone) {
+        enqueue(new PendingWrite(zone, null));
+    }
+
+    public void insertAll(List<SilentZone> zones) {
+        for (SilentZone zone : zones) {
+            enqueue(new PendingWrite(zone, null));
+        }
+    }
+
+    public void deleteByName(String name) {
+        enqueue(new PendingWrite(null, dao -> dao.deleteByName(name)));
+    }
+
+    public void deleteAll() {
+        enqueue(new PendingWrite(null, SilentZoneDao::deleteAll));
+    }
+
+    /**
+     * Merges duplicate zones already in the table, e.g. saved before inserts
+     * were deduplicated, on the writer thread. The result is logged and kept
+     * for {@link #getLastCompaction()}.
+     */
+    public void compact() {
+        enqueue(new PendingWrite(null, this::compactNow));
+    }
+
+    /** Queues {@link #compact()} if it has not run in the last day. Takes the application context. */
+    public static void compactDaily(Context context) {
+        SharedPreferences prefs = context.getSharedPreferences("SilentZonePrefs", Context.MODE_PRIVATE);
+        long now = System.currentTimeMillis();
+        if (now - prefs.getLong("lastCompaction", 0) < COMPACTION_INTERVAL_MS) {
+            return;
+        }
+        prefs.edit().putLong("lastCompaction", now).apply();
+        getInstance(context).compact();
+    }
+
+    public String getLastCompaction() {
+        return lastCompaction;
+    }
+
+    // Runs inside the flush transaction
+    private void compactNow(SilentZoneDao dao) {
+        long started = SystemClock.elapsedRealtime();
+        List<SilentZone> zones = dao.getAllZones();
+        ZoneCompactor.Plan plan = ZoneCompactor.plan(zones);
+        if (!plan.grown.isEmpty()) {
+            dao.updateAll(plan.grown);
+        }
+        for (int i = 0; i < plan.removedIds.size(); i += DELETE_CHUNK) {
+            dao.deleteByIds(plan.removedIds.subList(i, Math.min(i + DELETE_CHUNK, plan.removedIds.size())));
+        }
+        lastCompaction = plan.removedIds.size() + " of " + zones.size() + " rows reclaimed, " + plan.grown.size()
+                + " zones grown, in " + (SystemClock.elapsedRealtime() - started) + " ms";
+        Log.d(TAG, "Compaction: " + lastCompaction);
+    }
+
+    private void enqueue(PendingWrite write) {
+        synchronized (pendingWrites) {
+            pendingWrites.add(write);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        writer.execute(this::flush);
+    }
+
+    private void flush() {
+        List<PendingWrite> batch;
+        synchronized (pendingWrites) {
+            batch = new ArrayList<>(pendingWrites);
+            pendingWrites.clear();
+            flushScheduled = false;
+        }
+
+        try {
+            db.runInTransaction(() -> {
+                List<SilentZone> inserts = new ArrayList<>();
+                int merged = 0;
+                for (PendingWrite pending : batch) {
+                    if (pending.zone != null) {
+                        SilentZone duplicate = findDuplicate(pending.zone, inserts);
+                        if (duplicate == null) {
+                            inserts.add(pending.zone);
+                        } else {
+                            // A queued duplicate is written with the rest of the inserts
+                            if (ZoneCompactor.absorb(duplicate, pending.zone) && !inserts.contains(duplicate)) {
+                                dao.update(duplicate);
+                            }
+                            merged++;
+                        }
+                        continue;
+                    }
+                    // Keep ordering: earlier inserts must land before e.g. a deleteAll
+                    if (!inserts.isEmpty()) {
+                        dao.insertAll(inserts);
+                        inserts.clear();
+                    }
+                    pending.write.run(dao);
+                }
+                if (!inserts.isEmpty()) {
+                    dao.insertAll(inserts);
+                }
+                if (merged > 0) {
+                    Log.d(TAG, "Merged " + merged + " duplicate zone insert(s)");
+                }
+            });
+            Log.d(TAG, "Committed " + batch.size() + " zone write(s) in one transaction");
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Failed to commit zone writes", e);
+        }
+    }
+
+    // The zone that the insert duplicates, among the inserts queued before it or in the table; null if new
+    private SilentZone findDuplicate(SilentZone zone, List<SilentZone> queued) {
+        for (SilentZone other : queued) {
+            if (ZoneCompactor.isDuplicate(other, zone)) {
+                return other;
+            }
+        }
+        // A duplicate's center lies within the tolerance, and its bounding box holds its center
+        double dLat = GeoMath.metersToLatDegrees(ZoneCompactor.DUPLICATE_TOLERANCE);
+        double dLon = GeoMath.metersToLonDegrees(ZoneCompactor.DUPLICATE_TOLERANCE, zone.latitude);
+        List<SilentZone> nearby = dao.getZonesInBoundingBox(zone.latitude - dLat, zone.latitude + dLat,
+                zone.longitude - dLon, zone.longitude + dLon);
+        for (SilentZone other : nearby) {
+            if (ZoneCompactor.isDuplicate(other, zone)) {
+                return other;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.silentzone;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+/**
+ * Result of one evaluation by LocationService, published for the UI to observe.
+ */
+public class ZoneStatus {
+    private static final MutableLiveData<ZoneStatus> latest = new MutableLiveData<>();
+
+    /** The most recent confirmed enter or exit. */
+    public static class Transition {
+        public final int zoneId;
+        @Nullable
+        public final String zoneName;
+        public final boolean entered;
+        public final long timeMillis;
+
+        public Transition(int zoneId, @Nullable String zoneName, boolean entered, long timeMillis) {
+            this.zoneId = zoneId;
+            this.zoneName = zoneName;
+            this.entered = entered;
+            this.timeMillis = timeMillis;
+        }
+    }
+
+    // Confirmed inside at least one zone, whether or not the ringer could be changed
+    public final boolean inside;
+    // ZoneActions action applied to the ringer; ACTION_NONE while it is left as the user set it
+    public final int ringerAction;
+    public final int containingZones;
+    // -1 when not inside any zone
+    public final int currentZoneId;
+    @Nullable
+    public final String currentZoneName;
+    // Distance to the nearest zone edge, from inside or outside
+    public final double boundaryDistance;
+    public final long timeMillis;
+    @Nullable
+    public final Transition lastTransition;
+
+    public ZoneStatus(boolean inside, int ringerAction, int containingZones, int currentZoneId, @Nullable String currentZoneName,
+                      double boundaryDistance, long timeMillis, @Nullable Transition lastTransition) {
+        this.inside = inside;
+        this.ringerAction = ringerAction;
+        this.containingZones = containingZones;
+        this.currentZoneId = currentZoneId;
+        this.currentZoneName = currentZoneName;
+        this.boundaryDistance = boundaryDistance;
+        this.timeMillis = timeMillis;
+        this.lastTransition = lastTransition;
+    }
+
+    public static LiveData<ZoneStatus> observe() {
+        return latest;
+    }
+
+    static void publish(ZoneStatus status) {
+        latest.postValue(status);
+    }
+}
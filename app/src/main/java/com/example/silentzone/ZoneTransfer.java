@@ -0,0 +1,232 @@
+package com.example.silentzone;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
+import android.util.Log;
+import android.webkit.MimeTypeMap;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs one bulk import or export at a time off the main thread and publishes
+ * its progress. Lives for the process, so a transfer keeps going when the
+ * screen that started it is closed or rotated.
+ */
+public class ZoneTransfer {
+    private static final String TAG = "ZoneTransfer";
+
+    private static volatile ZoneTransfer instance;
+
+    /** Progress of the current or last transfer. */
+    public static class State {
+        public final boolean running;
+        // 0..100, or -1 when the size of the source is unknown
+        public final int percent;
+        public final String message;
+
+        State(boolean running, int percent, String message) {
+            this.running = running;
+            this.percent = percent;
+            this.message = message;
+        }
+    }
+
+    private final Context context;
+    private final ExecutorService worker = Executors.newSingleThreadExecutor();
+    private final MutableLiveData<State> state = new MutableLiveData<>(new State(false, 0, ""));
+    private Future<?> current;
+
+    private ZoneTransfer(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public static ZoneTransfer getInstance(Context context) {
+        if (instance == null) {
+            synchronized (ZoneTransfer.class) {
+                if (instance == null) {
+                    instance = new ZoneTransfer(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    public LiveData<State> getState() {
+        return state;
+    }
+
+    /** Starts importing {@code uri}; must be called on the main thread. Returns false if a transfer is already running. */
+    public synchronized boolean startImport(Uri uri) {
+        if (isRunning()) {
+            return false;
+        }
+        state.setValue(new State(true, 0, "Importing…"));
+        current = worker.submit(() -> runImport(uri));
+        return true;
+    }
+
+    /** Starts exporting all zones to {@code uri}; returns false if a transfer is already running. */
+    public synchronized boolean startExport(Uri uri, ZoneFormat format) {
+        if (isRunning()) {
+            return false;
+        }
+        state.setValue(new State(true, 0, "Exporting…"));
+        current = worker.submit(() -> runExport(uri, format));
+        return true;
+    }
+
+    // An interrupted import keeps its checkpoint, so starting it again resumes it
+    public synchronized void cancel() {
+        if (current != null) {
+            current.cancel(true);
+        }
+    }
+
+    private synchronized boolean isRunning() {
+        return current != null && !current.isDone();
+    }
+
+    private void runImport(Uri uri) {
+        ContentResolver resolver = context.getContentResolver();
+        String name = null;
+        long size = -1;
+        try (Cursor cursor = resolver.query(uri, new String[] {OpenableColumns.DISPLAY_NAME, OpenableColumns.SIZE},
+                null, null, null)) {
+            if (cursor != null && cursor.moveToFirst()) {
+                name = cursor.getString(0);
+                size = cursor.isNull(1) ? -1 : cursor.getLong(1);
+            }
+        }
+        ZoneFormat format = ZoneFormat.forName(name);
+        if (format == null) {
+            // Some providers report names without an extension
+            String extension = MimeTypeMap.getSingleton().getExtensionFromMimeType(resolver.getType(uri));
+            format = extension != null ? ZoneFormat.forName("." + extension) : null;
+        }
+        if (format == null) {
+            finish("Unsupported file " + (name != null ? name : uri.getLastPathSegment())
+                    + "; use .csv, .geojson or .kml");
+            return;
+        }
+        // A changed file must not resume from the checkpoint of its previous version
+        String source = uri + "#" + size;
+        long totalBytes = size;
+        InputStream raw;
+        try {
+            raw = resolver.openInputStream(uri);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open " + uri, e);
+            finish("Cannot open " + name);
+            return;
+        }
+        if (raw == null) {
+            finish("Cannot open " + name);
+            return;
+        }
+        CountingInputStream counting = new CountingInputStream(raw);
+        try (ZoneReader reader = format.open(new InputStreamReader(counting, StandardCharsets.UTF_8))) {
+            ZoneImporter.Result result = new ZoneImporter(AppDatabase.getInstance(context)).importZones(reader,
+                    source, (records, imported) -> state.postValue(new State(true,
+                            percent(counting.count, totalBytes),
+                            String.format(Locale.US, "Importing… %d zones from %d records", imported, records))));
+            String message = String.format(Locale.US, "Imported %d zones from %s", result.imported, name);
+            if (result.getSkipped() > 0) {
+                message += String.format(Locale.US, ", skipped %d invalid records", result.getSkipped());
+            }
+            if (result.resumedFrom > 0) {
+                message += String.format(Locale.US, " (resumed after record %d)", result.resumedFrom);
+            }
+            finish(message);
+        } catch (InterruptedException e) {
+            finish("Import cancelled; import the same file again to resume");
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Import of " + uri + " failed", e);
+            finish("Import failed: " + e.getMessage() + "; import the same file again to resume");
+        }
+    }
+
+    private void runExport(Uri uri, ZoneFormat format) {
+        OutputStream out;
+        try {
+            out = context.getContentResolver().openOutputStream(uri, "wt");
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot open " + uri, e);
+            finish("Cannot create the export file");
+            return;
+        }
+        if (out == null) {
+            finish("Cannot create the export file");
+            return;
+        }
+        try (ZoneWriter writer = format.create(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            long exported = new ZoneExporter(AppDatabase.getInstance(context)).exportZones(writer,
+                    (done, total) -> state.postValue(new State(true, percent(done, total),
+                            String.format(Locale.US, "Exporting… %d of %d zones", done, total))));
+            finish(String.format(Locale.US, "Exported %d zones as %s", exported, format.name()));
+        } catch (InterruptedException e) {
+            finish("Export cancelled; the file is incomplete");
+        } catch (IOException | RuntimeException e) {
+            Log.e(TAG, "Export to " + uri + " failed", e);
+            finish("Export failed: " + e.getMessage());
+        }
+    }
+
+    private void finish(String message) {
+        Log.d(TAG, message);
+        state.postValue(new State(false, 100, message));
+    }
+
+    private static int percent(long done, long total) {
+        return total <= 0 ? -1 : (int) Math.min(100, done * 100 / total);
+    }
+
+    // Bytes read so far, for progress against the file size reported by the provider
+    private static class CountingInputStream extends FilterInputStream {
+        volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
+}
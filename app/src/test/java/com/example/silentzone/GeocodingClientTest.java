@@ -0,0 +1,177 @@
+package com.example.silentzone;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs the client against a stand-in Nominatim on localhost.
+ */
+public class GeocodingClientTest {
+
+    private HttpServer server;
+    private String endpoint;
+    private final AtomicInteger requests = new AtomicInteger();
+    private volatile String lastQuery;
+    private volatile CountDownLatch received = new CountDownLatch(1);
+    // Responses wait on this, so tests can hold a request in flight
+    private volatile CountDownLatch release = new CountDownLatch(0);
+    private final BlockingQueue<String> results = new ArrayBlockingQueue<>(16);
+
+    private final GeocodingClient.Callback callback = new GeocodingClient.Callback() {
+        @Override
+        public void onResult(String query, GeocodingClient.Place place) {
+            results.add(place == null ? "none" : place.latitude + "," + place.longitude);
+        }
+
+        @Override
+        public void onError(String query, Exception error) {
+            results.add("error " + error);
+        }
+    };
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/search", exchange -> {
+            requests.incrementAndGet();
+            String query = exchange.getRequestURI().getQuery();
+            lastQuery = query.substring(2, query.indexOf("&format"));
+            received.countDown();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            byte[] body = (lastQuery.equals("nowhere") ? "[]" : "[{\"lat\":\"10.85\",\"lon\":\"76.27\"}]")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            } catch (IOException ignored) {
+                // The client hung up
+            }
+        });
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+        endpoint = "http://127.0.0.1:" + server.getAddress().getPort() + "/search";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private GeocodingClient client(GeocodingClient.Cache cache) {
+        return new GeocodingClient(endpoint, "test", cache, Runnable::run);
+    }
+
+    private String nextResult() throws InterruptedException {
+        String result = results.poll(5, TimeUnit.SECONDS);
+        assertNotNull("no result delivered", result);
+        return result;
+    }
+
+    @Test
+    public void repeatedSearchIsServedFromMemory() throws InterruptedException {
+        GeocodingClient client = client(null);
+
+        client.search("Main Library & Caf\u00e9", callback);
+        assertEquals("10.85,76.27", nextResult());
+        client.search("  main library &  caf\u00e9 ", callback);
+        assertEquals("10.85,76.27", nextResult());
+
+        assertEquals(1, requests.get());
+        assertEquals(1, client.getMemoryHits());
+        // Reserved characters must not break the query string
+        assertEquals("Main Library & Caf\u00e9", lastQuery);
+    }
+
+    @Test
+    public void emptyResultMeansNotFound() throws InterruptedException {
+        client(null).search("nowhere", callback);
+        assertEquals("none", nextResult());
+    }
+
+    @Test
+    public void persistentCacheIsUsedUntilItExpires() throws InterruptedException {
+        Map<String, GeocodingClient.Place> stored = new HashMap<>();
+        GeocodingClient.Cache cache = new GeocodingClient.Cache() {
+            @Override
+            public synchronized GeocodingClient.Place get(String query, long minCachedAt) {
+                GeocodingClient.Place place = stored.get(query);
+                return place != null && place.cachedAt >= minCachedAt ? place : null;
+            }
+
+            @Override
+            public synchronized void put(String query, GeocodingClient.Place place) {
+                stored.put(query, place);
+            }
+        };
+        long now = System.currentTimeMillis();
+        stored.put("library", new GeocodingClient.Place(1, 2, now));
+        stored.put("hall", new GeocodingClient.Place(3, 4, now - GeocodingClient.CACHE_TTL_MS - 1));
+
+        GeocodingClient client = client(cache);
+        client.search("Library", callback);
+        assertEquals("1.0,2.0", nextResult());
+        assertEquals(0, requests.get());
+        assertEquals(1, client.getDiskHits());
+
+        client.search("Hall", callback);
+        assertEquals("10.85,76.27", nextResult());
+        assertEquals(1, requests.get());
+        assertEquals(10.85, stored.get("hall").latitude, 0);
+    }
+
+    @Test
+    public void identicalInFlightQueriesShareOneRequest() throws InterruptedException {
+        release = new CountDownLatch(1);
+        GeocodingClient client = client(null);
+
+        client.search("Library", callback);
+        client.search("library", callback);
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        release.countDown();
+
+        assertEquals("10.85,76.27", nextResult());
+        assertEquals("10.85,76.27", nextResult());
+        assertEquals(1, requests.get());
+        assertEquals(1, client.getNetworkRequests());
+    }
+
+    @Test
+    public void cancelledSearchIsAbortedAndNotDelivered() throws InterruptedException {
+        release = new CountDownLatch(1);
+        GeocodingClient client = client(null);
+
+        GeocodingClient.Request request = client.search("Library", callback);
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        request.cancel();
+        release.countDown();
+        assertNull(results.poll(300, TimeUnit.MILLISECONDS));
+
+        // The abandoned request did not leave anything behind to join
+        client.search("Library", callback);
+        assertEquals("10.85,76.27", nextResult());
+        assertEquals(2, requests.get());
+    }
+}
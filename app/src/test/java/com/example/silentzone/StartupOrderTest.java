@@ -0,0 +1,75 @@
+package com.example.silentzone;
+
+import android.Manifest;
+import android.app.Application;
+import android.content.Intent;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.android.controller.ActivityController;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowApplication;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.robolectric.Shadows.shadowOf;
+
+/**
+ * Checks that MainActivity keeps its heavy initialization off the critical
+ * path: nothing but inflation and the saved location happens before the
+ * first frame, and the database and map setup run on the startup thread.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class StartupOrderTest {
+
+    private ShadowApplication application;
+
+    @Before
+    public void setUp() {
+        StartupTasks.get().reset();
+        application = shadowOf((Application) ApplicationProvider.getApplicationContext());
+        application.grantPermissions(Manifest.permission.ACCESS_FINE_LOCATION,
+                Manifest.permission.ACCESS_BACKGROUND_LOCATION);
+    }
+
+    @Test
+    public void serviceWaitsForTheFirstFrame() {
+        ActivityController<MainActivity> controller = Robolectric.buildActivity(MainActivity.class).create();
+        assertNull(application.getNextStartedService());
+        assertFalse(StartupTasks.get().getOrder().contains(MainActivity.STARTUP_PERMISSIONS));
+
+        // The decor view is attached, and traversed, once the activity becomes visible
+        controller.start().resume().visible();
+        Intent started = application.getNextStartedService();
+        assertNotNull(started);
+        assertEquals(LocationService.class.getName(), started.getComponent().getClassName());
+
+        List<String> order = StartupTasks.get().getOrder();
+        int onCreate = order.indexOf(StartupTasks.ON_CREATE);
+        int firstFrame = order.indexOf(StartupTasks.FIRST_FRAME);
+        int permissions = order.indexOf(MainActivity.STARTUP_PERMISSIONS);
+        assertTrue(order.toString(), onCreate >= 0 && onCreate < firstFrame && firstFrame < permissions);
+    }
+
+    @Test
+    public void databaseAndMapRunOffTheMainThread() throws InterruptedException {
+        Robolectric.buildActivity(MainActivity.class).setup();
+        assertTrue(StartupTasks.get().awaitBackground(10000));
+
+        StartupTasks startup = StartupTasks.get();
+        List<String> order = startup.getOrder();
+        assertTrue(order.toString(), order.indexOf(MainActivity.STARTUP_DATABASE)
+                < order.indexOf(MainActivity.STARTUP_MAP));
+        assertTrue(order.contains(MainActivity.STARTUP_DATABASE));
+        assertFalse(startup.ranOnMainThread(MainActivity.STARTUP_DATABASE));
+        assertFalse(startup.ranOnMainThread(MainActivity.STARTUP_MAP));
+        assertTrue(startup.ranOnMainThread(MainActivity.STARTUP_PERMISSIONS));
+    }
+}
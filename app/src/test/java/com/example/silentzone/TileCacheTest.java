@@ -0,0 +1,69 @@
+package com.example.silentzone;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class TileCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static byte[] tile(int size, int fill) {
+        byte[] data = new byte[size];
+        Arrays.fill(data, (byte) fill);
+        return data;
+    }
+
+    @Test
+    public void countsHitsAndMisses() throws IOException {
+        TileCache cache = new TileCache(folder.getRoot(), 1000);
+        assertNull(cache.get(15, 1, 2));
+        cache.put(15, 1, 2, tile(100, 7));
+
+        assertArrayEquals(tile(100, 7), cache.get(15, 1, 2));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(0.5, cache.getHitRate(), 0);
+        assertEquals(100, cache.getSizeBytes());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOverTheSizeBound() throws IOException {
+        TileCache cache = new TileCache(folder.getRoot(), 300);
+        cache.put(15, 0, 0, tile(100, 0));
+        cache.put(15, 0, 1, tile(100, 1));
+        cache.put(15, 0, 2, tile(100, 2));
+        cache.get(15, 0, 0);
+
+        cache.put(15, 0, 3, tile(100, 3));
+
+        assertTrue(cache.contains(15, 0, 0));
+        assertFalse(cache.contains(15, 0, 1));
+        assertFalse(new File(folder.getRoot(), "15/0/1.tile").exists());
+        assertEquals(1, cache.getEvictions());
+        assertEquals(300, cache.getSizeBytes());
+    }
+
+    @Test
+    public void reopenedCacheKeepsTilesAndOrder() throws IOException {
+        TileCache cache = new TileCache(folder.getRoot(), 300);
+        cache.put(15, 0, 0, tile(100, 0));
+        cache.put(15, 0, 1, tile(100, 1));
+        new File(folder.getRoot(), "15/0/0.tile").setLastModified(1000);
+        new File(folder.getRoot(), "15/0/1.tile").setLastModified(2000);
+
+        TileCache reopened = new TileCache(folder.getRoot(), 250);
+        assertEquals(2, reopened.getTileCount());
+        reopened.put(15, 0, 2, tile(100, 2));
+
+        assertFalse(reopened.contains(15, 0, 0));
+        assertTrue(reopened.contains(15, 0, 1));
+    }
+}
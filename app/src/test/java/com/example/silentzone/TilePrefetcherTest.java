@@ -0,0 +1,134 @@
+package com.example.silentzone;
+
+import com.sun.net.httpserver.HttpServer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prefetches against a stand-in tile server on localhost.
+ */
+public class TilePrefetcherTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private HttpServer server;
+    private String template;
+    private final AtomicInteger requests = new AtomicInteger();
+    // Tiles in this column answer 404
+    private volatile int missingColumn = -1;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            byte[] body = exchange.getRequestURI().getPath().getBytes(StandardCharsets.UTF_8);
+            int status = Integer.parseInt(parts[2]) == missingColumn ? 404 : 200;
+            exchange.sendResponseHeaders(status, status == 200 ? body.length : -1);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (status == 200) {
+                    out.write(body);
+                }
+            }
+        });
+        server.start();
+        template = "http://127.0.0.1:" + server.getAddress().getPort() + "/{z}/{x}/{y}.png";
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+    }
+
+    private static List<double[]> zoneBox() {
+        double[] box = new double[4];
+        ZoneGeometry.bounds(10.85, 76.27, 100, null, box);
+        return Collections.singletonList(box);
+    }
+
+    private static int expectedTiles(int zoom) {
+        double[] box = zoneBox().get(0);
+        double dLat = GeoMath.metersToLatDegrees(TilePrefetcher.MARGIN_METERS);
+        double dLon = GeoMath.metersToLonDegrees(TilePrefetcher.MARGIN_METERS, 10.85);
+        int columns = TilePrefetcher.tileX(box[3] + dLon, zoom) - TilePrefetcher.tileX(box[2] - dLon, zoom) + 1;
+        int rows = TilePrefetcher.tileY(box[0] - dLat, zoom) - TilePrefetcher.tileY(box[1] + dLat, zoom) + 1;
+        return columns * rows;
+    }
+
+    @Test
+    public void tileCoordinatesMatchSlippyMapScheme() {
+        assertEquals(0, TilePrefetcher.tileX(-180, 10));
+        assertEquals(512, TilePrefetcher.tileX(0, 10));
+        assertEquals(512, TilePrefetcher.tileY(0, 10));
+        assertTrue(TilePrefetcher.tileY(60, 10) < TilePrefetcher.tileY(10, 10));
+    }
+
+    @Test
+    public void prefetchFillsCacheOnceAroundZones() {
+        TileCache cache = new TileCache(folder.getRoot(), 1 << 20);
+        TilePrefetcher prefetcher = new TilePrefetcher(template, "test", cache);
+        int expected = expectedTiles(16) + expectedTiles(17);
+
+        TilePrefetcher.Result first = prefetcher.prefetch(zoneBox(), 16, 17);
+        assertEquals(expected, first.downloaded);
+        assertEquals(0, first.failed);
+        assertEquals(expected, cache.getTileCount());
+
+        TilePrefetcher.Result second = prefetcher.prefetch(zoneBox(), 16, 17);
+        assertEquals(0, second.downloaded);
+        assertEquals(expected, second.alreadyCached);
+        assertEquals(expected, requests.get());
+
+        int x = TilePrefetcher.tileX(76.27, 17);
+        int y = TilePrefetcher.tileY(10.85, 17);
+        assertArrayEquals(("/17/" + x + "/" + y + ".png").getBytes(StandardCharsets.UTF_8), cache.get(17, x, y));
+    }
+
+    @Test
+    public void capCountsDownloadsSoLaterRunsContinue() {
+        TileCache cache = new TileCache(folder.getRoot(), 1 << 20);
+        int expected = expectedTiles(17);
+        int cap = expected / 3 + 1;
+        TilePrefetcher prefetcher = new TilePrefetcher(template, "test", cache, cap);
+
+        assertEquals(cap, prefetcher.prefetch(zoneBox(), 17, 17).downloaded);
+        // Walks past the cached tiles instead of stopping at them
+        TilePrefetcher.Result second = prefetcher.prefetch(zoneBox(), 17, 17);
+        assertEquals(cap, second.alreadyCached);
+        assertEquals(cap, second.downloaded);
+        prefetcher.prefetch(zoneBox(), 17, 17);
+        assertEquals(expected, cache.getTileCount());
+        assertEquals(expected, requests.get());
+    }
+
+    @Test
+    public void failedTilesAreCountedAndRetriedNextRun() {
+        TileCache cache = new TileCache(folder.getRoot(), 1 << 20);
+        TilePrefetcher prefetcher = new TilePrefetcher(template, "test", cache);
+        missingColumn = TilePrefetcher.tileX(76.27, 17);
+
+        TilePrefetcher.Result result = prefetcher.prefetch(zoneBox(), 17, 17);
+        assertTrue(result.failed > 0);
+        assertFalse(cache.contains(17, missingColumn, TilePrefetcher.tileY(10.85, 17)));
+
+        missingColumn = -1;
+        assertEquals(result.failed, prefetcher.prefetch(zoneBox(), 17, 17).downloaded);
+    }
+}
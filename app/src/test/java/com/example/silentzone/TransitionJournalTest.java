@@ -0,0 +1,117 @@
+package com.example.silentzone;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TransitionJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void recordsRoundTripAndFilterByTime() throws IOException {
+        TransitionJournal journal = new TransitionJournal(folder.newFile(), 16);
+        journal.append(1000, 7, true, 2, 0, 8.5f, 1200);
+        journal.append(2000, 7, false, 0, 2, 12f, 900);
+        journal.append(3000, 9, true, 2, 2, 30f, 61000000);
+
+        List<TransitionJournal.Entry> all = journal.query(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(3, all.size());
+        TransitionJournal.Entry first = all.get(0);
+        assertEquals(1000, first.timeMillis);
+        assertEquals(7, first.zoneId);
+        assertTrue(first.entered);
+        assertEquals(2, first.previousRinger);
+        assertEquals(0, first.newRinger);
+        assertEquals(8.5f, first.accuracy, 0);
+        assertEquals(1200, first.latencyMicros);
+
+        List<TransitionJournal.Entry> middle = journal.query(2000, 3000);
+        assertEquals(1, middle.size());
+        assertFalse(middle.get(0).entered);
+    }
+
+    @Test
+    public void fullRingKeepsTheNewestRecords() throws IOException {
+        TransitionJournal journal = new TransitionJournal(folder.newFile(), 4);
+        for (int i = 0; i < 10; i++) {
+            journal.append(i * 1000L, i, true, 2, 0, 5f, 0);
+        }
+
+        List<TransitionJournal.Entry> all = journal.query(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(4, journal.size());
+        assertEquals(4, all.size());
+        assertEquals(6, all.get(0).zoneId);
+        assertEquals(9, all.get(3).zoneId);
+    }
+
+    @Test
+    public void survivesReopening() throws IOException {
+        File file = folder.newFile();
+        TransitionJournal journal = new TransitionJournal(file, 4);
+        for (int i = 0; i < 6; i++) {
+            journal.append(i * 1000L, i, i % 2 == 0, 2, 0, 5f, 0);
+        }
+
+        TransitionJournal reopened = new TransitionJournal(file, 4);
+        assertEquals(4, reopened.size());
+        reopened.append(6000, 6, true, 2, 0, 5f, 0);
+        List<TransitionJournal.Entry> all = reopened.query(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(3, all.get(0).zoneId);
+        assertEquals(6, all.get(3).zoneId);
+    }
+
+    @Test
+    public void tornAppendAfterWrapIsSkipped() throws IOException {
+        File file = folder.newFile();
+        TransitionJournal journal = new TransitionJournal(file, 4);
+        for (int i = 0; i < 6; i++) {
+            journal.append(i * 1000L, i, true, 2, 0, 5f, 0);
+        }
+
+        // Crash part-way through the seventh append: slot 2 (holding record 2) has its
+        // sequence cleared and some new fields written, the header count never advanced
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            long offset = TransitionJournal.HEADER_SIZE + 2L * TransitionJournal.RECORD_SIZE;
+            raf.seek(offset);
+            raf.writeLong(0);
+            raf.writeLong(6000);
+            raf.writeInt(99);
+        }
+
+        TransitionJournal reopened = new TransitionJournal(file, 4);
+        List<TransitionJournal.Entry> all = reopened.query(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(3, all.size());
+        assertEquals(3, all.get(0).zoneId);
+        assertEquals(5, all.get(2).zoneId);
+        for (TransitionJournal.Entry entry : all) {
+            assertNotEquals(99, entry.zoneId);
+        }
+
+        // The next append reuses the torn slot
+        reopened.append(6000, 6, true, 2, 0, 5f, 0);
+        all = reopened.query(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(4, all.size());
+        assertEquals(6, all.get(3).zoneId);
+    }
+
+    @Test
+    public void foreignOrResizedFileStartsEmpty() throws IOException {
+        File file = folder.newFile();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.write(new byte[] {1, 2, 3, 4, 5, 6, 7, 8});
+        }
+        assertEquals(0, new TransitionJournal(file, 4).size());
+
+        new TransitionJournal(file, 4).append(1000, 1, true, 2, 0, 5f, 0);
+        assertEquals(0, new TransitionJournal(file, 8).size());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZoneClustererTest {
+
+    private static final double LAT = 10.85;
+    private static final double LON = 76.27;
+
+    @Test
+    public void cellSizeHalvesPerZoomLevel() {
+        assertEquals(360, ZoneClusterer.cellDegrees(0, 256), 1e-9);
+        assertEquals(ZoneClusterer.cellDegrees(15, 64) / 2, ZoneClusterer.cellDegrees(16, 64), 1e-12);
+    }
+
+    @Test
+    public void nearbyZonesShareABucketAndKeepTheirCount() {
+        int n = 1000;
+        int[] ids = new int[n];
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        float[] radius = new float[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+            // Two tight groups about 5 km apart
+            double base = i < 600 ? 0 : 0.05;
+            lat[i] = LAT + base + (i % 10) * 1e-5;
+            lon[i] = LON + base + (i % 7) * 1e-5;
+            radius[i] = 50;
+        }
+        double cell = ZoneClusterer.cellDegrees(12, 64);
+
+        ZoneClusterer.Clusters clusters = ZoneClusterer.cluster(ids, lat, lon, radius, null, n, cell, LAT);
+
+        int total = 0;
+        for (int i = 0; i < clusters.count; i++) {
+            total += clusters.size[i];
+        }
+        assertEquals(n, total);
+        assertTrue(clusters.count >= 2 && clusters.count <= 8);
+    }
+
+    @Test
+    public void zoomedInSingleZonesKeepIdAndRadius() {
+        int[] ids = {7, 9};
+        double[] lat = {LAT, LAT + 0.01};
+        double[] lon = {LON, LON};
+        float[] radius = {80, 120};
+
+        ZoneClusterer.Clusters clusters = ZoneClusterer.cluster(ids, lat, lon, radius, null, 2,
+                ZoneClusterer.cellDegrees(18, 64), LAT);
+
+        assertEquals(2, clusters.count);
+        assertEquals(1, clusters.size[0]);
+        assertEquals(7, clusters.zoneId[0]);
+        assertEquals(120, clusters.radius[1], 0);
+        assertEquals(LAT, clusters.lat[0], 0);
+    }
+
+    @Test
+    public void singlePolygonZoneKeepsItsVertices() {
+        double[] square = {LAT - 0.001, LON - 0.001, LAT - 0.001, LON + 0.001,
+                LAT + 0.001, LON + 0.001, LAT + 0.001, LON - 0.001};
+        int[] ids = {7, 9};
+        double[] lat = {LAT, LAT + 0.01};
+        double[] lon = {LON, LON};
+        float[] radius = {100, 120};
+        double[][] polygons = {square, null};
+
+        ZoneClusterer.Clusters clusters = ZoneClusterer.cluster(ids, lat, lon, radius, polygons, 2,
+                ZoneClusterer.cellDegrees(18, 64), LAT);
+
+        assertEquals(2, clusters.count);
+        assertEquals(7, clusters.zoneId[0]);
+        assertArrayEquals(square, clusters.polygon[0], 0);
+        // The circle is still drawn from its radius
+        assertNull(clusters.polygon[1]);
+    }
+}
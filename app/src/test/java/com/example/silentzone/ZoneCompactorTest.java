@@ -0,0 +1,101 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ZoneCompactorTest {
+
+    private static final double LAT = 10.85;
+    private static final double LON = 76.27;
+
+    private static SilentZone zone(int id, double northMeters, String name) {
+        SilentZone zone = new SilentZone(LAT + GeoMath.metersToLatDegrees(northMeters), LON, name);
+        zone.id = id;
+        return zone;
+    }
+
+    @Test
+    public void nearbyCirclesWithTheSameRulesAreDuplicates() {
+        SilentZone a = zone(1, 0, "Current Location");
+        assertTrue(ZoneCompactor.isDuplicate(a, zone(2, 10, "Map Selected Location")));
+        assertFalse(ZoneCompactor.isDuplicate(a, zone(3, 40, "Current Location")));
+
+        // Concentric but very different sizes
+        SilentZone wide = zone(4, 0, "Current Location");
+        wide.radius = 300;
+        assertFalse(ZoneCompactor.isDuplicate(a, wide));
+
+        SilentZone vibrate = zone(5, 0, "Current Location");
+        vibrate.action = ZoneActions.ACTION_VIBRATE;
+        assertFalse(ZoneCompactor.isDuplicate(a, vibrate));
+
+        SilentZone scheduled = zone(6, 0, "Current Location");
+        scheduled.schedule = "Mon-Fri 09:00-17:00";
+        assertFalse(ZoneCompactor.isDuplicate(a, scheduled));
+    }
+
+    @Test
+    public void polygonsOnlyMatchWhenIdentical() {
+        SilentZone a = zone(1, 0, "Office");
+        a.polygon = "10.849,76.269;10.849,76.271;10.851,76.271";
+        SilentZone b = zone(2, 0, "Office");
+        b.polygon = a.polygon;
+        SilentZone c = zone(3, 0, "Office");
+        assertTrue(ZoneCompactor.isDuplicate(a, b));
+        assertFalse(ZoneCompactor.isDuplicate(a, c));
+    }
+
+    @Test
+    public void absorbGrowsTheSurvivorToCoverTheDuplicate() {
+        SilentZone survivor = zone(1, 0, "Current Location");
+        double maxLat = survivor.maxLat;
+        assertTrue(ZoneCompactor.absorb(survivor, zone(2, 20, "Current Location")));
+        assertEquals(SilentZone.DEFAULT_RADIUS + 20, survivor.radius, 0.1);
+        // The bounds used by range queries grew with it
+        assertTrue(survivor.maxLat > maxLat);
+        // Already covered
+        assertFalse(ZoneCompactor.absorb(survivor, zone(3, 5, "Current Location")));
+    }
+
+    @Test
+    public void planKeepsTheOldestZoneOfEachGroup() {
+        List<SilentZone> zones = new ArrayList<>();
+        // Repeated taps on "Set current location", with GPS jitter
+        for (int i = 0; i < 10; i++) {
+            zones.add(zone(10 + i, (i % 3) * 4, "Current Location"));
+        }
+        // A different place, and one that silences only on weekdays
+        zones.add(zone(100, 500, "Map Selected Location"));
+        SilentZone scheduled = zone(101, 0, "Current Location");
+        scheduled.schedule = "Mon-Fri 09:00-17:00";
+        zones.add(scheduled);
+        Collections.shuffle(zones, new Random(3));
+
+        ZoneCompactor.Plan plan = ZoneCompactor.plan(zones);
+
+        assertEquals(9, plan.removedIds.size());
+        assertFalse(plan.removedIds.contains(10));
+        assertFalse(plan.removedIds.contains(100));
+        assertFalse(plan.removedIds.contains(101));
+        assertEquals(1, plan.grown.size());
+        assertEquals(10, plan.grown.get(0).id);
+        assertEquals(SilentZone.DEFAULT_RADIUS + 8, plan.grown.get(0).radius, 0.1);
+    }
+
+    @Test
+    public void planOfDistinctZonesRemovesNothing() {
+        List<SilentZone> zones = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            zones.add(zone(i, i * 100, "Zone " + i));
+        }
+        ZoneCompactor.Plan plan = ZoneCompactor.plan(zones);
+        assertTrue(plan.removedIds.isEmpty());
+        assertTrue(plan.grown.isEmpty());
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.silentzone;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to find every zone containing one fix, by linear scan with each
+ * distance engine and by the grid index, for a single zone up to 100k zones
+ * spread over the 50 km region LocationService loads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+public class ContainmentScanBenchmark {
+
+    private static final int FIXES = 1024;
+    private static final double LAT = 10.85;
+    private static final double LON = 76.27;
+    private static final double REGION = 50000; // meters
+
+    @Param({"1", "1000", "100000"})
+    public int zoneCount;
+
+    private double[] zoneLat;
+    private double[] zoneLon;
+    private double[] zoneRadius;
+    private ZoneIndex index;
+    private final double[] fixLat = new double[FIXES];
+    private final double[] fixLon = new double[FIXES];
+    private final int[] hits = new int[ZoneEvaluator.MAX_CONTAINING_ZONES];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double dLat = GeoMath.metersToLatDegrees(REGION / 2);
+        double dLon = GeoMath.metersToLonDegrees(REGION / 2, LAT);
+        zoneLat = new double[zoneCount];
+        zoneLon = new double[zoneCount];
+        zoneRadius = new double[zoneCount];
+        index = new ZoneIndex();
+        for (int i = 0; i < zoneCount; i++) {
+            zoneLat[i] = LAT + (random.nextDouble() * 2 - 1) * dLat;
+            zoneLon[i] = LON + (random.nextDouble() * 2 - 1) * dLon;
+            zoneRadius[i] = 30 + random.nextInt(171);
+            index.add(i, zoneLat[i], zoneLon[i], (float) zoneRadius[i]);
+        }
+        for (int i = 0; i < FIXES; i++) {
+            // Half the fixes land in a zone so the hit path is exercised too
+            int zone = random.nextInt(zoneCount);
+            boolean inside = (i & 1) == 0;
+            fixLat[i] = inside ? zoneLat[zone] : LAT + (random.nextDouble() * 2 - 1) * dLat;
+            fixLon[i] = inside ? zoneLon[zone] : LON + (random.nextDouble() * 2 - 1) * dLon;
+        }
+    }
+
+    private int nextFix() {
+        next = (next + 1) & (FIXES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public int vincentyScan() {
+        int f = nextFix();
+        int count = 0;
+        for (int i = 0; i < zoneCount; i++) {
+            if (GeoMath.vincenty(fixLat[f], fixLon[f], zoneLat[i], zoneLon[i]) <= zoneRadius[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int haversineScan() {
+        int f = nextFix();
+        int count = 0;
+        for (int i = 0; i < zoneCount; i++) {
+            if (GeoMath.haversine(fixLat[f], fixLon[f], zoneLat[i], zoneLon[i]) <= zoneRadius[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int equirectangularScan() {
+        int f = nextFix();
+        double cosLat = Math.cos(Math.toRadians(fixLat[f]));
+        int count = 0;
+        for (int i = 0; i < zoneCount; i++) {
+            if (GeoMath.equirectangular(fixLat[f], fixLon[f], zoneLat[i], zoneLon[i], cosLat) <= zoneRadius[i]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int squaredScan() {
+        int f = nextFix();
+        double cosLat = Math.cos(Math.toRadians(fixLat[f]));
+        int count = 0;
+        for (int i = 0; i < zoneCount; i++) {
+            double r = zoneRadius[i];
+            if (GeoMath.equirectangularSquared(fixLat[f], fixLon[f], zoneLat[i], zoneLon[i], cosLat) <= r * r) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // What the app actually does: grid cells, bounding box, then haversine
+    @Benchmark
+    public int gridIndex() {
+        int f = nextFix();
+        return index.query(fixLat[f], fixLon[f], hits);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.silentzone;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one fix-to-zone distance with each engine. Pairs are a few km apart,
+ * the range zone checks actually see.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class DistanceBenchmark {
+
+    private static final int PAIRS = 1024;
+    private static final double LAT = 10.85;
+    private static final double LON = 76.27;
+    private static final double RADIUS = 1000;
+
+    private final double[] fixLat = new double[PAIRS];
+    private final double[] fixLon = new double[PAIRS];
+    // cos(fix latitude), computed once per fix as LocationService would
+    private final double[] fixCos = new double[PAIRS];
+    private final double[] zoneLat = new double[PAIRS];
+    private final double[] zoneLon = new double[PAIRS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        double dLat = GeoMath.metersToLatDegrees(2000);
+        double dLon = GeoMath.metersToLonDegrees(2000, LAT);
+        for (int i = 0; i < PAIRS; i++) {
+            fixLat[i] = LAT + (random.nextDouble() * 2 - 1) * dLat;
+            fixLon[i] = LON + (random.nextDouble() * 2 - 1) * dLon;
+            fixCos[i] = Math.cos(Math.toRadians(fixLat[i]));
+            zoneLat[i] = LAT + (random.nextDouble() * 2 - 1) * dLat;
+            zoneLon[i] = LON + (random.nextDouble() * 2 - 1) * dLon;
+        }
+    }
+
+    private int nextPair() {
+        next = (next + 1) & (PAIRS - 1);
+        return next;
+    }
+
+    @Benchmark
+    public double vincenty() {
+        int i = nextPair();
+        return GeoMath.vincenty(fixLat[i], fixLon[i], zoneLat[i], zoneLon[i]);
+    }
+
+    @Benchmark
+    public double haversine() {
+        int i = nextPair();
+        return GeoMath.haversine(fixLat[i], fixLon[i], zoneLat[i], zoneLon[i]);
+    }
+
+    @Benchmark
+    public double equirectangular() {
+        int i = nextPair();
+        return GeoMath.equirectangular(fixLat[i], fixLon[i], zoneLat[i], zoneLon[i], fixCos[i]);
+    }
+
+    @Benchmark
+    public boolean squaredContains() {
+        int i = nextPair();
+        return GeoMath.equirectangularSquared(fixLat[i], fixLon[i], zoneLat[i], zoneLon[i], fixCos[i])
+                <= RADIUS * RADIUS;
+    }
+}
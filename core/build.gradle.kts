@@ -0,0 +1,20 @@
+plugins {
+    `java-library`
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
+
+// ./gradlew :core:replay --args="trace.gpx zones.csv" (or "--synthetic 10000" instead of a zone file)
+tasks.register<JavaExec>("replay") {
+    group = "application"
+    description = "Replays a GPX/CSV trace through the zone evaluator and prints a report"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass.set("com.example.silentzone.TraceReplay")
+}
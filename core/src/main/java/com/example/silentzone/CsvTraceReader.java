@@ -0,0 +1,64 @@
+package com.example.silentzone;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads {@code time,lat,lon[,accuracy]} lines. Time is either epoch
+ * milliseconds or an ISO-8601 instant. A header line and lines starting with
+ * {@code #} are skipped.
+ */
+public class CsvTraceReader implements TraceReader {
+
+    private final BufferedReader reader;
+    private int lineNumber;
+
+    public CsvTraceReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean next(TraceFix fix) throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            line = line.trim();
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            String[] fields = line.split(",");
+            if (fields.length < 3) {
+                throw new IOException("Line " + lineNumber + ": expected time,lat,lon[,accuracy]");
+            }
+            try {
+                fix.timeMs = parseTime(fields[0].trim());
+                fix.latitude = Double.parseDouble(fields[1].trim());
+                fix.longitude = Double.parseDouble(fields[2].trim());
+                fix.accuracy = fields.length > 3 ? Float.parseFloat(fields[3].trim()) : 0;
+            } catch (NumberFormatException | DateTimeParseException e) {
+                if (lineNumber == 1) {
+                    continue; // header
+                }
+                throw new IOException("Line " + lineNumber + ": " + e.getMessage(), e);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    static long parseTime(String value) {
+        char first = value.isEmpty() ? ' ' : value.charAt(0);
+        if (Character.isDigit(first) && value.indexOf('-') < 0) {
+            return Long.parseLong(value);
+        }
+        return Instant.parse(value).toEpochMilli();
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.silentzone;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads {@code name,latitude,longitude,radius,polygon,schedule,priority,action}
+ * rows (RFC 4180
+ * quoting). A header row, if present, may name the columns in any order;
+ * {@code lat}/{@code lon}/{@code lng} are accepted for the coordinates.
+ * Without a header the columns are taken in the order above.
+ */
+public class CsvZoneReader implements ZoneReader {
+
+    private final BufferedReader reader;
+    private final List<String> fields = new ArrayList<>();
+    private final StringBuilder field = new StringBuilder();
+    private int nameColumn = 0;
+    private int latColumn = 1;
+    private int lonColumn = 2;
+    private int radiusColumn = 3;
+    private int polygonColumn = 4;
+    private int scheduleColumn = 5;
+    private int priorityColumn = 6;
+    private int actionColumn = 7;
+    private boolean started;
+    private boolean eof;
+
+    public CsvZoneReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean next(ZoneRecord record) throws IOException {
+        while (readRow()) {
+            if (fields.size() == 1 && fields.get(0).trim().isEmpty()) {
+                continue;
+            }
+            if (!started) {
+                started = true;
+                if (readHeader()) {
+                    continue;
+                }
+            }
+            record.clear();
+            record.name = column(nameColumn);
+            record.latitude = ZoneRecord.parseDouble(column(latColumn));
+            record.longitude = ZoneRecord.parseDouble(column(lonColumn));
+            String radius = column(radiusColumn);
+            if (radius != null && !radius.trim().isEmpty()) {
+                record.radius = (float) ZoneRecord.parseDouble(radius);
+            }
+            String polygon = column(polygonColumn);
+            if (polygon != null && !polygon.trim().isEmpty()) {
+                record.polygon = polygon.trim();
+            }
+            String schedule = column(scheduleColumn);
+            if (schedule != null && !schedule.trim().isEmpty()) {
+                record.schedule = schedule.trim();
+            }
+            String priority = column(priorityColumn);
+            if (priority != null && !priority.trim().isEmpty()) {
+                record.priority = ZoneRecord.parsePriority(priority);
+            }
+            String action = column(actionColumn);
+            if (action != null && !action.trim().isEmpty()) {
+                record.action = ZoneActions.parseAction(action);
+            }
+            return true;
+        }
+        return false;
+    }
+
+    // A first row whose latitude column is not a number is a header
+    private boolean readHeader() {
+        int lat = -1;
+        int lon = -1;
+        int name = -1;
+        int radius = -1;
+        int polygon = -1;
+        int schedule = -1;
+        int priority = -1;
+        int action = -1;
+        for (int i = 0; i < fields.size(); i++) {
+            switch (fields.get(i).trim().toLowerCase(Locale.ROOT)) {
+                case "name":
+                    name = i;
+                    break;
+                case "lat":
+                case "latitude":
+                    lat = i;
+                    break;
+                case "lon":
+                case "lng":
+                case "longitude":
+                    lon = i;
+                    break;
+                case "radius":
+                    radius = i;
+                    break;
+                case "polygon":
+                    polygon = i;
+                    break;
+                case "schedule":
+                    schedule = i;
+                    break;
+                case "priority":
+                    priority = i;
+                    break;
+                case "action":
+                    action = i;
+                    break;
+            }
+        }
+        if (lat < 0 || lon < 0) {
+            // Unrecognised header: skip it and keep the default columns
+            return Double.isNaN(ZoneRecord.parseDouble(column(latColumn)));
+        }
+        nameColumn = name;
+        latColumn = lat;
+        lonColumn = lon;
+        radiusColumn = radius;
+        polygonColumn = polygon;
+        scheduleColumn = schedule;
+        priorityColumn = priority;
+        actionColumn = action;
+        return true;
+    }
+
+    private String column(int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index) : null;
+    }
+
+    // Splits the next row into fields; quoted fields may contain commas, quotes and newlines
+    private boolean readRow() throws IOException {
+        if (eof) {
+            return false;
+        }
+        fields.clear();
+        field.setLength(0);
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    if (reader.read() == '"') {
+                        field.append('"');
+                    } else {
+                        reader.reset();
+                        quoted = false;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (c == -1) {
+            eof = true;
+            if (!any) {
+                return false;
+            }
+        }
+        fields.add(field.toString());
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.silentzone;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/** Writes the columns {@link CsvZoneReader} reads, with a header row. */
+public class CsvZoneWriter implements ZoneWriter {
+
+    static final String HEADER = "name,latitude,longitude,radius,polygon,schedule,priority,action";
+
+    private final BufferedWriter writer;
+
+    public CsvZoneWriter(Writer writer) throws IOException {
+        this.writer = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+        this.writer.write(HEADER);
+        this.writer.write('\n');
+    }
+
+    @Override
+    public void write(ZoneRecord record) throws IOException {
+        writeField(record.name);
+        writer.write(',');
+        writer.write(Double.toString(record.latitude));
+        writer.write(',');
+        writer.write(Double.toString(record.longitude));
+        writer.write(',');
+        writer.write(Float.toString(record.radius));
+        writer.write(',');
+        writeField(record.polygon);
+        writer.write(',');
+        writeField(record.schedule);
+        writer.write(',');
+        writer.write(Integer.toString(record.priority));
+        writer.write(',');
+        writer.write(ZoneActions.actionName(record.action));
+        writer.write('\n');
+    }
+
+    private void writeField(String value) throws IOException {
+        if (value == null) {
+            return;
+        }
+        boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+                || value.indexOf('\r') >= 0 || value.indexOf(';') >= 0;
+        if (!quote) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.silentzone;
+
+import java.util.Objects;
+
+/**
+ * Merges fixes from several providers into one time-ordered stream.
+ *
+ * A fix is dropped when it is older than the last accepted one (providers
+ * deliver late), or when it is the last accepted fix delivered again: the
+ * same timestamp, or the same position reported by another provider within
+ * {@link #SAME_FIX_WINDOW_MS}. A newer fix from the same provider is always
+ * accepted, however little it differs.
+ */
+public class FixFilter {
+
+    static final long SAME_FIX_WINDOW_MS = 2000;
+
+    private long lastTimeMs = Long.MIN_VALUE;
+    private double lastLat;
+    private double lastLon;
+    private String lastProvider;
+    private long accepted;
+    private long stale;
+    private long duplicates;
+
+    // Times must come from one monotonic clock, e.g. elapsed realtime; a null provider is one unnamed provider
+    public boolean accept(long timeMs, double lat, double lon, String provider) {
+        if (lastTimeMs != Long.MIN_VALUE) {
+            if (timeMs < lastTimeMs) {
+                stale++;
+                return false;
+            }
+            if (timeMs == lastTimeMs || timeMs - lastTimeMs < SAME_FIX_WINDOW_MS
+                    && !Objects.equals(provider, lastProvider) && lat == lastLat && lon == lastLon) {
+                duplicates++;
+                return false;
+            }
+        }
+        lastTimeMs = timeMs;
+        lastLat = lat;
+        lastLon = lon;
+        lastProvider = provider;
+        accepted++;
+        return true;
+    }
+
+    public long getAcceptedCount() {
+        return accepted;
+    }
+
+    public long getDroppedCount() {
+        return stale + duplicates;
+    }
+
+    // Older than the last accepted fix
+    public long getStaleCount() {
+        return stale;
+    }
+
+    // The last accepted fix delivered again, by the same or another provider
+    public long getDuplicateCount() {
+        return duplicates;
+    }
+
+    public void reset() {
+        lastTimeMs = Long.MIN_VALUE;
+    }
+}
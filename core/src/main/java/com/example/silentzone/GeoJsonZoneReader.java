@@ -0,0 +1,153 @@
+package com.example.silentzone;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Streams the features of a GeoJSON FeatureCollection. Only the enclosing
+ * document is walked token by token; each feature is small and is read whole.
+ *
+ * A Point becomes a circle with the {@code radius} property, or
+ * {@link ZoneRecord#DEFAULT_RADIUS}; a Polygon becomes a polygon zone from its
+ * outer ring (holes are ignored). Other geometries give an invalid record.
+ */
+public class GeoJsonZoneReader implements ZoneReader {
+
+    private final JsonTokenizer tokenizer;
+    private boolean inFeatures;
+    private boolean done;
+    private double[] vertices = new double[64];
+
+    public GeoJsonZoneReader(Reader reader) {
+        this.tokenizer = new JsonTokenizer(reader);
+    }
+
+    @Override
+    public boolean next(ZoneRecord record) throws IOException {
+        if (done) {
+            return false;
+        }
+        if (!inFeatures) {
+            findFeatures();
+            inFeatures = true;
+        }
+        JsonTokenizer.Token token = tokenizer.next();
+        if (token == JsonTokenizer.Token.END_ARRAY || token == JsonTokenizer.Token.END) {
+            // Whatever follows the features array is of no interest
+            done = true;
+            return false;
+        }
+        record.clear();
+        if (token != JsonTokenizer.Token.BEGIN_OBJECT) {
+            tokenizer.skipValue(token);
+            return true;
+        }
+        read(asMap(tokenizer.readValue(token)), record);
+        return true;
+    }
+
+    // Positions the tokenizer just inside the top-level "features" array
+    private void findFeatures() throws IOException {
+        JsonTokenizer.Token token = tokenizer.next();
+        if (token == JsonTokenizer.Token.BEGIN_ARRAY) {
+            // A bare array of features
+            return;
+        }
+        if (token != JsonTokenizer.Token.BEGIN_OBJECT) {
+            throw new IOException("Not a GeoJSON document");
+        }
+        while ((token = tokenizer.next()) == JsonTokenizer.Token.NAME) {
+            String name = tokenizer.value();
+            token = tokenizer.next();
+            if (name.equals("features") && token == JsonTokenizer.Token.BEGIN_ARRAY) {
+                return;
+            }
+            tokenizer.skipValue(token);
+        }
+        throw new IOException("GeoJSON document has no features");
+    }
+
+    private void read(Map<String, Object> feature, ZoneRecord record) {
+        Map<String, Object> properties = asMap(feature.get("properties"));
+        if (properties != null) {
+            Object name = properties.get("name");
+            record.name = name instanceof String ? (String) name : null;
+            Object radius = properties.get("radius");
+            if (radius instanceof Double) {
+                record.radius = ((Double) radius).floatValue();
+            }
+            Object schedule = properties.get("schedule");
+            record.schedule = schedule instanceof String ? (String) schedule : null;
+            Object priority = properties.get("priority");
+            if (priority != null) {
+                double value = priority instanceof Double ? (Double) priority : Double.NaN;
+                record.priority = value == Math.rint(value) ? (int) value : ZoneRecord.INVALID_PRIORITY;
+            }
+            Object action = properties.get("action");
+            if (action != null) {
+                record.action = action instanceof String ? ZoneActions.parseAction((String) action)
+                        : ZoneActions.ACTION_NONE;
+            }
+        }
+        Map<String, Object> geometry = asMap(feature.get("geometry"));
+        if (geometry == null) {
+            return;
+        }
+        Object type = geometry.get("type");
+        Object coordinates = geometry.get("coordinates");
+        if ("Point".equals(type)) {
+            List<?> point = asList(coordinates);
+            if (point != null && point.size() >= 2) {
+                record.longitude = number(point.get(0));
+                record.latitude = number(point.get(1));
+            }
+        } else if ("Polygon".equals(type)) {
+            List<?> rings = asList(coordinates);
+            List<?> outer = rings == null || rings.isEmpty() ? null : asList(rings.get(0));
+            if (outer != null) {
+                readRing(outer, record);
+            }
+        }
+    }
+
+    private void readRing(List<?> ring, ZoneRecord record) {
+        int count = ring.size();
+        // GeoJSON rings repeat the first vertex at the end; the app's polygons do not
+        if (count > 1 && ring.get(0).equals(ring.get(count - 1))) {
+            count--;
+        }
+        if (vertices.length < count * 2) {
+            vertices = new double[count * 2];
+        }
+        for (int i = 0; i < count; i++) {
+            List<?> position = asList(ring.get(i));
+            if (position == null || position.size() < 2) {
+                record.polygon = "";
+                return;
+            }
+            vertices[i * 2] = number(position.get(1));
+            vertices[i * 2 + 1] = number(position.get(0));
+        }
+        record.setPolygon(vertices, count);
+    }
+
+    private static double number(Object value) {
+        return value instanceof Double ? (Double) value : Double.NaN;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> asMap(Object value) {
+        return value instanceof Map ? (Map<String, Object>) value : null;
+    }
+
+    private static List<?> asList(Object value) {
+        return value instanceof List ? (List<?>) value : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        tokenizer.close();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.silentzone;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a GeoJSON FeatureCollection that {@link GeoJsonZoneReader} reads
+ * back: circles as Points with a {@code radius} property, polygons as
+ * closed single-ring Polygons.
+ */
+public class GeoJsonZoneWriter implements ZoneWriter {
+
+    private final BufferedWriter writer;
+    private boolean first = true;
+
+    public GeoJsonZoneWriter(Writer writer) throws IOException {
+        this.writer = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+        this.writer.write("{\"type\":\"FeatureCollection\",\"features\":[\n");
+    }
+
+    @Override
+    public void write(ZoneRecord record) throws IOException {
+        if (!first) {
+            writer.write(",\n");
+        }
+        first = false;
+        writer.write("{\"type\":\"Feature\",\"properties\":{\"name\":");
+        if (record.name != null) {
+            JsonTokenizer.writeString(writer, record.name);
+        } else {
+            writer.write("null");
+        }
+        if (record.schedule != null) {
+            writer.write(",\"schedule\":");
+            JsonTokenizer.writeString(writer, record.schedule);
+        }
+        if (record.priority != ZoneActions.DEFAULT_PRIORITY) {
+            writer.write(",\"priority\":");
+            writer.write(Integer.toString(record.priority));
+        }
+        if (record.action != ZoneActions.ACTION_SILENT) {
+            writer.write(",\"action\":");
+            JsonTokenizer.writeString(writer, ZoneActions.actionName(record.action));
+        }
+        double[] polygon = record.polygon != null ? ZoneGeometry.parsePolygon(record.polygon) : null;
+        if (polygon == null) {
+            writer.write(",\"radius\":");
+            writer.write(Float.toString(record.radius));
+            writer.write("},\"geometry\":{\"type\":\"Point\",\"coordinates\":[");
+            writePosition(record.latitude, record.longitude);
+            writer.write("]}}");
+            return;
+        }
+        writer.write("},\"geometry\":{\"type\":\"Polygon\",\"coordinates\":[[");
+        for (int i = 0; i < polygon.length; i += 2) {
+            writer.write('[');
+            writePosition(polygon[i], polygon[i + 1]);
+            writer.write("],");
+        }
+        writer.write('[');
+        writePosition(polygon[0], polygon[1]);
+        writer.write("]]]}}");
+    }
+
+    private void writePosition(double lat, double lon) throws IOException {
+        writer.write(Double.toString(lon));
+        writer.write(',');
+        writer.write(Double.toString(lat));
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.write("\n]}\n");
+        writer.close();
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.silentzone;
+
+/**
+ * Allocation-free distance helpers used on the location hot path.
+ */
+public final class GeoMath {
+
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+    // On the same sphere as haversine(), so degree boxes and exact distances agree
+    public static final double METERS_PER_DEGREE_LAT = EARTH_RADIUS_METERS * Math.PI / 180;
+
+    private GeoMath() {}
+
+    // Great-circle distance in meters
+    public static double haversine(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double sinLat = Math.sin(dLat / 2);
+        double sinLon = Math.sin(dLon / 2);
+        double a = sinLat * sinLat
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * sinLon * sinLon;
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Ellipsoidal (WGS84) distance in meters by Vincenty's inverse formula, the
+     * method behind Android's Location.distanceBetween. Kept as the accuracy
+     * reference for the cheaper approximations.
+     */
+    public static double vincenty(double lat1, double lon1, double lat2, double lon2) {
+        final double a = 6378137.0;
+        final double b = 6356752.3142;
+        final double f = (a - b) / a;
+        double l = Math.toRadians(lon2 - lon1);
+        double u1 = Math.atan((1 - f) * Math.tan(Math.toRadians(lat1)));
+        double u2 = Math.atan((1 - f) * Math.tan(Math.toRadians(lat2)));
+        double sinU1 = Math.sin(u1);
+        double cosU1 = Math.cos(u1);
+        double sinU2 = Math.sin(u2);
+        double cosU2 = Math.cos(u2);
+
+        double lambda = l;
+        double previous;
+        double sinSigma;
+        double cosSigma;
+        double sigma;
+        double cos2Alpha;
+        double cos2SigmaM;
+        int iterations = 0;
+        do {
+            double sinLambda = Math.sin(lambda);
+            double cosLambda = Math.cos(lambda);
+            double t1 = cosU2 * sinLambda;
+            double t2 = cosU1 * sinU2 - sinU1 * cosU2 * cosLambda;
+            sinSigma = Math.sqrt(t1 * t1 + t2 * t2);
+            if (sinSigma == 0) {
+                return 0;
+            }
+            cosSigma = sinU1 * sinU2 + cosU1 * cosU2 * cosLambda;
+            sigma = Math.atan2(sinSigma, cosSigma);
+            double sinAlpha = cosU1 * cosU2 * sinLambda / sinSigma;
+            cos2Alpha = 1 - sinAlpha * sinAlpha;
+            // Both points on the equator
+            cos2SigmaM = cos2Alpha == 0 ? 0 : cosSigma - 2 * sinU1 * sinU2 / cos2Alpha;
+            double c = f / 16 * cos2Alpha * (4 + f * (4 - 3 * cos2Alpha));
+            previous = lambda;
+            lambda = l + (1 - c) * f * sinAlpha
+                    * (sigma + c * sinSigma * (cos2SigmaM + c * cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)));
+        } while (Math.abs(lambda - previous) > 1e-12 && ++iterations < 20);
+
+        double uSq = cos2Alpha * (a * a - b * b) / (b * b);
+        double bigA = 1 + uSq / 16384 * (4096 + uSq * (-768 + uSq * (320 - 175 * uSq)));
+        double bigB = uSq / 1024 * (256 + uSq * (-128 + uSq * (74 - 47 * uSq)));
+        double deltaSigma = bigB * sinSigma * (cos2SigmaM + bigB / 4
+                * (cosSigma * (-1 + 2 * cos2SigmaM * cos2SigmaM)
+                - bigB / 6 * cos2SigmaM * (-3 + 4 * sinSigma * sinSigma) * (-3 + 4 * cos2SigmaM * cos2SigmaM)));
+        return b * bigA * (sigma - deltaSigma);
+    }
+
+    /**
+     * Flat-earth distance in meters. {@code cosLat} is the cosine of either
+     * latitude, computed once per fix; the error stays well under 0.1% at zone
+     * scale (a few km) away from the poles.
+     */
+    public static double equirectangular(double lat1, double lon1, double lat2, double lon2, double cosLat) {
+        return Math.sqrt(equirectangularSquared(lat1, lon1, lat2, lon2, cosLat));
+    }
+
+    // Square of equirectangular(); compare against radius * radius to skip the sqrt
+    public static double equirectangularSquared(double lat1, double lon1, double lat2, double lon2,
+                                                double cosLat) {
+        double dy = Math.toRadians(lat2 - lat1) * EARTH_RADIUS_METERS;
+        double dx = Math.toRadians(lon2 - lon1) * EARTH_RADIUS_METERS * cosLat;
+        return dx * dx + dy * dy;
+    }
+
+    // Degrees of longitude spanned by the given distance at the given latitude
+    public static double metersToLonDegrees(double meters, double lat) {
+        double cos = Math.cos(Math.toRadians(lat));
+        return meters / (METERS_PER_DEGREE_LAT * Math.max(cos, 0.01));
+    }
+
+    public static double metersToLatDegrees(double meters) {
+        return meters / METERS_PER_DEGREE_LAT;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.silentzone;
+
+import java.util.List;
+
+/**
+ * The platform's geofencing service as {@link GeofenceManager} needs it.
+ * Fences report both enter and exit, never expire, and replace an existing
+ * fence with the same id. Failures are reported back through
+ * {@link GeofenceManager#onRegistrationFailed()}.
+ */
+public interface GeofenceClient {
+
+    void add(List<GeofenceManager.Fence> fences);
+
+    void remove(List<String> ids);
+}
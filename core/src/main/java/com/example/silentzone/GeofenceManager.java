@@ -0,0 +1,218 @@
+package com.example.silentzone;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the zones nearest to the user registered as platform geofences, so
+ * the low-power location hardware can watch for them while active sampling
+ * is off. Platforms cap fences per app, so only the nearest N are registered,
+ * plus one "refresh" fence around the point they were ranked from. Leaving
+ * the refresh fence means an unregistered zone may now be among the nearest,
+ * and the set is re-ranked and swapped, touching only the fences that change.
+ *
+ * The refresh fence is kept to a fraction of the distance to the nearest
+ * zone left out, so that zone is still some way off when the refresh fires.
+ *
+ * Not thread-safe; call from one thread.
+ */
+public class GeofenceManager {
+
+    // Android allows 100 active geofences per app
+    public static final int MAX_FENCES = 100;
+    public static final String REFRESH_FENCE_ID = "refresh";
+    // Platform geofences are unreliable much below this
+    static final double MIN_REFRESH_RADIUS = 200; // meters
+    // When every loaded zone fits, the refresh fence only has to trigger a zone reload
+    static final double MAX_REFRESH_RADIUS = 25000; // meters
+    static final double REFRESH_FRACTION = 0.5;
+
+    public static final class Fence {
+        public final String id;
+        public final double latitude;
+        public final double longitude;
+        public final float radius;
+
+        public Fence(String id, double latitude, double longitude, float radius) {
+            this.id = id;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.radius = radius;
+        }
+
+        public boolean contains(double lat, double lon) {
+            return GeoMath.haversine(lat, lon, latitude, longitude) <= radius;
+        }
+
+        @Override
+        public String toString() {
+            return id + "@" + latitude + "," + longitude + "/" + radius + "m";
+        }
+    }
+
+    private final GeofenceClient client;
+    private final int maxZoneFences;
+    private final int[] rankedIds;
+    private final double[] rankedDistances;
+    private final double[] circle = new double[3];
+    private final Map<Integer, Fence> registered = new HashMap<>();
+    // Zone fences the user is inside, from the last ranking and the events since
+    private final Set<Integer> inside = new HashSet<>();
+    private Fence refreshFence;
+    private boolean available = true;
+    private long swaps;
+
+    public GeofenceManager(GeofenceClient client) {
+        this(client, MAX_FENCES);
+    }
+
+    public GeofenceManager(GeofenceClient client, int maxFences) {
+        this.client = client;
+        this.maxZoneFences = maxFences - 1;
+        // One more than fits, to learn how far the nearest zone left out is
+        this.rankedIds = new int[maxZoneFences + 1];
+        this.rankedDistances = new double[maxZoneFences + 1];
+    }
+
+    /**
+     * Ranks {@code zones} around the point and registers the nearest,
+     * removing fences that dropped out. Does nothing once registration has
+     * failed.
+     */
+    public void update(ZoneIndex zones, double lat, double lon) {
+        if (!available) {
+            return;
+        }
+        int ranked = zones.nearest(lat, lon, rankedIds, rankedDistances);
+        int kept = Math.min(ranked, maxZoneFences);
+
+        Map<Integer, Fence> next = new HashMap<>();
+        List<Fence> additions = new ArrayList<>();
+        for (int i = 0; i < kept; i++) {
+            int id = rankedIds[i];
+            zones.enclosingCircle(id, circle);
+            Fence fence = registered.get(id);
+            if (fence == null || fence.latitude != circle[0] || fence.longitude != circle[1]
+                    || fence.radius != (float) circle[2]) {
+                fence = new Fence(Integer.toString(id), circle[0], circle[1], (float) circle[2]);
+                additions.add(fence);
+            }
+            next.put(id, fence);
+        }
+        List<String> removals = new ArrayList<>();
+        for (Map.Entry<Integer, Fence> entry : registered.entrySet()) {
+            if (!next.containsKey(entry.getKey())) {
+                removals.add(entry.getValue().id);
+            }
+        }
+
+        double refreshRadius = ranked > maxZoneFences
+                ? Math.max(MIN_REFRESH_RADIUS, rankedDistances[maxZoneFences] * REFRESH_FRACTION)
+                : MAX_REFRESH_RADIUS;
+        refreshFence = new Fence(REFRESH_FENCE_ID, lat, lon, (float) refreshRadius);
+        additions.add(refreshFence);
+
+        registered.clear();
+        registered.putAll(next);
+        inside.clear();
+        for (Map.Entry<Integer, Fence> entry : registered.entrySet()) {
+            if (entry.getValue().contains(lat, lon)) {
+                inside.add(entry.getKey());
+            }
+        }
+        if (!removals.isEmpty()) {
+            client.remove(removals);
+        }
+        client.add(additions);
+        swaps += removals.size();
+    }
+
+    /**
+     * Applies a fence event. Returns true if it was the refresh fence being
+     * left, in which case the caller should {@link #update} around the
+     * triggering location.
+     */
+    public boolean onTransition(String fenceId, boolean entered) {
+        if (REFRESH_FENCE_ID.equals(fenceId)) {
+            return !entered;
+        }
+        int zoneId;
+        try {
+            zoneId = Integer.parseInt(fenceId);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        if (!registered.containsKey(zoneId)) {
+            // A late event for a fence already swapped out
+            return false;
+        }
+        if (entered) {
+            inside.add(zoneId);
+        } else {
+            inside.remove(zoneId);
+        }
+        return false;
+    }
+
+    /** Drops every fence and stops registering; active sampling has to carry on alone. */
+    public void onRegistrationFailed() {
+        available = false;
+        registered.clear();
+        inside.clear();
+        refreshFence = null;
+    }
+
+    /** Removes all fences, e.g. when the service stops. */
+    public void clear() {
+        List<String> ids = new ArrayList<>();
+        for (Fence fence : registered.values()) {
+            ids.add(fence.id);
+        }
+        if (refreshFence != null) {
+            ids.add(REFRESH_FENCE_ID);
+        }
+        if (!ids.isEmpty()) {
+            client.remove(ids);
+        }
+        registered.clear();
+        inside.clear();
+        refreshFence = null;
+    }
+
+    /** True while fences are registered and can be relied on to wake us. */
+    public boolean isActive() {
+        return available && refreshFence != null;
+    }
+
+    public boolean isRegistered(int zoneId) {
+        return registered.containsKey(zoneId);
+    }
+
+    /** Whether the user is inside any zone fence; polygons' fences are larger than the zone. */
+    public boolean isInsideZoneFence() {
+        return !inside.isEmpty();
+    }
+
+    public int getRegisteredCount() {
+        return registered.size();
+    }
+
+    public Fence getRefreshFence() {
+        return refreshFence;
+    }
+
+    /** Zone fences removed to make room for nearer ones, over the manager's life. */
+    public long getSwapCount() {
+        return swaps;
+    }
+
+    @Override
+    public String toString() {
+        return (available ? "" : "unavailable, ") + registered.size() + " zone fences, refresh "
+                + (refreshFence != null ? Math.round(refreshFence.radius) + " m" : "none") + ", " + swaps + " swaps";
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.silentzone;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Streams {@code <trkpt>} elements out of a GPX file with a minimal tag
+ * scanner, so a day-long trace is never held in memory and no XML parser is
+ * needed (javax.xml.stream is not on Android).
+ *
+ * Each point needs a {@code <time>}. Accuracy is estimated from
+ * {@code <hdop>} when present.
+ */
+public class GpxTraceReader implements TraceReader {
+
+    // Typical GPS user range error; accuracy ~= HDOP * UERE
+    private static final float UERE_METERS = 5f;
+
+    private final BufferedReader reader;
+    private final StringBuilder tag = new StringBuilder();
+    private final StringBuilder text = new StringBuilder();
+    private int points;
+
+    public GpxTraceReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean next(TraceFix fix) throws IOException {
+        boolean inPoint = false;
+        String textOf = null;
+        while (readTag()) {
+            String name = tagName();
+            if (!inPoint) {
+                if (name.equals("trkpt")) {
+                    points++;
+                    fix.latitude = attribute("lat");
+                    fix.longitude = attribute("lon");
+                    fix.timeMs = Long.MIN_VALUE;
+                    fix.accuracy = 0;
+                    if (tag.charAt(tag.length() - 1) == '/') {
+                        throw new IOException("Track point " + points + " has no <time>");
+                    }
+                    inPoint = true;
+                }
+                continue;
+            }
+            if (name.equals("/trkpt")) {
+                if (fix.timeMs == Long.MIN_VALUE) {
+                    throw new IOException("Track point " + points + " has no <time>");
+                }
+                return true;
+            }
+            if (name.equals("time") || name.equals("hdop")) {
+                textOf = name;
+            } else if (textOf != null && name.equals("/" + textOf)) {
+                String value = text.toString().trim();
+                try {
+                    if (textOf.equals("time")) {
+                        fix.timeMs = Instant.parse(value).toEpochMilli();
+                    } else {
+                        fix.accuracy = Float.parseFloat(value) * UERE_METERS;
+                    }
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    throw new IOException("Track point " + points + ": bad <" + textOf + "> " + value, e);
+                }
+                textOf = null;
+            }
+        }
+        if (inPoint) {
+            throw new IOException("Track point " + points + " is not closed");
+        }
+        return false;
+    }
+
+    // Reads the text up to the next tag into text, and the tag itself into tag
+    private boolean readTag() throws IOException {
+        text.setLength(0);
+        int c;
+        while ((c = reader.read()) != '<') {
+            if (c == -1) {
+                return false;
+            }
+            text.append((char) c);
+        }
+        tag.setLength(0);
+        while ((c = reader.read()) != '>') {
+            if (c == -1) {
+                return false;
+            }
+            tag.append((char) c);
+        }
+        return true;
+    }
+
+    private String tagName() {
+        int end = 1;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+            end++;
+        }
+        String name = tag.substring(0, Math.min(end, tag.length()));
+        // Drop a namespace prefix, e.g. gpx:trkpt
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            name = (name.charAt(0) == '/' ? "/" : "") + name.substring(colon + 1);
+        }
+        return name;
+    }
+
+    private double attribute(String name) throws IOException {
+        int from = 0;
+        while ((from = tag.indexOf(name + "=", from)) >= 0) {
+            // Must be a whole attribute name, not the end of e.g. "xlat"
+            if (from > 0 && Character.isWhitespace(tag.charAt(from - 1))) {
+                int start = from + name.length() + 1;
+                char quote = tag.charAt(start);
+                int end = tag.indexOf(String.valueOf(quote), start + 1);
+                try {
+                    return Double.parseDouble(tag.substring(start + 1, end));
+                } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                    throw new IOException("Track point " + points + ": bad " + name, e);
+                }
+            }
+            from += name.length();
+        }
+        throw new IOException("Track point " + points + " has no " + name);
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.silentzone;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-bucket histogram cheap enough for the per-fix path: recording is a
+ * short scan over the bucket bounds and a few atomic adds, and never
+ * allocates. Percentiles are reported as the upper bound of the bucket they
+ * fall into, so they are only as fine as the buckets.
+ */
+public class Histogram {
+
+    private final String name;
+    private final String unit;
+    // Inclusive upper bound of each bucket; one more bucket holds everything above the last
+    private final long[] bounds;
+    private final AtomicLongArray counts;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public Histogram(String name, String unit, long[] bounds) {
+        this.name = name;
+        this.unit = unit;
+        this.bounds = bounds.clone();
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /** Buckets of {@code first}, 2 * first, 4 * first... */
+    public static Histogram exponential(String name, String unit, long first, int buckets) {
+        long[] bounds = new long[buckets];
+        for (int i = 0; i < buckets; i++) {
+            bounds[i] = first << i;
+        }
+        return new Histogram(name, unit, bounds);
+    }
+
+    public void record(long value) {
+        int bucket = 0;
+        while (bucket < bounds.length && value > bounds[bucket]) {
+            bucket++;
+        }
+        counts.incrementAndGet(bucket);
+        count.incrementAndGet();
+        sum.addAndGet(value);
+        long seen;
+        while (value > (seen = max.get()) && !max.compareAndSet(seen, value)) {
+            // Lost a race with another writer; retry against its value
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    public double getMean() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) sum.get() / n;
+    }
+
+    /** Upper bound of the bucket holding quantile {@code q} (0..1); the maximum if it overflowed. */
+    public long percentile(double q) {
+        long n = count.get();
+        if (n == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(q * n));
+        long seen = 0;
+        for (int i = 0; i < bounds.length; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(bounds[i], max.get());
+            }
+        }
+        return max.get();
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        count.set(0);
+        sum.set(0);
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "%s: n=%d mean=%.1f p50<=%d p90<=%d p99<=%d max=%d %s", name, getCount(),
+                getMean(), percentile(0.5), percentile(0.9), percentile(0.99), getMax(), unit);
+    }
+}
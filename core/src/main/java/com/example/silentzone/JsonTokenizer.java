@@ -0,0 +1,247 @@
+package com.example.silentzone;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal pull tokenizer for JSON, so a large document can be walked without
+ * building it in memory (org.json parses whole documents, and
+ * android.util.JsonReader is not available off-device). Structure is only
+ * checked as far as the caller relies on it.
+ */
+final class JsonTokenizer implements Closeable {
+
+    enum Token { BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, TRUE, FALSE, NULL, END }
+
+    private final BufferedReader reader;
+    private final StringBuilder value = new StringBuilder();
+
+    JsonTokenizer(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    /** Text of the last NAME, STRING or NUMBER token. */
+    String value() {
+        return value.toString();
+    }
+
+    Token next() throws IOException {
+        int c = skipSeparators();
+        switch (c) {
+            case -1:
+                return Token.END;
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '}':
+                return Token.END_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case ']':
+                return Token.END_ARRAY;
+            case '"':
+                readString();
+                reader.mark(256);
+                int after = skipWhitespace();
+                if (after == ':') {
+                    return Token.NAME;
+                }
+                reader.reset();
+                return Token.STRING;
+            default:
+                value.setLength(0);
+                value.append((char) c);
+                reader.mark(1);
+                while ((c = reader.read()) != -1 && "+-.eE0123456789truefalsn".indexOf(c) >= 0) {
+                    value.append((char) c);
+                    reader.mark(1);
+                }
+                if (c != -1) {
+                    reader.reset();
+                }
+                String literal = value.toString();
+                switch (literal) {
+                    case "true":
+                        return Token.TRUE;
+                    case "false":
+                        return Token.FALSE;
+                    case "null":
+                        return Token.NULL;
+                    default:
+                        return Token.NUMBER;
+                }
+        }
+    }
+
+    /**
+     * Reads the value starting with {@code token} into maps, lists, strings,
+     * doubles, booleans and nulls. Meant for small pieces such as one feature.
+     */
+    Object readValue(Token token) throws IOException {
+        switch (token) {
+            case BEGIN_OBJECT: {
+                Map<String, Object> object = new LinkedHashMap<>();
+                Token next;
+                while ((next = next()) == Token.NAME) {
+                    String name = value();
+                    object.put(name, readValue(next()));
+                }
+                expect(next, Token.END_OBJECT);
+                return object;
+            }
+            case BEGIN_ARRAY: {
+                List<Object> array = new ArrayList<>();
+                Token next;
+                while ((next = next()) != Token.END_ARRAY) {
+                    if (next == Token.END) {
+                        throw new IOException("Unterminated array");
+                    }
+                    array.add(readValue(next));
+                }
+                return array;
+            }
+            case STRING:
+                return value();
+            case NUMBER:
+                return ZoneRecord.parseDouble(value());
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case NULL:
+                return null;
+            default:
+                throw new IOException("Unexpected " + token);
+        }
+    }
+
+    /** Skips the value starting with {@code token}. */
+    void skipValue(Token token) throws IOException {
+        int depth = 0;
+        do {
+            if (token == Token.BEGIN_OBJECT || token == Token.BEGIN_ARRAY) {
+                depth++;
+            } else if (token == Token.END_OBJECT || token == Token.END_ARRAY) {
+                depth--;
+            } else if (token == Token.END) {
+                throw new IOException("Unexpected end of document");
+            }
+        } while (depth > 0 && (token = next()) != null);
+    }
+
+    private static void expect(Token actual, Token expected) throws IOException {
+        if (actual != expected) {
+            throw new IOException("Expected " + expected + " but found " + actual);
+        }
+    }
+
+    // Commas carry no information for a pull reader that knows what it expects
+    private int skipSeparators() throws IOException {
+        int c;
+        do {
+            c = reader.read();
+        } while (c == ',' || c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    private int skipWhitespace() throws IOException {
+        int c;
+        do {
+            c = reader.read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    private void readString() throws IOException {
+        value.setLength(0);
+        int c;
+        while ((c = reader.read()) != '"') {
+            if (c == -1) {
+                throw new IOException("Unterminated string");
+            }
+            if (c != '\\') {
+                value.append((char) c);
+                continue;
+            }
+            c = reader.read();
+            switch (c) {
+                case 'n':
+                    value.append('\n');
+                    break;
+                case 't':
+                    value.append('\t');
+                    break;
+                case 'r':
+                    value.append('\r');
+                    break;
+                case 'b':
+                    value.append('\b');
+                    break;
+                case 'f':
+                    value.append('\f');
+                    break;
+                case 'u':
+                    char[] hex = new char[4];
+                    for (int i = 0; i < 4; i++) {
+                        int h = reader.read();
+                        if (h == -1) {
+                            throw new IOException("Unterminated escape");
+                        }
+                        hex[i] = (char) h;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(new String(hex), 16));
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Bad escape \\u" + new String(hex), e);
+                    }
+                    break;
+                case -1:
+                    throw new IOException("Unterminated string");
+                default:
+                    // \" \\ \/
+                    value.append((char) c);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    static void writeString(Appendable out, String s) throws IOException {
+        out.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"':
+                    out.append("\\\"");
+                    break;
+                case '\\':
+                    out.append("\\\\");
+                    break;
+                case '\n':
+                    out.append("\\n");
+                    break;
+                case '\r':
+                    out.append("\\r");
+                    break;
+                case '\t':
+                    out.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+            }
+        }
+        out.append('"');
+    }
+}
@@ -0,0 +1,278 @@
+package com.example.silentzone;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Streams {@code <Placemark>} elements out of a KML file with the same kind
+ * of tag scanner as {@link GpxTraceReader}. A Point placemark becomes a
+ * circle, with the radius taken from {@code <Data name="radius">} when
+ * present; a Polygon placemark uses its outer boundary. Either may carry
+ * active hours in {@code <Data name="schedule">}, and a priority and action in
+ * {@code <Data name="priority">} and {@code <Data name="action">}. Placemarks with any other
+ * geometry give an invalid record.
+ */
+public class KmlZoneReader implements ZoneReader {
+
+    private final BufferedReader reader;
+    private final StringBuilder tag = new StringBuilder();
+    private final StringBuilder text = new StringBuilder();
+    private final StringBuilder skipped = new StringBuilder();
+    private double[] vertices = new double[64];
+
+    public KmlZoneReader(Reader reader) {
+        this.reader = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+    }
+
+    @Override
+    public boolean next(ZoneRecord record) throws IOException {
+        boolean inPlacemark = false;
+        String geometry = null;
+        boolean inOuter = false;
+        String data = null;
+        String textOf = null;
+        while (readTag()) {
+            String name = tagName();
+            if (!inPlacemark) {
+                if (name.equals("Placemark") && tag.charAt(tag.length() - 1) != '/') {
+                    record.clear();
+                    inPlacemark = true;
+                }
+                continue;
+            }
+            switch (name) {
+                case "/Placemark":
+                    return true;
+                case "Point":
+                case "Polygon":
+                case "LineString":
+                case "MultiGeometry":
+                    if (geometry == null) {
+                        geometry = name;
+                    }
+                    break;
+                case "outerBoundaryIs":
+                    inOuter = true;
+                    break;
+                case "/outerBoundaryIs":
+                    inOuter = false;
+                    break;
+                case "Data":
+                    data = attribute("name");
+                    break;
+                case "/Data":
+                    data = null;
+                    break;
+                case "name":
+                case "coordinates":
+                case "value":
+                    textOf = name;
+                    break;
+                default:
+                    if (textOf == null || !name.equals("/" + textOf)) {
+                        break;
+                    }
+                    String value = decode(text).trim();
+                    if (textOf.equals("name") && record.name == null) {
+                        record.name = value;
+                    } else if (textOf.equals("value") && "radius".equals(data)) {
+                        record.radius = (float) ZoneRecord.parseDouble(value);
+                    } else if (textOf.equals("value") && "schedule".equals(data)) {
+                        record.schedule = value.isEmpty() ? null : value;
+                    } else if (textOf.equals("value") && "priority".equals(data)) {
+                        record.priority = ZoneRecord.parsePriority(value);
+                    } else if (textOf.equals("value") && "action".equals(data)) {
+                        record.action = ZoneActions.parseAction(value);
+                    } else if (textOf.equals("coordinates")) {
+                        readCoordinates(value, geometry, inOuter, record);
+                    }
+                    textOf = null;
+            }
+        }
+        if (inPlacemark) {
+            throw new IOException("Placemark is not closed");
+        }
+        return false;
+    }
+
+    // KML coordinates are whitespace-separated "lon,lat[,alt]" tuples
+    private void readCoordinates(String value, String geometry, boolean inOuter, ZoneRecord record) {
+        String[] tuples = value.isEmpty() ? new String[0] : value.split("\\s+");
+        if ("Point".equals(geometry)) {
+            if (tuples.length == 1) {
+                String[] parts = tuples[0].split(",");
+                if (parts.length >= 2) {
+                    record.longitude = ZoneRecord.parseDouble(parts[0]);
+                    record.latitude = ZoneRecord.parseDouble(parts[1]);
+                }
+            }
+            return;
+        }
+        if (!"Polygon".equals(geometry) || !inOuter) {
+            return;
+        }
+        int count = tuples.length;
+        // Rings are closed by repeating the first tuple
+        if (count > 1 && tuples[0].equals(tuples[count - 1])) {
+            count--;
+        }
+        if (vertices.length < count * 2) {
+            vertices = new double[count * 2];
+        }
+        for (int i = 0; i < count; i++) {
+            String[] parts = tuples[i].split(",");
+            vertices[i * 2] = parts.length >= 2 ? ZoneRecord.parseDouble(parts[1]) : Double.NaN;
+            vertices[i * 2 + 1] = ZoneRecord.parseDouble(parts[0]);
+        }
+        record.setPolygon(vertices, count);
+    }
+
+    // Reads the text up to the next tag into text, and the tag itself into tag.
+    // Comments are skipped and CDATA sections are appended to text verbatim.
+    private boolean readTag() throws IOException {
+        text.setLength(0);
+        while (true) {
+            int c;
+            while ((c = reader.read()) != '<') {
+                if (c == -1) {
+                    return false;
+                }
+                text.append((char) c);
+            }
+            tag.setLength(0);
+            while ((c = reader.read()) != '>') {
+                if (c == -1) {
+                    return false;
+                }
+                tag.append((char) c);
+                if (tag.length() == 3 && tag.toString().equals("!--")) {
+                    skipPast("-->");
+                    break;
+                }
+                if (tag.length() == 8 && tag.toString().equals("![CDATA[")) {
+                    int start = text.length();
+                    skipPast("]]>");
+                    text.append(skipped);
+                    // Mark the section so decode() leaves its '&' alone
+                    text.insert(start, '\u0000');
+                    text.append('\u0000');
+                    break;
+                }
+            }
+            if (c == '>') {
+                return true;
+            }
+        }
+    }
+
+    private void skipPast(String end) throws IOException {
+        skipped.setLength(0);
+        int c;
+        while ((c = reader.read()) != -1) {
+            skipped.append((char) c);
+            int length = skipped.length();
+            if (length >= end.length() && skipped.indexOf(end, length - end.length()) >= 0) {
+                skipped.setLength(length - end.length());
+                return;
+            }
+        }
+        throw new IOException("Unterminated " + end);
+    }
+
+    private static String decode(CharSequence raw) {
+        StringBuilder out = new StringBuilder(raw.length());
+        boolean literal = false;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (c == '\u0000') {
+                literal = !literal;
+                continue;
+            }
+            int semicolon;
+            if (c != '&' || literal || (semicolon = indexOf(raw, ';', i)) < 0) {
+                out.append(c);
+                continue;
+            }
+            String entity = raw.subSequence(i + 1, semicolon).toString();
+            int code = entity(entity);
+            if (code < 0) {
+                out.append(c);
+                continue;
+            }
+            out.appendCodePoint(code);
+            i = semicolon;
+        }
+        return out.toString();
+    }
+
+    private static int indexOf(CharSequence s, char c, int from) {
+        // Entities are short; don't scan a whole coordinates block for a ';'
+        for (int i = from; i < s.length() && i < from + 10; i++) {
+            if (s.charAt(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int entity(String name) {
+        switch (name) {
+            case "amp":
+                return '&';
+            case "lt":
+                return '<';
+            case "gt":
+                return '>';
+            case "quot":
+                return '"';
+            case "apos":
+                return '\'';
+            default:
+                try {
+                    if (name.startsWith("#x")) {
+                        return Integer.parseInt(name.substring(2), 16);
+                    }
+                    if (name.startsWith("#")) {
+                        return Integer.parseInt(name.substring(1));
+                    }
+                } catch (NumberFormatException e) {
+                    // Not an entity after all
+                }
+                return -1;
+        }
+    }
+
+    private String tagName() {
+        int end = 1;
+        while (end < tag.length() && !Character.isWhitespace(tag.charAt(end)) && tag.charAt(end) != '/') {
+            end++;
+        }
+        String name = tag.substring(0, Math.min(end, tag.length()));
+        // Drop a namespace prefix, e.g. kml:Placemark
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            name = (name.charAt(0) == '/' ? "/" : "") + name.substring(colon + 1);
+        }
+        return name;
+    }
+
+    private String attribute(String name) {
+        int from = 0;
+        while ((from = tag.indexOf(name + "=", from)) >= 0) {
+            if (from > 0 && Character.isWhitespace(tag.charAt(from - 1)) && from + name.length() + 1 < tag.length()) {
+                int start = from + name.length() + 1;
+                char quote = tag.charAt(start);
+                int end = tag.indexOf(String.valueOf(quote), start + 1);
+                return end < 0 ? null : decode(tag.substring(start + 1, end));
+            }
+            from += name.length();
+        }
+        return null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.silentzone;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes one Placemark per zone in the shape {@link KmlZoneReader} reads:
+ * circles as Points with a radius Data element, polygons as closed outer
+ * boundaries.
+ */
+public class KmlZoneWriter implements ZoneWriter {
+
+    private final BufferedWriter writer;
+
+    public KmlZoneWriter(Writer writer) throws IOException {
+        this.writer = writer instanceof BufferedWriter ? (BufferedWriter) writer : new BufferedWriter(writer);
+        this.writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+                + "<kml xmlns=\"http://www.opengis.net/kml/2.2\">\n<Document>\n");
+    }
+
+    @Override
+    public void write(ZoneRecord record) throws IOException {
+        writer.write("<Placemark>");
+        if (record.name != null) {
+            writer.write("<name>");
+            writeEscaped(record.name);
+            writer.write("</name>");
+        }
+        double[] polygon = record.polygon != null ? ZoneGeometry.parsePolygon(record.polygon) : null;
+        boolean defaultRules = record.priority == ZoneActions.DEFAULT_PRIORITY
+                && record.action == ZoneActions.ACTION_SILENT;
+        if (polygon == null || record.schedule != null || !defaultRules) {
+            writer.write("<ExtendedData>");
+            if (polygon == null) {
+                writer.write("<Data name=\"radius\"><value>");
+                writer.write(Float.toString(record.radius));
+                writer.write("</value></Data>");
+            }
+            if (record.schedule != null) {
+                writer.write("<Data name=\"schedule\"><value>");
+                writeEscaped(record.schedule);
+                writer.write("</value></Data>");
+            }
+            if (!defaultRules) {
+                writer.write("<Data name=\"priority\"><value>");
+                writer.write(Integer.toString(record.priority));
+                writer.write("</value></Data><Data name=\"action\"><value>");
+                writer.write(ZoneActions.actionName(record.action));
+                writer.write("</value></Data>");
+            }
+            writer.write("</ExtendedData>");
+        }
+        if (polygon == null) {
+            writer.write("<Point><coordinates>");
+            writePosition(record.latitude, record.longitude);
+            writer.write("</coordinates></Point></Placemark>\n");
+            return;
+        }
+        writer.write("<Polygon><outerBoundaryIs><LinearRing><coordinates>");
+        for (int i = 0; i < polygon.length; i += 2) {
+            writePosition(polygon[i], polygon[i + 1]);
+            writer.write(' ');
+        }
+        writePosition(polygon[0], polygon[1]);
+        writer.write("</coordinates></LinearRing></outerBoundaryIs></Polygon></Placemark>\n");
+    }
+
+    private void writePosition(double lat, double lon) throws IOException {
+        writer.write(Double.toString(lon));
+        writer.write(',');
+        writer.write(Double.toString(lat));
+    }
+
+    private void writeEscaped(String value) throws IOException {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '&':
+                    writer.write("&amp;");
+                    break;
+                case '<':
+                    writer.write("&lt;");
+                    break;
+                case '>':
+                    writer.write("&gt;");
+                    break;
+                default:
+                    writer.write(c);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.write("</Document>\n</kml>\n");
+        writer.close();
+    }
+}
@@ -0,0 +1,402 @@
+package com.example.silentzone;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * A compiled {@link ZoneIndex} persisted as one flat file and queried in
+ * place through a read-only memory map, so a restarted process can evaluate
+ * fixes as soon as the file is mapped instead of waiting for the database.
+ *
+ * The file is little-endian: a 64-byte header (magic, version, counts, the
+ * time the snapshot stops being valid, the grid parameters and a CRC32 of
+ * everything else), then the zone columns, polygon vertices, the
+ * open-addressed cell table and the flattened buckets, laid out exactly like
+ * the in-memory index. Nothing is deserialized on open; queries read the
+ * columns with absolute gets.
+ *
+ * Queries are not thread-safe because polygons are copied into a scratch
+ * array before being tested; use one reader thread.
+ */
+public final class MappedZoneIndex implements ZoneLookup {
+
+    static final int MAGIC = 0x585a5a53; // "SZZX"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 64;
+    private static final int CRC_OFFSET = 56;
+
+    private final ByteBuffer buffer;
+    private final int zoneCount;
+    private final int tableSize;
+    private final long validUntil;
+    private final long createdAt;
+    private final int fileBytes;
+    // Section offsets in bytes
+    private final int latAt, lonAt, minLatAt, maxLatAt, minLonAt, maxLonAt, verticesAt;
+    private final int keysAt, idsAt, radiusAt, polyStartAt, polyLengthAt, bucketStartAt, bucketSizeAt, entriesAt;
+    private double[] polygonScratch = new double[0];
+    private int[] batchScratch = new int[0];
+
+    private MappedZoneIndex(ByteBuffer buffer, int zoneCount, int tableSize, int entryCount, int vertexCount,
+                            long validUntil, long createdAt) {
+        this.buffer = buffer;
+        this.zoneCount = zoneCount;
+        this.tableSize = tableSize;
+        this.validUntil = validUntil;
+        this.createdAt = createdAt;
+        int n = zoneCount;
+        latAt = HEADER_BYTES;
+        lonAt = latAt + 8 * n;
+        minLatAt = lonAt + 8 * n;
+        maxLatAt = minLatAt + 8 * n;
+        minLonAt = maxLatAt + 8 * n;
+        maxLonAt = minLonAt + 8 * n;
+        verticesAt = maxLonAt + 8 * n;
+        keysAt = verticesAt + 8 * vertexCount;
+        idsAt = keysAt + 8 * tableSize;
+        radiusAt = idsAt + 4 * n;
+        polyStartAt = radiusAt + 4 * n;
+        polyLengthAt = polyStartAt + 4 * n;
+        bucketStartAt = polyLengthAt + 4 * n;
+        bucketSizeAt = bucketStartAt + 4 * tableSize;
+        entriesAt = bucketSizeAt + 4 * tableSize;
+        fileBytes = entriesAt + 4 * entryCount;
+    }
+
+    private static long fileBytes(long zoneCount, long tableSize, long entryCount, long vertexCount) {
+        return HEADER_BYTES + 6 * 8 * zoneCount + 8 * vertexCount + 8 * tableSize
+                + 4 * 4 * zoneCount + 2 * 4 * tableSize + 4 * entryCount;
+    }
+
+    /**
+     * Compiles {@code index} into {@code file}, replacing it atomically. The
+     * snapshot is refused on open once {@code validUntil} (epoch millis,
+     * {@link Long#MAX_VALUE} for never) has passed.
+     */
+    public static void write(ZoneIndex index, long validUntil, File file) throws IOException {
+        List<Object[]> zones = new ArrayList<>();
+        index.forEachZone((id, lat, lon, radius, polygon) -> zones.add(new Object[] {id, lat, lon, radius, polygon}));
+        // Stable output for the same zones, whatever the slot order
+        zones.sort((a, b) -> Integer.compare((Integer) a[0], (Integer) b[0]));
+
+        int n = zones.size();
+        double[] bounds = new double[4];
+        double[][] boxes = new double[n][];
+        Map<Long, List<Integer>> buckets = new HashMap<>();
+        int vertexCount = 0;
+        int entryCount = 0;
+        for (int slot = 0; slot < n; slot++) {
+            Object[] zone = zones.get(slot);
+            double lat = (Double) zone[1];
+            double lon = (Double) zone[2];
+            double[] polygon = (double[]) zone[4];
+            ZoneGeometry.bounds(lat, lon, (Float) zone[3], polygon, bounds);
+            boxes[slot] = bounds.clone();
+            if (polygon != null) {
+                vertexCount += polygon.length;
+            }
+            // Same cells as ZoneIndex.add, so both answer identically
+            double slackLat = GeoMath.metersToLatDegrees(ZoneIndex.MAX_QUERY_MARGIN);
+            double slackLon = GeoMath.metersToLonDegrees(ZoneIndex.MAX_QUERY_MARGIN, lat);
+            int lat1 = ZoneIndex.latCell(bounds[1] + slackLat);
+            int lon0 = ZoneIndex.lonCell(bounds[2] - slackLon);
+            int lon1 = ZoneIndex.lonCell(bounds[3] + slackLon);
+            for (int y = ZoneIndex.latCell(bounds[0] - slackLat); y <= lat1; y++) {
+                for (int x = lon0; x <= lon1; x++) {
+                    buckets.computeIfAbsent(ZoneIndex.cellKey(y, x), key -> new ArrayList<>()).add(slot);
+                    entryCount++;
+                }
+            }
+        }
+        int tableSize = 2;
+        while (tableSize < buckets.size() * 2) {
+            tableSize <<= 1;
+        }
+        long size = fileBytes(n, tableSize, entryCount, vertexCount);
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Zone index too large to map: " + size + " bytes");
+        }
+
+        ByteBuffer out = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        MappedZoneIndex layout = new MappedZoneIndex(out, n, tableSize, entryCount, vertexCount, validUntil,
+                System.currentTimeMillis());
+        out.putInt(0, MAGIC);
+        out.putInt(4, VERSION);
+        out.putInt(8, n);
+        out.putInt(12, tableSize);
+        out.putInt(16, entryCount);
+        out.putInt(20, vertexCount);
+        out.putLong(24, validUntil);
+        out.putLong(32, layout.createdAt);
+        out.putDouble(40, ZoneIndex.CELL_DEGREES);
+        out.putDouble(48, ZoneIndex.MAX_QUERY_MARGIN);
+
+        int vertex = 0;
+        for (int slot = 0; slot < n; slot++) {
+            Object[] zone = zones.get(slot);
+            double[] polygon = (double[]) zone[4];
+            out.putDouble(layout.latAt + 8 * slot, (Double) zone[1]);
+            out.putDouble(layout.lonAt + 8 * slot, (Double) zone[2]);
+            out.putDouble(layout.minLatAt + 8 * slot, boxes[slot][0]);
+            out.putDouble(layout.maxLatAt + 8 * slot, boxes[slot][1]);
+            out.putDouble(layout.minLonAt + 8 * slot, boxes[slot][2]);
+            out.putDouble(layout.maxLonAt + 8 * slot, boxes[slot][3]);
+            out.putInt(layout.idsAt + 4 * slot, (Integer) zone[0]);
+            out.putFloat(layout.radiusAt + 4 * slot, (Float) zone[3]);
+            out.putInt(layout.polyStartAt + 4 * slot, vertex);
+            out.putInt(layout.polyLengthAt + 4 * slot, polygon != null ? polygon.length : 0);
+            if (polygon != null) {
+                for (double value : polygon) {
+                    out.putDouble(layout.verticesAt + 8 * vertex++, value);
+                }
+            }
+        }
+
+        for (int i = 0; i < tableSize; i++) {
+            out.putLong(layout.keysAt + 8 * i, ZoneIndex.EMPTY_KEY);
+        }
+        int entry = 0;
+        int mask = tableSize - 1;
+        for (Map.Entry<Long, List<Integer>> bucket : buckets.entrySet()) {
+            long key = bucket.getKey();
+            int i = ZoneIndex.hash(key) & mask;
+            while (out.getLong(layout.keysAt + 8 * i) != ZoneIndex.EMPTY_KEY) {
+                i = (i + 1) & mask;
+            }
+            out.putLong(layout.keysAt + 8 * i, key);
+            out.putInt(layout.bucketStartAt + 4 * i, entry);
+            out.putInt(layout.bucketSizeAt + 4 * i, bucket.getValue().size());
+            for (int slot : bucket.getValue()) {
+                out.putInt(layout.entriesAt + 4 * entry++, slot);
+            }
+        }
+        out.putInt(CRC_OFFSET, checksum(out));
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream stream = new FileOutputStream(temp)) {
+            stream.write(out.array());
+            stream.getFD().sync();
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            throw new IOException("Could not replace " + file);
+        }
+    }
+
+    /**
+     * Maps {@code file} and checks it before any query sees it. Throws if the
+     * file is truncated, corrupt, from another format version or built for
+     * other grid parameters; expiry is left to {@link #isValidAt}.
+     */
+    public static MappedZoneIndex open(File file) throws IOException {
+        ByteBuffer buffer;
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            long length = channel.size();
+            if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+                throw new IOException("Bad zone index size: " + length);
+            }
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        if (buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a zone index");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported zone index version " + buffer.getInt(4));
+        }
+        if (buffer.getDouble(40) != ZoneIndex.CELL_DEGREES || buffer.getDouble(48) != ZoneIndex.MAX_QUERY_MARGIN) {
+            throw new IOException("Zone index built for another grid");
+        }
+        int zoneCount = buffer.getInt(8);
+        int tableSize = buffer.getInt(12);
+        int entryCount = buffer.getInt(16);
+        int vertexCount = buffer.getInt(20);
+        if (zoneCount < 0 || entryCount < 0 || vertexCount < 0 || tableSize < 2 || Integer.bitCount(tableSize) != 1
+                || fileBytes(zoneCount, tableSize, entryCount, vertexCount) != buffer.capacity()) {
+            throw new IOException("Zone index header does not match its size");
+        }
+        if (checksum(buffer) != buffer.getInt(CRC_OFFSET)) {
+            throw new IOException("Zone index checksum mismatch");
+        }
+        return new MappedZoneIndex(buffer, zoneCount, tableSize, entryCount, vertexCount,
+                buffer.getLong(24), buffer.getLong(32));
+    }
+
+    // CRC32 of the whole file except the checksum field
+    private static int checksum(ByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        byte[] chunk = new byte[8192];
+        ByteBuffer view = buffer.duplicate();
+        view.position(0).limit(CRC_OFFSET);
+        update(crc, view, chunk);
+        view.limit(buffer.capacity()).position(HEADER_BYTES);
+        update(crc, view, chunk);
+        return (int) crc.getValue();
+    }
+
+    private static void update(CRC32 crc, ByteBuffer view, byte[] chunk) {
+        while (view.hasRemaining()) {
+            int length = Math.min(chunk.length, view.remaining());
+            view.get(chunk, 0, length);
+            crc.update(chunk, 0, length);
+        }
+    }
+
+    public boolean isValidAt(long nowMillis) {
+        return nowMillis < validUntil;
+    }
+
+    public long getValidUntil() {
+        return validUntil;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getFileBytes() {
+        return fileBytes;
+    }
+
+    @Override
+    public int size() {
+        return zoneCount;
+    }
+
+    @Override
+    public int query(double pointLat, double pointLon, double marginMeters, int[] out) {
+        int cell = findCell(ZoneIndex.cellKey(ZoneIndex.latCell(pointLat), ZoneIndex.lonCell(pointLon)));
+        if (cell < 0) {
+            return 0;
+        }
+        double margin = Math.min(marginMeters, ZoneIndex.MAX_QUERY_MARGIN);
+        double padLat = GeoMath.metersToLatDegrees(Math.max(margin, 0));
+        double padLon = GeoMath.metersToLonDegrees(Math.max(margin, 0), pointLat);
+        int start = buffer.getInt(bucketStartAt + 4 * cell);
+        int end = start + buffer.getInt(bucketSizeAt + 4 * cell);
+        int found = 0;
+        for (int i = start; i < end && found < out.length; i++) {
+            int slot = buffer.getInt(entriesAt + 4 * i);
+            if (pointLat < buffer.getDouble(minLatAt + 8 * slot) - padLat
+                    || pointLat > buffer.getDouble(maxLatAt + 8 * slot) + padLat
+                    || pointLon < buffer.getDouble(minLonAt + 8 * slot) - padLon
+                    || pointLon > buffer.getDouble(maxLonAt + 8 * slot) + padLon) {
+                continue;
+            }
+            if (containsPoint(slot, pointLat, pointLon, margin)) {
+                out[found++] = buffer.getInt(idsAt + 4 * slot);
+            }
+        }
+        return found;
+    }
+
+    // Only used before the database has loaded, so one query per point is enough
+    @Override
+    public void queryBatch(double[] pointLat, double[] pointLon, int n, double marginMeters,
+                           int[] out, int stride, int[] counts) {
+        if (batchScratch.length != stride) {
+            batchScratch = new int[stride];
+        }
+        for (int f = 0; f < n; f++) {
+            counts[f] = query(pointLat[f], pointLon[f], marginMeters, batchScratch);
+            System.arraycopy(batchScratch, 0, out, f * stride, counts[f]);
+        }
+    }
+
+    @Override
+    public double distanceToNearestBoundary(double pointLat, double pointLon, double maxMeters) {
+        int centerLat = ZoneIndex.latCell(pointLat);
+        int centerLon = ZoneIndex.lonCell(pointLon);
+        double cellMeters = ZoneIndex.CELL_DEGREES * GeoMath.METERS_PER_DEGREE_LAT
+                * Math.max(Math.cos(Math.toRadians(pointLat)), 0.01);
+        double best = maxMeters;
+
+        // Same ring scan as ZoneIndex.distanceToNearestBoundary
+        for (int ring = 0; (ring - 1) * cellMeters < best; ring++) {
+            for (int y = centerLat - ring; y <= centerLat + ring; y++) {
+                boolean edgeRow = y == centerLat - ring || y == centerLat + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int x = centerLon - ring; x <= centerLon + ring; x += step) {
+                    int cell = findCell(ZoneIndex.cellKey(y, x));
+                    if (cell < 0) {
+                        continue;
+                    }
+                    int start = buffer.getInt(bucketStartAt + 4 * cell);
+                    int end = start + buffer.getInt(bucketSizeAt + 4 * cell);
+                    for (int i = start; i < end; i++) {
+                        best = Math.min(best, boundaryDistance(buffer.getInt(entriesAt + 4 * i), pointLat, pointLon));
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    private double boundaryDistance(int slot, double pointLat, double pointLon) {
+        int length = loadPolygon(slot);
+        if (length > 0) {
+            return ZoneGeometry.distanceToEdge(polygonScratch, length, pointLat, pointLon);
+        }
+        return Math.abs(GeoMath.haversine(pointLat, pointLon, buffer.getDouble(latAt + 8 * slot),
+                buffer.getDouble(lonAt + 8 * slot)) - buffer.getFloat(radiusAt + 4 * slot));
+    }
+
+    private boolean containsPoint(int slot, double pointLat, double pointLon, double margin) {
+        int length = loadPolygon(slot);
+        if (length > 0) {
+            boolean inside = ZoneGeometry.pointInPolygon(polygonScratch, length, pointLat, pointLon);
+            if (margin == 0) {
+                return inside;
+            }
+            double edge = ZoneGeometry.distanceToEdge(polygonScratch, length, pointLat, pointLon);
+            return margin > 0 ? inside || edge <= margin : inside && edge >= -margin;
+        }
+        return GeoMath.haversine(pointLat, pointLon, buffer.getDouble(latAt + 8 * slot),
+                buffer.getDouble(lonAt + 8 * slot)) <= buffer.getFloat(radiusAt + 4 * slot) + margin;
+    }
+
+    // Copies the zone's vertices into the scratch array; returns how many values, 0 for a circle
+    private int loadPolygon(int slot) {
+        int length = buffer.getInt(polyLengthAt + 4 * slot);
+        if (length == 0) {
+            return 0;
+        }
+        if (polygonScratch.length < length) {
+            polygonScratch = new double[length];
+        }
+        int start = verticesAt + 8 * buffer.getInt(polyStartAt + 4 * slot);
+        for (int i = 0; i < length; i++) {
+            polygonScratch[i] = buffer.getDouble(start + 8 * i);
+        }
+        return length;
+    }
+
+    private int findCell(long key) {
+        int mask = tableSize - 1;
+        int i = ZoneIndex.hash(key) & mask;
+        long stored;
+        while ((stored = buffer.getLong(keysAt + 8 * i)) != ZoneIndex.EMPTY_KEY) {
+            if (stored == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return zoneCount + " zones, " + fileBytes + " bytes mapped"
+                + (validUntil == Long.MAX_VALUE ? "" : ", valid until " + validUntil);
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.silentzone;
+
+/**
+ * Decides from accelerometer samples whether the device is lying still, so
+ * location updates can be removed until it moves again.
+ *
+ * Samples are grouped into windows of {@link #WINDOW_MS}; a window whose
+ * acceleration magnitude varies less than {@link #STILL_VARIANCE} is quiet.
+ * The device is still after {@link #STILL_AFTER_MS} of consecutive quiet
+ * windows, and moving again as soon as one window is not quiet or a
+ * significant-motion trigger arrives. A gap in the samples also counts as
+ * motion, since nothing is known about it.
+ *
+ * Times are elapsed realtime in milliseconds. Not thread-safe.
+ */
+public class MotionGate {
+
+    public interface Listener {
+        void onStillnessChanged(boolean still, long timeMs);
+    }
+
+    static final long WINDOW_MS = 2000;
+    // A phone on a desk shows ~0.02 m/s2 of sensor noise; carried or in a car it is well above 0.2
+    static final double STILL_VARIANCE = 0.01; // (m/s2)^2
+    static final long STILL_AFTER_MS = 60000;
+    // Samples further apart than this say nothing about the time between them
+    static final long MAX_SAMPLE_GAP_MS = 10000;
+
+    private final Listener listener;
+    private boolean still;
+    private long quietSince = -1;
+    private long lastSampleMs = -1;
+
+    // Current window, with Welford's running mean and variance of the magnitude
+    private long windowStart = -1;
+    private int windowCount;
+    private double windowMean;
+    private double windowM2;
+
+    // GPS-on time the stillness saved: time still while the suspended plan used GPS
+    private boolean gpsWanted;
+    private long gpsStillSince = -1;
+    private long savedGpsMs;
+    private long stillPeriods;
+
+    public MotionGate(Listener listener) {
+        this.listener = listener;
+    }
+
+    public void onSample(long timeMs, float x, float y, float z) {
+        if (lastSampleMs >= 0 && (timeMs < lastSampleMs || timeMs - lastSampleMs > MAX_SAMPLE_GAP_MS)) {
+            // Sensor restarted or the batch was lost
+            moving(timeMs);
+            windowStart = -1;
+        }
+        lastSampleMs = timeMs;
+        if (windowStart < 0) {
+            startWindow(timeMs);
+        } else if (timeMs - windowStart >= WINDOW_MS) {
+            closeWindow(timeMs);
+            startWindow(timeMs);
+        }
+        double magnitude = Math.sqrt(x * x + y * y + z * z);
+        windowCount++;
+        double delta = magnitude - windowMean;
+        windowMean += delta / windowCount;
+        windowM2 += delta * (magnitude - windowMean);
+    }
+
+    /** A significant-motion trigger, or anything else known to mean movement. */
+    public void wake(long timeMs) {
+        moving(timeMs);
+        windowStart = -1;
+        lastSampleMs = -1;
+    }
+
+    /** Tells the gate whether the sampling plan that stillness would suspend uses GPS. */
+    public void setGpsWanted(boolean wanted, long timeMs) {
+        if (still && gpsWanted != wanted) {
+            if (wanted) {
+                gpsStillSince = timeMs;
+            } else {
+                savedGpsMs += timeMs - gpsStillSince;
+                gpsStillSince = -1;
+            }
+        }
+        gpsWanted = wanted;
+    }
+
+    public boolean isStill() {
+        return still;
+    }
+
+    /** GPS-on time saved so far, including the current still period. */
+    public long getSavedGpsMillis(long timeMs) {
+        return savedGpsMs + (gpsStillSince >= 0 ? timeMs - gpsStillSince : 0);
+    }
+
+    public long getStillPeriods() {
+        return stillPeriods;
+    }
+
+    private void startWindow(long timeMs) {
+        windowStart = timeMs;
+        windowCount = 0;
+        windowMean = 0;
+        windowM2 = 0;
+    }
+
+    private void closeWindow(long timeMs) {
+        // A single sample has no variance to speak of; it neither starts nor ends a quiet run
+        if (windowCount < 2) {
+            return;
+        }
+        if (windowM2 / (windowCount - 1) >= STILL_VARIANCE) {
+            moving(timeMs);
+            return;
+        }
+        if (quietSince < 0) {
+            quietSince = windowStart;
+        }
+        if (!still && timeMs - quietSince >= STILL_AFTER_MS) {
+            still = true;
+            stillPeriods++;
+            if (gpsWanted) {
+                gpsStillSince = timeMs;
+            }
+            listener.onStillnessChanged(true, timeMs);
+        }
+    }
+
+    private void moving(long timeMs) {
+        quietSince = -1;
+        if (!still) {
+            return;
+        }
+        still = false;
+        if (gpsStillSince >= 0) {
+            savedGpsMs += timeMs - gpsStillSince;
+            gpsStillSince = -1;
+        }
+        listener.onStillnessChanged(false, timeMs);
+    }
+
+    @Override
+    public String toString() {
+        return (still ? "still" : "moving") + ", " + stillPeriods + " still periods";
+    }
+}
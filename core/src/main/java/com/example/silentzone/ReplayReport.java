@@ -0,0 +1,71 @@
+package com.example.silentzone;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Outcome of a {@link TraceReplay} run: how many fixes went through, which
+ * transitions they produced and how long each evaluation took.
+ */
+public class ReplayReport {
+
+    public final int zones;
+    public final long fixes;
+    public final long acceptedFixes;
+    public final int entered;
+    public final int exited;
+    public final long wallNanos;
+    // Per-fix evaluation time, sorted ascending
+    private final long[] latencyNanos;
+
+    ReplayReport(int zones, long fixes, long acceptedFixes, int entered, int exited, long wallNanos,
+                 long[] latencyNanos) {
+        this.zones = zones;
+        this.fixes = fixes;
+        this.acceptedFixes = acceptedFixes;
+        this.entered = entered;
+        this.exited = exited;
+        this.wallNanos = wallNanos;
+        this.latencyNanos = latencyNanos;
+        Arrays.sort(this.latencyNanos);
+    }
+
+    /** Fixes per second of wall time, trace parsing included. */
+    public double fixesPerSecond() {
+        return wallNanos == 0 ? 0 : fixes * 1e9 / wallNanos;
+    }
+
+    /** Evaluation latency at quantile {@code q} (0..1), in nanoseconds. */
+    public long latencyNanos(double q) {
+        if (latencyNanos.length == 0) {
+            return 0;
+        }
+        int i = (int) Math.ceil(q * latencyNanos.length) - 1;
+        return latencyNanos[Math.max(0, Math.min(latencyNanos.length - 1, i))];
+    }
+
+    public double meanLatencyNanos() {
+        if (latencyNanos.length == 0) {
+            return 0;
+        }
+        long total = 0;
+        for (long nanos : latencyNanos) {
+            total += nanos;
+        }
+        return (double) total / latencyNanos.length;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US,
+                "Zones:        %d%n"
+                        + "Fixes:        %d (%d accepted, %d dropped)%n"
+                        + "Transitions:  %d entered, %d exited%n"
+                        + "Wall time:    %.1f ms (%.0f fixes/sec)%n"
+                        + "Latency/fix:  mean %.1f us, p50 %.1f us, p99 %.1f us, max %.1f us",
+                zones, fixes, acceptedFixes, fixes - acceptedFixes, entered, exited,
+                wallNanos / 1e6, fixesPerSecond(),
+                meanLatencyNanos() / 1e3, latencyNanos(0.5) / 1e3, latencyNanos(0.99) / 1e3,
+                latencyNanos(1) / 1e3);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.silentzone;
+
+/**
+ * Picks how often to sample location from the distance to the nearest zone boundary.
+ *
+ * Someone moving at {@link #MAX_SPEED} cannot reach a boundary D meters away in
+ * less than D / MAX_SPEED seconds, so sampling at (a fraction of) that interval
+ * still sees every crossing. Plans are coarse tiers so small distance changes
+ * don't re-register the location listener on every fix.
+ *
+ * In batched mode the network tiers also let the platform hold fixes back and
+ * deliver {@link #BATCH_FIXES} at a time, so the CPU sleeps between deliveries.
+ * Transitions then arrive up to that many intervals late, which only suits
+ * long background sessions.
+ */
+public final class SamplingScheduler {
+
+    // ~144 km/h, a car on a highway
+    public static final float MAX_SPEED = 40f; // meters per second
+    // Sample at half the time it would take to reach the boundary
+    static final double SAFETY_FACTOR = 0.5;
+    // Beyond this nothing changes, so boundary searches can stop here
+    public static final double MAX_BOUNDARY_DISTANCE = 25000; // meters
+    // Fixes per delivery in batched mode
+    static final int BATCH_FIXES = 5;
+
+    public static final class Plan {
+        public final long intervalMs;
+        public final float minDistanceMeters;
+        // Far-away tiers only need coarse network fixes
+        public final boolean useGps;
+        // How long the platform may hold fixes back to deliver them together; 0 delivers each at once
+        public final long maxDelayMs;
+
+        Plan(long intervalMs, float minDistanceMeters, boolean useGps) {
+            this(intervalMs, minDistanceMeters, useGps, 0);
+        }
+
+        Plan(long intervalMs, float minDistanceMeters, boolean useGps, long maxDelayMs) {
+            this.intervalMs = intervalMs;
+            this.minDistanceMeters = minDistanceMeters;
+            this.useGps = useGps;
+            this.maxDelayMs = maxDelayMs;
+        }
+
+        @Override
+        public String toString() {
+            return intervalMs + "ms/" + minDistanceMeters + "m" + (useGps ? " gps" : " network")
+                    + (maxDelayMs > 0 ? " batched " + maxDelayMs + "ms" : "");
+        }
+    }
+
+    static final Plan[] PLANS = {
+            new Plan(5000, 10, true),
+            new Plan(15000, 10, true),
+            new Plan(30000, 25, true),
+            new Plan(60000, 50, false),
+            new Plan(120000, 100, false),
+            new Plan(300000, 200, false),
+    };
+
+    // Same tiers; GPS tiers are close to a boundary and never batch
+    static final Plan[] BATCHED_PLANS = new Plan[PLANS.length];
+
+    static {
+        for (int i = 0; i < PLANS.length; i++) {
+            Plan plan = PLANS[i];
+            BATCHED_PLANS[i] = plan.useGps ? plan
+                    : new Plan(plan.intervalMs, plan.minDistanceMeters, false, plan.intervalMs * BATCH_FIXES);
+        }
+    }
+
+    private SamplingScheduler() {}
+
+    // The tightest plan, used until the first fix tells us where we are
+    public static Plan initialPlan() {
+        return PLANS[0];
+    }
+
+    public static Plan planFor(double boundaryDistanceMeters) {
+        return planFor(boundaryDistanceMeters, false);
+    }
+
+    public static Plan planFor(double boundaryDistanceMeters, boolean batched) {
+        double safeIntervalMs = boundaryDistanceMeters * SAFETY_FACTOR / MAX_SPEED * 1000;
+        int tier = 0;
+        for (int i = 0; i < PLANS.length; i++) {
+            if (PLANS[i].intervalMs <= safeIntervalMs) {
+                tier = i;
+            }
+        }
+        return batched ? BATCHED_PLANS[tier] : PLANS[tier];
+    }
+}
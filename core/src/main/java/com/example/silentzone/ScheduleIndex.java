@@ -0,0 +1,164 @@
+package com.example.silentzone;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Every zone's schedule compiled into one weekly timeline. The week is cut at
+ * each window start and end into segments during which no zone changes state;
+ * a minute-to-segment table and one bit per scheduled zone and segment make
+ * "is this zone active now" two array reads.
+ *
+ * Immutable once built, so it can be shared between threads. Memory is a
+ * week's worth of segment numbers plus segments x scheduled zones bits.
+ */
+public class ScheduleIndex {
+
+    public static final ScheduleIndex EMPTY = new Builder().build();
+
+    private final Map<Integer, Integer> slots;
+    private final int[] slotIds;
+    private final int alwaysActive;
+    // Segment of each minute of the week
+    private final int[] segmentOfMinute;
+    // First minute of each segment, ascending
+    private final int[] segmentStarts;
+    // Per segment, one bit per slot
+    private final long[][] active;
+    private final boolean[] anyActive;
+
+    /** Collects zones and their schedules; zones without one are always active. */
+    public static class Builder {
+        private final Map<Integer, ZoneSchedule> schedules = new HashMap<>();
+        private int alwaysActive;
+
+        public Builder add(int zoneId, ZoneSchedule schedule) {
+            if (schedule == null) {
+                alwaysActive++;
+            } else {
+                schedules.put(zoneId, schedule);
+            }
+            return this;
+        }
+
+        public ScheduleIndex build() {
+            return new ScheduleIndex(schedules, alwaysActive);
+        }
+    }
+
+    private ScheduleIndex(Map<Integer, ZoneSchedule> schedules, int alwaysActive) {
+        this.alwaysActive = alwaysActive;
+        slots = new HashMap<>();
+        slotIds = new int[schedules.size()];
+        TreeSet<Integer> cuts = new TreeSet<>();
+        cuts.add(0);
+        for (Map.Entry<Integer, ZoneSchedule> entry : schedules.entrySet()) {
+            slotIds[slots.size()] = entry.getKey();
+            slots.put(entry.getKey(), slots.size());
+            entry.getValue().forEachInterval((start, end) -> {
+                cuts.add(start % ZoneSchedule.MINUTES_PER_WEEK);
+                cuts.add(end % ZoneSchedule.MINUTES_PER_WEEK);
+            });
+        }
+
+        segmentStarts = new int[cuts.size()];
+        int s = 0;
+        for (int cut : cuts) {
+            segmentStarts[s++] = cut;
+        }
+        segmentOfMinute = new int[ZoneSchedule.MINUTES_PER_WEEK];
+        for (s = 0; s < segmentStarts.length; s++) {
+            int end = s + 1 < segmentStarts.length ? segmentStarts[s + 1] : ZoneSchedule.MINUTES_PER_WEEK;
+            Arrays.fill(segmentOfMinute, segmentStarts[s], end, s);
+        }
+
+        int words = (slotIds.length + 63) / 64;
+        active = new long[segmentStarts.length][words];
+        anyActive = new boolean[segmentStarts.length];
+        for (int slot = 0; slot < slotIds.length; slot++) {
+            int bit = slot;
+            schedules.get(slotIds[slot]).forEachInterval((start, end) -> {
+                // Every segment the interval covers, wrapping past the end of the week
+                for (int minute = start; minute < end; ) {
+                    int segment = segmentOfMinute[minute % ZoneSchedule.MINUTES_PER_WEEK];
+                    active[segment][bit >>> 6] |= 1L << bit;
+                    anyActive[segment] = true;
+                    minute += segmentLength(segment, minute % ZoneSchedule.MINUTES_PER_WEEK);
+                }
+            });
+        }
+    }
+
+    // Minutes from minuteOfWeek to the end of its segment
+    private int segmentLength(int segment, int minuteOfWeek) {
+        int end = segment + 1 < segmentStarts.length ? segmentStarts[segment + 1] : ZoneSchedule.MINUTES_PER_WEEK;
+        return end - minuteOfWeek;
+    }
+
+    public boolean hasSchedules() {
+        return slotIds.length > 0;
+    }
+
+    public boolean isScheduled(int zoneId) {
+        return slots.containsKey(zoneId);
+    }
+
+    /** Whether the zone is active at the given minute; zones without a schedule always are. */
+    public boolean isActive(int zoneId, int minuteOfWeek) {
+        Integer slot = slots.get(zoneId);
+        if (slot == null) {
+            return true;
+        }
+        return (active[segmentOfMinute[minuteOfWeek]][slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    /**
+     * Minutes until some scheduled zone changes state, at least 1; -1 when no
+     * zone has a schedule. The boundary may lie in the next week.
+     */
+    public int minutesUntilChange(int minuteOfWeek) {
+        if (!hasSchedules()) {
+            return -1;
+        }
+        int segment = segmentOfMinute[minuteOfWeek];
+        int length = segmentLength(segment, minuteOfWeek);
+        // The last segment runs on into the first one when nothing changes at Monday 00:00
+        if (segment == segmentStarts.length - 1 && segmentStarts.length > 1
+                && Arrays.equals(active[segment], active[0])) {
+            length += segmentLength(0, 0);
+        }
+        return length;
+    }
+
+    /** 0 if any zone is active now, else minutes until one becomes active; -1 if none ever will. */
+    public int minutesUntilActive(int minuteOfWeek) {
+        if (alwaysActive > 0) {
+            return 0;
+        }
+        int segment = segmentOfMinute[minuteOfWeek];
+        if (anyActive[segment]) {
+            return 0;
+        }
+        int minutes = segmentLength(segment, minuteOfWeek);
+        for (int i = 1; i < segmentStarts.length; i++) {
+            int next = (segment + i) % segmentStarts.length;
+            if (anyActive[next]) {
+                return minutes;
+            }
+            minutes += segmentLength(next, segmentStarts[next]);
+        }
+        return -1;
+    }
+
+    /** Removes the zones that are scheduled but not active at the given minute from {@code zones}. */
+    public void removeInactive(ZoneIndex zones, int minuteOfWeek) {
+        long[] bits = active[segmentOfMinute[minuteOfWeek]];
+        for (int slot = 0; slot < slotIds.length; slot++) {
+            if ((bits[slot >>> 6] & (1L << slot)) == 0 && zones.contains(slotIds[slot])) {
+                zones.remove(slotIds[slot]);
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.silentzone;
+
+/**
+ * One recorded fix. Readers fill a caller-owned instance so that replaying a
+ * long trace does not allocate per fix.
+ */
+public class TraceFix {
+    public long timeMs;
+    public double latitude;
+    public double longitude;
+    // 0 when the trace does not record accuracy
+    public float accuracy;
+}
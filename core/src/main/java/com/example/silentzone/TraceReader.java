@@ -0,0 +1,11 @@
+package com.example.silentzone;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Streams fixes from a recorded trace, one at a time. */
+public interface TraceReader extends Closeable {
+
+    /** Fills {@code fix} with the next fix; returns false at the end of the trace. */
+    boolean next(TraceFix fix) throws IOException;
+}
@@ -0,0 +1,165 @@
+package com.example.silentzone;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Streams a recorded GPS trace through {@link ZoneEvaluator} off-device, for
+ * regression tests and throughput measurements.
+ *
+ * <pre>
+ * TraceReplay &lt;trace.gpx|trace.csv&gt; &lt;zones.csv | --synthetic N&gt; [--batch N] [--verbose]
+ * </pre>
+ *
+ * With {@code --batch N} fixes are fed N at a time through
+ * {@link ZoneEvaluator#evaluateBatch}, as batched platform delivery does.
+ *
+ * Zone files are CSV as exported by the app; see {@link #readZones}.
+ */
+public class TraceReplay {
+
+    // Synthetic zones are scattered over a square this wide around the first fix
+    private static final double SYNTHETIC_SPREAD = 50000; // meters
+
+    public static ReplayReport replay(TraceReader trace, ZoneIndex zones,
+                                      ZoneTransitionTracker.Listener listener) throws IOException {
+        return replay(trace, zones, listener, 1);
+    }
+
+    public static ReplayReport replay(TraceReader trace, ZoneIndex zones, ZoneTransitionTracker.Listener listener,
+                                      int batchSize) throws IOException {
+        int[] transitions = new int[2];
+        ZoneEvaluator evaluator = new ZoneEvaluator((zoneId, entered, timeMs) -> {
+            transitions[entered ? 0 : 1]++;
+            if (listener != null) {
+                listener.onTransition(zoneId, entered, timeMs);
+            }
+        });
+        evaluator.setZones(zones);
+
+        TraceFix fix = new TraceFix();
+        long[] latencies = new long[1024];
+        long fixes = 0;
+        long[] time = new long[batchSize];
+        double[] lat = new double[batchSize];
+        double[] lon = new double[batchSize];
+        int pending = 0;
+        long start = System.nanoTime();
+        boolean more = true;
+        while (more) {
+            more = trace.next(fix);
+            if (more) {
+                time[pending] = fix.timeMs;
+                lat[pending] = fix.latitude;
+                lon[pending] = fix.longitude;
+                pending++;
+            }
+            if (pending == batchSize || (!more && pending > 0)) {
+                long before = System.nanoTime();
+                if (batchSize == 1) {
+                    evaluator.evaluate(time[0], lat[0], lon[0], null);
+                } else {
+                    evaluator.evaluateBatch(time, lat, lon, null, pending);
+                }
+                // A batch's cost is spread evenly over its fixes
+                long elapsed = (System.nanoTime() - before) / pending;
+                if (fixes + pending > latencies.length) {
+                    latencies = Arrays.copyOf(latencies, (int) Math.max(latencies.length * 2, fixes + pending));
+                }
+                for (int i = 0; i < pending; i++) {
+                    latencies[(int) fixes++] = elapsed;
+                }
+                pending = 0;
+            }
+        }
+        long wall = System.nanoTime() - start;
+        return new ReplayReport(zones.size(), fixes, evaluator.getAcceptedCount(),
+                transitions[0], transitions[1], wall, Arrays.copyOf(latencies, (int) fixes));
+    }
+
+    /** Picks the reader from the file extension: .gpx, anything else is CSV. */
+    public static TraceReader open(File file) throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8);
+        if (file.getName().toLowerCase().endsWith(".gpx")) {
+            return new GpxTraceReader(reader);
+        }
+        return new CsvTraceReader(reader);
+    }
+
+    /**
+     * Reads zones in the app's CSV exchange format ({@link CsvZoneReader}),
+     * numbered from 1 in file order. A row that is not a valid zone fails the
+     * whole file rather than silently replaying against fewer zones.
+     */
+    public static ZoneIndex readZones(Reader source) throws IOException {
+        ZoneIndex zones = new ZoneIndex();
+        ZoneReader reader = new CsvZoneReader(source);
+        ZoneRecord record = new ZoneRecord();
+        int id = 0;
+        while (reader.next(record)) {
+            id++;
+            if (!record.isValid()) {
+                throw new IOException("Zone " + id + ": not a valid zone");
+            }
+            double[] polygon = record.polygon != null ? ZoneGeometry.parsePolygon(record.polygon) : null;
+            zones.add(id, record.latitude, record.longitude, record.radius, polygon);
+        }
+        return zones;
+    }
+
+    /** Scatters {@code count} circular zones of 30-200 m around a point, reproducibly. */
+    public static ZoneIndex syntheticZones(int count, double centerLat, double centerLon, long seed) {
+        Random random = new Random(seed);
+        double dLat = GeoMath.metersToLatDegrees(SYNTHETIC_SPREAD / 2);
+        double dLon = GeoMath.metersToLonDegrees(SYNTHETIC_SPREAD / 2, centerLat);
+        ZoneIndex zones = new ZoneIndex();
+        for (int id = 1; id <= count; id++) {
+            zones.add(id, centerLat + (random.nextDouble() * 2 - 1) * dLat,
+                    centerLon + (random.nextDouble() * 2 - 1) * dLon, 30 + random.nextInt(171));
+        }
+        return zones;
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TraceReplay <trace.gpx|trace.csv> <zones.csv | --synthetic N> [--batch N]"
+                    + " [--verbose]");
+            System.exit(2);
+        }
+        File traceFile = new File(args[0]);
+        List<String> options = Arrays.asList(args);
+        boolean verbose = options.contains("--verbose");
+        int batch = options.indexOf("--batch");
+        int batchSize = batch >= 0 && batch + 1 < args.length ? Integer.parseInt(args[batch + 1]) : 1;
+
+        ZoneIndex zones;
+        if (args[1].equals("--synthetic")) {
+            TraceFix first = new TraceFix();
+            try (TraceReader trace = open(traceFile)) {
+                if (!trace.next(first)) {
+                    System.err.println("Trace is empty");
+                    System.exit(1);
+                }
+            }
+            zones = syntheticZones(Integer.parseInt(args[2]), first.latitude, first.longitude, 42);
+        } else {
+            try (Reader reader = new InputStreamReader(new FileInputStream(args[1]), StandardCharsets.UTF_8)) {
+                zones = readZones(reader);
+            }
+        }
+
+        ZoneTransitionTracker.Listener listener = verbose
+                ? (zoneId, entered, timeMs) -> System.out.println(timeMs + " " + (entered ? "enter " : "exit  ") + zoneId)
+                : null;
+        try (TraceReader trace = open(traceFile)) {
+            System.out.println(replay(trace, zones, listener, batchSize));
+        }
+    }
+}
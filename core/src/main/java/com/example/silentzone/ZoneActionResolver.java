@@ -0,0 +1,120 @@
+package com.example.silentzone;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Keeps the winning zone among those the user is confirmed inside, updated
+ * from enter and exit transitions. An enter compares one rank; an exit of the
+ * winner walks the winner's overlap neighbours, which are already in rank
+ * order, and falls back to ranking every zone inside only when some of them
+ * are not neighbours. Reading the action per fix is a field read.
+ *
+ * Not thread-safe; transitions and {@link #setActions} must come from one
+ * thread.
+ */
+public class ZoneActionResolver {
+
+    private ZoneActions actions = ZoneActions.EMPTY;
+    private boolean[] insideByRank = new boolean[0];
+    // Every zone inside, ranked or not; only walked when the zones are rebuilt
+    private final Set<Integer> insideIds = new HashSet<>();
+    // Zones inside that have a rank
+    private int insideRanked;
+    private int winner = -1;
+    private long fallbackScans;
+
+    /** Swaps in newly compiled actions, keeping which zones we are inside. */
+    public void setActions(ZoneActions actions) {
+        this.actions = actions;
+        insideByRank = new boolean[actions.size()];
+        winner = -1;
+        insideRanked = 0;
+        for (int zoneId : insideIds) {
+            int rank = actions.rankOf(zoneId);
+            if (rank >= 0) {
+                insideByRank[rank] = true;
+                insideRanked++;
+                if (winner < 0 || rank < winner) {
+                    winner = rank;
+                }
+            }
+        }
+    }
+
+    public void onTransition(int zoneId, boolean entered) {
+        int rank = actions.rankOf(zoneId);
+        if (entered) {
+            if (insideIds.add(zoneId) && rank >= 0) {
+                insideByRank[rank] = true;
+                insideRanked++;
+                if (winner < 0 || rank < winner) {
+                    winner = rank;
+                }
+            }
+            return;
+        }
+        if (!insideIds.remove(zoneId) || rank < 0) {
+            return;
+        }
+        insideByRank[rank] = false;
+        insideRanked--;
+        if (rank != winner) {
+            return;
+        }
+        winner = -1;
+        int insideNeighbors = 0;
+        for (int neighbor : actions.neighborsAt(rank)) {
+            if (insideByRank[neighbor]) {
+                if (winner < 0) {
+                    winner = neighbor;
+                }
+                insideNeighbors++;
+            }
+        }
+        if (insideNeighbors < insideRanked) {
+            // Still inside a zone that does not overlap the old winner: one being left while another far
+            // away is entered, only possible within the exit confirmation time. That zone may outrank
+            // every neighbour, so the best of all zones inside wins.
+            fallbackScans++;
+            for (int id : insideIds) {
+                int other = actions.rankOf(id);
+                if (other >= 0 && (winner < 0 || other < winner)) {
+                    winner = other;
+                }
+            }
+        }
+    }
+
+    /**
+     * The action of the winning zone; {@link ZoneActions#ACTION_NONE} outside
+     * every zone. Zones missing from the compiled actions silence by default.
+     */
+    public int getAction() {
+        if (winner >= 0) {
+            return actions.actionAt(winner);
+        }
+        return insideIds.isEmpty() ? ZoneActions.ACTION_NONE : ZoneActions.ACTION_SILENT;
+    }
+
+    /** The winning zone, or -1 if none or only unranked zones are inside. */
+    public int getWinningZoneId() {
+        return winner >= 0 ? actions.idAt(winner) : -1;
+    }
+
+    public int getInsideCount() {
+        return insideIds.size();
+    }
+
+    // Exits that had to look beyond the winner's neighbours
+    public long getFallbackScans() {
+        return fallbackScans;
+    }
+
+    public void reset() {
+        insideIds.clear();
+        insideByRank = new boolean[actions.size()];
+        insideRanked = 0;
+        winner = -1;
+    }
+}
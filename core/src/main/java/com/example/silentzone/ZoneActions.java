@@ -0,0 +1,201 @@
+package com.example.silentzone;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * What each zone does to the ringer, and which zone wins where zones
+ * overlap, compiled whenever the zones change so that resolving the winner
+ * never sorts or scans all zones.
+ *
+ * Zones are ranked once: higher priority first, then the stricter action,
+ * then the lower id. Each zone also lists the zones that can overlap it, best
+ * rank first. A point inside two zones lies in both enclosing circles, so the
+ * circles intersect; every zone the user is inside is therefore a neighbour
+ * of the winning one, and when the winner is left the next winner is the
+ * first of its neighbours still inside.
+ *
+ * Immutable once built, so it can be shared between threads.
+ */
+public class ZoneActions {
+
+    public static final int ACTION_NONE = -1;
+    public static final int ACTION_SILENT = 0;
+    public static final int ACTION_VIBRATE = 1;
+    public static final int DEFAULT_PRIORITY = 0;
+    // Zones count as overlapping up to this far apart, so hold boundaries that touch are neighbours too
+    static final double OVERLAP_MARGIN = 2 * ZoneEvaluator.EXIT_MARGIN; // meters
+
+    public static final ZoneActions EMPTY = new Builder().build(new ZoneIndex());
+
+    private final Map<Integer, Integer> rankById;
+    private final int[] ids;
+    private final int[] priorities;
+    private final int[] actions;
+    // Ranks of the zones that can overlap each zone, ascending
+    private final int[][] neighbors;
+
+    /** Collects each zone's priority and action. */
+    public static class Builder {
+        private final List<int[]> zones = new ArrayList<>();
+
+        public Builder add(int zoneId, int priority, int action) {
+            zones.add(new int[] {zoneId, priority, action == ACTION_VIBRATE ? ACTION_VIBRATE : ACTION_SILENT});
+            return this;
+        }
+
+        /** Ranks the zones and finds the overlapping pairs from their geometry in {@code index}. */
+        public ZoneActions build(ZoneIndex index) {
+            List<int[]> ranked = new ArrayList<>(zones);
+            Collections.sort(ranked, (a, b) -> {
+                if (a[1] != b[1]) {
+                    return Integer.compare(b[1], a[1]);
+                }
+                if (a[2] != b[2]) {
+                    return Integer.compare(a[2], b[2]);
+                }
+                return Integer.compare(a[0], b[0]);
+            });
+            return new ZoneActions(ranked, index);
+        }
+    }
+
+    private ZoneActions(List<int[]> ranked, ZoneIndex index) {
+        int n = ranked.size();
+        rankById = new HashMap<>(n * 2);
+        ids = new int[n];
+        priorities = new int[n];
+        actions = new int[n];
+        for (int rank = 0; rank < n; rank++) {
+            int[] zone = ranked.get(rank);
+            ids[rank] = zone[0];
+            priorities[rank] = zone[1];
+            actions[rank] = zone[2];
+            rankById.put(zone[0], rank);
+        }
+        neighbors = findOverlaps(index);
+    }
+
+    // Sweeps the zones by southern edge, so each is only compared with those reaching its latitude
+    private int[][] findOverlaps(ZoneIndex index) {
+        int n = ids.length;
+        double[] circle = new double[3];
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        double[] radius = new double[n];
+        double[] south = new double[n];
+        Integer[] bySouth = new Integer[n];
+        for (int rank = 0; rank < n; rank++) {
+            if (index.enclosingCircle(ids[rank], circle)) {
+                lat[rank] = circle[0];
+                lon[rank] = circle[1];
+                radius[rank] = circle[2];
+            } else {
+                // Not loaded, so it cannot be entered until the next build
+                lat[rank] = Double.NaN;
+            }
+            south[rank] = lat[rank] - GeoMath.metersToLatDegrees(radius[rank] + OVERLAP_MARGIN);
+            bySouth[rank] = rank;
+        }
+        Arrays.sort(bySouth, (a, b) -> Double.compare(south[a], south[b]));
+
+        int[] counts = new int[n];
+        List<int[]> pairs = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            int a = bySouth[i];
+            if (Double.isNaN(lat[a])) {
+                continue;
+            }
+            double north = lat[a] + GeoMath.metersToLatDegrees(radius[a] + OVERLAP_MARGIN);
+            for (int j = i + 1; j < n && south[bySouth[j]] <= north; j++) {
+                int b = bySouth[j];
+                double reach = radius[a] + radius[b] + OVERLAP_MARGIN;
+                if (!Double.isNaN(lat[b]) && GeoMath.haversine(lat[a], lon[a], lat[b], lon[b]) <= reach) {
+                    pairs.add(new int[] {a, b});
+                    counts[a]++;
+                    counts[b]++;
+                }
+            }
+        }
+        int[][] result = new int[n][];
+        for (int rank = 0; rank < n; rank++) {
+            result[rank] = new int[counts[rank]];
+            counts[rank] = 0;
+        }
+        for (int[] pair : pairs) {
+            result[pair[0]][counts[pair[0]]++] = pair[1];
+            result[pair[1]][counts[pair[1]]++] = pair[0];
+        }
+        for (int[] list : result) {
+            Arrays.sort(list);
+        }
+        return result;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    /** Rank of the zone, 0 being the one that wins over all others; -1 if unknown. */
+    public int rankOf(int zoneId) {
+        Integer rank = rankById.get(zoneId);
+        return rank != null ? rank : -1;
+    }
+
+    public int idAt(int rank) {
+        return ids[rank];
+    }
+
+    public int actionAt(int rank) {
+        return actions[rank];
+    }
+
+    public int priorityAt(int rank) {
+        return priorities[rank];
+    }
+
+    // Shared with the resolver, which must not modify it
+    int[] neighborsAt(int rank) {
+        return neighbors[rank];
+    }
+
+    public int getOverlapCount() {
+        int edges = 0;
+        for (int[] list : neighbors) {
+            edges += list.length;
+        }
+        return edges / 2;
+    }
+
+    /** "silent", "vibrate", or null for anything else. */
+    public static String actionName(int action) {
+        switch (action) {
+            case ACTION_SILENT:
+                return "silent";
+            case ACTION_VIBRATE:
+                return "vibrate";
+            default:
+                return null;
+        }
+    }
+
+    /** The action named by {@link #actionName}, case-insensitively; {@link #ACTION_NONE} if unknown. */
+    public static int parseAction(String name) {
+        if (name == null) {
+            return ACTION_NONE;
+        }
+        switch (name.trim().toLowerCase(Locale.US)) {
+            case "silent":
+                return ACTION_SILENT;
+            case "vibrate":
+                return ACTION_VIBRATE;
+            default:
+                return ACTION_NONE;
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.example.silentzone;
+
+import java.util.Arrays;
+
+/**
+ * The whole per-fix decision, free of Android: drop stale or duplicate fixes,
+ * query the zone snapshot with the enter and exit margins, and feed the
+ * transition tracker. LocationService and the trace replay both drive this
+ * class, so what the replay measures is what runs on the device.
+ *
+ * Not thread-safe; fixes must come from one thread. Only the zone snapshot may
+ * be swapped from another thread.
+ */
+public class ZoneEvaluator {
+
+    public static final int MAX_CONTAINING_ZONES = 32;
+    // Enter at the zone edge, leave only once 25 m past it, after 2 fixes over 10 s either way
+    public static final double ENTER_MARGIN = 0; // meters
+    public static final double EXIT_MARGIN = 25; // meters
+    public static final long MIN_DWELL_MS = 10000;
+    public static final int CONFIRM_FIXES = 2;
+
+    private final FixFilter fixFilter = new FixFilter();
+    private final ZoneTransitionTracker transitionTracker;
+    private final ZoneTransitionTracker.Listener listener;
+    private final int[] containingZones = new int[MAX_CONTAINING_ZONES];
+    private final int[] holdingZones = new int[MAX_CONTAINING_ZONES];
+    // Never modified once published, so evaluate() reads it without locking
+    private volatile ZoneLookup zones = new ZoneIndex();
+    private int containingCount;
+    private int holdingCount;
+
+    // Scratch for evaluateBatch(), grown to the largest batch seen
+    private int[] batchOrder = new int[0];
+    private long[] batchTime = new long[0];
+    private double[] batchLat = new double[0];
+    private double[] batchLon = new double[0];
+    private int[] batchEnterHits = new int[0];
+    private int[] batchEnterCounts = new int[0];
+    private int[] batchHoldHits = new int[0];
+    private int[] batchHoldCounts = new int[0];
+    // Net change of each zone so far in the batch, in parallel columns
+    private int[] pendingZone = new int[8];
+    private boolean[] pendingEntered = new boolean[8];
+    private long[] pendingTime = new long[8];
+    private int pendingCount;
+    private final ZoneTransitionTracker.Listener batchListener = this::collectTransition;
+
+    public ZoneEvaluator(ZoneTransitionTracker.Listener listener) {
+        this(MIN_DWELL_MS, CONFIRM_FIXES, listener);
+    }
+
+    public ZoneEvaluator(long minDwellMs, int confirmFixes, ZoneTransitionTracker.Listener listener) {
+        this.transitionTracker = new ZoneTransitionTracker(minDwellMs, confirmFixes);
+        this.listener = listener;
+    }
+
+    /**
+     * Publishes a new zone snapshot. The index must not be modified afterwards;
+     * pass a {@link ZoneIndex#copy()} of an index that is still being edited.
+     */
+    public void setZones(ZoneLookup zones) {
+        this.zones = zones;
+    }
+
+    public ZoneLookup getZones() {
+        return zones;
+    }
+
+    /**
+     * Evaluates one fix. {@code timeMs} must be monotonic (elapsed realtime on
+     * the device, the trace timestamp in a replay); {@code provider} may be null
+     * when all fixes come from one source. Returns false if the fix was dropped
+     * as stale or a duplicate, in which case nothing changed.
+     */
+    public boolean evaluate(long timeMs, double lat, double lon, String provider) {
+        if (!fixFilter.accept(timeMs, lat, lon, provider)) {
+            return false;
+        }
+        ZoneLookup snapshot = zones;
+        containingCount = snapshot.query(lat, lon, ENTER_MARGIN, containingZones);
+        holdingCount = snapshot.query(lat, lon, EXIT_MARGIN, holdingZones);
+        transitionTracker.update(timeMs, containingZones, containingCount, holdingZones, holdingCount,
+                listener);
+        return true;
+    }
+
+    /**
+     * Evaluates a batch of fixes, such as a delayed delivery from the platform,
+     * in time order. Each zone's net change over the whole batch is reported
+     * once, stamped with the time it last changed; an enter and exit that
+     * cancel out within the batch are not reported at all. Returns the number
+     * of fixes accepted. {@code provider} may be null, as for {@link #evaluate}.
+     */
+    public int evaluateBatch(long[] timeMs, double[] lat, double[] lon, String[] provider, int n) {
+        ensureBatchCapacity(n);
+        int[] order = batchOrder;
+        for (int i = 0; i < n; i++) {
+            // Insertion sort: providers deliver nearly in order
+            int j = i;
+            while (j > 0 && timeMs[order[j - 1]] > timeMs[i]) {
+                order[j] = order[j - 1];
+                j--;
+            }
+            order[j] = i;
+        }
+        int accepted = 0;
+        for (int i = 0; i < n; i++) {
+            int f = order[i];
+            if (fixFilter.accept(timeMs[f], lat[f], lon[f], provider != null ? provider[f] : null)) {
+                batchTime[accepted] = timeMs[f];
+                batchLat[accepted] = lat[f];
+                batchLon[accepted] = lon[f];
+                accepted++;
+            }
+        }
+        if (accepted == 0) {
+            return 0;
+        }
+
+        ZoneLookup snapshot = zones;
+        snapshot.queryBatch(batchLat, batchLon, accepted, ENTER_MARGIN, batchEnterHits, MAX_CONTAINING_ZONES,
+                batchEnterCounts);
+        snapshot.queryBatch(batchLat, batchLon, accepted, EXIT_MARGIN, batchHoldHits, MAX_CONTAINING_ZONES,
+                batchHoldCounts);
+        pendingCount = 0;
+        for (int f = 0; f < accepted; f++) {
+            int offset = f * MAX_CONTAINING_ZONES;
+            System.arraycopy(batchEnterHits, offset, containingZones, 0, batchEnterCounts[f]);
+            System.arraycopy(batchHoldHits, offset, holdingZones, 0, batchHoldCounts[f]);
+            containingCount = batchEnterCounts[f];
+            holdingCount = batchHoldCounts[f];
+            transitionTracker.update(batchTime[f], containingZones, containingCount, holdingZones, holdingCount,
+                    batchListener);
+        }
+
+        // Report in time order; insertion sort, as only a few zones change per batch
+        for (int i = 1; i < pendingCount; i++) {
+            int zoneId = pendingZone[i];
+            boolean entered = pendingEntered[i];
+            long time = pendingTime[i];
+            int j = i;
+            while (j > 0 && pendingTime[j - 1] > time) {
+                pendingZone[j] = pendingZone[j - 1];
+                pendingEntered[j] = pendingEntered[j - 1];
+                pendingTime[j] = pendingTime[j - 1];
+                j--;
+            }
+            pendingZone[j] = zoneId;
+            pendingEntered[j] = entered;
+            pendingTime[j] = time;
+        }
+        for (int i = 0; i < pendingCount; i++) {
+            listener.onTransition(pendingZone[i], pendingEntered[i], pendingTime[i]);
+        }
+        return accepted;
+    }
+
+    // A zone's transitions alternate, so a second one within a batch undoes the first
+    private void collectTransition(int zoneId, boolean entered, long timeMs) {
+        for (int i = 0; i < pendingCount; i++) {
+            if (pendingZone[i] == zoneId) {
+                pendingCount--;
+                pendingZone[i] = pendingZone[pendingCount];
+                pendingEntered[i] = pendingEntered[pendingCount];
+                pendingTime[i] = pendingTime[pendingCount];
+                return;
+            }
+        }
+        if (pendingCount == pendingZone.length) {
+            pendingZone = Arrays.copyOf(pendingZone, pendingCount * 2);
+            pendingEntered = Arrays.copyOf(pendingEntered, pendingCount * 2);
+            pendingTime = Arrays.copyOf(pendingTime, pendingCount * 2);
+        }
+        pendingZone[pendingCount] = zoneId;
+        pendingEntered[pendingCount] = entered;
+        pendingTime[pendingCount] = timeMs;
+        pendingCount++;
+    }
+
+    private void ensureBatchCapacity(int n) {
+        if (batchTime.length >= n) {
+            return;
+        }
+        batchOrder = new int[n];
+        batchTime = new long[n];
+        batchLat = new double[n];
+        batchLon = new double[n];
+        batchEnterCounts = new int[n];
+        batchHoldCounts = new int[n];
+        batchEnterHits = new int[n * MAX_CONTAINING_ZONES];
+        batchHoldHits = new int[n * MAX_CONTAINING_ZONES];
+    }
+
+    /** True while at least one zone has a confirmed entry. */
+    public boolean isInside() {
+        return transitionTracker.getInsideCount() > 0;
+    }
+
+    /**
+     * A zone we are confirmed inside, or -1. Confirmed zones always lie within
+     * their exit boundary, so only those hits need checking.
+     */
+    public int getCurrentZoneId() {
+        for (int i = 0; i < holdingCount; i++) {
+            if (transitionTracker.isInside(holdingZones[i])) {
+                return holdingZones[i];
+            }
+        }
+        return -1;
+    }
+
+    /** Zones whose enter boundary contained the last accepted fix. */
+    public int getContainingCount() {
+        return containingCount;
+    }
+
+    public long getAcceptedCount() {
+        return fixFilter.getAcceptedCount();
+    }
+
+    public long getDroppedCount() {
+        return fixFilter.getDroppedCount();
+    }
+
+    public long getStaleCount() {
+        return fixFilter.getStaleCount();
+    }
+
+    public long getDuplicateCount() {
+        return fixFilter.getDuplicateCount();
+    }
+
+    public void reset() {
+        fixFilter.reset();
+        transitionTracker.reset();
+        containingCount = 0;
+        holdingCount = 0;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.silentzone;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Locale;
+
+/** The zone exchange formats, picked by file name. */
+public enum ZoneFormat {
+    CSV("csv", "text/csv"),
+    GEOJSON("geojson", "application/geo+json"),
+    KML("kml", "application/vnd.google-earth.kml+xml");
+
+    public final String extension;
+    public final String mimeType;
+
+    ZoneFormat(String extension, String mimeType) {
+        this.extension = extension;
+        this.mimeType = mimeType;
+    }
+
+    /** The format for a file name by its extension, or null if it is not one of ours. */
+    public static ZoneFormat forName(String fileName) {
+        if (fileName == null) {
+            return null;
+        }
+        String lower = fileName.toLowerCase(Locale.US);
+        if (lower.endsWith(".csv") || lower.endsWith(".txt")) {
+            return CSV;
+        }
+        if (lower.endsWith(".geojson") || lower.endsWith(".json")) {
+            return GEOJSON;
+        }
+        if (lower.endsWith(".kml")) {
+            return KML;
+        }
+        return null;
+    }
+
+    public ZoneReader open(Reader reader) {
+        switch (this) {
+            case GEOJSON:
+                return new GeoJsonZoneReader(reader);
+            case KML:
+                return new KmlZoneReader(reader);
+            default:
+                return new CsvZoneReader(reader);
+        }
+    }
+
+    public ZoneWriter create(Writer writer) throws IOException {
+        switch (this) {
+            case GEOJSON:
+                return new GeoJsonZoneWriter(writer);
+            case KML:
+                return new KmlZoneWriter(writer);
+            default:
+                return new CsvZoneWriter(writer);
+        }
+    }
+}
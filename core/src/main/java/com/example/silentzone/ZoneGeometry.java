@@ -0,0 +1,125 @@
+package com.example.silentzone;
+
+/**
+ * Shape helpers for circle and polygon zones.
+ *
+ * Polygons are stored as interleaved vertex arrays: {lat0, lon0, lat1, lon1, ...}.
+ */
+public final class ZoneGeometry {
+
+    // Circle boxes are grown by this fraction of the radius plus BOX_PAD_METERS, covering rounding and
+    // the few centimeters by which a margin query's pad can fall short of a grown circle on the sphere
+    static final double BOX_PAD_FRACTION = 1e-3;
+    static final double BOX_PAD_METERS = 0.01;
+
+    private ZoneGeometry() {}
+
+    // Parses "lat,lon;lat,lon;..." into interleaved vertices, or null if there is no usable polygon
+    public static double[] parsePolygon(String encoded) {
+        if (encoded == null || encoded.trim().isEmpty()) {
+            return null;
+        }
+        String[] points = encoded.trim().split(";");
+        if (points.length < 3) {
+            return null;
+        }
+        double[] vertices = new double[points.length * 2];
+        try {
+            for (int i = 0; i < points.length; i++) {
+                String[] parts = points[i].split(",");
+                if (parts.length != 2) {
+                    return null;
+                }
+                vertices[i * 2] = Double.parseDouble(parts[0].trim());
+                vertices[i * 2 + 1] = Double.parseDouble(parts[1].trim());
+            }
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        return vertices;
+    }
+
+    public static String encodePolygon(double[] vertices) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < vertices.length; i += 2) {
+            if (i > 0) sb.append(';');
+            sb.append(vertices[i]).append(',').append(vertices[i + 1]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes {minLat, maxLat, minLon, maxLon} for a zone into {@code out}.
+     * Polygon zones use their vertices. Circle zones use the exact extent of
+     * the spherical cap haversine() tests against, slightly padded, so the box
+     * never rejects a point the exact test would accept.
+     */
+    public static void bounds(double lat, double lon, float radius, double[] polygon, double[] out) {
+        if (polygon != null) {
+            double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
+            double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
+            for (int i = 0; i < polygon.length; i += 2) {
+                minLat = Math.min(minLat, polygon[i]);
+                maxLat = Math.max(maxLat, polygon[i]);
+                minLon = Math.min(minLon, polygon[i + 1]);
+                maxLon = Math.max(maxLon, polygon[i + 1]);
+            }
+            out[0] = minLat;
+            out[1] = maxLat;
+            out[2] = minLon;
+            out[3] = maxLon;
+        } else {
+            double padded = radius * (1 + BOX_PAD_FRACTION) + BOX_PAD_METERS;
+            double angle = padded / GeoMath.EARTH_RADIUS_METERS;
+            double dLat = Math.toDegrees(angle);
+            // Widest point of the cap; a cap reaching over the pole spans every longitude
+            double sinLon = Math.sin(Math.min(angle, Math.PI / 2)) / Math.cos(Math.toRadians(lat));
+            double dLon = sinLon >= 1 || Double.isNaN(sinLon) ? 180 : Math.toDegrees(Math.asin(sinLon));
+            out[0] = lat - dLat;
+            out[1] = lat + dLat;
+            out[2] = lon - dLon;
+            out[3] = lon + dLon;
+        }
+    }
+
+    // Distance in meters from the point to the nearest polygon edge, inside or out
+    public static double distanceToEdge(double[] vertices, double lat, double lon) {
+        return distanceToEdge(vertices, vertices.length, lat, lon);
+    }
+
+    // Only the first n values of vertices are the polygon, as in a reused scratch array
+    static double distanceToEdge(double[] vertices, int n, double lat, double lon) {
+        // Local equirectangular projection centred on the point, which sits at the origin
+        double metersPerLat = GeoMath.METERS_PER_DEGREE_LAT;
+        double metersPerLon = metersPerLat * Math.cos(Math.toRadians(lat));
+        double best = Double.MAX_VALUE;
+        for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+            double ax = (vertices[j + 1] - lon) * metersPerLon, ay = (vertices[j] - lat) * metersPerLat;
+            double bx = (vertices[i + 1] - lon) * metersPerLon, by = (vertices[i] - lat) * metersPerLat;
+            double dx = bx - ax, dy = by - ay;
+            double lengthSq = dx * dx + dy * dy;
+            double t = lengthSq == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / lengthSq));
+            double px = ax + t * dx, py = ay + t * dy;
+            best = Math.min(best, px * px + py * py);
+        }
+        return Math.sqrt(best);
+    }
+
+    // Even-odd ray casting with longitude as x and latitude as y
+    public static boolean pointInPolygon(double[] vertices, double lat, double lon) {
+        return pointInPolygon(vertices, vertices.length, lat, lon);
+    }
+
+    static boolean pointInPolygon(double[] vertices, int n, double lat, double lon) {
+        boolean inside = false;
+        for (int i = 0, j = n - 2; i < n; j = i, i += 2) {
+            double latI = vertices[i], lonI = vertices[i + 1];
+            double latJ = vertices[j], lonJ = vertices[j + 1];
+            if ((latI > lat) != (latJ > lat)
+                    && lon < (lonJ - lonI) * (lat - latI) / (latJ - latI) + lonI) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
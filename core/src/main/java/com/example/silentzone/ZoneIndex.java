@@ -0,0 +1,543 @@
+package com.example.silentzone;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory grid index over silent zones.
+ *
+ * Zones are kept in primitive columns (lat[], lon[], radius[]) addressed by slot,
+ * and every grid cell a zone's bounding box touches holds that slot in its bucket.
+ * A containment query only looks at the single bucket under the fix, so the cost
+ * depends on local zone density rather than on the total number of zones, and
+ * nothing is allocated per query. Zones can be added and removed one at a time
+ * without rebuilding the index.
+ *
+ * Each candidate is first rejected against its precomputed bounding box; only
+ * fixes inside the box pay for the exact circle or point-in-polygon test.
+ */
+public class ZoneIndex implements ZoneLookup {
+
+    // ~1.1 km of latitude per cell
+    static final double CELL_DEGREES = 0.01;
+    // Zones are bucketed with this much slack so margin queries still find them
+    public static final double MAX_QUERY_MARGIN = 50; // meters
+
+    static final long EMPTY_KEY = Long.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_BUCKET_SIZE = 4;
+
+    // Zone columns, indexed by slot
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private double[] lat = new double[INITIAL_CAPACITY];
+    private double[] lon = new double[INITIAL_CAPACITY];
+    private float[] radius = new float[INITIAL_CAPACITY];
+    private double[][] polygons = new double[INITIAL_CAPACITY][];
+    // Radius around (lat, lon) that encloses the whole zone; the radius itself for circles
+    private double[] enclosingRadius = new double[INITIAL_CAPACITY];
+    private double[] minLat = new double[INITIAL_CAPACITY];
+    private double[] maxLat = new double[INITIAL_CAPACITY];
+    private double[] minLon = new double[INITIAL_CAPACITY];
+    private double[] maxLon = new double[INITIAL_CAPACITY];
+    private int[] cellLat0 = new int[INITIAL_CAPACITY];
+    private int[] cellLat1 = new int[INITIAL_CAPACITY];
+    private int[] cellLon0 = new int[INITIAL_CAPACITY];
+    private int[] cellLon1 = new int[INITIAL_CAPACITY];
+    private int slotCount;
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeCount;
+    private final Map<Integer, Integer> slotById = new HashMap<>();
+    private final double[] boundsScratch = new double[4];
+    // Scratch for queryBatch(), grown to the largest batch seen
+    private double[] batchPadLon = new double[0];
+    private long[] batchKeys = new long[0];
+    private int[] batchGroup = new int[0];
+
+    // Open-addressed cell table: key -> bucket of slots
+    private long[] cellKeys = newKeyTable(INITIAL_CAPACITY);
+    private int[][] cellSlots = new int[INITIAL_CAPACITY][];
+    private int[] cellSizes = new int[INITIAL_CAPACITY];
+    private int cellCount;
+
+    @Override
+    public int size() {
+        return slotById.size();
+    }
+
+    public boolean contains(int id) {
+        return slotById.containsKey(id);
+    }
+
+    public int[] copyIds() {
+        int[] result = new int[slotById.size()];
+        int i = 0;
+        for (Integer id : slotById.keySet()) {
+            result[i++] = id;
+        }
+        return result;
+    }
+
+    // Deep copy, so a snapshot can be handed to readers while this index keeps changing
+    public ZoneIndex copy() {
+        ZoneIndex copy = new ZoneIndex();
+        copy.ids = ids.clone();
+        copy.lat = lat.clone();
+        copy.lon = lon.clone();
+        copy.radius = radius.clone();
+        // Vertex arrays are never modified after add(), so they can be shared
+        copy.polygons = polygons.clone();
+        copy.enclosingRadius = enclosingRadius.clone();
+        copy.minLat = minLat.clone();
+        copy.maxLat = maxLat.clone();
+        copy.minLon = minLon.clone();
+        copy.maxLon = maxLon.clone();
+        copy.cellLat0 = cellLat0.clone();
+        copy.cellLat1 = cellLat1.clone();
+        copy.cellLon0 = cellLon0.clone();
+        copy.cellLon1 = cellLon1.clone();
+        copy.slotCount = slotCount;
+        copy.freeSlots = freeSlots.clone();
+        copy.freeCount = freeCount;
+        copy.slotById.putAll(slotById);
+        copy.cellKeys = cellKeys.clone();
+        copy.cellSlots = new int[cellSlots.length][];
+        for (int i = 0; i < cellSlots.length; i++) {
+            if (cellSlots[i] != null) {
+                copy.cellSlots[i] = cellSlots[i].clone();
+            }
+        }
+        copy.cellSizes = cellSizes.clone();
+        copy.cellCount = cellCount;
+        return copy;
+    }
+
+    public void add(int id, double zoneLat, double zoneLon, float zoneRadius) {
+        add(id, zoneLat, zoneLon, zoneRadius, null);
+    }
+
+    // A non-null polygon (interleaved lat/lon vertices) takes precedence over the radius
+    public void add(int id, double zoneLat, double zoneLon, float zoneRadius, double[] polygon) {
+        if (slotById.containsKey(id)) {
+            remove(id);
+        }
+
+        int slot = freeCount > 0 ? freeSlots[--freeCount] : nextSlot();
+        ids[slot] = id;
+        lat[slot] = zoneLat;
+        lon[slot] = zoneLon;
+        radius[slot] = zoneRadius;
+        polygons[slot] = polygon;
+        enclosingRadius[slot] = zoneRadius;
+        if (polygon != null) {
+            enclosingRadius[slot] = 0;
+            for (int i = 0; i < polygon.length; i += 2) {
+                enclosingRadius[slot] = Math.max(enclosingRadius[slot],
+                        GeoMath.haversine(zoneLat, zoneLon, polygon[i], polygon[i + 1]));
+            }
+        }
+
+        ZoneGeometry.bounds(zoneLat, zoneLon, zoneRadius, polygon, boundsScratch);
+        minLat[slot] = boundsScratch[0];
+        maxLat[slot] = boundsScratch[1];
+        minLon[slot] = boundsScratch[2];
+        maxLon[slot] = boundsScratch[3];
+        double slackLat = GeoMath.metersToLatDegrees(MAX_QUERY_MARGIN);
+        double slackLon = GeoMath.metersToLonDegrees(MAX_QUERY_MARGIN, zoneLat);
+        cellLat0[slot] = latCell(minLat[slot] - slackLat);
+        cellLat1[slot] = latCell(maxLat[slot] + slackLat);
+        cellLon0[slot] = lonCell(minLon[slot] - slackLon);
+        cellLon1[slot] = lonCell(maxLon[slot] + slackLon);
+
+        for (int y = cellLat0[slot]; y <= cellLat1[slot]; y++) {
+            for (int x = cellLon0[slot]; x <= cellLon1[slot]; x++) {
+                bucketAdd(cellKey(y, x), slot);
+            }
+        }
+        slotById.put(id, slot);
+    }
+
+    /**
+     * Adds the zone, or replaces it if it is indexed with a different
+     * geometry, e.g. a radius grown by merging a duplicate. Returns false if
+     * it was already indexed exactly like this.
+     */
+    public boolean put(int id, double zoneLat, double zoneLon, float zoneRadius, double[] polygon) {
+        Integer slot = slotById.get(id);
+        if (slot != null && lat[slot] == zoneLat && lon[slot] == zoneLon && radius[slot] == zoneRadius
+                && Arrays.equals(polygons[slot], polygon)) {
+            return false;
+        }
+        add(id, zoneLat, zoneLon, zoneRadius, polygon);
+        return true;
+    }
+
+    public void remove(int id) {
+        Integer boxed = slotById.remove(id);
+        if (boxed == null) {
+            return;
+        }
+        int slot = boxed;
+        for (int y = cellLat0[slot]; y <= cellLat1[slot]; y++) {
+            for (int x = cellLon0[slot]; x <= cellLon1[slot]; x++) {
+                bucketRemove(cellKey(y, x), slot);
+            }
+        }
+        polygons[slot] = null;
+        if (freeCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeCount * 2);
+        }
+        freeSlots[freeCount++] = slot;
+    }
+
+    public void clear() {
+        slotById.clear();
+        Arrays.fill(polygons, null);
+        slotCount = 0;
+        freeCount = 0;
+        Arrays.fill(cellKeys, EMPTY_KEY);
+        Arrays.fill(cellSlots, null);
+        Arrays.fill(cellSizes, 0);
+        cellCount = 0;
+    }
+
+    /**
+     * Writes the ids of all zones containing the point into {@code out} and
+     * returns how many were written.
+     */
+    public int query(double pointLat, double pointLon, int[] out) {
+        return query(pointLat, pointLon, 0, out);
+    }
+
+    /**
+     * Like {@link #query(double, double, int[])} but with every zone grown (positive
+     * margin) or shrunk (negative margin) by {@code marginMeters}, which is how
+     * separate enter and exit boundaries are tested. Positive margins are capped
+     * at {@link #MAX_QUERY_MARGIN}.
+     */
+    @Override
+    public int query(double pointLat, double pointLon, double marginMeters, int[] out) {
+        int cell = findCell(cellKey(latCell(pointLat), lonCell(pointLon)));
+        if (cell < 0) {
+            return 0;
+        }
+        double margin = Math.min(marginMeters, MAX_QUERY_MARGIN);
+        double padLat = GeoMath.metersToLatDegrees(Math.max(margin, 0));
+        double padLon = GeoMath.metersToLonDegrees(Math.max(margin, 0), pointLat);
+        int[] bucket = cellSlots[cell];
+        int bucketSize = cellSizes[cell];
+        int found = 0;
+        for (int i = 0; i < bucketSize && found < out.length; i++) {
+            int slot = bucket[i];
+            if (pointLat < minLat[slot] - padLat || pointLat > maxLat[slot] + padLat
+                    || pointLon < minLon[slot] - padLon || pointLon > maxLon[slot] + padLon) {
+                continue;
+            }
+            if (containsPoint(slot, pointLat, pointLon, margin)) {
+                out[found++] = ids[slot];
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Queries {@code n} points at once. The ids of the zones containing point
+     * {@code f} (grown by {@code marginMeters}, as in
+     * {@link #query(double, double, double, int[])}) are written to
+     * {@code out[f * stride]} onwards and their number to {@code counts[f]}.
+     *
+     * Points are grouped by grid cell, so each bucket is looked up once and each
+     * of its zones is tested against all the points in that cell in one inner
+     * loop. Consecutive fixes of a batch mostly share a cell. The grouping
+     * reuses scratch arrays, so batches must come from one thread.
+     */
+    @Override
+    public void queryBatch(double[] pointLat, double[] pointLon, int n, double marginMeters,
+                           int[] out, int stride, int[] counts) {
+        double margin = Math.min(marginMeters, MAX_QUERY_MARGIN);
+        double padLat = GeoMath.metersToLatDegrees(Math.max(margin, 0));
+        if (batchKeys.length < n) {
+            batchPadLon = new double[n];
+            batchKeys = new long[n];
+            batchGroup = new int[n];
+        }
+        double[] padLon = batchPadLon;
+        long[] keys = batchKeys;
+        int[] group = batchGroup;
+        for (int f = 0; f < n; f++) {
+            padLon[f] = GeoMath.metersToLonDegrees(Math.max(margin, 0), pointLat[f]);
+            keys[f] = cellKey(latCell(pointLat[f]), lonCell(pointLon[f]));
+            // -1 until the point's cell has been processed
+            counts[f] = -1;
+        }
+
+        for (int first = 0; first < n; first++) {
+            if (counts[first] >= 0) {
+                continue;
+            }
+            int groupSize = 0;
+            for (int f = first; f < n; f++) {
+                if (counts[f] < 0 && keys[f] == keys[first]) {
+                    counts[f] = 0;
+                    group[groupSize++] = f;
+                }
+            }
+            int cell = findCell(keys[first]);
+            if (cell < 0) {
+                continue;
+            }
+            int[] bucket = cellSlots[cell];
+            int bucketSize = cellSizes[cell];
+            for (int i = 0; i < bucketSize; i++) {
+                int slot = bucket[i];
+                double south = minLat[slot] - padLat;
+                double north = maxLat[slot] + padLat;
+                double west = minLon[slot];
+                double east = maxLon[slot];
+                for (int g = 0; g < groupSize; g++) {
+                    int f = group[g];
+                    double fLat = pointLat[f];
+                    double fLon = pointLon[f];
+                    if (fLat < south || fLat > north || fLon < west - padLon[f] || fLon > east + padLon[f]
+                            || counts[f] == stride) {
+                        continue;
+                    }
+                    if (containsPoint(slot, fLat, fLon, margin)) {
+                        out[f * stride + counts[f]++] = ids[slot];
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Distance in meters from the point to the closest zone boundary, whether the
+     * point is inside that zone or not. Returns {@code maxMeters} if no boundary
+     * is closer than that.
+     *
+     * Cells are scanned in rings around the point and the scan stops once the
+     * unscanned rings are provably further away than the best boundary found.
+     */
+    @Override
+    public double distanceToNearestBoundary(double pointLat, double pointLon, double maxMeters) {
+        int centerLat = latCell(pointLat);
+        int centerLon = lonCell(pointLon);
+        double cellMeters = CELL_DEGREES * GeoMath.METERS_PER_DEGREE_LAT
+                * Math.max(Math.cos(Math.toRadians(pointLat)), 0.01);
+        double best = maxMeters;
+
+        // Cells in ring k are at least (k - 1) cells away from the point
+        for (int ring = 0; (ring - 1) * cellMeters < best; ring++) {
+            for (int y = centerLat - ring; y <= centerLat + ring; y++) {
+                boolean edgeRow = y == centerLat - ring || y == centerLat + ring;
+                int step = edgeRow ? 1 : Math.max(1, 2 * ring);
+                for (int x = centerLon - ring; x <= centerLon + ring; x += step) {
+                    int cell = findCell(cellKey(y, x));
+                    if (cell < 0) {
+                        continue;
+                    }
+                    int[] bucket = cellSlots[cell];
+                    for (int i = 0; i < cellSizes[cell]; i++) {
+                        best = Math.min(best, boundaryDistance(bucket[i], pointLat, pointLon));
+                    }
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Writes the ids of the {@code outIds.length} zones whose enclosing circle
+     * (see {@link #enclosingCircle}) comes closest to the point into
+     * {@code outIds}, nearest first, and the distance to each circle's edge
+     * (negative inside) into {@code outDistances}. Returns how many were written.
+     *
+     * Scans every zone, so it is meant for occasional re-ranking, not per fix.
+     */
+    public int nearest(double pointLat, double pointLon, int[] outIds, double[] outDistances) {
+        int count = 0;
+        for (int slot : slotById.values()) {
+            double distance = GeoMath.haversine(pointLat, pointLon, lat[slot], lon[slot]) - enclosingRadius[slot];
+            if (count == outIds.length && distance >= outDistances[count - 1]) {
+                continue;
+            }
+            // Insertion into the sorted prefix; the farthest drops off once it is full
+            int i = count < outIds.length ? count++ : count - 1;
+            while (i > 0 && outDistances[i - 1] > distance) {
+                outIds[i] = outIds[i - 1];
+                outDistances[i] = outDistances[i - 1];
+                i--;
+            }
+            outIds[i] = ids[slot];
+            outDistances[i] = distance;
+        }
+        return count;
+    }
+
+    /**
+     * Writes the circle around the zone's center that just holds the whole
+     * zone into {@code out} as latitude, longitude, radius. Platform geofences
+     * are circles, so this is what stands in for a polygon. Returns false for
+     * an unknown id.
+     */
+    public boolean enclosingCircle(int id, double[] out) {
+        Integer slot = slotById.get(id);
+        if (slot == null) {
+            return false;
+        }
+        out[0] = lat[slot];
+        out[1] = lon[slot];
+        out[2] = enclosingRadius[slot];
+        return true;
+    }
+
+    // Hands every zone to the visitor as it was added; used to persist the index
+    void forEachZone(ZoneVisitor visitor) {
+        for (int slot : slotById.values()) {
+            visitor.visit(ids[slot], lat[slot], lon[slot], radius[slot], polygons[slot]);
+        }
+    }
+
+    interface ZoneVisitor {
+        void visit(int id, double lat, double lon, float radius, double[] polygon);
+    }
+
+    private double boundaryDistance(int slot, double pointLat, double pointLon) {
+        double[] polygon = polygons[slot];
+        if (polygon != null) {
+            return ZoneGeometry.distanceToEdge(polygon, pointLat, pointLon);
+        }
+        return Math.abs(GeoMath.haversine(pointLat, pointLon, lat[slot], lon[slot]) - radius[slot]);
+    }
+
+    // Exact test, only reached once the fix is inside the (padded) bounding box
+    private boolean containsPoint(int slot, double pointLat, double pointLon, double margin) {
+        double[] polygon = polygons[slot];
+        if (polygon != null) {
+            boolean inside = ZoneGeometry.pointInPolygon(polygon, pointLat, pointLon);
+            if (margin == 0) {
+                return inside;
+            }
+            double edge = ZoneGeometry.distanceToEdge(polygon, pointLat, pointLon);
+            return margin > 0 ? inside || edge <= margin : inside && edge >= -margin;
+        }
+        return GeoMath.haversine(pointLat, pointLon, lat[slot], lon[slot]) <= radius[slot] + margin;
+    }
+
+    private int nextSlot() {
+        if (slotCount == ids.length) {
+            int capacity = slotCount * 2;
+            ids = Arrays.copyOf(ids, capacity);
+            lat = Arrays.copyOf(lat, capacity);
+            lon = Arrays.copyOf(lon, capacity);
+            radius = Arrays.copyOf(radius, capacity);
+            polygons = Arrays.copyOf(polygons, capacity);
+            enclosingRadius = Arrays.copyOf(enclosingRadius, capacity);
+            minLat = Arrays.copyOf(minLat, capacity);
+            maxLat = Arrays.copyOf(maxLat, capacity);
+            minLon = Arrays.copyOf(minLon, capacity);
+            maxLon = Arrays.copyOf(maxLon, capacity);
+            cellLat0 = Arrays.copyOf(cellLat0, capacity);
+            cellLat1 = Arrays.copyOf(cellLat1, capacity);
+            cellLon0 = Arrays.copyOf(cellLon0, capacity);
+            cellLon1 = Arrays.copyOf(cellLon1, capacity);
+        }
+        return slotCount++;
+    }
+
+    private void bucketAdd(long key, int slot) {
+        int cell = findCell(key);
+        if (cell < 0) {
+            if ((cellCount + 1) * 2 > cellKeys.length) {
+                growCells();
+            }
+            cell = insertCell(key);
+        }
+        int[] bucket = cellSlots[cell];
+        if (bucket == null) {
+            bucket = cellSlots[cell] = new int[INITIAL_BUCKET_SIZE];
+        } else if (cellSizes[cell] == bucket.length) {
+            bucket = cellSlots[cell] = Arrays.copyOf(bucket, bucket.length * 2);
+        }
+        bucket[cellSizes[cell]++] = slot;
+    }
+
+    private void bucketRemove(long key, int slot) {
+        int cell = findCell(key);
+        if (cell < 0) {
+            return;
+        }
+        int[] bucket = cellSlots[cell];
+        int last = cellSizes[cell] - 1;
+        for (int i = 0; i <= last; i++) {
+            if (bucket[i] == slot) {
+                bucket[i] = bucket[last];
+                cellSizes[cell] = last;
+                return;
+            }
+        }
+    }
+
+    private int findCell(long key) {
+        int mask = cellKeys.length - 1;
+        int i = hash(key) & mask;
+        while (cellKeys[i] != EMPTY_KEY) {
+            if (cellKeys[i] == key) {
+                return i;
+            }
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int insertCell(long key) {
+        int mask = cellKeys.length - 1;
+        int i = hash(key) & mask;
+        while (cellKeys[i] != EMPTY_KEY) {
+            i = (i + 1) & mask;
+        }
+        cellKeys[i] = key;
+        cellCount++;
+        return i;
+    }
+
+    private void growCells() {
+        long[] oldKeys = cellKeys;
+        int[][] oldSlots = cellSlots;
+        int[] oldSizes = cellSizes;
+        cellKeys = newKeyTable(oldKeys.length * 2);
+        cellSlots = new int[oldKeys.length * 2][];
+        cellSizes = new int[oldKeys.length * 2];
+        cellCount = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY_KEY) {
+                int cell = insertCell(oldKeys[i]);
+                cellSlots[cell] = oldSlots[i];
+                cellSizes[cell] = oldSizes[i];
+            }
+        }
+    }
+
+    private static long[] newKeyTable(int capacity) {
+        long[] keys = new long[capacity];
+        Arrays.fill(keys, EMPTY_KEY);
+        return keys;
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    static int latCell(double value) {
+        return (int) Math.floor((value + 90.0) / CELL_DEGREES);
+    }
+
+    static int lonCell(double value) {
+        return (int) Math.floor((value + 180.0) / CELL_DEGREES);
+    }
+
+    static long cellKey(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.silentzone;
+
+/**
+ * The read side of a zone index, as the evaluator needs it. Implemented by
+ * the editable {@link ZoneIndex} and by {@link MappedZoneIndex}, which
+ * answers the same queries straight from a persisted file.
+ */
+public interface ZoneLookup {
+
+    int size();
+
+    /** See {@link ZoneIndex#query(double, double, double, int[])}. */
+    int query(double pointLat, double pointLon, double marginMeters, int[] out);
+
+    /** See {@link ZoneIndex#queryBatch}. */
+    void queryBatch(double[] pointLat, double[] pointLon, int n, double marginMeters,
+                    int[] out, int stride, int[] counts);
+
+    /** See {@link ZoneIndex#distanceToNearestBoundary}. */
+    double distanceToNearestBoundary(double pointLat, double pointLon, double maxMeters);
+}
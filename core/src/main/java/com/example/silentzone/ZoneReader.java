@@ -0,0 +1,14 @@
+package com.example.silentzone;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/** Streams zones from an exchange file, one at a time. */
+public interface ZoneReader extends Closeable {
+
+    /**
+     * Fills {@code record} with the next zone; returns false at the end of the
+     * file. Throws only when the file itself is unreadable, not for a bad row.
+     */
+    boolean next(ZoneRecord record) throws IOException;
+}
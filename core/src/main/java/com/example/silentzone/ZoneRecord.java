@@ -0,0 +1,93 @@
+package com.example.silentzone;
+
+/**
+ * One zone as read from or written to an exchange file. Readers fill a
+ * caller-owned instance, as with {@link TraceFix}, so streaming a large file
+ * allocates little beyond the strings themselves.
+ *
+ * Readers do not reject bad rows; a field that fails to parse is left NaN and
+ * {@link #isValid()} reports it, so one bad line does not abort an import.
+ */
+public class ZoneRecord {
+    public static final float DEFAULT_RADIUS = 100; // meters
+    // What readers store for a priority that is not a number
+    static final int INVALID_PRIORITY = Integer.MIN_VALUE;
+
+    public String name;
+    public double latitude;
+    public double longitude;
+    public float radius;
+    // "lat,lon;lat,lon;..." as stored by the app, or null for a circle
+    public String polygon;
+    // Active hours in ZoneSchedule syntax, or null for always
+    public String schedule;
+    // Where zones overlap the higher priority wins; see ZoneActions
+    public int priority;
+    public int action;
+
+    public void clear() {
+        name = null;
+        latitude = Double.NaN;
+        longitude = Double.NaN;
+        radius = DEFAULT_RADIUS;
+        polygon = null;
+        schedule = null;
+        priority = ZoneActions.DEFAULT_PRIORITY;
+        action = ZoneActions.ACTION_SILENT;
+    }
+
+    public boolean isValid() {
+        if (!(latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180)) {
+            return false;
+        }
+        if (schedule != null && ZoneSchedule.parse(schedule) == null) {
+            return false;
+        }
+        if (priority == INVALID_PRIORITY || ZoneActions.actionName(action) == null) {
+            return false;
+        }
+        if (polygon != null) {
+            return ZoneGeometry.parsePolygon(polygon) != null;
+        }
+        return radius > 0;
+    }
+
+    /** Centers the record on the mean of the polygon's vertices and stores the outline. */
+    void setPolygon(double[] vertices, int count) {
+        double sumLat = 0;
+        double sumLon = 0;
+        StringBuilder encoded = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            double lat = vertices[i * 2];
+            double lon = vertices[i * 2 + 1];
+            sumLat += lat;
+            sumLon += lon;
+            if (i > 0) {
+                encoded.append(';');
+            }
+            encoded.append(lat).append(',').append(lon);
+        }
+        latitude = count == 0 ? Double.NaN : sumLat / count;
+        longitude = count == 0 ? Double.NaN : sumLon / count;
+        polygon = count < 3 ? "" : encoded.toString();
+    }
+
+    static int parsePriority(String value) {
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return INVALID_PRIORITY;
+        }
+    }
+
+    static double parseDouble(String value) {
+        if (value == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+}
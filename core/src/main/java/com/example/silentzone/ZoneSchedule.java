@@ -0,0 +1,172 @@
+package com.example.silentzone;
+
+import java.util.Locale;
+
+/**
+ * Weekly time windows during which a zone is active, written as
+ * {@code "Mon-Fri 09:00-17:00; Sun 10:00-12:30"}. Days may be listed
+ * ({@code Mon,Wed}), given as a range, or left out for every day. A window
+ * whose end is not after its start runs past midnight into the next day.
+ *
+ * Minutes of the week count from Monday 00:00, in local time.
+ */
+public final class ZoneSchedule {
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MINUTES_PER_WEEK = 7 * MINUTES_PER_DAY;
+    private static final String[] DAYS = {"mon", "tue", "wed", "thu", "fri", "sat", "sun"};
+    private static final int EVERY_DAY = 0x7f;
+
+    // Per window: bit d set for day d (0 = Monday), and the minutes of that day it runs
+    private final int[] dayMasks;
+    private final int[] starts;
+    private final int[] ends;
+
+    private ZoneSchedule(int[] dayMasks, int[] starts, int[] ends) {
+        this.dayMasks = dayMasks;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /** Parses a schedule, or returns null if it is malformed. */
+    public static ZoneSchedule parse(String text) {
+        if (text == null || text.trim().isEmpty()) {
+            return null;
+        }
+        String[] windows = text.trim().split("\\s*;\\s*");
+        int[] dayMasks = new int[windows.length];
+        int[] starts = new int[windows.length];
+        int[] ends = new int[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            String window = windows[i].trim().toLowerCase(Locale.ROOT);
+            int space = window.lastIndexOf(' ');
+            String days = space < 0 ? null : window.substring(0, space).replace(" ", "");
+            String times = space < 0 ? window : window.substring(space + 1);
+            dayMasks[i] = days == null ? EVERY_DAY : parseDays(days);
+            int dash = times.indexOf('-');
+            if (dayMasks[i] == 0 || dash < 0) {
+                return null;
+            }
+            starts[i] = parseTime(times.substring(0, dash));
+            ends[i] = parseTime(times.substring(dash + 1));
+            if (starts[i] < 0 || ends[i] < 0 || starts[i] == MINUTES_PER_DAY || starts[i] == ends[i]) {
+                return null;
+            }
+        }
+        return new ZoneSchedule(dayMasks, starts, ends);
+    }
+
+    private static int parseDays(String days) {
+        int mask = 0;
+        for (String part : days.split(",")) {
+            int dash = part.indexOf('-');
+            int from = dayIndex(dash < 0 ? part : part.substring(0, dash));
+            int to = dash < 0 ? from : dayIndex(part.substring(dash + 1));
+            if (from < 0 || to < 0) {
+                return 0;
+            }
+            // Ranges may wrap, e.g. Sat-Mon
+            for (int d = from; ; d = (d + 1) % 7) {
+                mask |= 1 << d;
+                if (d == to) {
+                    break;
+                }
+            }
+        }
+        return mask;
+    }
+
+    private static int dayIndex(String name) {
+        String prefix = name.length() >= 3 ? name.substring(0, 3) : name;
+        for (int d = 0; d < DAYS.length; d++) {
+            if (DAYS[d].equals(prefix)) {
+                return d;
+            }
+        }
+        return -1;
+    }
+
+    // "HH:MM" to minutes of the day, 24:00 allowed as an end; -1 if malformed
+    private static int parseTime(String time) {
+        int colon = time.indexOf(':');
+        if (colon < 1 || colon != time.length() - 3) {
+            return -1;
+        }
+        try {
+            int hours = Integer.parseInt(time.substring(0, colon));
+            int minutes = Integer.parseInt(time.substring(colon + 1));
+            int total = hours * 60 + minutes;
+            return hours < 0 || minutes < 0 || minutes > 59 || total > MINUTES_PER_DAY ? -1 : total;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /** {@code dayOfWeek} 0 = Monday .. 6 = Sunday. */
+    public static int minuteOfWeek(int dayOfWeek, int hour, int minute) {
+        return dayOfWeek * MINUTES_PER_DAY + hour * 60 + minute;
+    }
+
+    /** Direct check against the windows; {@link ScheduleIndex} answers the same in O(1). */
+    public boolean isActive(int minuteOfWeek) {
+        for (int i = 0; i < starts.length; i++) {
+            for (int d = 0; d < 7; d++) {
+                if ((dayMasks[i] & (1 << d)) != 0
+                        && Math.floorMod(minuteOfWeek - (d * MINUTES_PER_DAY + starts[i]), MINUTES_PER_WEEK)
+                        < length(i)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private int length(int window) {
+        int start = starts[window];
+        int end = ends[window];
+        return end > start ? end - start : end + MINUTES_PER_DAY - start;
+    }
+
+    /** Calls {@code sink} with each [start, end) interval in minutes of the week; end may exceed a week. */
+    void forEachInterval(IntervalSink sink) {
+        for (int i = 0; i < starts.length; i++) {
+            int length = length(i);
+            for (int d = 0; d < 7; d++) {
+                if ((dayMasks[i] & (1 << d)) != 0) {
+                    int start = d * MINUTES_PER_DAY + starts[i];
+                    sink.accept(start, start + length);
+                }
+            }
+        }
+    }
+
+    interface IntervalSink {
+        void accept(int start, int end);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < starts.length; i++) {
+            if (i > 0) {
+                text.append("; ");
+            }
+            if (dayMasks[i] != EVERY_DAY) {
+                boolean first = true;
+                for (int d = 0; d < 7; d++) {
+                    if ((dayMasks[i] & (1 << d)) != 0) {
+                        if (!first) {
+                            text.append(',');
+                        }
+                        first = false;
+                        text.append(Character.toUpperCase(DAYS[d].charAt(0))).append(DAYS[d], 1, 3);
+                    }
+                }
+                text.append(' ');
+            }
+            text.append(String.format(Locale.US, "%02d:%02d-%02d:%02d", starts[i] / 60, starts[i] % 60,
+                    ends[i] / 60, ends[i] % 60));
+        }
+        return text.toString();
+    }
+}
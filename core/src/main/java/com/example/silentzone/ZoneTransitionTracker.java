@@ -0,0 +1,131 @@
+package com.example.silentzone;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Per-zone enter/exit state machine that turns noisy containment results into
+ * real transitions.
+ *
+ * A zone is entered once the fix has been inside its enter boundary for
+ * {@code confirmFixes} consecutive fixes spanning at least {@code minDwellMs},
+ * and left once the fix has been outside its (larger) exit boundary the same
+ * way. Fixes between the two boundaries keep the current state, so a GPS
+ * wandering around the edge does not flap the ringer.
+ */
+public class ZoneTransitionTracker {
+
+    public interface Listener {
+        void onTransition(int zoneId, boolean entered, long timeMs);
+    }
+
+    private static final int ENTERING = 1;
+    private static final int INSIDE = 2;
+    private static final int EXITING = 3;
+
+    private static class ZoneState {
+        int state;
+        long since;
+        int fixes;
+    }
+
+    private final long minDwellMs;
+    private final int confirmFixes;
+    // Zones we are in or moving between states for; anything else is outside
+    private final Map<Integer, ZoneState> tracked = new HashMap<>();
+    private int insideCount;
+
+    public ZoneTransitionTracker(long minDwellMs, int confirmFixes) {
+        this.minDwellMs = minDwellMs;
+        this.confirmFixes = confirmFixes;
+    }
+
+    /**
+     * Feeds one fix. {@code enterHits} are the zones whose enter boundary
+     * contains the fix, {@code holdHits} those whose exit boundary does (a
+     * superset). Transitions are reported to {@code listener} in the order they
+     * happen.
+     */
+    public void update(long timeMs, int[] enterHits, int enterCount,
+                       int[] holdHits, int holdCount, Listener listener) {
+        for (int i = 0; i < enterCount; i++) {
+            int zoneId = enterHits[i];
+            ZoneState zone = tracked.get(zoneId);
+            if (zone == null) {
+                zone = new ZoneState();
+                zone.state = ENTERING;
+                zone.since = timeMs;
+                zone.fixes = 0;
+                tracked.put(zoneId, zone);
+            }
+            if (zone.state == ENTERING) {
+                zone.fixes++;
+                if (confirmed(zone, timeMs)) {
+                    zone.state = INSIDE;
+                    insideCount++;
+                    listener.onTransition(zoneId, true, timeMs);
+                }
+            }
+        }
+
+        Iterator<Map.Entry<Integer, ZoneState>> it = tracked.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Integer, ZoneState> entry = it.next();
+            int zoneId = entry.getKey();
+            ZoneState zone = entry.getValue();
+            switch (zone.state) {
+                case ENTERING:
+                    if (!contains(enterHits, enterCount, zoneId)) {
+                        it.remove();
+                    }
+                    break;
+                case INSIDE:
+                case EXITING:
+                    if (contains(holdHits, holdCount, zoneId)) {
+                        zone.state = INSIDE;
+                        break;
+                    }
+                    if (zone.state == INSIDE) {
+                        zone.state = EXITING;
+                        zone.since = timeMs;
+                        zone.fixes = 0;
+                    }
+                    zone.fixes++;
+                    if (confirmed(zone, timeMs)) {
+                        it.remove();
+                        insideCount--;
+                        listener.onTransition(zoneId, false, timeMs);
+                    }
+                    break;
+            }
+        }
+    }
+
+    public int getInsideCount() {
+        return insideCount;
+    }
+
+    public boolean isInside(int zoneId) {
+        ZoneState zone = tracked.get(zoneId);
+        return zone != null && (zone.state == INSIDE || zone.state == EXITING);
+    }
+
+    public void reset() {
+        tracked.clear();
+        insideCount = 0;
+    }
+
+    private boolean confirmed(ZoneState zone, long timeMs) {
+        return zone.fixes >= confirmFixes && timeMs - zone.since >= minDwellMs;
+    }
+
+    private static boolean contains(int[] ids, int count, int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.silentzone;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/** Streams zones into an exchange file. {@link #close()} writes any trailer. */
+public interface ZoneWriter extends Closeable, Flushable {
+
+    void write(ZoneRecord record) throws IOException;
+}
@@ -0,0 +1,67 @@
+package com.example.silentzone;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Stands in for the platform: keeps the registered fences and, as the test
+ * moves the user, reports the fences entered and left, as the platform would.
+ */
+class FakeGeofenceClient implements GeofenceClient {
+
+    final Map<String, GeofenceManager.Fence> fences = new LinkedHashMap<>();
+    private final Set<String> inside = new HashSet<>();
+    int addCalls;
+    int removeCalls;
+    int fencesAdded;
+    private double lat = Double.NaN;
+    private double lon = Double.NaN;
+
+    @Override
+    public void add(List<GeofenceManager.Fence> added) {
+        addCalls++;
+        fencesAdded += added.size();
+        for (GeofenceManager.Fence fence : added) {
+            fences.put(fence.id, fence);
+            // No initial trigger: a fence registered around the user is silently entered
+            if (fence.contains(lat, lon)) {
+                inside.add(fence.id);
+            } else {
+                inside.remove(fence.id);
+            }
+        }
+    }
+
+    @Override
+    public void remove(List<String> ids) {
+        removeCalls++;
+        for (String id : ids) {
+            fences.remove(id);
+            inside.remove(id);
+        }
+    }
+
+    /** Moves the user and returns the transitions as "+id" for enter and "-id" for exit. */
+    List<String> moveTo(double lat, double lon) {
+        this.lat = lat;
+        this.lon = lon;
+        List<String> events = new ArrayList<>();
+        for (GeofenceManager.Fence fence : fences.values()) {
+            boolean now = fence.contains(lat, lon);
+            if (now == inside.contains(fence.id)) {
+                continue;
+            }
+            events.add((now ? "+" : "-") + fence.id);
+            if (now) {
+                inside.add(fence.id);
+            } else {
+                inside.remove(fence.id);
+            }
+        }
+        return events;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class FixFilterTest {
+
+    private static final double LAT = 10.85;
+    private static final double LON = 76.27;
+
+    @Test
+    public void accept_dropsOutOfOrderFixes() {
+        FixFilter filter = new FixFilter();
+        assertTrue(filter.accept(10000, LAT, LON, "gps"));
+        assertFalse(filter.accept(9000, LAT, LON, "gps"));
+        assertTrue(filter.accept(15000, LAT, LON, "gps"));
+        assertEquals(2, filter.getAcceptedCount());
+        assertEquals(1, filter.getDroppedCount());
+        assertEquals(1, filter.getStaleCount());
+    }
+
+    @Test
+    public void accept_dropsAFixDeliveredAgain() {
+        FixFilter filter = new FixFilter();
+        assertTrue(filter.accept(10000, LAT, LON, "gps"));
+        // The same fix handed on by another provider
+        assertFalse(filter.accept(10500, LAT, LON, "fused"));
+        // The same timestamp twice
+        assertFalse(filter.accept(10000, LAT + 0.001, LON, "network"));
+        // Another provider's own fix is new information
+        assertTrue(filter.accept(11000, LAT + 0.001, LON, "network"));
+        // Outside the window even the same position is a new fix
+        assertTrue(filter.accept(13500, LAT + 0.001, LON, "gps"));
+        assertEquals(2, filter.getDuplicateCount());
+        assertEquals(0, filter.getStaleCount());
+    }
+
+    @Test
+    public void accept_keepsEveryFixOfASingleProviderStream() {
+        FixFilter filter = new FixFilter();
+        // A parked phone at 1 Hz: same position and accuracy every second
+        for (int i = 0; i < 3600; i++) {
+            assertTrue("fix " + i, filter.accept(i * 1000L, LAT, LON, "gps"));
+        }
+        // Fixes without a provider, as in a replayed trace
+        FixFilter unnamed = new FixFilter();
+        for (int i = 0; i < 3600; i++) {
+            assertTrue("fix " + i, unnamed.accept(i * 1000L, LAT, LON, null));
+        }
+        assertEquals(0, filter.getDroppedCount() + unnamed.getDroppedCount());
+    }
+
+    @Test
+    public void reset_acceptsAnyNextFix() {
+        FixFilter filter = new FixFilter();
+        assertTrue(filter.accept(10000, LAT, LON, "gps"));
+        filter.reset();
+        assertTrue(filter.accept(5000, LAT, LON, "network"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class GeoMathTest {
+
+    private static final double LAT = 10.85;
+    private static final double LON = 76.27;
+
+    @Test
+    public void vincentyMatchesKnownDistance() {
+        // Flinders Peak to Buninyong, the classic Vincenty test case
+        double d = GeoMath.vincenty(-37.9510334, 144.4248679, -37.6528211, 143.9264956);
+        assertEquals(54972.271, d, 0.01);
+        assertEquals(0, GeoMath.vincenty(LAT, LON, LAT, LON), 0);
+    }
+
+    @Test
+    public void approximationsAgreeAtZoneScale() {
+        double cosLat = Math.cos(Math.toRadians(LAT));
+        for (double meters = 10; meters <= 5000; meters *= 2) {
+            double lat = LAT + GeoMath.metersToLatDegrees(meters * 0.6);
+            double lon = LON + GeoMath.metersToLonDegrees(meters * 0.8, LAT);
+            double reference = GeoMath.vincenty(LAT, LON, lat, lon);
+            // The sphere and the ellipsoid differ by up to ~0.5%
+            assertEquals(reference, GeoMath.haversine(LAT, LON, lat, lon), reference * 0.005);
+            assertEquals(GeoMath.haversine(LAT, LON, lat, lon),
+                    GeoMath.equirectangular(LAT, LON, lat, lon, cosLat), reference * 0.001);
+            double squared = GeoMath.equirectangularSquared(LAT, LON, lat, lon, cosLat);
+            assertEquals(GeoMath.equirectangular(LAT, LON, lat, lon, cosLat), Math.sqrt(squared), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GeofenceManagerTest {
+
+    private static final double LAT = 10.85;
+    private static final double LON = 76.27;
+
+    private static double north(double meters) {
+        return LAT + GeoMath.metersToLatDegrees(meters);
+    }
+
+    // Circles of 100 m every 500 m due north
+    private static ZoneIndex zonesAlongRoad(int count) {
+        ZoneIndex zones = new ZoneIndex();
+        for (int i = 0; i < count; i++) {
+            zones.add(i + 1, north(500 + i * 500), LON, 100);
+        }
+        return zones;
+    }
+
+    @Test
+    public void registersNearestZonesAndSwapsOnlyWhatChanges() {
+        FakeGeofenceClient client = new FakeGeofenceClient();
+        GeofenceManager manager = new GeofenceManager(client, 4);
+        ZoneIndex zones = zonesAlongRoad(10);
+
+        manager.update(zones, LAT, LON);
+        assertEquals(3, manager.getRegisteredCount());
+        assertTrue(manager.isRegistered(1) && manager.isRegistered(2) && manager.isRegistered(3));
+        assertTrue(client.fences.containsKey(GeofenceManager.REFRESH_FENCE_ID));
+        // Zone 4, the nearest left out, has its edge 1900 m away
+        assertEquals(1900 * GeofenceManager.REFRESH_FRACTION, manager.getRefreshFence().radius, 5);
+
+        manager.update(zones, north(1500), LON);
+        assertTrue(manager.isRegistered(2) && manager.isRegistered(3) && manager.isRegistered(4));
+        assertFalse(client.fences.containsKey("1"));
+        assertEquals(1, manager.getSwapCount());
+        // Zones 2 and 3 kept their fences; only 4 and the refresh fence were sent again
+        assertEquals(3 + 1 + 1 + 1, client.fencesAdded);
+    }
+
+    @Test
+    public void grownZoneIsRegisteredAgain() {
+        FakeGeofenceClient client = new FakeGeofenceClient();
+        GeofenceManager manager = new GeofenceManager(client, 4);
+        ZoneIndex zones = zonesAlongRoad(3);
+        manager.update(zones, LAT, LON);
+        int added = client.fencesAdded;
+
+        // Zone 2 absorbed a duplicate
+        zones.put(2, north(1000), LON, 130, null);
+        manager.update(zones, LAT, LON);
+        assertEquals(130, client.fences.get("2").radius, 0);
+        // Zone 2 and the refresh fence
+        assertEquals(added + 2, client.fencesAdded);
+    }
+
+    @Test
+    public void everyLoadedZoneFitsSoRefreshOnlyGuardsTheRegion() {
+        FakeGeofenceClient client = new FakeGeofenceClient();
+        GeofenceManager manager = new GeofenceManager(client);
+        manager.update(zonesAlongRoad(10), LAT, LON);
+        assertEquals(10, manager.getRegisteredCount());
+        assertEquals(GeofenceManager.MAX_REFRESH_RADIUS, manager.getRefreshFence().radius, 0);
+    }
+
+    @Test
+    public void polygonsAreFencedByTheirEnclosingCircle() {
+        ZoneIndex zones = new ZoneIndex();
+        double[] square = {north(-100), LON, north(-100), LON + 0.001, north(100), LON + 0.001, north(100), LON};
+        zones.add(7, LAT, LON + 0.0005, 0, square);
+        FakeGeofenceClient client = new FakeGeofenceClient();
+        GeofenceManager manager = new GeofenceManager(client);
+
+        manager.update(zones, LAT, LON + 0.0005);
+
+        GeofenceManager.Fence fence = client.fences.get("7");
+        double corner = GeoMath.haversine(LAT, LON + 0.0005, north(100), LON + 0.001);
+        assertEquals(corner, fence.radius, 0.01);
+        assertTrue(manager.isInsideZoneFence());
+    }
+
+    @Test
+    public void failedRegistrationFallsBackToSampling() {
+        GeofenceManager manager = new GeofenceManager(new FakeGeofenceClient());
+        manager.update(zonesAlongRoad(3), LAT, LON);
+        assertTrue(manager.isActive());
+        manager.onRegistrationFailed();
+        assertFalse(manager.isActive());
+        manager.update(zonesAlongRoad(3), LAT, LON);
+        assertFalse(manager.isActive());
+    }
+
+    @Test
+    public void replayedDriveNeverReachesAnUnregisteredZone() throws IOException {
+        int count = 40;
+        ZoneIndex zones = zonesAlongRoad(count);
+        // Zones off to the side compete for the few fences
+        for (int i = 0; i < count; i++) {
+            zones.add(1000 + i, north(250 + i * 500), LON + 0.01, 100);
+        }
+        // 15 m/s due north, one fix every 5 s, past every road zone
+        StringBuilder csv = new StringBuilder("time,lat,lon,accuracy\n");
+        for (int i = 0; i * 75 < count * 500 + 500; i++) {
+            csv.append(i * 5000L).append(',').append(north(i * 75)).append(',').append(LON).append(",8\n");
+        }
+
+        FakeGeofenceClient client = new FakeGeofenceClient();
+        GeofenceManager manager = new GeofenceManager(client, 6);
+        TraceReader trace = new CsvTraceReader(new StringReader(csv.toString()));
+        TraceFix fix = new TraceFix();
+        int[] hits = new int[8];
+        int refreshes = 0;
+        int zoneEntries = 0;
+        boolean first = true;
+        while (trace.next(fix)) {
+            if (first) {
+                manager.update(zones, fix.latitude, fix.longitude);
+                first = false;
+            }
+            List<String> events = client.moveTo(fix.latitude, fix.longitude);
+            for (String event : events) {
+                boolean entered = event.charAt(0) == '+';
+                if (entered && !event.endsWith(GeofenceManager.REFRESH_FENCE_ID)) {
+                    zoneEntries++;
+                }
+                if (manager.onTransition(event.substring(1), entered)) {
+                    refreshes++;
+                    manager.update(zones, fix.latitude, fix.longitude);
+                    client.moveTo(fix.latitude, fix.longitude);
+                }
+            }
+            int inside = zones.query(fix.latitude, fix.longitude, hits);
+            for (int i = 0; i < inside; i++) {
+                assertTrue("zone " + hits[i] + " not fenced at " + fix.timeMs, manager.isRegistered(hits[i]));
+                assertTrue(manager.isInsideZoneFence());
+            }
+        }
+        assertEquals(count, zoneEntries);
+        // Re-ranked every few zones, not on every fix
+        assertTrue(refreshes > 5 && refreshes < count * 2);
+        assertTrue(client.addCalls == refreshes + 1);
+    }
+}
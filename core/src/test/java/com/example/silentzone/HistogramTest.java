@@ -0,0 +1,46 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class HistogramTest {
+
+    @Test
+    public void percentilesReportBucketBounds() {
+        Histogram histogram = Histogram.exponential("age", "ms", 10, 4); // 10, 20, 40, 80, overflow
+        for (int i = 0; i < 90; i++) {
+            histogram.record(5);
+        }
+        for (int i = 0; i < 9; i++) {
+            histogram.record(35);
+        }
+        histogram.record(1000);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(10, histogram.percentile(0.5));
+        assertEquals(10, histogram.percentile(0.9));
+        assertEquals(40, histogram.percentile(0.99));
+        // Beyond the last bound only the maximum is known
+        assertEquals(1000, histogram.percentile(1));
+        assertEquals(1000, histogram.getMax());
+        assertEquals((90 * 5 + 9 * 35 + 1000) / 100.0, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    public void percentileNeverExceedsMax() {
+        Histogram histogram = Histogram.exponential("eval", "us", 100, 8);
+        histogram.record(3);
+        assertEquals(3, histogram.percentile(0.5));
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        Histogram histogram = Histogram.exponential("eval", "us", 1, 8);
+        histogram.record(7);
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMax());
+        assertEquals(0, histogram.percentile(0.5));
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.silentzone;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class MappedZoneIndexTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final int[] out = new int[16];
+
+    private ZoneIndex zones() {
+        ZoneIndex index = TraceReplay.syntheticZones(500, 10.85, 76.27, 5);
+        // A square polygon straddling a cell edge
+        index.add(9000, 10.85, 76.27, 0,
+                new double[] {10.849, 76.269, 10.849, 76.271, 10.851, 76.271, 10.851, 76.269});
+        return index;
+    }
+
+    @Test
+    public void mappedIndexAnswersLikeTheHeapIndex() throws IOException {
+        ZoneIndex index = zones();
+        File file = folder.newFile("zones.idx");
+        MappedZoneIndex.write(index, Long.MAX_VALUE, file);
+        MappedZoneIndex mapped = MappedZoneIndex.open(file);
+        assertEquals(index.size(), mapped.size());
+        assertEquals(file.length(), mapped.getFileBytes());
+
+        int[] mappedOut = new int[16];
+        int total = 0;
+        for (int i = 0; i < 2000; i++) {
+            double lat = 10.85 + Math.sin(i * 0.01) * 0.03;
+            double lon = 76.27 + Math.cos(i * 0.013) * 0.03;
+            for (double margin : new double[] {0, 25, -25}) {
+                int found = index.query(lat, lon, margin, out);
+                assertEquals(found, mapped.query(lat, lon, margin, mappedOut));
+                int[] expected = Arrays.copyOf(out, found);
+                int[] actual = Arrays.copyOf(mappedOut, found);
+                Arrays.sort(expected);
+                Arrays.sort(actual);
+                assertArrayEquals(expected, actual);
+                total += found;
+            }
+            assertEquals(index.distanceToNearestBoundary(lat, lon, 5000),
+                    mapped.distanceToNearestBoundary(lat, lon, 5000), 1e-9);
+        }
+        assertTrue("track never entered a zone", total > 0);
+        // The polygon's center, read back from the vertex section
+        int[] ids = Arrays.copyOf(out, mapped.query(10.85, 76.27, 0, out));
+        Arrays.sort(ids);
+        assertTrue(Arrays.binarySearch(ids, 9000) >= 0);
+    }
+
+    @Test
+    public void emptyIndexRoundTrips() throws IOException {
+        File file = folder.newFile("empty.idx");
+        MappedZoneIndex.write(new ZoneIndex(), Long.MAX_VALUE, file);
+        MappedZoneIndex mapped = MappedZoneIndex.open(file);
+        assertEquals(0, mapped.size());
+        assertEquals(0, mapped.query(10.85, 76.27, 0, out));
+        assertEquals(1000, mapped.distanceToNearestBoundary(10.85, 76.27, 1000), 0);
+    }
+
+    @Test
+    public void expiryIsKept() throws IOException {
+        File file = folder.newFile("expiring.idx");
+        MappedZoneIndex.write(zones(), 5000, file);
+        MappedZoneIndex mapped = MappedZoneIndex.open(file);
+        assertEquals(5000, mapped.getValidUntil());
+        assertTrue(mapped.isValidAt(4999));
+        assertFalse(mapped.isValidAt(5000));
+    }
+
+    @Test
+    public void corruptFileIsRejected() throws IOException {
+        File file = folder.newFile("corrupt.idx");
+        MappedZoneIndex.write(zones(), Long.MAX_VALUE, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() / 2);
+            int value = raf.read();
+            raf.seek(raf.length() / 2);
+            raf.write(value ^ 0x10);
+        }
+        assertOpenFails(file);
+    }
+
+    @Test
+    public void truncatedFileIsRejected() throws IOException {
+        File file = folder.newFile("truncated.idx");
+        MappedZoneIndex.write(zones(), Long.MAX_VALUE, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+        assertOpenFails(file);
+    }
+
+    @Test
+    public void otherVersionIsRejected() throws IOException {
+        File file = folder.newFile("old.idx");
+        MappedZoneIndex.write(zones(), Long.MAX_VALUE, file);
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(4);
+            raf.write(MappedZoneIndex.VERSION + 1);
+        }
+        assertOpenFails(file);
+    }
+
+    private static void assertOpenFails(File file) {
+        try {
+            MappedZoneIndex.open(file);
+            fail("opened " + file);
+        } catch (IOException expected) {
+            // Falls back to loading from the database
+        }
+    }
+}
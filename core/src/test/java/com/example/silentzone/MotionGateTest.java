@@ -0,0 +1,107 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MotionGateTest {
+
+    private static final long PERIOD_MS = 200; // 5 Hz, the rate LocationService asks for
+
+    private final List<String> events = new ArrayList<>();
+    private final MotionGate gate = new MotionGate((still, timeMs) -> events.add((still ? "still@" : "moving@") + timeMs));
+    private final Random random = new Random(7);
+
+    // Gravity plus sensor noise of the given standard deviation on each axis
+    private long feed(long fromMs, long toMs, double noise) {
+        long t = fromMs;
+        for (; t < toMs; t += PERIOD_MS) {
+            gate.onSample(t, (float) (random.nextGaussian() * noise), (float) (random.nextGaussian() * noise),
+                    (float) (9.81 + random.nextGaussian() * noise));
+        }
+        return t;
+    }
+
+    @Test
+    public void deskNoiseBecomesStillAfterTheQuietPeriod() {
+        long t = feed(0, MotionGate.STILL_AFTER_MS - MotionGate.WINDOW_MS, 0.02);
+        assertFalse(gate.isStill());
+        feed(t, t + 2 * MotionGate.WINDOW_MS + PERIOD_MS, 0.02);
+        assertTrue(gate.isStill());
+        assertEquals(1, events.size());
+        assertEquals(1, gate.getStillPeriods());
+    }
+
+    @Test
+    public void walkingNeverBecomesStill() {
+        feed(0, 10 * MotionGate.STILL_AFTER_MS, 1.5);
+        assertFalse(gate.isStill());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void pickingUpTheDeviceEndsStillnessWithinAWindow() {
+        long t = feed(0, 2 * MotionGate.STILL_AFTER_MS, 0.02);
+        assertTrue(gate.isStill());
+        long pickedUp = t;
+        feed(t, t + 2 * MotionGate.WINDOW_MS + PERIOD_MS, 1.5);
+        assertFalse(gate.isStill());
+        String last = events.get(events.size() - 1);
+        assertTrue(last, last.startsWith("moving@"));
+        assertTrue(Long.parseLong(last.substring("moving@".length())) <= pickedUp + 2 * MotionGate.WINDOW_MS);
+    }
+
+    @Test
+    public void shortPausesDoNotCount() {
+        long t = 0;
+        // Stopping at traffic lights: 30 s quiet, 30 s driving, repeatedly
+        for (int i = 0; i < 10; i++) {
+            t = feed(t, t + 30000, 0.02);
+            t = feed(t, t + 30000, 0.8);
+        }
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void sampleGapRestartsTheQuietPeriod() {
+        long t = feed(0, MotionGate.STILL_AFTER_MS - 10000, 0.02);
+        t = feed(t + MotionGate.MAX_SAMPLE_GAP_MS + 1, t + MotionGate.MAX_SAMPLE_GAP_MS + 20000, 0.02);
+        assertFalse(gate.isStill());
+    }
+
+    @Test
+    public void wakeEndsStillness() {
+        long t = feed(0, 2 * MotionGate.STILL_AFTER_MS, 0.02);
+        assertTrue(gate.isStill());
+        gate.wake(t);
+        assertFalse(gate.isStill());
+        // Needs a full quiet period again
+        feed(t, t + MotionGate.STILL_AFTER_MS / 2, 0.02);
+        assertFalse(gate.isStill());
+    }
+
+    @Test
+    public void savedGpsTimeCountsOnlyStillTimeWithGpsWanted() {
+        gate.setGpsWanted(true, 0);
+        long t = feed(0, 2 * MotionGate.STILL_AFTER_MS, 0.02);
+        assertTrue(gate.isStill());
+        long stillAt = Long.parseLong(events.get(0).substring("still@".length()));
+        assertEquals(t - stillAt, gate.getSavedGpsMillis(t));
+
+        // Far from zones the plan would only have used the network
+        gate.setGpsWanted(false, t);
+        long saved = gate.getSavedGpsMillis(t);
+        t = feed(t, t + 60000, 0.02);
+        assertEquals(saved, gate.getSavedGpsMillis(t));
+
+        gate.setGpsWanted(true, t);
+        long resumedAt = t;
+        t = feed(t, t + 30000, 0.02);
+        gate.wake(t);
+        assertEquals(saved + (t - resumedAt), gate.getSavedGpsMillis(t + 99999));
+    }
+}
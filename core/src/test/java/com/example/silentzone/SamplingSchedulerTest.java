@@ -0,0 +1,91 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class SamplingSchedulerTest {
+
+    private static final double MAX = SamplingScheduler.MAX_BOUNDARY_DISTANCE;
+
+    @Test
+    public void planFor_tightensNearBoundaries() {
+        assertSame(SamplingScheduler.initialPlan(), SamplingScheduler.planFor(0));
+        assertSame(SamplingScheduler.initialPlan(), SamplingScheduler.planFor(100));
+        assertTrue(SamplingScheduler.planFor(MAX).intervalMs >= 60 * SamplingScheduler.planFor(50).intervalMs);
+        assertFalse(SamplingScheduler.planFor(MAX).useGps);
+    }
+
+    @Test
+    public void planFor_neverOutrunsMaxSpeed() {
+        for (double distance = 0; distance <= MAX; distance += 250) {
+            SamplingScheduler.Plan plan = SamplingScheduler.planFor(distance);
+            double travelled = SamplingScheduler.MAX_SPEED * plan.intervalMs / 1000.0;
+            assertTrue("Interval too long at " + distance + " m",
+                    plan == SamplingScheduler.initialPlan() || travelled <= distance);
+        }
+    }
+
+    @Test
+    public void planFor_isMonotonic() {
+        long previous = 0;
+        for (double distance = 0; distance <= MAX; distance += 100) {
+            long interval = SamplingScheduler.planFor(distance).intervalMs;
+            assertTrue(interval >= previous);
+            previous = interval;
+        }
+    }
+
+    @Test
+    public void planFor_batchesOnlyNetworkTiers() {
+        for (double distance = 0; distance <= MAX; distance += 500) {
+            SamplingScheduler.Plan plan = SamplingScheduler.planFor(distance, true);
+            assertEquals(SamplingScheduler.planFor(distance).intervalMs, plan.intervalMs);
+            assertEquals(plan.useGps, plan.maxDelayMs == 0);
+        }
+        assertEquals(0, SamplingScheduler.planFor(MAX).maxDelayMs);
+        assertSame(SamplingScheduler.planFor(MAX, true), SamplingScheduler.planFor(MAX, true));
+    }
+
+    @Test
+    public void distanceToNearestBoundary_outsideAndInsideCircle() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.85, 76.27, 100);
+
+        // ~500 m north of the centre, so ~400 m from the edge
+        assertEquals(400, index.distanceToNearestBoundary(10.8545, 76.27, MAX), 5);
+        // At the centre the edge is one radius away
+        assertEquals(100, index.distanceToNearestBoundary(10.85, 76.27, MAX), 1);
+    }
+
+    @Test
+    public void distanceToNearestBoundary_findsZonesSeveralCellsAway() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.85, 76.27, 100);
+        index.add(2, 10.95, 76.27, 100);
+
+        // ~5.5 km from zone 1, ~5.6 km from zone 2
+        assertEquals(5466, index.distanceToNearestBoundary(10.90, 76.27, MAX), 20);
+    }
+
+    @Test
+    public void distanceToNearestBoundary_capsAtMaxWhenNothingNearby() {
+        ZoneIndex index = new ZoneIndex();
+        assertEquals(MAX, index.distanceToNearestBoundary(10.85, 76.27, MAX), 0);
+
+        index.add(1, 12.97, 77.59, 100);
+        assertEquals(MAX, index.distanceToNearestBoundary(10.85, 76.27, MAX), 0);
+    }
+
+    @Test
+    public void distanceToNearestBoundary_polygonEdge() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.852, 76.272, 0,
+                ZoneGeometry.parsePolygon("10.850,76.270;10.850,76.274;10.854,76.274;10.854,76.270"));
+
+        // ~111 m south of the southern edge
+        assertEquals(111, index.distanceToNearestBoundary(10.849, 76.272, MAX), 2);
+        // Centre of the square, ~218 m to the east/west edges
+        assertEquals(218, index.distanceToNearestBoundary(10.852, 76.272, MAX), 3);
+    }
+}
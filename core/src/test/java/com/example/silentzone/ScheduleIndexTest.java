@@ -0,0 +1,94 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ScheduleIndexTest {
+
+    private static final int MON = 0;
+    private static final int FRI = 4;
+    private static final int SAT = 5;
+    private static final int SUN = 6;
+
+    @Test
+    public void parsesDaysRangesAndOvernightWindows() {
+        ZoneSchedule office = ZoneSchedule.parse("Mon-Fri 09:00-17:00");
+        assertEquals("Mon,Tue,Wed,Thu,Fri 09:00-17:00", office.toString());
+        assertTrue(office.isActive(ZoneSchedule.minuteOfWeek(MON, 9, 0)));
+        assertFalse(office.isActive(ZoneSchedule.minuteOfWeek(MON, 17, 0)));
+        assertFalse(office.isActive(ZoneSchedule.minuteOfWeek(SAT, 12, 0)));
+
+        // Starts Sunday night and runs into Monday morning, across the end of the week
+        ZoneSchedule night = ZoneSchedule.parse("Sun 22:00-06:00; 12:00-13:00");
+        assertTrue(night.isActive(ZoneSchedule.minuteOfWeek(SUN, 23, 59)));
+        assertTrue(night.isActive(ZoneSchedule.minuteOfWeek(MON, 5, 59)));
+        assertFalse(night.isActive(ZoneSchedule.minuteOfWeek(MON, 6, 0)));
+        assertTrue(night.isActive(ZoneSchedule.minuteOfWeek(SAT, 12, 30)));
+
+        assertNotNull(ZoneSchedule.parse("sat,sun 00:00-24:00"));
+        assertNull(ZoneSchedule.parse("Mon 09:00"));
+        assertNull(ZoneSchedule.parse("Someday 09:00-10:00"));
+        assertNull(ZoneSchedule.parse("Mon 09:00-09:00"));
+        assertNull(ZoneSchedule.parse("Mon 25:00-26:00"));
+    }
+
+    @Test
+    public void indexAgreesWithSchedulesEveryMinuteOfTheWeek() {
+        String[] schedules = {"Mon-Fri 09:00-17:00", "Fri 12:15-13:45; Sun 23:00-01:30", "Sat-Mon 18:00-18:01",
+                "06:00-07:00", "Wed 00:00-24:00"};
+        ScheduleIndex.Builder builder = new ScheduleIndex.Builder();
+        for (int id = 0; id < schedules.length; id++) {
+            builder.add(id + 1, ZoneSchedule.parse(schedules[id]));
+        }
+        builder.add(100, null);
+        ScheduleIndex index = builder.build();
+
+        for (int minute = 0; minute < ZoneSchedule.MINUTES_PER_WEEK; minute++) {
+            for (int id = 0; id < schedules.length; id++) {
+                assertEquals(schedules[id] + " at " + minute, ZoneSchedule.parse(schedules[id]).isActive(minute),
+                        index.isActive(id + 1, minute));
+            }
+            assertTrue(index.isActive(100, minute));
+        }
+    }
+
+    @Test
+    public void reportsWhenTheNextZoneBecomesActive() {
+        ScheduleIndex index = new ScheduleIndex.Builder()
+                .add(1, ZoneSchedule.parse("Mon-Fri 09:00-17:00"))
+                .build();
+        assertEquals(0, index.minutesUntilActive(ZoneSchedule.minuteOfWeek(MON, 10, 0)));
+        assertEquals(60, index.minutesUntilActive(ZoneSchedule.minuteOfWeek(MON, 8, 0)));
+        // Friday evening waits for Monday morning
+        assertEquals(((2 * 24) + 16) * 60, index.minutesUntilActive(ZoneSchedule.minuteOfWeek(FRI, 17, 0)));
+        assertEquals(30, index.minutesUntilChange(ZoneSchedule.minuteOfWeek(MON, 16, 30)));
+        // Monday 00:00 is not a change when nothing happens then
+        assertEquals(10 * 60, index.minutesUntilChange(ZoneSchedule.minuteOfWeek(SUN, 23, 0)));
+
+        assertEquals(-1, ScheduleIndex.EMPTY.minutesUntilActive(0));
+        assertEquals(-1, ScheduleIndex.EMPTY.minutesUntilChange(0));
+        assertEquals(0, new ScheduleIndex.Builder().add(1, null).build().minutesUntilActive(0));
+    }
+
+    @Test
+    public void inactiveZonesAreLeftOutOfTheSnapshot() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(1, 10.85, 76.27, 100);
+        zones.add(2, 10.85, 76.27, 100);
+        ScheduleIndex schedules = new ScheduleIndex.Builder()
+                .add(1, ZoneSchedule.parse("Mon 09:00-10:00"))
+                .add(2, null)
+                .build();
+
+        ZoneIndex monday = zones.copy();
+        schedules.removeInactive(monday, ZoneSchedule.minuteOfWeek(MON, 9, 30));
+        ZoneIndex tuesday = zones.copy();
+        schedules.removeInactive(tuesday, ZoneSchedule.minuteOfWeek(MON + 1, 9, 30));
+
+        int[] hits = new int[4];
+        assertEquals(2, monday.query(10.85, 76.27, hits));
+        assertEquals(1, tuesday.query(10.85, 76.27, hits));
+        assertEquals(2, hits[0]);
+    }
+}
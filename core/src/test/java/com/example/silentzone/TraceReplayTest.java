@@ -0,0 +1,136 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TraceReplayTest {
+
+    private static final double ZONE_LAT = 10.85;
+    private static final double ZONE_LON = 76.27;
+    // Meters north of the zone centre, one fix every 5 s: approach, stay, leave
+    private static final double[] WALK = {-500, -300, -50, 0, 20, 0, 40, 150, 300, 500};
+
+    private static double latAt(double metersNorth) {
+        return ZONE_LAT + GeoMath.metersToLatDegrees(metersNorth);
+    }
+
+    private static String csvTrace() {
+        StringBuilder csv = new StringBuilder("time,lat,lon,accuracy\n");
+        for (int i = 0; i < WALK.length; i++) {
+            csv.append(i * 5000L).append(',').append(latAt(WALK[i])).append(',').append(ZONE_LON).append(",8\n");
+        }
+        return csv.toString();
+    }
+
+    private static String gpxTrace() {
+        // All on one line, as many exporters write it
+        StringBuilder gpx = new StringBuilder("<?xml version=\"1.0\"?><gpx version=\"1.1\"><trk><trkseg>");
+        for (int i = 0; i < WALK.length; i++) {
+            gpx.append("<trkpt lat=\"").append(latAt(WALK[i])).append("\" lon=\"").append(ZONE_LON).append("\">")
+                    .append("<ele>12.0</ele><time>").append(Instant.ofEpochMilli(i * 5000L)).append("</time>")
+                    .append("<hdop>1.6</hdop></trkpt>");
+        }
+        return gpx.append("</trkseg></trk></gpx>").toString();
+    }
+
+    private static ZoneIndex singleZone() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(1, ZONE_LAT, ZONE_LON, 100);
+        return zones;
+    }
+
+    @Test
+    public void csvReplayReportsEnterAndExit() throws IOException {
+        List<String> transitions = new ArrayList<>();
+        ReplayReport report = TraceReplay.replay(new CsvTraceReader(new StringReader(csvTrace())), singleZone(),
+                (zoneId, entered, timeMs) -> transitions.add((entered ? "enter " : "exit ") + zoneId + " @" + timeMs));
+
+        assertEquals(WALK.length, report.fixes);
+        assertEquals(WALK.length, report.acceptedFixes);
+        assertEquals(1, report.entered);
+        assertEquals(1, report.exited);
+        // Inside from 10 s, confirmed 10 s later; beyond the 25 m exit margin from 35 s
+        assertEquals(List.of("enter 1 @20000", "exit 1 @45000"), transitions);
+        assertTrue(report.latencyNanos(0.99) <= report.latencyNanos(1));
+    }
+
+    @Test
+    public void batchedReplayReportsNetTransitionsPerBatch() throws IOException {
+        List<String> transitions = new ArrayList<>();
+        ZoneTransitionTracker.Listener listener =
+                (zoneId, entered, timeMs) -> transitions.add((entered ? "enter " : "exit ") + zoneId + " @" + timeMs);
+
+        TraceReplay.replay(new CsvTraceReader(new StringReader(csvTrace())), singleZone(), listener, 5);
+        assertEquals(List.of("enter 1 @20000", "exit 1 @45000"), transitions);
+
+        // Entered and left within one delivery: nothing to act on
+        transitions.clear();
+        ReplayReport report = TraceReplay.replay(new CsvTraceReader(new StringReader(csvTrace())), singleZone(),
+                listener, WALK.length);
+        assertEquals(List.of(), transitions);
+        assertEquals(WALK.length, report.acceptedFixes);
+    }
+
+    @Test
+    public void gpxAndCsvTracesReadTheSameFixes() throws IOException {
+        TraceFix csvFix = new TraceFix();
+        TraceFix gpxFix = new TraceFix();
+        try (TraceReader csv = new CsvTraceReader(new StringReader(csvTrace()));
+             TraceReader gpx = new GpxTraceReader(new StringReader(gpxTrace()))) {
+            int count = 0;
+            while (csv.next(csvFix)) {
+                assertTrue(gpx.next(gpxFix));
+                assertEquals(csvFix.timeMs, gpxFix.timeMs);
+                assertEquals(csvFix.latitude, gpxFix.latitude, 1e-9);
+                assertEquals(csvFix.longitude, gpxFix.longitude, 1e-9);
+                assertEquals(8f, gpxFix.accuracy, 1e-3f);
+                count++;
+            }
+            assertFalse(gpx.next(gpxFix));
+            assertEquals(WALK.length, count);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void gpxPointWithoutTimeIsRejected() throws IOException {
+        new GpxTraceReader(new StringReader("<gpx><trkpt lat=\"1\" lon=\"2\"></trkpt></gpx>")).next(new TraceFix());
+    }
+
+    @Test
+    public void readZonesKeepsPolygonsWhole() throws IOException {
+        ZoneIndex zones = TraceReplay.readZones(new StringReader(
+                "name,latitude,longitude,radius,polygon\n"
+                        + "Hall,10.85,76.27,100,\n"
+                        + "Campus,10.90,76.30,,\"10.89,76.29;10.91,76.29;10.91,76.31;10.89,76.31\"\n"));
+        assertEquals(2, zones.size());
+        int[] hits = new int[4];
+        assertEquals(1, zones.query(10.90, 76.30, hits));
+        assertEquals(2, hits[0]);
+        assertEquals(0, zones.query(10.885, 76.30, hits));
+    }
+
+    @Test(expected = IOException.class)
+    public void readZonesRejectsInvalidRows() throws IOException {
+        TraceReplay.readZones(new StringReader("Hall,10.85,76.27,100\nNowhere,north,76.27,100\n"));
+    }
+
+    @Test
+    public void syntheticZonesAreReproducible() {
+        ZoneIndex a = TraceReplay.syntheticZones(1000, ZONE_LAT, ZONE_LON, 7);
+        ZoneIndex b = TraceReplay.syntheticZones(1000, ZONE_LAT, ZONE_LON, 7);
+        assertEquals(1000, a.size());
+        int[] hitsA = new int[32];
+        int[] hitsB = new int[32];
+        for (int i = 0; i < 100; i++) {
+            double lat = ZONE_LAT + (i - 50) * 0.002;
+            assertEquals(a.query(lat, ZONE_LON, hitsA), b.query(lat, ZONE_LON, hitsB));
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ZoneActionsTest {
+
+    private static final double LAT = 52.5;
+    private static final double LON = 13.4;
+
+    // Offsets a point east of the reference by the given meters
+    private static double east(double meters) {
+        return LON + GeoMath.metersToLonDegrees(meters, LAT);
+    }
+
+    @Test
+    public void higherPriorityWinsAndLeavingItFallsBackToTheOther() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(1, LAT, LON, 500, null);          // campus, silent
+        zones.add(2, LAT, east(100), 50, null);     // lecture hall inside it, vibrate but more important
+        ZoneActions actions = new ZoneActions.Builder()
+                .add(1, 0, ZoneActions.ACTION_SILENT)
+                .add(2, 10, ZoneActions.ACTION_VIBRATE)
+                .build(zones);
+        assertEquals(1, actions.getOverlapCount());
+
+        ZoneActionResolver resolver = new ZoneActionResolver();
+        resolver.setActions(actions);
+        assertEquals(ZoneActions.ACTION_NONE, resolver.getAction());
+        resolver.onTransition(1, true);
+        assertEquals(ZoneActions.ACTION_SILENT, resolver.getAction());
+        resolver.onTransition(2, true);
+        assertEquals(ZoneActions.ACTION_VIBRATE, resolver.getAction());
+        assertEquals(2, resolver.getWinningZoneId());
+
+        // Leaving the inner zone must not switch the ringer back on
+        resolver.onTransition(2, false);
+        assertEquals(ZoneActions.ACTION_SILENT, resolver.getAction());
+        assertEquals(1, resolver.getWinningZoneId());
+        resolver.onTransition(1, false);
+        assertEquals(ZoneActions.ACTION_NONE, resolver.getAction());
+        assertEquals(0, resolver.getFallbackScans());
+    }
+
+    @Test
+    public void leavingTheWinnerPrefersAHigherPriorityZoneThatIsNotItsNeighbour() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(1, LAT, LON, 100, null);          // the winner being left
+        zones.add(2, LAT, east(400), 400, null);    // overlaps both others
+        zones.add(3, LAT, east(700), 100, null);    // entered while zone 1 was being left
+        ZoneActions actions = new ZoneActions.Builder()
+                .add(1, 10, ZoneActions.ACTION_SILENT)
+                .add(2, 0, ZoneActions.ACTION_SILENT)
+                .add(3, 5, ZoneActions.ACTION_VIBRATE)
+                .build(zones);
+        for (int neighbor : actions.neighborsAt(actions.rankOf(1))) {
+            assertNotEquals(actions.rankOf(3), neighbor);
+        }
+
+        ZoneActionResolver resolver = new ZoneActionResolver();
+        resolver.setActions(actions);
+        resolver.onTransition(2, true);
+        resolver.onTransition(1, true);
+        resolver.onTransition(3, true);
+        assertEquals(1, resolver.getWinningZoneId());
+
+        resolver.onTransition(1, false);
+        assertEquals(3, resolver.getWinningZoneId());
+        assertEquals(ZoneActions.ACTION_VIBRATE, resolver.getAction());
+        assertEquals(1, resolver.getFallbackScans());
+    }
+
+    @Test
+    public void equalPrioritiesPreferSilence() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(7, LAT, LON, 100, null);
+        zones.add(3, LAT, east(50), 100, null);
+        ZoneActions actions = new ZoneActions.Builder()
+                .add(3, 0, ZoneActions.ACTION_VIBRATE)
+                .add(7, 0, ZoneActions.ACTION_SILENT)
+                .build(zones);
+        assertEquals(7, actions.idAt(0));
+
+        ZoneActionResolver resolver = new ZoneActionResolver();
+        resolver.setActions(actions);
+        resolver.onTransition(3, true);
+        resolver.onTransition(7, true);
+        assertEquals(ZoneActions.ACTION_SILENT, resolver.getAction());
+    }
+
+    @Test
+    public void distantZonesAreNotNeighbours() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(1, LAT, LON, 100, null);
+        zones.add(2, LAT, east(300), 100, null);
+        // A polygon reaching to within 20 m of zone 1: its hold boundary touches zone 1's
+        double[] square = {LAT + 0.001, east(-250), LAT + 0.001, east(-120),
+                LAT - 0.001, east(-120), LAT - 0.001, east(-250)};
+        zones.add(3, LAT, east(-185), 0, square);
+        ZoneActions actions = new ZoneActions.Builder()
+                .add(1, 0, ZoneActions.ACTION_SILENT)
+                .add(2, 0, ZoneActions.ACTION_SILENT)
+                .add(3, 0, ZoneActions.ACTION_SILENT)
+                .build(zones);
+        assertEquals(0, actions.neighborsAt(actions.rankOf(2)).length);
+        assertEquals(1, actions.neighborsAt(actions.rankOf(1)).length);
+        assertEquals(actions.rankOf(3), actions.neighborsAt(actions.rankOf(1))[0]);
+    }
+
+    @Test
+    public void zonesKeptAcrossRebuildsAndUnknownZonesSilence() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(1, LAT, LON, 100, null);
+        ZoneActionResolver resolver = new ZoneActionResolver();
+        // Entered before the actions were compiled
+        resolver.onTransition(1, true);
+        assertEquals(ZoneActions.ACTION_SILENT, resolver.getAction());
+        assertEquals(-1, resolver.getWinningZoneId());
+
+        resolver.setActions(new ZoneActions.Builder().add(1, 0, ZoneActions.ACTION_VIBRATE).build(zones));
+        assertEquals(ZoneActions.ACTION_VIBRATE, resolver.getAction());
+        assertEquals(1, resolver.getWinningZoneId());
+    }
+
+    @Test
+    public void incrementalResolutionMatchesAFullScan() {
+        Random random = new Random(23);
+        ZoneIndex zones = new ZoneIndex();
+        ZoneActions.Builder builder = new ZoneActions.Builder();
+        int count = 300;
+        int[] priority = new int[count];
+        int[] action = new int[count];
+        for (int id = 0; id < count; id++) {
+            zones.add(id, LAT + random.nextDouble() * 0.02, LON + random.nextDouble() * 0.02,
+                    50 + random.nextInt(400), null);
+            priority[id] = random.nextInt(4);
+            action[id] = random.nextInt(2);
+            builder.add(id, priority[id], action[id]);
+        }
+        ZoneActions actions = builder.build(zones);
+        ZoneActionResolver resolver = new ZoneActionResolver();
+        resolver.setActions(actions);
+
+        // Walk around and feed the containment changes as transitions, as the tracker would
+        boolean[] inside = new boolean[count];
+        int[] hits = new int[ZoneEvaluator.MAX_CONTAINING_ZONES];
+        double lat = LAT + 0.01;
+        double lon = LON + 0.01;
+        for (int step = 0; step < 5000; step++) {
+            lat += (random.nextDouble() - 0.5) * 0.0005;
+            lon += (random.nextDouble() - 0.5) * 0.0005;
+            boolean[] now = new boolean[count];
+            int n = zones.query(lat, lon, 0, hits);
+            for (int i = 0; i < n; i++) {
+                now[hits[i]] = true;
+            }
+            for (int id = 0; id < count; id++) {
+                if (inside[id] && !now[id]) {
+                    resolver.onTransition(id, false);
+                }
+            }
+            for (int id = 0; id < count; id++) {
+                if (!inside[id] && now[id]) {
+                    resolver.onTransition(id, true);
+                }
+            }
+            inside = now;
+
+            int best = -1;
+            for (int id = 0; id < count; id++) {
+                if (inside[id] && (best < 0 || priority[id] > priority[best]
+                        || priority[id] == priority[best] && action[id] < action[best])) {
+                    best = id;
+                }
+            }
+            int expected = best < 0 ? ZoneActions.ACTION_NONE : action[best];
+            assertEquals("step " + step, expected, resolver.getAction());
+        }
+        assertEquals(0, resolver.getFallbackScans());
+    }
+}
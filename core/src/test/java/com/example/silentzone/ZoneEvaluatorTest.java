@@ -0,0 +1,146 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ZoneEvaluatorTest {
+
+    @Test
+    public void currentZoneFollowsConfirmedTransitions() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(7, 10.85, 76.27, 100);
+        ZoneEvaluator evaluator = new ZoneEvaluator(10000, 2, (zoneId, entered, timeMs) -> {});
+        evaluator.setZones(zones);
+
+        evaluator.evaluate(0, 10.85, 76.27, null);
+        // Inside the circle but not yet confirmed
+        assertEquals(-1, evaluator.getCurrentZoneId());
+        evaluator.evaluate(10000, 10.85, 76.27, null);
+        assertEquals(7, evaluator.getCurrentZoneId());
+
+        double away = 10.85 + GeoMath.metersToLatDegrees(500);
+        evaluator.evaluate(20000, away, 76.27, null);
+        evaluator.evaluate(30000, away, 76.27, null);
+        assertEquals(-1, evaluator.getCurrentZoneId());
+    }
+
+    @Test
+    public void batchIsEvaluatedInTimeOrder() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(7, 10.85, 76.27, 100);
+        List<long[]> transitions = new ArrayList<>();
+        ZoneEvaluator evaluator = new ZoneEvaluator(10000, 2, record(transitions));
+        evaluator.setZones(zones);
+
+        // Delivered newest first; unsorted, the older fixes would be dropped as stale
+        long[] time = {20000, 0, 10000};
+        double[] lat = {10.85, 10.85, 10.85};
+        double[] lon = {76.27, 76.27, 76.27};
+        assertEquals(3, evaluator.evaluateBatch(time, lat, lon, null, 3));
+        assertEquals(0, evaluator.getStaleCount());
+        assertEquals(1, transitions.size());
+        assertArrayEquals(new long[] {7, 1, 10000}, transitions.get(0));
+        assertEquals(7, evaluator.getCurrentZoneId());
+    }
+
+    @Test
+    public void enterAndExitWithinOneBatchCancelOut() {
+        ZoneIndex zones = new ZoneIndex();
+        zones.add(7, 10.85, 76.27, 100);
+        zones.add(8, 10.90, 76.27, 100);
+        List<long[]> transitions = new ArrayList<>();
+        ZoneEvaluator evaluator = new ZoneEvaluator(0, 1, record(transitions));
+        evaluator.setZones(zones);
+
+        // Through zone 7 and out again, then into zone 8
+        long[] time = {0, 10000, 20000, 30000};
+        double[] lat = {10.84, 10.85, 10.87, 10.90};
+        double[] lon = {76.27, 76.27, 76.27, 76.27};
+        assertEquals(4, evaluator.evaluateBatch(time, lat, lon, null, 4));
+        assertEquals(1, transitions.size());
+        assertArrayEquals(new long[] {8, 1, 30000}, transitions.get(0));
+        assertEquals(8, evaluator.getCurrentZoneId());
+    }
+
+    @Test
+    public void batchesMatchPerFixEvaluation() {
+        ZoneIndex zones = new ZoneIndex();
+        double lon = 76.27;
+        for (int id = 1; id <= 20; id++) {
+            zones.add(id, 10.85 + GeoMath.metersToLatDegrees(150 * id), lon, 80);
+        }
+        // A walk north along the zones, drifting in and out of them sideways, with re-delivered fixes
+        Random random = new Random(42);
+        int n = 1000;
+        long[] time = new long[n];
+        double[] lat = new double[n];
+        double[] lons = new double[n];
+        for (int i = 0; i < n; i++) {
+            boolean repeat = i > 0 && random.nextInt(20) == 0;
+            time[i] = repeat ? time[i - 1] : i * 5000L;
+            lat[i] = repeat ? lat[i - 1] : 10.85 + GeoMath.metersToLatDegrees(3 * i);
+            lons[i] = repeat ? lons[i - 1]
+                    : lon + GeoMath.metersToLonDegrees(150 * Math.sin(i / 7.0), 10.85);
+        }
+
+        List<long[]> single = new ArrayList<>();
+        ZoneEvaluator perFix = new ZoneEvaluator(record(single));
+        perFix.setZones(zones);
+        for (int i = 0; i < n; i++) {
+            perFix.evaluate(time[i], lat[i], lons[i], null);
+        }
+        assertTrue(single.size() > 10);
+
+        for (int batchSize : new int[] {1, 7, 64}) {
+            List<long[]> batched = new ArrayList<>();
+            ZoneEvaluator batch = new ZoneEvaluator(record(batched));
+            batch.setZones(zones);
+            long[] batchTime = new long[batchSize];
+            double[] batchLat = new double[batchSize];
+            double[] batchLon = new double[batchSize];
+            for (int start = 0; start < n; start += batchSize) {
+                int count = Math.min(batchSize, n - start);
+                System.arraycopy(time, start, batchTime, 0, count);
+                System.arraycopy(lat, start, batchLat, 0, count);
+                System.arraycopy(lons, start, batchLon, 0, count);
+                batch.evaluateBatch(batchTime, batchLat, batchLon, null, count);
+            }
+
+            assertEquals(perFix.getAcceptedCount(), batch.getAcceptedCount());
+            assertEquals(perFix.getDuplicateCount(), batch.getDuplicateCount());
+            assertEquals(perFix.isInside(), batch.isInside());
+            assertEquals(perFix.getCurrentZoneId(), batch.getCurrentZoneId());
+            assertEquals(perFix.getContainingCount(), batch.getContainingCount());
+            if (batchSize == 1) {
+                assertEquals(single.size(), batched.size());
+                for (int i = 0; i < single.size(); i++) {
+                    assertArrayEquals(single.get(i), batched.get(i));
+                }
+            }
+            // Either way each zone ends up on the same side
+            for (int id = 1; id <= 20; id++) {
+                assertEquals(endsInside(single, id), endsInside(batched, id));
+            }
+        }
+    }
+
+    private static ZoneTransitionTracker.Listener record(List<long[]> transitions) {
+        return (zoneId, entered, timeMs) -> transitions.add(new long[] {zoneId, entered ? 1 : 0, timeMs});
+    }
+
+    // Whether the zone's last reported transition was an entry
+    private static boolean endsInside(List<long[]> transitions, int zoneId) {
+        boolean inside = false;
+        for (long[] transition : transitions) {
+            if (transition[0] == zoneId) {
+                inside = transition[1] != 0;
+            }
+        }
+        return inside;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ZoneFormatsTest {
+
+    private static ZoneRecord circle(String name, double lat, double lon, float radius) {
+        ZoneRecord record = new ZoneRecord();
+        record.clear();
+        record.name = name;
+        record.latitude = lat;
+        record.longitude = lon;
+        record.radius = radius;
+        return record;
+    }
+
+    private static ZoneRecord square() {
+        ZoneRecord record = circle("Office, 3rd \"floor\" & <annex>", 0, 0, ZoneRecord.DEFAULT_RADIUS);
+        record.setPolygon(new double[] {52.0, 13.0, 52.0, 13.1, 52.1, 13.1, 52.1, 13.0}, 4);
+        return record;
+    }
+
+    private static List<ZoneRecord> readAll(ZoneReader reader) throws IOException {
+        List<ZoneRecord> records = new ArrayList<>();
+        ZoneRecord record = new ZoneRecord();
+        while (reader.next(record)) {
+            ZoneRecord copy = circle(record.name, record.latitude, record.longitude, record.radius);
+            copy.polygon = record.polygon;
+            copy.schedule = record.schedule;
+            copy.priority = record.priority;
+            copy.action = record.action;
+            records.add(copy);
+        }
+        reader.close();
+        return records;
+    }
+
+    @Test
+    public void everyFormatRoundTrips() throws IOException {
+        for (ZoneFormat format : ZoneFormat.values()) {
+            StringWriter out = new StringWriter();
+            ZoneWriter writer = format.create(out);
+            ZoneRecord library = circle("Library", 52.5, 13.4, 75);
+            library.schedule = "Mon-Fri 09:00-17:00";
+            writer.write(library);
+            ZoneRecord office = square();
+            office.priority = 5;
+            office.action = ZoneActions.ACTION_VIBRATE;
+            writer.write(office);
+            writer.write(circle(null, -33.9, 151.2, 200));
+            writer.close();
+
+            List<ZoneRecord> records = readAll(format.open(new StringReader(out.toString())));
+            assertEquals(format.name(), 3, records.size());
+            assertEquals("Library", records.get(0).name);
+            assertEquals(52.5, records.get(0).latitude, 1e-9);
+            assertEquals(13.4, records.get(0).longitude, 1e-9);
+            assertEquals(75, records.get(0).radius, 1e-6);
+            assertNull(records.get(0).polygon);
+            assertEquals(format.name(), "Mon-Fri 09:00-17:00", records.get(0).schedule);
+
+            ZoneRecord polygon = records.get(1);
+            assertEquals(format.name(), square().name, polygon.name);
+            assertEquals(format.name(), square().polygon, polygon.polygon);
+            assertEquals(52.05, polygon.latitude, 1e-9);
+            assertTrue(polygon.isValid());
+            assertEquals(format.name(), 5, polygon.priority);
+            assertEquals(format.name(), ZoneActions.ACTION_VIBRATE, polygon.action);
+            assertEquals(format.name(), ZoneActions.DEFAULT_PRIORITY, records.get(0).priority);
+            assertEquals(format.name(), ZoneActions.ACTION_SILENT, records.get(0).action);
+
+            assertTrue(records.get(2).name == null || records.get(2).name.isEmpty());
+            assertTrue(records.get(2).isValid());
+            assertNull(format.name(), records.get(2).schedule);
+        }
+    }
+
+    @Test
+    public void csvAcceptsHeaderAliasesAndKeepsBadRows() throws IOException {
+        String csv = "lng,lat,name\n"
+                + "13.4,52.5,\"Quoted, name\"\n"
+                + "\n"
+                + "oops,52.5,Bad\n";
+        List<ZoneRecord> records = readAll(new CsvZoneReader(new StringReader(csv)));
+        assertEquals(2, records.size());
+        assertEquals("Quoted, name", records.get(0).name);
+        assertEquals(13.4, records.get(0).longitude, 1e-9);
+        assertEquals(ZoneRecord.DEFAULT_RADIUS, records.get(0).radius, 1e-6);
+        assertTrue(records.get(0).isValid());
+        assertFalse(records.get(1).isValid());
+    }
+
+    @Test
+    public void unknownActionsAndPrioritiesAreInvalid() throws IOException {
+        String csv = "name,lat,lon,action,priority\n"
+                + "Quiet,52.5,13.4,VIBRATE,-3\n"
+                + "Loud,52.5,13.4,ring,0\n"
+                + "Half,52.5,13.4,silent,1.5\n";
+        List<ZoneRecord> records = readAll(new CsvZoneReader(new StringReader(csv)));
+        assertEquals(ZoneActions.ACTION_VIBRATE, records.get(0).action);
+        assertEquals(-3, records.get(0).priority);
+        assertTrue(records.get(0).isValid());
+        assertFalse(records.get(1).isValid());
+        assertFalse(records.get(2).isValid());
+    }
+
+    @Test
+    public void unsupportedGeometriesGiveInvalidRecords() throws IOException {
+        String geojson = "{\"type\":\"FeatureCollection\",\"bbox\":[0,0,1,1],\"features\":["
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"LineString\",\"coordinates\":[[0,0],[1,1]]},"
+                + "\"properties\":{\"name\":\"Road \\u00e9\"}},"
+                + "{\"type\":\"Feature\",\"geometry\":{\"type\":\"Point\",\"coordinates\":[1.5,2.5,10]},"
+                + "\"properties\":null}]}";
+        List<ZoneRecord> records = readAll(new GeoJsonZoneReader(new StringReader(geojson)));
+        assertEquals(2, records.size());
+        assertEquals("Road \u00e9", records.get(0).name);
+        assertFalse(records.get(0).isValid());
+        assertEquals(2.5, records.get(1).latitude, 1e-9);
+        assertTrue(records.get(1).isValid());
+
+        String kml = "<?xml version=\"1.0\"?><kml><Document><name>Ignored</name><!-- <Placemark> -->"
+                + "<Placemark><name><![CDATA[A & B]]></name><LineString><coordinates>0,0 1,1</coordinates>"
+                + "</LineString></Placemark>"
+                + "<Placemark><name>C &amp; D</name><Point><coordinates> 13.4,52.5,0 </coordinates></Point>"
+                + "</Placemark></Document></kml>";
+        records = readAll(new KmlZoneReader(new StringReader(kml)));
+        assertEquals(2, records.size());
+        assertEquals("A & B", records.get(0).name);
+        assertFalse(records.get(0).isValid());
+        assertEquals("C & D", records.get(1).name);
+        assertEquals(52.5, records.get(1).latitude, 1e-9);
+    }
+
+    @Test
+    public void formatIsChosenByExtension() {
+        assertEquals(ZoneFormat.CSV, ZoneFormat.forName("zones.CSV"));
+        assertEquals(ZoneFormat.GEOJSON, ZoneFormat.forName("export.json"));
+        assertEquals(ZoneFormat.KML, ZoneFormat.forName("My Places.kml"));
+        assertNull(ZoneFormat.forName("zones.xlsx"));
+    }
+
+    @Test
+    public void streamsLargeFilesWithoutHoldingThem() throws IOException {
+        int rows = 100000;
+        for (ZoneFormat format : ZoneFormat.values()) {
+            ZoneReader reader = format.open(new GeneratedZones(format, rows));
+            ZoneRecord record = new ZoneRecord();
+            int count = 0;
+            while (reader.next(record)) {
+                assertTrue(record.isValid());
+                count++;
+            }
+            reader.close();
+            assertEquals(format.name(), rows, count);
+        }
+    }
+
+    // Produces a zone file of any length on the fly, so the test itself holds one row at a time
+    private static class GeneratedZones extends Reader {
+        private final int rows;
+        private final StringWriter row = new StringWriter();
+        private final ZoneWriter writer;
+        private int written;
+        private int position;
+        private boolean closed;
+
+        GeneratedZones(ZoneFormat format, int rows) throws IOException {
+            this.rows = rows;
+            this.writer = format.create(row);
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) throws IOException {
+            StringBuffer pending = row.getBuffer();
+            while (position == pending.length()) {
+                pending.setLength(0);
+                position = 0;
+                if (written < rows) {
+                    writer.write(circle("Zone " + written, (written % 1700) * 0.1 - 85, (written % 3500) * 0.1 - 175,
+                            50 + written % 100));
+                    written++;
+                    // The writer buffers; flush so each row is handed out as it is produced
+                    writer.flush();
+                } else if (!closed) {
+                    closed = true;
+                    writer.close();
+                } else {
+                    return -1;
+                }
+            }
+            int n = Math.min(length, pending.length() - position);
+            pending.getChars(position, position + n, buffer, offset);
+            position += n;
+            return n;
+        }
+
+        @Override
+        public void close() {}
+    }
+}
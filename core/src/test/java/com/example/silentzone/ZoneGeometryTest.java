@@ -0,0 +1,76 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ZoneGeometryTest {
+
+    // Concave "L" shape around (10.85, 76.27)
+    private static final String L_SHAPE =
+            "10.850,76.270;10.850,76.274;10.852,76.274;10.852,76.272;10.854,76.272;10.854,76.270";
+
+    @Test
+    public void parsePolygon_roundTrips() {
+        double[] vertices = ZoneGeometry.parsePolygon(L_SHAPE);
+        assertNotNull(vertices);
+        assertEquals(12, vertices.length);
+        assertArrayEquals(vertices, ZoneGeometry.parsePolygon(ZoneGeometry.encodePolygon(vertices)), 0);
+    }
+
+    @Test
+    public void parsePolygon_rejectsMalformedInput() {
+        assertNull(ZoneGeometry.parsePolygon(null));
+        assertNull(ZoneGeometry.parsePolygon(""));
+        assertNull(ZoneGeometry.parsePolygon("10.85,76.27;10.86,76.28"));
+        assertNull(ZoneGeometry.parsePolygon("10.85,76.27;10.86;10.87,76.29"));
+        assertNull(ZoneGeometry.parsePolygon("a,b;c,d;e,f"));
+    }
+
+    @Test
+    public void pointInPolygon_handlesConcaveShapes() {
+        double[] vertices = ZoneGeometry.parsePolygon(L_SHAPE);
+        assertTrue(ZoneGeometry.pointInPolygon(vertices, 10.851, 76.271));
+        assertTrue(ZoneGeometry.pointInPolygon(vertices, 10.851, 76.273));
+        assertTrue(ZoneGeometry.pointInPolygon(vertices, 10.853, 76.271));
+        // Inside the bounding box but in the notch of the L
+        assertFalse(ZoneGeometry.pointInPolygon(vertices, 10.853, 76.273));
+        assertFalse(ZoneGeometry.pointInPolygon(vertices, 10.849, 76.271));
+    }
+
+    @Test
+    public void bounds_coversCircleAndPolygon() {
+        double[] box = new double[4];
+        ZoneGeometry.bounds(10.85, 76.27, 100, null, box);
+        // Just outside the circle: padded by 0.1 % of the radius and a centimeter
+        assertEquals(10.85 - 100.11 / GeoMath.METERS_PER_DEGREE_LAT, box[0], 1e-9);
+        assertEquals(10.85 + 100.11 / GeoMath.METERS_PER_DEGREE_LAT, box[1], 1e-9);
+        assertTrue(box[2] < 76.27 && box[3] > 76.27);
+
+        ZoneGeometry.bounds(0, 0, 0, ZoneGeometry.parsePolygon(L_SHAPE), box);
+        assertArrayEquals(new double[]{10.850, 10.854, 76.270, 76.274}, box, 1e-12);
+    }
+
+    @Test
+    public void zoneIndex_usesPolygonInsteadOfRadius() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.852, 76.272, 10, ZoneGeometry.parsePolygon(L_SHAPE));
+        int[] out = new int[4];
+
+        // Well outside the 10 m radius but inside the outline
+        assertEquals(1, index.query(10.8505, 76.2735, out));
+        assertEquals(0, index.query(10.853, 76.273, out));
+    }
+
+    @Test
+    public void zoneIndex_respectsPerZoneRadius() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.85, 76.27, 500);
+        int[] out = new int[4];
+
+        // ~300 m north
+        assertEquals(1, index.query(10.8527, 76.27, out));
+        // ~600 m north
+        assertEquals(0, index.query(10.8554, 76.27, out));
+    }
+}
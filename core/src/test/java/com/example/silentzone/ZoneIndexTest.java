@@ -0,0 +1,183 @@
+package com.example.silentzone;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ZoneIndexTest {
+
+    private final int[] out = new int[16];
+
+    @Test
+    public void query_findsContainingZone() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.8505, 76.2711, 100);
+
+        assertEquals(1, index.query(10.8505, 76.2711, out));
+        assertEquals(1, out[0]);
+        // ~50 m north
+        assertEquals(1, index.query(10.85095, 76.2711, out));
+        // ~200 m north
+        assertEquals(0, index.query(10.8523, 76.2711, out));
+    }
+
+    @Test
+    public void query_returnsAllOverlappingZones() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.8505, 76.2711, 100);
+        index.add(2, 10.8506, 76.2712, 100);
+        index.add(3, 11.0, 77.0, 100);
+
+        int found = index.query(10.85055, 76.27115, out);
+        int[] ids = Arrays.copyOf(out, found);
+        Arrays.sort(ids);
+        assertArrayEquals(new int[]{1, 2}, ids);
+    }
+
+    @Test
+    public void query_handlesZonesStraddlingCellBoundaries() {
+        ZoneIndex index = new ZoneIndex();
+        // Exactly on a cell edge, so the circle spans four cells
+        index.add(7, 10.85, 76.27, 100);
+
+        assertEquals(1, index.query(10.8496, 76.2696, out));
+        assertEquals(1, index.query(10.8504, 76.2704, out));
+    }
+
+    @Test
+    public void queryBatch_matchesQueryPerPoint() {
+        ZoneIndex index = TraceReplay.syntheticZones(2000, 10.85, 76.27, 3);
+        int n = 400;
+        double[] lat = new double[n];
+        double[] lon = new double[n];
+        // A wandering track, so points share cells in runs
+        for (int i = 0; i < n; i++) {
+            lat[i] = 10.85 + Math.sin(i * 0.05) * 0.05;
+            lon[i] = 76.27 + i * 0.0002;
+        }
+        int stride = 16;
+        int[] batchOut = new int[n * stride];
+        int[] counts = new int[n];
+        int total = 0;
+        for (double margin : new double[] {0, 25}) {
+            index.queryBatch(lat, lon, n, margin, batchOut, stride, counts);
+            for (int i = 0; i < n; i++) {
+                int found = index.query(lat[i], lon[i], margin, out);
+                assertEquals(found, counts[i]);
+                int[] single = Arrays.copyOf(out, found);
+                int[] batched = Arrays.copyOfRange(batchOut, i * stride, i * stride + counts[i]);
+                Arrays.sort(single);
+                Arrays.sort(batched);
+                assertArrayEquals(single, batched);
+                total += found;
+            }
+        }
+        assertTrue("track never entered a zone", total > 0);
+    }
+
+    @Test
+    public void remove_dropsZoneAndReusesSlot() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.8505, 76.2711, 100);
+        index.add(2, 10.9, 76.3, 100);
+
+        index.remove(1);
+        assertFalse(index.contains(1));
+        assertEquals(0, index.query(10.8505, 76.2711, out));
+        assertEquals(1, index.size());
+
+        index.add(3, 10.8505, 76.2711, 100);
+        assertEquals(1, index.query(10.8505, 76.2711, out));
+        assertEquals(3, out[0]);
+    }
+
+    @Test
+    public void add_existingIdReplacesZone() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.8505, 76.2711, 100);
+        index.add(1, 10.9, 76.3, 100);
+
+        assertEquals(1, index.size());
+        assertEquals(0, index.query(10.8505, 76.2711, out));
+        assertEquals(1, index.query(10.9, 76.3, out));
+    }
+
+    @Test
+    public void put_replacesOnlyAChangedZone() {
+        ZoneIndex index = new ZoneIndex();
+        double rim = 10.8505 + GeoMath.metersToLatDegrees(110);
+        assertTrue(index.put(1, 10.8505, 76.2711, 100, null));
+        assertFalse(index.put(1, 10.8505, 76.2711, 100, null));
+        assertEquals(0, index.query(rim, 76.2711, out));
+
+        // A merge grew the zone to cover a duplicate 20 m north
+        assertTrue(index.put(1, 10.8505, 76.2711, 120, null));
+        assertEquals(1, index.size());
+        assertEquals(1, index.query(rim, 76.2711, out));
+        assertEquals(1, out[0]);
+    }
+
+    @Test
+    public void copy_isUnaffectedByLaterChanges() {
+        ZoneIndex index = new ZoneIndex();
+        index.add(1, 10.8505, 76.2711, 100);
+        ZoneIndex snapshot = index.copy();
+
+        index.remove(1);
+        index.add(2, 10.8505, 76.2711, 100);
+
+        assertEquals(1, snapshot.query(10.8505, 76.2711, out));
+        assertEquals(1, out[0]);
+        assertEquals(1, index.query(10.8505, 76.2711, out));
+        assertEquals(2, out[0]);
+
+        // And the copy can keep growing on its own
+        snapshot.add(3, 10.8505, 76.2711, 100);
+        assertEquals(2, snapshot.query(10.8505, 76.2711, out));
+        assertEquals(1, index.query(10.8505, 76.2711, out));
+    }
+
+    @Test
+    public void manyZones_eachFoundAtItsCenter() {
+        ZoneIndex index = new ZoneIndex();
+        for (int i = 0; i < 5000; i++) {
+            index.add(i, 10.0 + (i / 100) * 0.005, 76.0 + (i % 100) * 0.005, 50);
+        }
+        assertEquals(5000, index.size());
+        for (int i = 0; i < 5000; i += 37) {
+            assertEquals(1, index.query(10.0 + (i / 100) * 0.005, 76.0 + (i % 100) * 0.005, out));
+            assertEquals(i, out[0]);
+        }
+    }
+
+    @Test
+    public void boundingBox_neverRejectsPointsOnTheRim() {
+        for (double lat : new double[] {0, 45, 60, 75}) {
+            for (float radius : new float[] {30, 100, 5000}) {
+                ZoneIndex index = new ZoneIndex();
+                index.add(1, lat, 76.27, radius);
+                for (int bearing = 0; bearing < 360; bearing += 7) {
+                    for (double margin : new double[] {0, 25, ZoneIndex.MAX_QUERY_MARGIN}) {
+                        double[] rim = destination(lat, 76.27, bearing, radius + margin - 1e-6);
+                        assertTrue(GeoMath.haversine(lat, 76.27, rim[0], rim[1]) <= radius + margin);
+                        assertEquals("lat " + lat + ", r " + radius + ", bearing " + bearing + ", margin " + margin,
+                                1, index.query(rim[0], rim[1], margin, out));
+                    }
+                }
+            }
+        }
+    }
+
+    // The point the given distance away along a great circle, on haversine's sphere
+    private static double[] destination(double lat, double lon, double bearingDegrees, double meters) {
+        double angle = meters / GeoMath.EARTH_RADIUS_METERS;
+        double phi = Math.toRadians(lat);
+        double theta = Math.toRadians(bearingDegrees);
+        double phi2 = Math.asin(Math.sin(phi) * Math.cos(angle) + Math.cos(phi) * Math.sin(angle) * Math.cos(theta));
+        double lambda = Math.atan2(Math.sin(theta) * Math.sin(angle) * Math.cos(phi),
+                Math.cos(angle) - Math.sin(phi) * Math.sin(phi2));
+        return new double[] {Math.toDegrees(phi2), lon + Math.toDegrees(lambda)};
+    }
+}
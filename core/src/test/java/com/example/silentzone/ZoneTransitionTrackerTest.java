@@ -0,0 +1,114 @@
+package com.example.silentzone;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ZoneTransitionTrackerTest {
+
+    private static final double ZONE_LAT = 10.85;
+    private static final double ZONE_LON = 76.27;
+    private static final double EXIT_MARGIN = 25;
+
+    private ZoneIndex index;
+    private ZoneTransitionTracker tracker;
+    private final List<String> transitions = new ArrayList<>();
+    private final int[] enterHits = new int[8];
+    private final int[] holdHits = new int[8];
+
+    @Before
+    public void setUp() {
+        index = new ZoneIndex();
+        index.add(1, ZONE_LAT, ZONE_LON, 100);
+        tracker = new ZoneTransitionTracker(10000, 2);
+    }
+
+    // Feeds a fix the given number of meters north of the zone centre
+    private void fix(long timeMs, double metersNorth) {
+        double lat = ZONE_LAT + GeoMath.metersToLatDegrees(metersNorth);
+        int enterCount = index.query(lat, ZONE_LON, 0, enterHits);
+        int holdCount = index.query(lat, ZONE_LON, EXIT_MARGIN, holdHits);
+        tracker.update(timeMs, enterHits, enterCount, holdHits, holdCount,
+                (zoneId, entered, t) -> transitions.add((entered ? "enter " : "exit ") + zoneId + " @" + t));
+    }
+
+    @Test
+    public void entersOnlyAfterDwellAndConfirmation() {
+        fix(0, 50);
+        fix(5000, 50);
+        assertTrue(transitions.isEmpty());
+        fix(10000, 50);
+        assertEquals(List.of("enter 1 @10000"), transitions);
+        assertTrue(tracker.isInside(1));
+        assertEquals(1, tracker.getInsideCount());
+    }
+
+    @Test
+    public void singleOutlierDoesNotEnter() {
+        fix(0, 500);
+        fix(5000, 50);
+        fix(10000, 500);
+        fix(15000, 50);
+        assertTrue(transitions.isEmpty());
+    }
+
+    @Test
+    public void noiseAroundEdgeDoesNotFlap() {
+        enter();
+        // GPS jitter between 90 m and 120 m: past the edge but inside the exit margin
+        for (long t = 20000; t < 200000; t += 5000) {
+            fix(t, (t / 5000) % 2 == 0 ? 90 : 120);
+        }
+        assertEquals(1, transitions.size());
+        assertTrue(tracker.isInside(1));
+    }
+
+    @Test
+    public void exitsAfterLeavingExitBoundary() {
+        enter();
+        fix(20000, 200);
+        fix(25000, 200);
+        assertEquals(1, transitions.size());
+        fix(30000, 200);
+        assertEquals("exit 1 @30000", transitions.get(1));
+        assertFalse(tracker.isInside(1));
+        assertEquals(0, tracker.getInsideCount());
+    }
+
+    @Test
+    public void returningDuringExitCancelsIt() {
+        enter();
+        fix(20000, 200);
+        fix(25000, 110);
+        fix(30000, 200);
+        fix(35000, 200);
+        assertEquals(1, transitions.size());
+        fix(40000, 200);
+        assertEquals(2, transitions.size());
+    }
+
+    @Test
+    public void overlappingZonesTrackedIndependently() {
+        index.add(2, ZONE_LAT + GeoMath.metersToLatDegrees(150), ZONE_LON, 100);
+        // 100 m north: inside both (enter boundary of zone 1 is inclusive)
+        fix(0, 75);
+        fix(10000, 75);
+        assertEquals(2, tracker.getInsideCount());
+        // Walk north out of zone 1 but stay in zone 2
+        fix(20000, 200);
+        fix(30000, 200);
+        assertEquals(1, tracker.getInsideCount());
+        assertFalse(tracker.isInside(1));
+        assertTrue(tracker.isInside(2));
+    }
+
+    private void enter() {
+        fix(0, 0);
+        fix(10000, 0);
+        assertEquals(1, transitions.size());
+    }
+}
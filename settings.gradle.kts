@@ -21,3 +21,5 @@ dependencyResolutionManagement {
 
 rootProject.name = "SilentZone"
 include(":app")
+include(":core")
+include(":benchmark")